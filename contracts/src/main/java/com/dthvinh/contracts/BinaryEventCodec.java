@@ -0,0 +1,195 @@
+package com.dthvinh.contracts;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of person events. Every value starts with a format version and an event tag, so it can
+ * be decoded without headers:
+ *
+ * <pre>
+ * version  byte     {@value #VERSION}
+ * tag      byte     1 create, 2 update, 3 delete
+ * flags    byte     bit 0: id present
+ * id       16 bytes most then least significant bits, when present
+ * name     varint   UTF-8 length + 1 (0 for no name), then the bytes   (create, update)
+ * age      varint   zigzag-encoded                                      (create, update)
+ * </pre>
+ *
+ * A create of a typical person takes about 30 bytes, under half of its JSON. Readers reject versions they do not
+ * know; a new version must be decodable by every consumer before producers start writing it.
+ */
+public final class BinaryEventCodec implements EventCodec {
+    public static final byte VERSION = 1;
+    static final byte CREATE = 1;
+    static final byte UPDATE = 2;
+    static final byte DELETE = 3;
+    private static final int HAS_ID = 1;
+    private static final int MAX_VARINT_BYTES = 5;
+
+    @Override
+    public byte[] encode(PersonEvent event) {
+        UUID id = event.id();
+        byte tag;
+        String name = null;
+        int age = 0;
+        if (event instanceof CreatePerson create) {
+            tag = CREATE;
+            name = create.name();
+            age = create.age();
+        } else if (event instanceof UpdatePerson update) {
+            tag = UPDATE;
+            name = update.name();
+            age = update.age();
+        } else {
+            tag = DELETE;
+        }
+
+        byte[] nameBytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+        int size = 3 + (id == null ? 0 : 16);
+        if (tag != DELETE) {
+            size += MAX_VARINT_BYTES + (nameBytes == null ? 0 : nameBytes.length) + MAX_VARINT_BYTES;
+        }
+
+        Writer out = new Writer(size);
+        out.put(VERSION);
+        out.put(tag);
+        out.put((byte) (id == null ? 0 : HAS_ID));
+        if (id != null) {
+            out.putLong(id.getMostSignificantBits());
+            out.putLong(id.getLeastSignificantBits());
+        }
+        if (tag != DELETE) {
+            if (nameBytes == null) {
+                out.putVarint(0);
+            } else {
+                out.putVarint(nameBytes.length + 1);
+                out.put(nameBytes);
+            }
+            out.putVarint((age << 1) ^ (age >> 31));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes {@code bytes}; {@code type} is not needed since the value carries its tag.
+     */
+    @Override
+    public PersonEvent decode(String type, byte[] bytes) {
+        Reader in = new Reader(bytes);
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported person event version " + version);
+        }
+        byte tag = in.get();
+        int flags = in.get();
+        UUID id = (flags & HAS_ID) == 0 ? null : new UUID(in.getLong(), in.getLong());
+
+        PersonEvent event = switch (tag) {
+            case CREATE -> new CreatePerson(id, in.getString(), in.getZigzag());
+            case UPDATE -> new UpdatePerson(id, in.getString(), in.getZigzag());
+            case DELETE -> new DeletePerson(id);
+            default -> throw new IllegalArgumentException("Unknown person event tag " + tag);
+        };
+        if (in.remaining() != 0) {
+            throw new IllegalArgumentException("Trailing bytes after person event");
+        }
+        return event;
+    }
+
+    private static final class Writer {
+        private final byte[] buffer;
+        private int position;
+
+        Writer(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void put(byte value) {
+            buffer[position++] = value;
+        }
+
+        void put(byte[] bytes) {
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void putLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void putVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return position == buffer.length ? buffer : Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        byte get() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("Truncated person event");
+            }
+            return buffer[position++];
+        }
+
+        long getLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (get() & 0xFF);
+            }
+            return value;
+        }
+
+        int getVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 7 * MAX_VARINT_BYTES; shift += 7) {
+                byte b = get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in person event");
+        }
+
+        int getZigzag() {
+            int raw = getVarint();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        String getString() {
+            int raw = getVarint();
+            if (raw == 0) {
+                return null;
+            }
+            int length = raw - 1;
+            if (length < 0 || length > buffer.length - position) {
+                throw new IllegalArgumentException("Truncated person event");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        int remaining() {
+            return buffer.length - position;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.dthvinh.contracts;
+
+/**
+ * Encodings of person event values, named by the {@link EventHeaders#CONTENT_TYPE} header. The header values are
+ * short tokens rather than MIME types because every record carries one.
+ */
+public enum ContentType {
+    BINARY("binary", new BinaryEventCodec()),
+    JSON("json", new JsonEventCodec());
+
+    private final String headerValue;
+    private final EventCodec codec;
+
+    ContentType(String headerValue, EventCodec codec) {
+        this.headerValue = headerValue;
+        this.codec = codec;
+    }
+
+    public String headerValue() {
+        return headerValue;
+    }
+
+    public EventCodec codec() {
+        return codec;
+    }
+
+    /**
+     * The content type whose header value is {@code name} (case-insensitive), or {@code null}.
+     */
+    public static ContentType of(String name) {
+        if (name == null) {
+            return null;
+        }
+        String trimmed = name.trim();
+        for (ContentType type : values()) {
+            if (type.headerValue.equalsIgnoreCase(trimmed)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,10 @@
+package com.dthvinh.contracts;
+
+import java.util.UUID;
+
+public record CreatePerson(UUID id, String name, int age) implements PersonEvent {
+    @Override
+    public String type() {
+        return Events.CreatePersonEvent;
+    }
+}
@@ -0,0 +1,10 @@
+package com.dthvinh.contracts;
+
+import java.util.UUID;
+
+public record DeletePerson(UUID id) implements PersonEvent {
+    @Override
+    public String type() {
+        return Events.DeletePersonEvent;
+    }
+}
@@ -0,0 +1,15 @@
+package com.dthvinh.contracts;
+
+public interface EventCodec {
+
+    byte[] encode(PersonEvent event);
+
+    /**
+     * Decodes a record value. {@code type} is the {@link EventHeaders#EVENT_TYPE} header, {@code null} on records
+     * published before it existed.
+     *
+     * @return the event, or {@code null} for an event type this codec does not know
+     * @throws IllegalArgumentException if {@code bytes} cannot be decoded
+     */
+    PersonEvent decode(String type, byte[] bytes);
+}
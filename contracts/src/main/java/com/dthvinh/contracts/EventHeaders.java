@@ -0,0 +1,32 @@
+package com.dthvinh.contracts;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Record headers of the person topic. Records are keyed by person id, so the event type travels in
+ * {@value #EVENT_TYPE}, and {@value #CONTENT_TYPE} names the codec of the value. Both are written by
+ * {@link PersonEventSerializer}.
+ */
+public final class EventHeaders {
+    public static final String EVENT_TYPE = "event-type";
+    public static final String CONTENT_TYPE = "content-type";
+
+    private EventHeaders() {
+    }
+
+    public static void put(Headers headers, String name, String value) {
+        headers.remove(name);
+        headers.add(name, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The last value of header {@code name}, or {@code null}.
+     */
+    public static String get(Headers headers, String name) {
+        Header header = headers == null ? null : headers.lastHeader(name);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
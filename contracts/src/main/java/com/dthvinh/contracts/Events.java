@@ -1,7 +1,10 @@
-package com.dthvinh.constants;
+package com.dthvinh.contracts;
 
 public final class Events {
     public static final String CreatePersonEvent = "CreatePersonEvent";
     public static final String UpdatePersonEvent = "UpdatePersonEvent";
     public static final String DeletePersonEvent = "DeletePersonEvent";
+
+    private Events() {
+    }
 }
@@ -0,0 +1,76 @@
+package com.dthvinh.contracts;
+
+import com.dthvinh.contracts.json.PersonJson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * The JSON encoding the services exchanged before {@link BinaryEventCodec}: creates and updates as
+ * {@code {"id", "name", "age"}} objects, deletes as the person id string. Kept for records already on the topic and
+ * for producers that have not switched yet. Values go through the {@link PersonJson} adapters; a value whose
+ * type is known from its header is read straight from the bytes without building a JSON tree.
+ */
+public final class JsonEventCodec implements EventCodec {
+
+    @Override
+    public byte[] encode(PersonEvent event) {
+        String json;
+        if (event instanceof CreatePerson create) {
+            json = PersonJson.CREATE.toJson(create);
+        } else if (event instanceof UpdatePerson update) {
+            json = PersonJson.UPDATE.toJson(update);
+        } else {
+            json = "\"" + event.id() + "\"";
+        }
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public PersonEvent decode(String type, byte[] bytes) {
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        try {
+            if (type == null) {
+                JsonElement json = JsonParser.parseString(text);
+                return switch (legacyType(json)) {
+                    case Events.CreatePersonEvent -> PersonJson.CREATE.fromJsonTree(json);
+                    case Events.UpdatePersonEvent -> PersonJson.UPDATE.fromJsonTree(json);
+                    default -> new DeletePerson(UUID.fromString(json.getAsString()));
+                };
+            }
+
+            JsonReader in = new JsonReader(new StringReader(text));
+            PersonEvent event = switch (type) {
+                case Events.CreatePersonEvent -> PersonJson.CREATE.read(in);
+                case Events.UpdatePersonEvent -> PersonJson.UPDATE.read(in);
+                case Events.DeletePersonEvent -> new DeletePerson(UUID.fromString(in.nextString()));
+                default -> null;
+            };
+            if (event != null && in.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Trailing data after the event");
+            }
+            return event;
+        } catch (IOException | JsonParseException | IllegalStateException | UnsupportedOperationException ex) {
+            throw new IllegalArgumentException("Unreadable JSON person event", ex);
+        }
+    }
+
+    // Records from before the event type header were keyed by it, and a deserializer cannot see the key. Their
+    // shapes tell them apart: deletes are a string, and creates carried no id back then.
+    private static String legacyType(JsonElement json) {
+        if (json.isJsonPrimitive()) {
+            return Events.DeletePersonEvent;
+        }
+        JsonObject object = json.getAsJsonObject();
+        return object.has("id") ? Events.UpdatePersonEvent : Events.CreatePersonEvent;
+    }
+}
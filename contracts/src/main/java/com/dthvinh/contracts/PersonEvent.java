@@ -0,0 +1,19 @@
+package com.dthvinh.contracts;
+
+import java.util.UUID;
+
+/**
+ * An event of the person topic. The record key is {@link #id()}, so all events of one person stay in order.
+ */
+public sealed interface PersonEvent permits CreatePerson, UpdatePerson, DeletePerson {
+
+    /**
+     * The event name, one of {@link Events}.
+     */
+    String type();
+
+    /**
+     * The person the event is about. Only creates published before service A assigned ids lack one.
+     */
+    UUID id();
+}
@@ -0,0 +1,34 @@
+package com.dthvinh.contracts;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Reads person events in whichever encoding the {@link EventHeaders#CONTENT_TYPE} header names; records without
+ * it are JSON. Values that cannot be decoded, or carry an unknown event type or content type, come back as
+ * {@code null} so one bad record does not stop the consumer; consumers skip {@code null} values.
+ */
+public class PersonEventDeserializer implements Deserializer<PersonEvent> {
+
+    @Override
+    public PersonEvent deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public PersonEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        String header = EventHeaders.get(headers, EventHeaders.CONTENT_TYPE);
+        ContentType contentType = header == null ? ContentType.JSON : ContentType.of(header);
+        if (contentType == null) {
+            return null;
+        }
+        try {
+            return contentType.codec().decode(EventHeaders.get(headers, EventHeaders.EVENT_TYPE), data);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.dthvinh.contracts;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+/**
+ * Writes person events with the codec named by {@value #CONTENT_TYPE_CONFIG} (binary unless set to {@code json})
+ * and stamps the {@link EventHeaders#EVENT_TYPE} and {@link EventHeaders#CONTENT_TYPE} headers.
+ */
+public class PersonEventSerializer implements Serializer<PersonEvent> {
+    public static final String CONTENT_TYPE_CONFIG = "person.event.content.type";
+
+    private ContentType contentType = ContentType.BINARY;
+
+    public PersonEventSerializer() {
+    }
+
+    public PersonEventSerializer(ContentType contentType) {
+        this.contentType = contentType;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object configured = configs.get(CONTENT_TYPE_CONFIG);
+        if (configured != null) {
+            ContentType type = ContentType.of(configured.toString());
+            if (type == null) {
+                throw new IllegalArgumentException("Unknown " + CONTENT_TYPE_CONFIG + " '" + configured + "'");
+            }
+            contentType = type;
+        }
+    }
+
+    public ContentType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public byte[] serialize(String topic, PersonEvent data) {
+        return data == null ? null : contentType.codec().encode(data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, PersonEvent data) {
+        if (data == null) {
+            return null;
+        }
+        EventHeaders.put(headers, EventHeaders.EVENT_TYPE, data.type());
+        EventHeaders.put(headers, EventHeaders.CONTENT_TYPE, contentType.headerValue());
+        return contentType.codec().encode(data);
+    }
+}
@@ -0,0 +1,93 @@
+package com.dthvinh.contracts;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Which topic each event type is published to. Types without a route go to the default topic, which for
+ * {@link #parse(String)} is {@link Topics#PERSONS}, the topic every event shared before routing. Consumers read the
+ * default topic next to the routed ones, so producers can move a type to its own topic at any time and the records
+ * already on the default topic are still drained.
+ *
+ * <p>Routes are written as {@code EventType=topic} pairs separated by commas:
+ *
+ * <pre>
+ * UpdatePersonEvent=person-updates,DeletePersonEvent=person-deletes
+ * </pre>
+ */
+public final class TopicRoutes {
+    public static final TopicRoutes LEGACY = to(Topics.PERSONS);
+
+    private static final Set<String> EVENT_TYPES =
+            Set.of(Events.CreatePersonEvent, Events.UpdatePersonEvent, Events.DeletePersonEvent);
+
+    private final String defaultTopic;
+    private final Map<String, String> routes;
+    private final Set<String> topics;
+
+    private TopicRoutes(String defaultTopic, Map<String, String> routes) {
+        this.defaultTopic = defaultTopic;
+        this.routes = Collections.unmodifiableMap(routes);
+        Set<String> all = new LinkedHashSet<>();
+        all.add(defaultTopic);
+        all.addAll(routes.values());
+        this.topics = Collections.unmodifiableSet(all);
+    }
+
+    /**
+     * Every event type to {@code topic}.
+     */
+    public static TopicRoutes to(String topic) {
+        return new TopicRoutes(topic, Map.of());
+    }
+
+    /**
+     * Routes from {@code spec}; an empty or {@code null} spec routes everything to {@link Topics#PERSONS}.
+     *
+     * @throws IllegalArgumentException if a pair is malformed or names an unknown event type
+     */
+    public static TopicRoutes parse(String spec) {
+        Map<String, String> routes = new LinkedHashMap<>();
+        if (spec != null) {
+            for (String pair : spec.split(",")) {
+                if (pair.isBlank()) {
+                    continue;
+                }
+                int eq = pair.indexOf('=');
+                String type = eq < 0 ? "" : pair.substring(0, eq).trim();
+                String topic = eq < 0 ? "" : pair.substring(eq + 1).trim();
+                if (type.isEmpty() || topic.isEmpty()) {
+                    throw new IllegalArgumentException("Invalid topic route '" + pair.trim() + "'");
+                }
+                if (!EVENT_TYPES.contains(type)) {
+                    throw new IllegalArgumentException("Unknown event type '" + type + "' in topic routes");
+                }
+                routes.put(type, topic);
+            }
+        }
+        return new TopicRoutes(Topics.PERSONS, routes);
+    }
+
+    public String topicFor(String eventType) {
+        return routes.getOrDefault(eventType, defaultTopic);
+    }
+
+    public String defaultTopic() {
+        return defaultTopic;
+    }
+
+    /**
+     * The default topic first, then every routed topic.
+     */
+    public Set<String> topics() {
+        return topics;
+    }
+
+    @Override
+    public String toString() {
+        return routes.isEmpty() ? defaultTopic : routes + ", others to " + defaultTopic;
+    }
+}
@@ -0,0 +1,8 @@
+package com.dthvinh.contracts;
+
+public final class Topics {
+    public static final String PERSONS = "microservice-service-bridge";
+
+    private Topics() {
+    }
+}
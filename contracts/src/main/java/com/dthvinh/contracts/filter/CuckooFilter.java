@@ -0,0 +1,248 @@
+package com.dthvinh.contracts.filter;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cuckoo filter of person ids: answers "definitely absent" or "maybe present" and supports deletes. Each bucket
+ * holds four 16-bit fingerprints packed into one {@code long}, which gives a false-positive rate of about 0.012% at
+ * roughly 2.1 bytes per id. Writers are serialized; readers take no lock and retry if a write (which may move
+ * fingerprints between buckets) overlapped their read, so a reader never misses an id that is present.
+ *
+ * <p>If an insert cannot find room the filter marks itself overflowed and from then on answers "maybe" for every
+ * id, so it stays safe to consult. Service B writes its snapshots and service A reads them, so the snapshot format
+ * is part of the contract between the two.
+ */
+public final class CuckooFilter {
+    static final int SLOTS = 4;
+    static final int FINGERPRINT_BITS = 16;
+    static final int MAX_KICKS = 500;
+    static final double MAX_LOAD = 0.95;
+    private static final long FINGERPRINT_MASK = (1L << FINGERPRINT_BITS) - 1;
+    private static final int MAGIC = 0x434B4631; // "CKF1"
+    private static final int HEADER_BYTES = 4 + 8 + 4 + 4 + 1;
+
+    private final AtomicLongArray buckets;
+    private final int bucketCount;
+    // Odd while a write is in progress.
+    private final AtomicLong version = new AtomicLong();
+    private volatile int count;
+    private volatile boolean overflowed;
+
+    private CuckooFilter(AtomicLongArray buckets, int count, boolean overflowed) {
+        this.buckets = buckets;
+        this.bucketCount = buckets.length();
+        this.count = count;
+        this.overflowed = overflowed;
+    }
+
+    /**
+     * A filter that holds {@code expectedIds} ids below its maximum load.
+     */
+    public static CuckooFilter withCapacity(int expectedIds) {
+        int bucketCount = (int) Math.ceil(Math.max(1, expectedIds) / (SLOTS * MAX_LOAD));
+        return new CuckooFilter(new AtomicLongArray(bucketCount), 0, false);
+    }
+
+    public boolean mightContain(UUID id) {
+        if (overflowed) {
+            return true;
+        }
+        long hash = hash(id);
+        int fingerprint = fingerprint(hash);
+        int first = index(hash);
+        int second = alternate(first, fingerprint);
+        while (true) {
+            long before = version.get();
+            if ((before & 1) == 0) {
+                boolean found = holds(buckets.get(first), fingerprint) || holds(buckets.get(second), fingerprint);
+                if (version.get() == before) {
+                    return found || overflowed;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Adds {@code id}; {@code false} if the filter is (or just became) overflowed.
+     */
+    public synchronized boolean add(UUID id) {
+        if (overflowed) {
+            return false;
+        }
+        long hash = hash(id);
+        int fingerprint = fingerprint(hash);
+        int bucket = index(hash);
+
+        version.incrementAndGet();
+        try {
+            if (insert(bucket, fingerprint) || insert(alternate(bucket, fingerprint), fingerprint)) {
+                count++;
+                return true;
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextBoolean()) {
+                bucket = alternate(bucket, fingerprint);
+            }
+            for (int kick = 0; kick < MAX_KICKS; kick++) {
+                int slot = random.nextInt(SLOTS);
+                long packed = buckets.get(bucket);
+                int victim = slotOf(packed, slot);
+                buckets.set(bucket, withSlot(packed, slot, fingerprint));
+                fingerprint = victim;
+                bucket = alternate(bucket, fingerprint);
+                if (insert(bucket, fingerprint)) {
+                    count++;
+                    return true;
+                }
+            }
+            // The last victim has nowhere to go; answer "maybe" from now on rather than lose it.
+            overflowed = true;
+            return false;
+        } finally {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes one copy of {@code id}'s fingerprint. Only ids that were added may be removed.
+     */
+    public synchronized boolean remove(UUID id) {
+        long hash = hash(id);
+        int fingerprint = fingerprint(hash);
+        int first = index(hash);
+
+        version.incrementAndGet();
+        try {
+            if (clear(first, fingerprint) || clear(alternate(first, fingerprint), fingerprint)) {
+                count--;
+                return true;
+            }
+            return false;
+        } finally {
+            version.incrementAndGet();
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    /**
+     * Bytes held by the fingerprint table.
+     */
+    public long bytes() {
+        return (long) buckets.length() * Long.BYTES;
+    }
+
+    /**
+     * Serializes the filter, stamped with {@code takenAtMillis} so readers know which ids it can vouch for.
+     */
+    public synchronized byte[] toBytes(long takenAtMillis) {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + buckets.length() * Long.BYTES);
+        out.putInt(MAGIC).putLong(takenAtMillis).putInt(buckets.length()).putInt(count)
+                .put((byte) (overflowed ? 1 : 0));
+        for (int i = 0; i < buckets.length(); i++) {
+            out.putLong(buckets.get(i));
+        }
+        return out.array();
+    }
+
+    public static Snapshot fromBytes(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER_BYTES || in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a cuckoo filter snapshot");
+        }
+        long takenAtMillis = in.getLong();
+        int bucketCount = in.getInt();
+        int count = in.getInt();
+        boolean overflowed = in.get() != 0;
+        if (bucketCount <= 0 || in.remaining() != (long) bucketCount * Long.BYTES) {
+            throw new IllegalArgumentException("Corrupt cuckoo filter snapshot");
+        }
+        AtomicLongArray buckets = new AtomicLongArray(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.set(i, in.getLong());
+        }
+        return new Snapshot(new CuckooFilter(buckets, count, overflowed), takenAtMillis);
+    }
+
+    public record Snapshot(CuckooFilter filter, long takenAtMillis) {
+    }
+
+    private boolean insert(int bucket, int fingerprint) {
+        long packed = buckets.get(bucket);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (slotOf(packed, slot) == 0) {
+                buckets.set(bucket, withSlot(packed, slot, fingerprint));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean clear(int bucket, int fingerprint) {
+        long packed = buckets.get(bucket);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (slotOf(packed, slot) == fingerprint) {
+                buckets.set(bucket, withSlot(packed, slot, 0));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean holds(long packed, int fingerprint) {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (slotOf(packed, slot) == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int slotOf(long packed, int slot) {
+        return (int) ((packed >>> (slot * FINGERPRINT_BITS)) & FINGERPRINT_MASK);
+    }
+
+    private static long withSlot(long packed, int slot, int fingerprint) {
+        int shift = slot * FINGERPRINT_BITS;
+        return (packed & ~(FINGERPRINT_MASK << shift)) | ((long) fingerprint << shift);
+    }
+
+    private int index(long hash) {
+        return (int) (((hash >>> 32) * bucketCount) >>> 32);
+    }
+
+    // Partial-key cuckoo hashing: the other bucket depends only on the current one and the fingerprint. Subtracting
+    // modulo the bucket count is its own inverse, so the table need not be a power of two.
+    private int alternate(int bucket, int fingerprint) {
+        long offset = (fingerprint * 0x5BD1E995) & 0x7FFFFFFFL;
+        return (int) Math.floorMod(offset - bucket, (long) bucketCount);
+    }
+
+    private static int fingerprint(long hash) {
+        int fingerprint = (int) (hash & FINGERPRINT_MASK);
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    // Time-ordered ids share their high bits, so mix both halves (murmur3 finalizer).
+    static long hash(UUID id) {
+        long h = id.getMostSignificantBits() * 0x9E3779B97F4A7C15L ^ id.getLeastSignificantBits();
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9F53A88E6B3L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
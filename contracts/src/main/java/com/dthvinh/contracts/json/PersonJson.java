@@ -0,0 +1,122 @@
+package com.dthvinh.contracts.json;
+
+import com.dthvinh.contracts.CreatePerson;
+import com.dthvinh.contracts.UpdatePerson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Hand-written Gson adapters for person-shaped records, {@code {"id", "name", "age"}}, so that no message goes
+ * through Gson's reflective record handling. They produce and accept the same JSON as the reflective path: null
+ * fields are left out, unknown fields are skipped and a missing age reads as 0.
+ *
+ * <p>Kept out of {@code com.dthvinh.contracts} because its API is made of Gson types: each bundle embeds its own
+ * Gson, so this package stays private to every bundle while the event types may be shared between them.
+ */
+public final class PersonJson {
+    public static final TypeAdapter<CreatePerson> CREATE =
+            adapter(CreatePerson::new, CreatePerson::id, CreatePerson::name, CreatePerson::age);
+    public static final TypeAdapter<UpdatePerson> UPDATE =
+            adapter(UpdatePerson::new, UpdatePerson::id, UpdatePerson::name, UpdatePerson::age);
+
+    private PersonJson() {
+    }
+
+    @FunctionalInterface
+    public interface Factory<T> {
+        T create(UUID id, String name, int age);
+    }
+
+    /**
+     * Registers the event adapters on {@code builder}.
+     */
+    public static GsonBuilder register(GsonBuilder builder) {
+        return builder
+                .registerTypeAdapter(CreatePerson.class, CREATE)
+                .registerTypeAdapter(UpdatePerson.class, UPDATE);
+    }
+
+    /**
+     * An adapter for a record with a person's fields. {@code id} may always return {@code null} for records
+     * without one; an {@code id} in the JSON is then ignored by {@code factory}.
+     */
+    public static <T> TypeAdapter<T> adapter(Factory<T> factory, Function<T, UUID> id, Function<T, String> name,
+                                             ToIntFunction<T> age) {
+        return new TypeAdapter<T>() {
+            @Override
+            public void write(JsonWriter out, T value) throws IOException {
+                out.beginObject();
+                UUID personId = id.apply(value);
+                if (personId != null) {
+                    out.name("id").value(personId.toString());
+                }
+                String personName = name.apply(value);
+                if (personName != null) {
+                    out.name("name").value(personName);
+                }
+                out.name("age").value(age.applyAsInt(value));
+                out.endObject();
+            }
+
+            @Override
+            public T read(JsonReader in) throws IOException {
+                UUID personId = null;
+                String personName = null;
+                int personAge = 0;
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "id" -> personId = readId(in);
+                        case "name" -> personName = readName(in);
+                        case "age" -> personAge = readAge(in);
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+                return factory.create(personId, personName, personAge);
+            }
+        }.nullSafe();
+    }
+
+    private static UUID readId(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String value = in.nextString();
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException ex) {
+            throw new JsonSyntaxException("Not a UUID: " + value, ex);
+        }
+    }
+
+    private static String readName(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static int readAge(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            throw new JsonParseException("null is not allowed as age");
+        }
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException ex) {
+            throw new JsonSyntaxException(ex);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.dthvinh.contracts.transport;
+
+import com.dthvinh.contracts.PersonEvent;
+
+/**
+ * The receiving end of a transport: service B's event handlers, service A's read model.
+ */
+@FunctionalInterface
+public interface EventSink {
+
+    /**
+     * Handles {@code event}. Called by one thread at a time for the events of one person, in order.
+     */
+    void accept(PersonEvent event);
+}
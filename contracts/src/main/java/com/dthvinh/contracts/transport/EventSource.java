@@ -0,0 +1,18 @@
+package com.dthvinh.contracts.transport;
+
+/**
+ * A transport seen from the consuming side: sinks subscribe and are handed every event sent from then on.
+ */
+public interface EventSource {
+
+    Subscription subscribe(EventSink sink);
+
+    interface Subscription extends AutoCloseable {
+
+        /**
+         * Stops delivery to the sink. An event being handled when this is called still completes.
+         */
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,32 @@
+package com.dthvinh.contracts.transport;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.dthvinh.contracts.PersonEvent;
+
+/**
+ * Carries events from the service that publishes them to the handlers of the service that consumes them, when that
+ * is not Kafka. Service A's {@code KafkaPublisher} sends through a transport registered as an OSGi service
+ * (property {@value #TRANSPORT_PROPERTY}) while one is bound and through Kafka otherwise.
+ */
+public interface EventTransport {
+    String TRANSPORT_PROPERTY = "transport";
+
+    /**
+     * Hands {@code event} over. Events of one person are delivered in the order they were sent.
+     *
+     * @return completes once the event was delivered, or exceptionally if it could not be
+     */
+    CompletableFuture<Delivery> send(PersonEvent event);
+
+    /**
+     * Free share of the transport's buffer, from 0 (full, sends wait or fail) to 1 (empty).
+     */
+    double headroom();
+
+    /**
+     * Where a delivered event went: the lane (the partition, for Kafka) and its position in that lane.
+     */
+    record Delivery(int lane, long sequence) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.dthvinh.contracts.transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded ring for many producers and one consumer, without locks (after D. Vyukov's bounded MPMC queue). Every slot
+ * carries a sequence number saying whose turn it is: a producer claims a position with one CAS on the tail and
+ * publishes the element by advancing the slot's sequence; the consumer takes it and advances the sequence by one lap,
+ * handing the slot back to producers.
+ */
+final class LoopbackRing<E> {
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    LoopbackRing(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two, got " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return {@code false} if the ring is full
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long turn = sequences.get(index) - position;
+            if (turn == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    // Visible to the consumer through the volatile write of the sequence.
+                    slots.setPlain(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (turn < 0) {
+                // The slot still holds the element of the previous lap.
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest element. Only ever called from the consumer thread.
+     *
+     * @return the element, or {@code null} if the ring is empty
+     */
+    E poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = slots.getPlain(index);
+        slots.setPlain(index, null);
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        return element;
+    }
+
+    boolean isEmpty() {
+        long position = head;
+        return sequences.get((int) position & mask) != position + 1;
+    }
+
+    /**
+     * Claimed slots, those still being published included.
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,224 @@
+package com.dthvinh.contracts.transport;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.dthvinh.contracts.PersonEvent;
+
+/**
+ * A transport for a service A and a service B running in one JVM: events are handed to the subscribed
+ * {@link EventSink}s as they are, with no serialization and no broker. Events are spread over lanes by person id,
+ * each lane a bounded {@link LoopbackRing} drained by its own thread, so the events of one person are handled in the
+ * order they were sent while different persons are handled in parallel.
+ *
+ * <p>A full lane holds the sender for up to {@code maxBlockMs}, as {@code max.block.ms} does on a producer, then fails
+ * the send. Events wait in the lanes until the first sink subscribes. Nothing is persisted: events still queued when
+ * the transport is closed are failed.
+ */
+public final class LoopbackTransport implements EventTransport, EventSource, AutoCloseable {
+    public static final String NAME = "loopback";
+    public static final int DEFAULT_LANES = 4;
+    public static final int DEFAULT_CAPACITY = 8_192;
+    public static final long DEFAULT_MAX_BLOCK_MS = 1_000;
+
+    static final long IDLE_PARK_NS = TimeUnit.MILLISECONDS.toNanos(10);
+    static final long FULL_PARK_NS = TimeUnit.MICROSECONDS.toNanos(50);
+    static final long CLOSE_TIMEOUT_MS = 5_000;
+
+    private final Lane[] lanes;
+    private final long maxBlockNs;
+    private final List<EventSink> sinks = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    public LoopbackTransport() {
+        this(DEFAULT_LANES, DEFAULT_CAPACITY, DEFAULT_MAX_BLOCK_MS);
+    }
+
+    /**
+     * @param capacity events per lane, rounded up to a power of two
+     * @throws IllegalArgumentException if {@code lanes} or {@code capacity} is below 1 or {@code maxBlockMs} below 0
+     */
+    public LoopbackTransport(int lanes, int capacity, long maxBlockMs) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("Loopback lanes must be at least 1, got " + lanes);
+        }
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Loopback capacity must be between 1 and 2^30, got " + capacity);
+        }
+        if (maxBlockMs < 0) {
+            throw new IllegalArgumentException("Loopback max block must not be negative, got " + maxBlockMs);
+        }
+        this.maxBlockNs = TimeUnit.MILLISECONDS.toNanos(maxBlockMs);
+        this.lanes = new Lane[lanes];
+        int ringCapacity = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new Lane(i, ringCapacity);
+        }
+        for (Lane lane : this.lanes) {
+            lane.thread.start();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Delivery> send(PersonEvent event) {
+        Pending pending = new Pending(event);
+        if (closed) {
+            pending.completeExceptionally(new IllegalStateException("Loopback transport is closed"));
+            return pending;
+        }
+        Lane lane = laneFor(event.id());
+        if (!offer(lane, pending)) {
+            pending.completeExceptionally(closed
+                    ? new IllegalStateException("Loopback transport is closed")
+                    : new RejectedExecutionException("Loopback lane " + lane.index + " stayed full for "
+                    + TimeUnit.NANOSECONDS.toMillis(maxBlockNs) + "ms"));
+        }
+        return pending;
+    }
+
+    private boolean offer(Lane lane, Pending pending) {
+        long deadline = System.nanoTime() + maxBlockNs;
+        while (!lane.ring.offer(pending)) {
+            if (closed || System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(FULL_PARK_NS);
+        }
+        lane.wake();
+        return true;
+    }
+
+    private Lane laneFor(UUID id) {
+        if (lanes.length == 1) {
+            return lanes[0];
+        }
+        if (id == null) {
+            return lanes[ThreadLocalRandom.current().nextInt(lanes.length)];
+        }
+        int hash = id.hashCode();
+        return lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)];
+    }
+
+    /**
+     * Free share of the fullest lane.
+     */
+    @Override
+    public double headroom() {
+        double headroom = 1.0;
+        for (Lane lane : lanes) {
+            headroom = Math.min(headroom, 1.0 - (double) lane.ring.size() / lane.ring.capacity());
+        }
+        return Math.max(0.0, headroom);
+    }
+
+    @Override
+    public Subscription subscribe(EventSink sink) {
+        sinks.add(sink);
+        for (Lane lane : lanes) {
+            lane.wake();
+        }
+        return () -> sinks.remove(sink);
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Stops the lanes once they have delivered what they hold, waiting at most {@value #CLOSE_TIMEOUT_MS}ms for
+     * each; whatever is left then is failed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Lane lane : lanes) {
+            lane.wake();
+        }
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join(CLOSE_TIMEOUT_MS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (!lane.thread.isAlive()) {
+                for (Pending pending; (pending = lane.ring.poll()) != null; ) {
+                    pending.completeExceptionally(new IllegalStateException("Loopback transport is closed"));
+                }
+            }
+        }
+    }
+
+    private static final class Pending extends CompletableFuture<Delivery> {
+        final PersonEvent event;
+
+        Pending(PersonEvent event) {
+            this.event = event;
+        }
+    }
+
+    private final class Lane implements Runnable {
+        final int index;
+        final LoopbackRing<Pending> ring;
+        final Thread thread;
+        volatile boolean parked;
+
+        Lane(int index, int capacity) {
+            this.index = index;
+            this.ring = new LoopbackRing<>(capacity);
+            this.thread = new Thread(this, "Loopback-Lane-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        void wake() {
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            long sequence = 0;
+            while (true) {
+                Pending pending = sinks.isEmpty() ? null : ring.poll();
+                if (pending != null) {
+                    deliver(pending, sequence++);
+                } else if (closed && (sinks.isEmpty() || ring.isEmpty())) {
+                    return;
+                } else {
+                    // Senders unpark the lane once they see the flag; the timeout only bounds a missed wake-up.
+                    parked = true;
+                    if ((sinks.isEmpty() || ring.isEmpty()) && !closed) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NS);
+                    }
+                    parked = false;
+                }
+            }
+        }
+
+        private void deliver(Pending pending, long sequence) {
+            RuntimeException failure = null;
+            for (EventSink sink : sinks) {
+                try {
+                    sink.accept(pending.event);
+                } catch (RuntimeException ex) {
+                    if (failure == null) {
+                        failure = ex;
+                    } else {
+                        failure.addSuppressed(ex);
+                    }
+                }
+            }
+            if (failure == null) {
+                pending.complete(new Delivery(index, sequence));
+            } else {
+                pending.completeExceptionally(failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.dthvinh.bench;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dthvinh.contracts.BinaryEventCodec;
+import com.dthvinh.contracts.CreatePerson;
+import com.dthvinh.contracts.Events;
+import com.dthvinh.contracts.JsonEventCodec;
+import com.dthvinh.contracts.PersonEvent;
+
+/**
+ * Encoding and decoding cost of a create event in the binary and the JSON encoding. The sizes are printed once at
+ * start-up (33 against 76 bytes for the event below).
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dthvinh.bench.EventCodecBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventCodecBenchmark {
+
+    private final BinaryEventCodec binary = new BinaryEventCodec();
+    private final JsonEventCodec json = new JsonEventCodec();
+    private final PersonEvent event = new CreatePerson(UUID.randomUUID(), "Alice Nguyen", 30);
+    private final byte[] binaryBytes = binary.encode(event);
+    private final byte[] jsonBytes = json.encode(event);
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return binary.encode(event);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return json.encode(event);
+    }
+
+    @Benchmark
+    public PersonEvent decodeBinary() {
+        return binary.decode(Events.CreatePersonEvent, binaryBytes);
+    }
+
+    @Benchmark
+    public PersonEvent decodeJson() {
+        return json.decode(Events.CreatePersonEvent, jsonBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        EventCodecBenchmark sizes = new EventCodecBenchmark();
+        System.out.printf("create event: binary %d bytes, json %d bytes%n",
+                sizes.binaryBytes.length, sizes.jsonBytes.length);
+        new Runner(new OptionsBuilder()
+                .include(EventCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
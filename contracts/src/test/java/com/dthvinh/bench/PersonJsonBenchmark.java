@@ -0,0 +1,73 @@
+package com.dthvinh.bench;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dthvinh.contracts.json.PersonJson;
+import com.dthvinh.contracts.UpdatePerson;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Serializing and deserializing an update event with Gson's reflective record handling against the
+ * {@link PersonJson} adapters. Runs with the GC profiler, so {@code gc.alloc.rate.norm} shows the bytes allocated
+ * per operation next to the time.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dthvinh.bench.PersonJsonBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonJsonBenchmark {
+
+    private final Gson reflective = new Gson();
+    private final Gson adapted = PersonJson.register(new GsonBuilder()).create();
+    private final UpdatePerson event = new UpdatePerson(UUID.randomUUID(), "Alice Nguyen", 30);
+    private final String json = reflective.toJson(event);
+
+    @Benchmark
+    public String serializeReflective() {
+        return reflective.toJson(event);
+    }
+
+    @Benchmark
+    public String serializeAdapter() {
+        return adapted.toJson(event);
+    }
+
+    @Benchmark
+    public UpdatePerson deserializeReflective() {
+        return reflective.fromJson(json, UpdatePerson.class);
+    }
+
+    @Benchmark
+    public UpdatePerson deserializeAdapter() {
+        return adapted.fromJson(json, UpdatePerson.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PersonJsonBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,65 @@
+package com.dthvinh.contracts;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class BinaryEventCodecTest {
+
+    private final BinaryEventCodec binary = new BinaryEventCodec();
+    private final JsonEventCodec json = new JsonEventCodec();
+    private final UUID id = UUID.fromString("0192b3c4-d5e6-7f01-8a2b-3c4d5e6f7a8b");
+
+    @Test
+    void events_roundTrip() {
+        for (PersonEvent event : List.of(
+                new CreatePerson(id, "Alice", 30),
+                new CreatePerson(null, "Legacy", 0),
+                new UpdatePerson(id, "Zoë Ñúñez", -1),
+                new UpdatePerson(id, null, Integer.MAX_VALUE),
+                new CreatePerson(id, "", Integer.MIN_VALUE),
+                new DeletePerson(id))) {
+            assertEquals(event, binary.decode(null, binary.encode(event)));
+        }
+    }
+
+    @Test
+    void create_isLessThanHalfTheSizeOfJson() {
+        CreatePerson create = new CreatePerson(id, "Alice Nguyen", 30);
+
+        int binarySize = binary.encode(create).length;
+        int jsonSize = json.encode(create).length;
+
+        assertEquals(3 + 16 + 1 + 12 + 1, binarySize);
+        assertTrue(binarySize * 2 < jsonSize, binarySize + " vs " + jsonSize + " bytes");
+    }
+
+    @Test
+    void layout_isStable() {
+        byte[] bytes = binary.encode(new DeletePerson(id));
+
+        assertArrayEquals(new byte[]{BinaryEventCodec.VERSION, BinaryEventCodec.DELETE, 1},
+                Arrays.copyOf(bytes, 3));
+        assertEquals(19, bytes.length);
+    }
+
+    @Test
+    void malformedValues_areRejected() {
+        byte[] create = binary.encode(new CreatePerson(id, "Alice", 30));
+        byte[] futureVersion = create.clone();
+        futureVersion[0] = 2;
+        byte[] trailing = Arrays.copyOf(create, create.length + 1);
+
+        assertThrows(IllegalArgumentException.class, () -> binary.decode(null, futureVersion));
+        assertThrows(IllegalArgumentException.class, () -> binary.decode(null, Arrays.copyOf(create, 10)));
+        assertThrows(IllegalArgumentException.class, () -> binary.decode(null, trailing));
+        assertThrows(IllegalArgumentException.class, () -> binary.decode(null, new byte[0]));
+    }
+}
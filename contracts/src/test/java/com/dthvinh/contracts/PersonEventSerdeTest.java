@@ -0,0 +1,85 @@
+package com.dthvinh.contracts;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+class PersonEventSerdeTest {
+
+    private final PersonEventDeserializer deserializer = new PersonEventDeserializer();
+    private final UUID id = UUID.randomUUID();
+
+    @Test
+    void serializer_stampsEventAndContentType() {
+        PersonEventSerializer serializer = new PersonEventSerializer();
+        Headers headers = new RecordHeaders();
+
+        byte[] value = serializer.serialize(Topics.PERSONS, headers, new UpdatePerson(id, "Alice", 31));
+
+        assertEquals(Events.UpdatePersonEvent, EventHeaders.get(headers, EventHeaders.EVENT_TYPE));
+        assertEquals(ContentType.BINARY.headerValue(), EventHeaders.get(headers, EventHeaders.CONTENT_TYPE));
+        assertEquals(new UpdatePerson(id, "Alice", 31), deserializer.deserialize(Topics.PERSONS, headers, value));
+    }
+
+    @Test
+    void json_isSelectableByConfiguration() {
+        PersonEventSerializer serializer = new PersonEventSerializer();
+        serializer.configure(Map.of(PersonEventSerializer.CONTENT_TYPE_CONFIG, "json"), false);
+        Headers headers = new RecordHeaders();
+
+        byte[] value = serializer.serialize(Topics.PERSONS, headers, new DeletePerson(id));
+
+        assertEquals("\"" + id + "\"", new String(value, StandardCharsets.UTF_8));
+        assertEquals(ContentType.JSON.headerValue(), EventHeaders.get(headers, EventHeaders.CONTENT_TYPE));
+        assertEquals(new DeletePerson(id), deserializer.deserialize(Topics.PERSONS, headers, value));
+        assertThrows(IllegalArgumentException.class, () -> serializer.configure(
+                Map.of(PersonEventSerializer.CONTENT_TYPE_CONFIG, "avro"), false));
+    }
+
+    @Test
+    void recordsWithEventTypeHeaderOnly_areJson() {
+        Headers headers = new RecordHeaders();
+        EventHeaders.put(headers, EventHeaders.EVENT_TYPE, Events.CreatePersonEvent);
+
+        assertEquals(new CreatePerson(id, "Carol", 25), deserializer.deserialize(Topics.PERSONS, headers,
+                json("{\"id\":\"" + id + "\",\"name\":\"Carol\",\"age\":25}")));
+    }
+
+    @Test
+    void recordsWithoutHeaders_areTypedByShape() {
+        Headers headers = new RecordHeaders();
+
+        assertEquals(new CreatePerson(null, "Bob", 40),
+                deserializer.deserialize(Topics.PERSONS, headers, json("{\"name\":\"Bob\",\"age\":40}")));
+        assertEquals(new UpdatePerson(id, "Bob", 41), deserializer.deserialize(Topics.PERSONS, headers,
+                json("{\"id\":\"" + id + "\",\"name\":\"Bob\",\"age\":41}")));
+        assertEquals(new DeletePerson(id),
+                deserializer.deserialize(Topics.PERSONS, headers, json("\"" + id + "\"")));
+    }
+
+    @Test
+    void unreadableRecords_areNull() {
+        Headers unknownType = new RecordHeaders();
+        EventHeaders.put(unknownType, EventHeaders.EVENT_TYPE, "SomethingElse");
+        Headers unknownContent = new RecordHeaders();
+        EventHeaders.put(unknownContent, EventHeaders.CONTENT_TYPE, "avro");
+
+        assertNull(deserializer.deserialize(Topics.PERSONS, new RecordHeaders(), json("not json")));
+        assertNull(deserializer.deserialize(Topics.PERSONS, new RecordHeaders(), json("\"not-a-uuid\"")));
+        assertNull(deserializer.deserialize(Topics.PERSONS, unknownType, json("{}")));
+        assertNull(deserializer.deserialize(Topics.PERSONS, unknownContent, new byte[]{1, 3, 0}));
+        assertNull(deserializer.deserialize(Topics.PERSONS, new RecordHeaders(), (byte[]) null));
+    }
+
+    private static byte[] json(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,36 @@
+package com.dthvinh.contracts;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TopicRoutesTest {
+
+    @Test
+    void parse_routesListedTypes_andSendsTheRestToTheLegacyTopic() {
+        TopicRoutes routes = TopicRoutes.parse(
+                " UpdatePersonEvent = person-updates, DeletePersonEvent=person-deletes ,");
+
+        assertEquals("person-updates", routes.topicFor(Events.UpdatePersonEvent));
+        assertEquals("person-deletes", routes.topicFor(Events.DeletePersonEvent));
+        assertEquals(Topics.PERSONS, routes.topicFor(Events.CreatePersonEvent));
+        assertEquals(List.of(Topics.PERSONS, "person-updates", "person-deletes"), List.copyOf(routes.topics()));
+    }
+
+    @Test
+    void parse_withoutRoutes_isTheLegacyTopicOnly() {
+        assertEquals(List.of(Topics.PERSONS), List.copyOf(TopicRoutes.parse(null).topics()));
+        assertEquals(List.of(Topics.PERSONS), List.copyOf(TopicRoutes.parse(" ").topics()));
+        assertEquals(Topics.PERSONS, TopicRoutes.LEGACY.topicFor(Events.DeletePersonEvent));
+    }
+
+    @Test
+    void parse_rejectsMalformedRoutesAndUnknownTypes() {
+        assertThrows(IllegalArgumentException.class, () -> TopicRoutes.parse("UpdatePersonEvent"));
+        assertThrows(IllegalArgumentException.class, () -> TopicRoutes.parse("UpdatePersonEvent="));
+        assertThrows(IllegalArgumentException.class, () -> TopicRoutes.parse("RenamePersonEvent=person-renames"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.dthvinh.contracts.filter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CuckooFilterTest {
+
+    @Test
+    void addedIds_areFound_andRemovedIdsAreNot() {
+        CuckooFilter filter = CuckooFilter.withCapacity(1_000);
+        UUID kept = UUID.randomUUID();
+        UUID removed = UUID.randomUUID();
+
+        Assertions.assertTrue(filter.add(kept));
+        Assertions.assertTrue(filter.add(removed));
+        Assertions.assertTrue(filter.remove(removed));
+
+        Assertions.assertTrue(filter.mightContain(kept));
+        Assertions.assertFalse(filter.mightContain(removed));
+        Assertions.assertEquals(1, filter.size());
+    }
+
+    @Test
+    void millionIds_haveNoFalseNegatives_andStayWithinFalsePositiveAndMemoryBounds() {
+        int ids = 1_000_000;
+        CuckooFilter filter = CuckooFilter.withCapacity(ids);
+        List<UUID> added = new ArrayList<>(ids);
+        for (int i = 0; i < ids; i++) {
+            UUID id = UUID.randomUUID();
+            Assertions.assertTrue(filter.add(id), "filter overflowed at " + i);
+            added.add(id);
+        }
+        for (UUID id : added) {
+            Assertions.assertTrue(filter.mightContain(id));
+        }
+
+        int probes = 1_000_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        double bytesPerId = (double) filter.bytes() / filter.size();
+
+        Assertions.assertTrue(rate < 0.0005, "false-positive rate " + rate);
+        Assertions.assertTrue(bytesPerId <= 2.5, bytesPerId + " bytes per id");
+    }
+
+    @Test
+    void snapshot_roundTripsContentsAndTimestamp() {
+        CuckooFilter filter = CuckooFilter.withCapacity(10_000);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            UUID id = UUID.randomUUID();
+            filter.add(id);
+            ids.add(id);
+        }
+
+        CuckooFilter.Snapshot restored = CuckooFilter.fromBytes(filter.toBytes(1_234L));
+
+        Assertions.assertEquals(1_234L, restored.takenAtMillis());
+        Assertions.assertEquals(filter.size(), restored.filter().size());
+        for (UUID id : ids) {
+            Assertions.assertTrue(restored.filter().mightContain(id));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CuckooFilter.fromBytes(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    void overflowedFilter_answersMaybeForEverything() {
+        CuckooFilter filter = CuckooFilter.withCapacity(16);
+        boolean overflowed = false;
+        for (int i = 0; i < 1_000 && !overflowed; i++) {
+            overflowed = !filter.add(UUID.randomUUID());
+        }
+
+        Assertions.assertTrue(overflowed);
+        Assertions.assertTrue(filter.isOverflowed());
+        Assertions.assertTrue(filter.mightContain(UUID.randomUUID()));
+    }
+
+    @Test
+    void readersNeverMissIds_whileWritersMoveFingerprints() throws Exception {
+        CuckooFilter filter = CuckooFilter.withCapacity(200_000);
+        List<UUID> present = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            UUID id = UUID.randomUUID();
+            filter.add(id);
+            present.add(id);
+        }
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        Future<?> writer = pool.submit(() -> {
+            // Fill towards maximum load so inserts start kicking fingerprints between buckets.
+            for (int i = 0; i < 140_000; i++) {
+                filter.add(UUID.randomUUID());
+            }
+            writing.set(false);
+        });
+        List<Future<Integer>> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(pool.submit(() -> {
+                int misses = 0;
+                while (writing.get()) {
+                    for (UUID id : present) {
+                        if (!filter.mightContain(id)) {
+                            misses++;
+                        }
+                    }
+                }
+                return misses;
+            }));
+        }
+
+        writer.get(1, TimeUnit.MINUTES);
+        for (Future<Integer> reader : readers) {
+            Assertions.assertEquals(0, (int) reader.get(1, TimeUnit.MINUTES));
+        }
+        pool.shutdown();
+    }
+}
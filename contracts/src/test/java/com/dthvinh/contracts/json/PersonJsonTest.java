@@ -0,0 +1,56 @@
+package com.dthvinh.contracts.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.contracts.CreatePerson;
+import com.dthvinh.contracts.UpdatePerson;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+class PersonJsonTest {
+
+    private final Gson reflective = new Gson();
+    private final Gson adapted = PersonJson.register(new GsonBuilder()).create();
+    private final UUID id = UUID.randomUUID();
+
+    @Test
+    void adapters_writeWhatReflectionWrites() {
+        UpdatePerson update = new UpdatePerson(id, "Alice \"Al\" Nguyễn", 31);
+        CreatePerson anonymous = new CreatePerson(null, null, 0);
+
+        assertEquals(reflective.toJson(update), adapted.toJson(update));
+        assertEquals(reflective.toJson(anonymous), adapted.toJson(anonymous));
+        assertEquals("null", adapted.toJson(null, CreatePerson.class));
+    }
+
+    @Test
+    void adapters_readWhatReflectionReads() {
+        String[] bodies = {
+                "{\"id\":\"" + id + "\",\"name\":\"Bob\",\"age\":41}",
+                "{\"age\":\"7\",\"name\":null,\"nickname\":{\"first\":[1,2]},\"id\":null}",
+                "{}",
+        };
+        for (String body : bodies) {
+            assertEquals(reflective.fromJson(body, UpdatePerson.class), adapted.fromJson(body, UpdatePerson.class));
+            assertEquals(reflective.fromJson(body, CreatePerson.class), adapted.fromJson(body, CreatePerson.class));
+        }
+        assertNull(adapted.fromJson("null", CreatePerson.class));
+    }
+
+    @Test
+    void adapters_rejectWhatReflectionRejects() {
+        String[] bodies = {"{\"age\":\"old\"}", "{\"age\":null}", "{\"id\":\"not-a-uuid\"}", "[1]"};
+        for (String body : bodies) {
+            assertThrows(JsonParseException.class, () -> reflective.fromJson(body, CreatePerson.class), body);
+            assertThrows(JsonParseException.class, () -> adapted.fromJson(body, CreatePerson.class), body);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.dthvinh.contracts.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.UpdatePerson;
+
+class LoopbackTransportTest {
+
+    @Test
+    void send_handsTheSameObjectsToEverySink_inOrderPerPerson() throws Exception {
+        int senders = 8;
+        int personsPerSender = 16;
+        int updatesPerPerson = 500;
+        Map<UUID, List<Integer>> seen = new ConcurrentHashMap<>();
+        List<PersonEvent> mirrored = new CopyOnWriteArrayList<>();
+
+        try (LoopbackTransport transport = new LoopbackTransport(4, 64, 5_000)) {
+            transport.subscribe(event -> seen.computeIfAbsent(event.id(), id -> new ArrayList<>())
+                    .add(((UpdatePerson) event).age()));
+            transport.subscribe(mirrored::add);
+
+            List<Thread> threads = new ArrayList<>();
+            List<CompletableFuture<EventTransport.Delivery>> deliveries = new CopyOnWriteArrayList<>();
+            List<PersonEvent> sent = new CopyOnWriteArrayList<>();
+            for (int s = 0; s < senders; s++) {
+                int sender = s;
+                threads.add(new Thread(() -> {
+                    for (int age = 0; age < updatesPerPerson; age++) {
+                        for (int p = 0; p < personsPerSender; p++) {
+                            PersonEvent event = new UpdatePerson(new UUID(sender, p), "person", age);
+                            sent.add(event);
+                            deliveries.add(transport.send(event));
+                        }
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+            assertEquals(senders * personsPerSender, seen.size());
+            for (List<Integer> ages : seen.values()) {
+                assertEquals(updatesPerPerson, ages.size());
+                for (int i = 0; i < ages.size(); i++) {
+                    assertEquals(Integer.valueOf(i), ages.get(i));
+                }
+            }
+            assertEquals(sent.size(), mirrored.size());
+            Map<UUID, List<PersonEvent>> byPerson = new ConcurrentHashMap<>();
+            mirrored.forEach(event -> byPerson.computeIfAbsent(event.id(), id -> new ArrayList<>()).add(event));
+            for (PersonEvent event : sent) {
+                // Not copied on the way: the sink gets the very object that was sent.
+                assertSame(event, byPerson.get(event.id()).get(((UpdatePerson) event).age()));
+            }
+        }
+    }
+
+    @Test
+    void fullLane_holdsTheSender_thenFailsTheSend() throws Exception {
+        try (LoopbackTransport transport = new LoopbackTransport(1, 2, 20)) {
+            CompletableFuture<EventTransport.Delivery> first = transport.send(update(1));
+            CompletableFuture<EventTransport.Delivery> second = transport.send(update(2));
+            assertEquals(0.0, transport.headroom());
+
+            long start = System.nanoTime();
+            CompletableFuture<EventTransport.Delivery> rejected = transport.send(update(3));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+            ExecutionException failure = assertThrows(ExecutionException.class, rejected::get);
+            assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+
+            // Queued events wait for the first sink rather than being dropped.
+            assertFalse(first.isDone());
+            transport.subscribe(event -> {
+            });
+            assertEquals(new EventTransport.Delivery(0, 0), first.get(5, TimeUnit.SECONDS));
+            assertEquals(new EventTransport.Delivery(0, 1), second.get(5, TimeUnit.SECONDS));
+            assertEquals(1.0, transport.headroom());
+        }
+    }
+
+    @Test
+    void failingSink_failsTheSend_andOtherSinksStillGetTheEvent() throws Exception {
+        List<PersonEvent> delivered = new CopyOnWriteArrayList<>();
+        try (LoopbackTransport transport = new LoopbackTransport()) {
+            transport.subscribe(event -> {
+                throw new IllegalStateException("handler down");
+            });
+            transport.subscribe(delivered::add);
+
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> transport.send(update(1)).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+            assertEquals(1, delivered.size());
+        }
+    }
+
+    @Test
+    void unsubscribedSink_getsNoMoreEvents() throws Exception {
+        List<PersonEvent> first = new CopyOnWriteArrayList<>();
+        List<PersonEvent> second = new CopyOnWriteArrayList<>();
+        try (LoopbackTransport transport = new LoopbackTransport()) {
+            EventSource.Subscription subscription = transport.subscribe(first::add);
+            transport.subscribe(second::add);
+            transport.send(update(1)).get(5, TimeUnit.SECONDS);
+            subscription.close();
+            transport.send(update(2)).get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, first.size());
+            assertEquals(2, second.size());
+        }
+    }
+
+    @Test
+    void close_failsWhatNoSinkTook_andLaterSends() {
+        LoopbackTransport transport = new LoopbackTransport();
+        CompletableFuture<EventTransport.Delivery> queued = transport.send(update(1));
+        transport.close();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, queued::get);
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertTrue(transport.send(update(2)).isCompletedExceptionally());
+    }
+
+    @Test
+    void constructor_rejectsBadSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new LoopbackTransport(0, 16, 0));
+        assertThrows(IllegalArgumentException.class, () -> new LoopbackTransport(1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new LoopbackTransport(1, 16, -1));
+    }
+
+    private static PersonEvent update(int age) {
+        return new UpdatePerson(new UUID(0, 7), "person", age);
+    }
+}
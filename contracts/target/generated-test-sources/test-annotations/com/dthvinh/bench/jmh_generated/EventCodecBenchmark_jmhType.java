@@ -0,0 +1,4 @@
+package com.dthvinh.bench.jmh_generated;
+public class EventCodecBenchmark_jmhType extends EventCodecBenchmark_jmhType_B3 {
+}
+
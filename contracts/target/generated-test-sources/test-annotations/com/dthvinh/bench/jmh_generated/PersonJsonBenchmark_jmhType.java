@@ -0,0 +1,4 @@
+package com.dthvinh.bench.jmh_generated;
+public class PersonJsonBenchmark_jmhType extends PersonJsonBenchmark_jmhType_B3 {
+}
+
@@ -7,9 +7,10 @@ $ErrorActionPreference = 'Stop'
 
 $scriptDir = Split-Path -Parent $MyInvocation.MyCommand.Path
 $serviceDir = Resolve-Path (Join-Path $scriptDir '..')
+$rootDir = Resolve-Path (Join-Path $serviceDir '..')
 
 Write-Host "Start building image for Service A"
 
-docker build --no-cache -t "microservice-service-a:$Version" -f (Join-Path $serviceDir 'Dockerfile') $serviceDir
+docker build --no-cache -t "microservice-service-a:$Version" -f (Join-Path $serviceDir 'Dockerfile') $rootDir
 
 Write-Host "Finished building image for Service A"
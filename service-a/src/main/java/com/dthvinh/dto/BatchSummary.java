@@ -0,0 +1,8 @@
+package com.dthvinh.dto;
+
+import java.util.List;
+
+public record BatchSummary(int accepted, int rejected, List<Rejection> rejections) {
+    public record Rejection(int index, String reason) {
+    }
+}
@@ -1,6 +1,13 @@
 package com.dthvinh.dto;
 
+import com.dthvinh.contracts.json.PersonJson;
+import com.google.gson.TypeAdapter;
+
 public record CreatePersonDto(String name, int age) {
+    public static final TypeAdapter<CreatePersonDto> JSON = PersonJson.adapter(
+            (id, name, age) -> new CreatePersonDto(name, age), dto -> null,
+            CreatePersonDto::name, CreatePersonDto::age);
+
     public String getName() {
         return name;
     }
@@ -1,8 +1,14 @@
 package com.dthvinh.dto;
 
+import com.dthvinh.contracts.json.PersonJson;
+import com.google.gson.TypeAdapter;
+
 import java.util.UUID;
 
 public record UpdatePersonDto(UUID id, String name, int age) {
+    public static final TypeAdapter<UpdatePersonDto> JSON = PersonJson.adapter(
+            UpdatePersonDto::new, UpdatePersonDto::id, UpdatePersonDto::name, UpdatePersonDto::age);
+
     public UUID getId() {
         return id;
     }
@@ -0,0 +1,195 @@
+package com.dthvinh.libs.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Small in-process cache in front of a slow lookup. Entries are fresh for {@code ttlMs}; for a further
+ * {@code staleMs} they are still served while one background refresh runs, so callers never wait on a refresh.
+ * Concurrent misses for the same key share a single load (singleflight). Absent values are cached like present
+ * ones, and a failed load falls back to the previous value when there is one.
+ *
+ * <p>The entry cap is enforced by dropping expired entries first and then arbitrary ones, down to
+ * {@value #LOW_WATER_PERCENT}% of the cap, so the scan this takes is paid once per tenth of the cap inserted rather
+ * than on every insert into a full cache; a hot key that is dropped costs one reload.
+ */
+public final class ReadThroughCache<K, V> {
+    static final int LOW_WATER_PERCENT = 90;
+
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        /**
+         * The value for {@code key}, or {@code null} if there is none.
+         */
+        V load(K key) throws Exception;
+    }
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Loader<K, V> loader;
+    private final long ttlNs;
+    private final long staleNs;
+    private final int maxEntries;
+    private final int lowWater;
+    private final Executor refresher;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public ReadThroughCache(Loader<K, V> loader, long ttlMs, long staleMs, int maxEntries, Executor refresher,
+                            LongSupplier nanoClock) {
+        this.loader = loader;
+        this.ttlNs = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.staleNs = TimeUnit.MILLISECONDS.toNanos(staleMs);
+        this.maxEntries = maxEntries;
+        this.lowWater = (int) ((long) maxEntries * LOW_WATER_PERCENT / 100);
+        this.refresher = refresher;
+        this.clock = nanoClock;
+    }
+
+    /**
+     * The value for {@code key}, or {@code null} if the loader has none. Throws what the loader threw when there is
+     * no previous value to fall back to.
+     */
+    public V get(K key) throws Exception {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            long age = clock.getAsLong() - entry.loadedNs;
+            if (age < ttlNs) {
+                hits.increment();
+                return entry.value;
+            }
+            if (age < ttlNs + staleNs) {
+                staleHits.increment();
+                refresh(key);
+                return entry.value;
+            }
+        }
+
+        try {
+            return load(key);
+        } catch (Exception ex) {
+            if (entry != null) {
+                return entry.value;
+            }
+            throw ex;
+        }
+    }
+
+    private V load(K key) throws Exception {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        misses.increment();
+        try {
+            V value = loader.load(key);
+            put(key, value);
+            mine.complete(value);
+            return value;
+        } catch (Exception ex) {
+            failures.increment();
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private void refresh(K key) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, mine) != null) {
+            return;
+        }
+
+        refreshes.increment();
+        try {
+            refresher.execute(() -> {
+                try {
+                    V value = loader.load(key);
+                    put(key, value);
+                    mine.complete(value);
+                } catch (Exception ex) {
+                    failures.increment();
+                    mine.completeExceptionally(ex);
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Refreshes are best effort; the next stale hit tries again.
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(ex);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw ex;
+        }
+    }
+
+    private void put(K key, V value) {
+        long now = clock.getAsLong();
+        entries.put(key, new Entry<>(value, now));
+        if (entries.size() > maxEntries) {
+            evict(now);
+        }
+    }
+
+    private void evict(long now) {
+        for (Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            if (now - it.next().getValue().loadedNs >= ttlNs + staleNs) {
+                it.remove();
+            }
+        }
+        for (Iterator<K> it = entries.keySet().iterator(); it.hasNext() && entries.size() > lowWater; ) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public Stats stats() {
+        return new Stats(entries.size(), hits.sum(), staleHits.sum(), misses.sum(), coalesced.sum(), refreshes.sum(),
+                failures.sum());
+    }
+
+    /**
+     * Lookup counters. {@code misses + refreshes} is the number of loads that reached the backing store.
+     */
+    public record Stats(int entries, long hits, long staleHits, long misses, long coalesced, long refreshes,
+                        long failures) {
+        public long loads() {
+            return misses + refreshes;
+        }
+    }
+
+    private record Entry<V>(V value, long loadedNs) {
+    }
+}
@@ -1,5 +0,0 @@
-package com.dthvinh.libs.common;
-
-public final class ApplicationConstants {
-    public static final String AppGlobalTopic = "microservice-service-bridge";
-}
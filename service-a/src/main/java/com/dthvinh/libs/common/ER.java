@@ -3,4 +3,15 @@ package com.dthvinh.libs.common;
 public final class ER {
     public static final String REQUEST_BODY_UNEXPECTED_EMPTY = "The request body seem empty bro!!!";
     public static final String KAFKA_SERVER_ENV_NOT_SET = "KAFKA_BOOTSTRAP_SERVER is not set";
+    public static final String KAFKA_SEND_FAILED = "Kafka send failed";
+    public static final String BATCH_BODY_MALFORMED = "Batch body is not a JSON array or NDJSON stream";
+    public static final String READ_MODEL_NOT_READY = "Person read model is still loading";
+    public static final String IDEMPOTENCY_KEY_INVALID = "Idempotency-Key must be 1 to 255 characters";
+    public static final String IDEMPOTENT_REQUEST_FAILED =
+            "The original request with this Idempotency-Key did not complete; retry it";
+    public static final String TOO_MANY_IN_FLIGHT = "Too many requests in flight, retry later";
+    public static final String PRODUCER_SATURATED = "Kafka producer is saturated, retry later";
+    public static final String OUTBOX_FULL = "Outbox is full, retry later";
+    public static final String OUTBOX_APPEND_FAILED = "Could not write to the outbox";
+    public static final String PERSON_ID_INVALID = "Person ID is not a valid UUID";
 }
@@ -2,4 +2,44 @@ package com.dthvinh.libs.common;
 
 public final class Env {
     public static final String KAFKA_BOOTSTRAP_SERVER= System.getenv("KAFKA_BOOTSTRAP_SERVER");
+    public static final String KAFKA_MAX_BLOCK_MS = System.getenv("KAFKA_MAX_BLOCK_MS");
+    public static final String EVENT_CONTENT_TYPE = System.getenv("EVENT_CONTENT_TYPE");
+    public static final String EVENT_TOPICS = System.getenv("EVENT_TOPICS");
+    public static final String OUTBOX_DIR = System.getenv("OUTBOX_DIR");
+    public static final String OUTBOX_SEGMENT_BYTES = System.getenv("OUTBOX_SEGMENT_BYTES");
+    public static final String OUTBOX_SYNC_MS = System.getenv("OUTBOX_SYNC_MS");
+    public static final String OUTBOX_MAX_BYTES = System.getenv("OUTBOX_MAX_BYTES");
+    public static final String ADMISSION_MAX_IN_FLIGHT = System.getenv("ADMISSION_MAX_IN_FLIGHT");
+    public static final String ADMISSION_MIN_BUFFER_HEADROOM = System.getenv("ADMISSION_MIN_BUFFER_HEADROOM");
+    public static final String ADMISSION_RETRY_AFTER_SECONDS = System.getenv("ADMISSION_RETRY_AFTER_SECONDS");
+    public static final String ACCESS_LOG_SAMPLE_EVERY = System.getenv("ACCESS_LOG_SAMPLE_EVERY");
+    public static final String ACCESS_LOG_SLOW_MS = System.getenv("ACCESS_LOG_SLOW_MS");
+    public static final String REDIS_HOST = System.getenv("REDIS_HOST");
+    public static final String REDIS_PORT = System.getenv("REDIS_PORT");
+    public static final String PERSON_CACHE_TTL_MS = System.getenv("PERSON_CACHE_TTL_MS");
+    public static final String PERSON_CACHE_STALE_MS = System.getenv("PERSON_CACHE_STALE_MS");
+    public static final String PERSON_FILTER_REFRESH_MS = System.getenv("PERSON_FILTER_REFRESH_MS");
+    public static final String PERSON_FILTER_TRUST_LAG_MS = System.getenv("PERSON_FILTER_TRUST_LAG_MS");
+
+    public static long longOr(String value, long fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            return fallback;
+        }
+    }
+
+    public static double doubleOr(String value, double fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException ex) {
+            return fallback;
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package com.dthvinh.libs.common;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered ids in the UUIDv7 layout: 48 bits of Unix milliseconds, then a 12-bit counter in {@code rand_a}, then
+ * 62 bits of node id in {@code rand_b}. Ids from one generator are strictly increasing, even if the clock steps back
+ * or more than 4096 ids are taken within a millisecond (the counter then carries into the timestamp). Each generator
+ * picks a random node id, so generators on different nodes do not collide.
+ */
+public final class IdGenerator {
+    public static final IdGenerator DEFAULT = new IdGenerator(new SecureRandom().nextLong(), System::currentTimeMillis);
+
+    static final int COUNTER_BITS = 12;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+    private static final long NODE_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private final long leastSignificantBits;
+    private final LongSupplier clock;
+    // Last issued (millis << COUNTER_BITS | counter).
+    private final AtomicLong last = new AtomicLong();
+
+    public IdGenerator(long node, LongSupplier clock) {
+        this.leastSignificantBits = VARIANT | (node & NODE_MASK);
+        this.clock = clock;
+    }
+
+    public UUID next() {
+        long candidate = clock.getAsLong() << COUNTER_BITS;
+        long prev;
+        long next;
+        do {
+            prev = last.get();
+            next = candidate > prev ? candidate : prev + 1;
+        } while (!last.compareAndSet(prev, next));
+
+        long millis = next >>> COUNTER_BITS;
+        long counter = next & ((1L << COUNTER_BITS) - 1);
+        return new UUID(millis << 16 | VERSION | counter, leastSignificantBits);
+    }
+
+    /**
+     * Unix milliseconds encoded in a UUIDv7.
+     */
+    public static long timestampOf(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+}
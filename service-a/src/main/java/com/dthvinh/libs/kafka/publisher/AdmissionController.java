@@ -0,0 +1,119 @@
+package com.dthvinh.libs.kafka.publisher;
+
+import com.dthvinh.libs.common.Env;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Fails publishes fast instead of letting them queue when the producer cannot keep up. Each endpoint gets a
+ * {@link Lane} with its own cap on unacknowledged publishes, and every lane refuses new work while the producer's
+ * free buffer share is below {@code minBufferHeadroom}, i.e. before {@code send} would start blocking.
+ */
+public final class AdmissionController {
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1_024;
+    public static final double DEFAULT_MIN_BUFFER_HEADROOM = 0.1;
+    public static final int DEFAULT_RETRY_AFTER_SECONDS = 1;
+
+    public enum Decision {
+        ADMITTED,
+        /** The endpoint already has {@code maxInFlight} unacknowledged publishes; answer 429. */
+        THROTTLED,
+        /** The producer buffer is nearly full; answer 503. */
+        SATURATED
+    }
+
+    private final int maxInFlight;
+    private final double minBufferHeadroom;
+    private final int retryAfterSeconds;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    public AdmissionController(int maxInFlight, double minBufferHeadroom, int retryAfterSeconds) {
+        this.maxInFlight = maxInFlight;
+        this.minBufferHeadroom = minBufferHeadroom;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public static AdmissionController fromEnv() {
+        return new AdmissionController(
+                (int) Env.longOr(Env.ADMISSION_MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT),
+                Env.doubleOr(Env.ADMISSION_MIN_BUFFER_HEADROOM, DEFAULT_MIN_BUFFER_HEADROOM),
+                (int) Env.longOr(Env.ADMISSION_RETRY_AFTER_SECONDS, DEFAULT_RETRY_AFTER_SECONDS));
+    }
+
+    public Lane lane(String name) {
+        return lanes.computeIfAbsent(name, Lane::new);
+    }
+
+    public int retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public boolean hasHeadroom(KafkaPublisher publisher) {
+        return minBufferHeadroom <= 0 || publisher.bufferHeadroom() >= minBufferHeadroom;
+    }
+
+    public Map<String, LaneStats> stats() {
+        Map<String, LaneStats> stats = new LinkedHashMap<>();
+        lanes.forEach((name, lane) -> stats.put(name, lane.stats()));
+        return stats;
+    }
+
+    public record LaneStats(int inFlight, long admitted, long throttled, long saturated) {
+    }
+
+    public final class Lane {
+        private final String name;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+        private final LongAdder saturated = new LongAdder();
+
+        private Lane(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Takes a slot for one publish; the caller must {@link #release()} it once the publish is acknowledged
+         * or failed, and only when the decision is {@link Decision#ADMITTED}.
+         */
+        public Decision tryAcquire(KafkaPublisher publisher) {
+            return tryAcquire(() -> hasHeadroom(publisher));
+        }
+
+        /**
+         * Like {@link #tryAcquire(KafkaPublisher)}, for publishes that go somewhere with its own notion of room,
+         * such as the outbox.
+         */
+        public Decision tryAcquire(BooleanSupplier hasRoom) {
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                throttled.increment();
+                return Decision.THROTTLED;
+            }
+            if (!hasRoom.getAsBoolean()) {
+                inFlight.decrementAndGet();
+                saturated.increment();
+                return Decision.SATURATED;
+            }
+            admitted.increment();
+            return Decision.ADMITTED;
+        }
+
+        public void release() {
+            inFlight.decrementAndGet();
+        }
+
+        public String name() {
+            return name;
+        }
+
+        LaneStats stats() {
+            return new LaneStats(inFlight.get(), admitted.sum(), throttled.sum(), saturated.sum());
+        }
+    }
+}
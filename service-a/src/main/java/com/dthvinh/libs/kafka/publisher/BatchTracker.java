@@ -0,0 +1,83 @@
+package com.dthvinh.libs.kafka.publisher;
+
+import com.dthvinh.dto.BatchSummary;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the acknowledgements of a streamed batch. Only counters and the rejected items are kept, and the number of
+ * unacknowledged sends is capped, so memory stays flat however many items the batch holds.
+ */
+public final class BatchTracker {
+    static final int DEFAULT_WINDOW = 4_096;
+    static final int MAX_REPORTED_REJECTIONS = 1_000;
+
+    private final Semaphore window;
+    private final AtomicInteger accepted = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger reported = new AtomicInteger();
+    // Starts at one for the producing side; finish() releases it.
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private final Queue<BatchSummary.Rejection> rejections = new ConcurrentLinkedQueue<>();
+    private final CompletableFuture<BatchSummary> done = new CompletableFuture<>();
+
+    public BatchTracker() {
+        this(DEFAULT_WINDOW);
+    }
+
+    public BatchTracker(int window) {
+        this.window = new Semaphore(window);
+    }
+
+    public void track(int index, CompletionStage<?> ack) throws InterruptedIOException {
+        try {
+            window.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for Kafka acknowledgements");
+        }
+
+        pending.incrementAndGet();
+        ack.whenComplete((result, failure) -> {
+            if (failure == null) {
+                accepted.incrementAndGet();
+            } else {
+                reject(index, "Kafka send failed");
+            }
+            window.release();
+            arrive();
+        });
+    }
+
+    public void reject(int index, String reason) {
+        rejected.incrementAndGet();
+        if (reported.incrementAndGet() <= MAX_REPORTED_REJECTIONS) {
+            rejections.add(new BatchSummary.Rejection(index, reason));
+        }
+    }
+
+    /**
+     * Marks the end of the input; the returned stage completes once every tracked send has been acknowledged.
+     */
+    public CompletableFuture<BatchSummary> finish() {
+        arrive();
+        return done;
+    }
+
+    private void arrive() {
+        if (pending.decrementAndGet() == 0) {
+            List<BatchSummary.Rejection> sorted = new ArrayList<>(rejections);
+            sorted.sort(Comparator.comparingInt(BatchSummary.Rejection::index));
+            done.complete(new BatchSummary(accepted.get(), rejected.get(), sorted));
+        }
+    }
+}
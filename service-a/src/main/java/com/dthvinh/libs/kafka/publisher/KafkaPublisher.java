@@ -1,70 +1,423 @@
 package com.dthvinh.libs.kafka.publisher;
 
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.PersonEventSerializer;
+import com.dthvinh.contracts.TopicRoutes;
+import com.dthvinh.contracts.transport.EventTransport;
 import com.dthvinh.libs.common.Env;
-import com.dthvinh.libs.kafka.event.EventArgs;
-import com.google.gson.Gson;
+import com.dthvinh.libs.metrics.MetricsRegistry;
+import com.dthvinh.libs.metrics.PrometheusWriter;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.record.RecordBatch;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.utils.Utils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
-public class KafkaPublisher implements AutoCloseable {
-    private final String topic;
-    private final Gson mapper;
-    private KafkaProducer<String, String> producer;
+/**
+ * Publishes person events to the topic {@link TopicRoutes} picks for their type, through one or more producers
+ * ("shards"). With several shards each record is sent to
+ * the partition the default partitioner would pick for its key, by the shard that owns that partition
+ * ({@code partition % shards}); every partition is written by exactly one producer, so per-key order holds and
+ * batches are not split across producers, while the sends spread over one sender thread per shard.
+ *
+ * <p>While an {@link EventTransport} is set (see {@link #useTransport}) events go through it instead of Kafka; the
+ * acknowledgement then carries the transport's lane as partition and its sequence as offset.
+ */
+public class KafkaPublisher implements AutoCloseable, MetricsRegistry.Collector {
+    static final long DEFAULT_MAX_BLOCK_MS = 1_000;
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+    // Producer metric name -> exported gauge name.
+    private static final Map<String, String> EXPORTED_METRICS = Map.of(
+            "record-send-rate", "kafka_producer_record_send_rate",
+            "batch-size-avg", "kafka_producer_batch_size_avg_bytes",
+            "buffer-available-bytes", "kafka_producer_buffer_available_bytes",
+            "request-latency-avg", "kafka_producer_request_latency_avg_ms");
+
+    private final TopicRoutes routes;
+    private final Map<String, Outcomes> outcomes;
+    // Null when the publisher wraps a fixed producer.
+    private final Function<Properties, Producer<String, PersonEvent>> factory;
+    private final Properties base;
+    private volatile List<Shard> shards;
+    private volatile EventTransport transport;
 
     public KafkaPublisher(String bootstrapServers, String topic) {
-        this.topic = topic;
-        this.mapper = new Gson();
+        this(bootstrapServers, topic, ProducerProfile.DEFAULT.properties());
+    }
 
-        Properties props = new Properties();
-        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+    public KafkaPublisher(String bootstrapServers, String topic, Properties tuning) {
+        this(bootstrapServers, topic, tuning, 1);
+    }
 
-        props.put(ProducerConfig.ACKS_CONFIG, "all");
-        props.put(ProducerConfig.RETRIES_CONFIG, 3);
-        props.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+    public KafkaPublisher(String bootstrapServers, String topic, Properties tuning, int shards) {
+        this(bootstrapServers, TopicRoutes.to(topic), tuning, shards);
+    }
 
-        setProducer(props);
+    public KafkaPublisher(String bootstrapServers, TopicRoutes routes, Properties tuning, int shards) {
+        this(KafkaPublisher::newProducer, routes, baseProperties(bootstrapServers), tuning, shards);
+        MetricsRegistry.DEFAULT.register(this);
     }
 
     public KafkaPublisher(String topic) {
         this(Env.KAFKA_BOOTSTRAP_SERVER, topic);
     }
 
-    private void setProducer(Properties props) {
+    public KafkaPublisher(Producer<String, PersonEvent> producer, String topic) {
+        this.routes = TopicRoutes.to(topic);
+        this.outcomes = outcomes(routes);
+        this.factory = null;
+        this.base = null;
+        this.shards = List.of(new Shard(producer));
+    }
+
+    // Package-private constructors for unit tests (producers come from the factory)
+    KafkaPublisher(Function<Properties, Producer<String, PersonEvent>> factory, String topic, Properties base,
+                   Properties tuning) {
+        this(factory, topic, base, tuning, 1);
+    }
+
+    KafkaPublisher(Function<Properties, Producer<String, PersonEvent>> factory, String topic, Properties base,
+                   Properties tuning, int shards) {
+        this(factory, TopicRoutes.to(topic), base, tuning, shards);
+    }
+
+    KafkaPublisher(Function<Properties, Producer<String, PersonEvent>> factory, TopicRoutes routes, Properties base,
+                   Properties tuning, int shards) {
+        this.routes = routes;
+        this.outcomes = outcomes(routes);
+        this.factory = factory;
+        this.base = base;
+        this.shards = newShards(tuning, shards);
+    }
+
+    private static Map<String, Outcomes> outcomes(TopicRoutes routes) {
+        Map<String, Outcomes> byTopic = new LinkedHashMap<>();
+        for (String topic : routes.topics()) {
+            byTopic.put(topic, new Outcomes());
+        }
+        return Map.copyOf(byTopic);
+    }
+
+    private static Properties baseProperties(String bootstrapServers) {
+        Properties props = new Properties();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, PersonEventSerializer.class.getName());
+        if (Env.EVENT_CONTENT_TYPE != null && !Env.EVENT_CONTENT_TYPE.isBlank()) {
+            props.put(PersonEventSerializer.CONTENT_TYPE_CONFIG, Env.EVENT_CONTENT_TYPE);
+        }
+        // send() blocks while the buffer is full; keep that short so a stalled broker cannot pin request threads.
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, Env.longOr(Env.KAFKA_MAX_BLOCK_MS, DEFAULT_MAX_BLOCK_MS));
+        return props;
+    }
+
+    private static Properties merge(Properties base, Properties tuning) {
+        Properties props = new Properties();
+        props.putAll(base);
+        props.putAll(tuning);
+        return props;
+    }
+
+    private static Producer<String, PersonEvent> newProducer(Properties props) {
         ClassLoader context = Thread.currentThread().getContextClassLoader();
         Thread.currentThread().setContextClassLoader(null);
-        producer = new KafkaProducer<>(props);
-        Thread.currentThread().setContextClassLoader(context);
+        try {
+            return new KafkaProducer<>(props);
+        } finally {
+            Thread.currentThread().setContextClassLoader(context);
+        }
     }
 
-    public <T> void send(EventArgs<T> e) {
-        ProducerRecord<String, String> record =
-                new ProducerRecord<>(topic, e.event, mapper.toJson(e.data));
+    private List<Shard> newShards(Properties tuning, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Producer shards must be at least 1, got " + count);
+        }
+        List<Shard> built = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                built.add(new Shard(factory.apply(merge(base, tuning))));
+            }
+        } catch (RuntimeException ex) {
+            built.forEach(shard -> shard.producer.close());
+            throw ex;
+        }
+        return List.copyOf(built);
+    }
 
-        producer.send(record, (metadata, exception) -> {
+    /**
+     * Switches to producers built with {@code tuning}, keeping the number of shards.
+     *
+     * @see #reconfigure(Properties, int)
+     */
+    public void reconfigure(Properties tuning) {
+        reconfigure(tuning, shards.size());
+    }
+
+    /**
+     * Switches to {@code shards} producers built with {@code tuning}. New sends go to the new producers at once;
+     * the old ones are closed in the background, and closing waits for the records they already hold to be
+     * acknowledged, so no in-flight send is dropped. The new producers are warmed up first, each blocking for at
+     * most {@code max.block.ms}.
+     */
+    public void reconfigure(Properties tuning, int shards) {
+        if (factory == null) {
+            throw new IllegalStateException("Publisher wraps a fixed producer");
+        }
+        List<Shard> next = newShards(tuning, shards);
+        for (Shard shard : next) {
+            try {
+                for (String topic : routes.topics()) {
+                    shard.producer.partitionsFor(topic);
+                }
+            } catch (RuntimeException ex) {
+                // Only a warm-up; the first send fetches the metadata instead.
+            }
+        }
+        List<Shard> previous;
+        synchronized (this) {
+            previous = this.shards;
+            this.shards = next;
+        }
+
+        Thread retire = new Thread(() -> previous.forEach(shard -> shard.producer.close()), "Kafka-Producer-Retire");
+        retire.setDaemon(true);
+        retire.start();
+    }
+
+    /**
+     * Publishes {@code event} to the topic routed for its type, keyed by its person id, so that all events of one
+     * person on a topic go to one partition and are consumed in order. The serializer adds the event type and
+     * content type headers. While a transport is set the event goes through it instead.
+     */
+    public CompletableFuture<RecordMetadata> send(PersonEvent event) {
+        CompletableFuture<RecordMetadata> ack = new CompletableFuture<>();
+        String topic = routes.topicFor(event.type());
+        String key = event.id() == null ? null : event.id().toString();
+        Outcomes outcome = outcomes.get(topic);
+        EventTransport local = transport;
+        if (local != null) {
+            local.send(event).whenComplete((delivery, exception) -> {
+                if (exception != null) {
+                    outcome.failed.increment();
+                    ack.completeExceptionally(exception);
+                } else {
+                    outcome.acknowledged.increment();
+                    ack.complete(metadata(topic, delivery));
+                }
+            });
+            return ack;
+        }
+
+        Callback callback = (metadata, exception) -> {
             if (exception != null) {
-                System.err.println("Kafka send failed");
-                exception.printStackTrace();
+                outcome.failed.increment();
+                ack.completeExceptionally(exception);
             } else {
-                System.out.printf(
-                        "Sent to topic=%s partition=%d offset=%d%n",
-                        metadata.topic(),
-                        metadata.partition(),
-                        metadata.offset()
-                );
+                outcome.acknowledged.increment();
+                ack.complete(metadata);
+            }
+        };
+
+        List<Shard> target = shards;
+        try {
+            try {
+                dispatch(target, topic, key, event, callback);
+            } catch (RuntimeException ex) {
+                // The producers were retired by reconfigure() between reading them and sending; use the new ones.
+                List<Shard> current = shards;
+                if (current == target) {
+                    throw ex;
+                }
+                dispatch(current, topic, key, event, callback);
+            }
+        } catch (Exception ex) {
+            outcome.failed.increment();
+            ack.completeExceptionally(ex);
+        }
+
+        return ack;
+    }
+
+    private static RecordMetadata metadata(String topic, EventTransport.Delivery delivery) {
+        return new RecordMetadata(new TopicPartition(topic, delivery.lane()), delivery.sequence(), 0,
+                RecordBatch.NO_TIMESTAMP, -1, -1);
+    }
+
+    private void dispatch(List<Shard> current, String topic, String key, PersonEvent event, Callback callback) {
+        if (current.size() == 1) {
+            current.get(0).producer.send(new ProducerRecord<>(topic, key, event), callback);
+        } else if (key == null) {
+            Shard shard = current.get(ThreadLocalRandom.current().nextInt(current.size()));
+            shard.producer.send(new ProducerRecord<>(topic, key, event), callback);
+        } else {
+            // Metadata is cached by the producer; this only blocks when the topic is not known yet, as send would.
+            int partitions = current.get(0).producer.partitionsFor(topic).size();
+            int partition = Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % partitions;
+            current.get(partition % current.size()).producer
+                    .send(new ProducerRecord<>(topic, partition, key, event), callback);
+        }
+    }
+
+    /**
+     * Fetches the metadata of every routed topic on every shard, which also opens the first broker connections, so
+     * the first sends do not have to. Blocks for at most {@code max.block.ms} per topic and shard.
+     *
+     * @return the smallest partition count among the topics
+     */
+    public int warmUp() {
+        int partitions = Integer.MAX_VALUE;
+        for (Shard shard : shards) {
+            for (String topic : routes.topics()) {
+                partitions = Math.min(partitions, shard.producer.partitionsFor(topic).size());
             }
-        });
+        }
+        return partitions;
     }
 
+    /**
+     * Sends through {@code transport} from now on, or through Kafka again if it is {@code null}. Sends already made
+     * complete on the path they took.
+     */
+    public void useTransport(EventTransport transport) {
+        this.transport = transport;
+    }
+
+    public EventTransport transport() {
+        return transport;
+    }
+
+    public TopicRoutes routes() {
+        return routes;
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Free share of the fullest shard's record buffer, from 0 (full) to 1 (empty). Reports 1 for a shard that
+     * exposes no buffer metrics. While a transport is set, its headroom instead.
+     */
+    public double bufferHeadroom() {
+        EventTransport local = transport;
+        if (local != null) {
+            return local.headroom();
+        }
+        double headroom = 1.0;
+        for (Shard shard : shards) {
+            headroom = Math.min(headroom, shard.bufferHeadroom());
+        }
+        return headroom;
+    }
+
+    public SendStats sendStats() {
+        long acknowledged = 0;
+        long failed = 0;
+        for (Outcomes outcome : outcomes.values()) {
+            acknowledged += outcome.acknowledged.sum();
+            failed += outcome.failed.sum();
+        }
+        return new SendStats(acknowledged, failed);
+    }
+
+    public record SendStats(long acknowledged, long failed) {
+    }
+
+    @Override
+    public void collect(PrometheusWriter out) {
+        out.family("kafka_publisher_sends_total", "counter", "Publishes by outcome.");
+        for (String topic : routes.topics()) {
+            Outcomes outcome = outcomes.get(topic);
+            out.sample("kafka_publisher_sends_total", outcome.acknowledged.sum(),
+                            "topic", topic, "result", "acknowledged")
+                    .sample("kafka_publisher_sends_total", outcome.failed.sum(), "topic", topic, "result", "failed");
+        }
+        List<Shard> current = shards;
+        for (int i = 0; i < current.size(); i++) {
+            String shard = Integer.toString(i);
+            for (Map.Entry<MetricName, ? extends Metric> metric : current.get(i).producer.metrics().entrySet()) {
+                MetricName name = metric.getKey();
+                String exported = EXPORTED_METRICS.get(name.name());
+                if (exported == null || !PRODUCER_METRICS_GROUP.equals(name.group())) {
+                    continue;
+                }
+                Object value = metric.getValue().metricValue();
+                if (value instanceof Number number) {
+                    out.family(exported, "gauge", name.description())
+                            .sample(exported, number.doubleValue(), "shard", shard);
+                }
+            }
+        }
+    }
+
+    /**
+     * Flushes every shard, then closes them all.
+     */
     @Override
     public void close() {
-        producer.flush();
-        producer.close();
+        MetricsRegistry.DEFAULT.unregister(this);
+        List<Shard> current = shards;
+        current.forEach(shard -> shard.producer.flush());
+        current.forEach(shard -> shard.producer.close());
+    }
+
+    private static final class Outcomes {
+        final LongAdder acknowledged = new LongAdder();
+        final LongAdder failed = new LongAdder();
+    }
+
+    private static final class Shard {
+        final Producer<String, PersonEvent> producer;
+        private volatile Metric bufferAvailable;
+        private volatile Metric bufferTotal;
+
+        Shard(Producer<String, PersonEvent> producer) {
+            this.producer = producer;
+        }
+
+        double bufferHeadroom() {
+            Metric available = bufferAvailable;
+            Metric total = bufferTotal;
+            if (available == null || total == null) {
+                for (Map.Entry<MetricName, ? extends Metric> metric : producer.metrics().entrySet()) {
+                    if (!PRODUCER_METRICS_GROUP.equals(metric.getKey().group())) {
+                        continue;
+                    }
+                    switch (metric.getKey().name()) {
+                        case "buffer-available-bytes" -> available = metric.getValue();
+                        case "buffer-total-bytes" -> total = metric.getValue();
+                        default -> {
+                        }
+                    }
+                }
+                if (available == null || total == null) {
+                    return 1.0;
+                }
+                bufferAvailable = available;
+                bufferTotal = total;
+            }
+
+            double capacity = ((Number) total.metricValue()).doubleValue();
+            return capacity <= 0 ? 1.0 : ((Number) available.metricValue()).doubleValue() / capacity;
+        }
     }
 }
 
@@ -0,0 +1,126 @@
+package com.dthvinh.libs.kafka.publisher;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Named producer tunings. The profile is picked, and any producer setting overridden, through the
+ * {@value #PID} configuration:
+ *
+ * <pre>
+ * profile = throughput
+ * producer.linger.ms = 50
+ * shards = 4
+ * </pre>
+ *
+ * <p>{@code shards} sets how many producers the publisher runs side by side (see {@link KafkaPublisher}).
+ */
+public enum ProducerProfile {
+    /**
+     * Large compressed batches, leader-only acks.
+     */
+    THROUGHPUT(Map.of(
+            ProducerConfig.ACKS_CONFIG, "1",
+            ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "false",
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4",
+            ProducerConfig.BATCH_SIZE_CONFIG, "262144",
+            ProducerConfig.LINGER_MS_CONFIG, "20")),
+    /**
+     * Sends as soon as possible, leader-only acks.
+     */
+    LATENCY(Map.of(
+            ProducerConfig.ACKS_CONFIG, "1",
+            ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "false",
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, "none",
+            ProducerConfig.LINGER_MS_CONFIG, "0")),
+    /**
+     * Every in-sync replica acknowledges, and retries cannot duplicate or reorder records.
+     */
+    DURABLE(Map.of(
+            ProducerConfig.ACKS_CONFIG, "all",
+            ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true",
+            ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, "5",
+            ProducerConfig.RETRIES_CONFIG, Integer.toString(Integer.MAX_VALUE),
+            ProducerConfig.LINGER_MS_CONFIG, "5"));
+
+    public static final String PID = "com.dthvinh.kafka.producer";
+    public static final String PROFILE_PROPERTY = "profile";
+    public static final String OVERRIDE_PREFIX = "producer.";
+    public static final String SHARDS_PROPERTY = "shards";
+    public static final ProducerProfile DEFAULT = DURABLE;
+
+    private final Map<String, String> settings;
+
+    ProducerProfile(Map<String, String> settings) {
+        this.settings = settings;
+    }
+
+    public Properties properties() {
+        Properties props = new Properties();
+        props.putAll(settings);
+        return props;
+    }
+
+    /**
+     * The profile named {@code name} (case-insensitive), or {@code null}.
+     */
+    public static ProducerProfile of(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Producer settings for a configuration: the named profile (the default one when unset) with every
+     * {@code producer.*} entry applied on top.
+     *
+     * @throws IllegalArgumentException if the profile name is unknown
+     */
+    public static Properties resolve(Map<String, ?> config) {
+        Object name = config == null ? null : config.get(PROFILE_PROPERTY);
+        ProducerProfile profile = name == null ? DEFAULT : of(name.toString());
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown producer profile '" + name + "'");
+        }
+
+        Properties props = profile.properties();
+        if (config != null) {
+            for (Map.Entry<String, ?> entry : config.entrySet()) {
+                if (entry.getKey().startsWith(OVERRIDE_PREFIX) && entry.getValue() != null) {
+                    props.put(entry.getKey().substring(OVERRIDE_PREFIX.length()), entry.getValue().toString());
+                }
+            }
+        }
+        return props;
+    }
+
+    /**
+     * The number of producer shards for a configuration, 1 when unset.
+     *
+     * @throws IllegalArgumentException if the value is not a whole number of at least 1
+     */
+    public static int shards(Map<String, ?> config) {
+        Object value = config == null ? null : config.get(SHARDS_PROPERTY);
+        if (value == null) {
+            return 1;
+        }
+        int shards;
+        try {
+            shards = Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException ex) {
+            shards = 0;
+        }
+        if (shards < 1) {
+            throw new IllegalArgumentException("Invalid producer shards '" + value + "'");
+        }
+        return shards;
+    }
+}
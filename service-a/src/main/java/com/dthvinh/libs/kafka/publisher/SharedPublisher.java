@@ -0,0 +1,233 @@
+package com.dthvinh.libs.kafka.publisher;
+
+import com.dthvinh.contracts.TopicRoutes;
+import com.dthvinh.contracts.transport.EventTransport;
+import com.dthvinh.contracts.transport.LoopbackTransport;
+import com.dthvinh.libs.common.Env;
+import org.apache.kafka.common.KafkaException;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The one {@link KafkaPublisher} of the bundle, shared by every endpoint. It is created at activation and warmed up
+ * in the background (topic metadata and the first broker connection), so no request pays for either; it reports
+ * {@link #isReady()} only once warm-up has succeeded, or while events go through the loopback transport.
+ *
+ * <p>The producers are tuned and counted by the {@value ProducerProfile#PID} configuration (see
+ * {@link ProducerProfile}); a change is applied by swapping in new producers without dropping sends that are
+ * already in flight.
+ *
+ * <p>When service B runs in the same container with its loopback transport on, events are handed to it through that
+ * {@link EventTransport} service instead of Kafka for as long as the service is registered.
+ */
+@Component(service = SharedPublisher.class, immediate = true, configurationPid = ProducerProfile.PID)
+public class SharedPublisher {
+    static final long WARMUP_RETRY_MS = 2_000;
+
+    private final Logger log = LoggerFactory.getLogger(SharedPublisher.class);
+
+    private volatile KafkaPublisher publisher;
+    private volatile EventTransport transport;
+    private volatile boolean ready;
+    private Thread warmup;
+
+    public SharedPublisher() {
+    }
+
+    // Package-private constructor for unit tests (no broker needed)
+    SharedPublisher(KafkaPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Activate
+    public void start(Map<String, Object> config) {
+        String bootstrapServers = Env.KAFKA_BOOTSTRAP_SERVER;
+        if (bootstrapServers == null || bootstrapServers.isBlank()) {
+            log.warn("KAFKA_BOOTSTRAP_SERVER is not set; writes are rejected");
+            return;
+        }
+
+        KafkaPublisher created = create(bootstrapServers, config);
+        if (created == null) {
+            return;
+        }
+        publisher = created;
+        publisher.useTransport(transport);
+        warmup = new Thread(this::warmUp, "Kafka-Publisher-Warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
+
+    /**
+     * The publisher for a configuration. Settings the producer itself rejects, such as a bad {@code producer.*}
+     * value, fall back to the {@link ProducerProfile#DEFAULT} profile without overrides rather than leave the bundle
+     * without a publisher.
+     *
+     * @return null if even the default settings are rejected
+     */
+    KafkaPublisher create(String bootstrapServers, Map<String, Object> config) {
+        Properties tuning;
+        try {
+            tuning = ProducerProfile.resolve(config);
+        } catch (IllegalArgumentException ex) {
+            log.warn("{}; using the {} profile", ex.getMessage(), ProducerProfile.DEFAULT);
+            tuning = ProducerProfile.DEFAULT.properties();
+        }
+        int shards;
+        try {
+            shards = ProducerProfile.shards(config);
+        } catch (IllegalArgumentException ex) {
+            log.warn("{}; using one producer", ex.getMessage());
+            shards = 1;
+        }
+        TopicRoutes routes = eventTopics();
+        try {
+            return newPublisher(bootstrapServers, routes, tuning, shards);
+        } catch (KafkaException ex) {
+            log.warn("Kafka producer configuration rejected; using the {} profile without overrides: {}",
+                    ProducerProfile.DEFAULT, ex.toString());
+        }
+        try {
+            return newPublisher(bootstrapServers, routes, ProducerProfile.DEFAULT.properties(), shards);
+        } catch (KafkaException ex) {
+            log.error("Kafka producer could not be created; writes are rejected", ex);
+            return null;
+        }
+    }
+
+    // Overridden by unit tests (no broker needed)
+    KafkaPublisher newPublisher(String bootstrapServers, TopicRoutes routes, Properties tuning, int shards) {
+        return new KafkaPublisher(bootstrapServers, routes, tuning, shards);
+    }
+
+    private TopicRoutes eventTopics() {
+        try {
+            TopicRoutes routes = TopicRoutes.parse(Env.EVENT_TOPICS);
+            log.info("Publishing events to {}", routes);
+            return routes;
+        } catch (IllegalArgumentException ex) {
+            log.warn("{}; publishing every event to the default topic", ex.getMessage());
+            return TopicRoutes.LEGACY;
+        }
+    }
+
+    @Reference(
+            service = EventTransport.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            policyOption = ReferencePolicyOption.GREEDY,
+            target = "(" + EventTransport.TRANSPORT_PROPERTY + "=" + LoopbackTransport.NAME + ")"
+    )
+    protected void bindTransport(EventTransport transport) {
+        this.transport = transport;
+        KafkaPublisher current = publisher;
+        if (current != null) {
+            current.useTransport(transport);
+        }
+        log.info("Publishing events through the in-VM loopback transport");
+    }
+
+    protected void unbindTransport(EventTransport transport) {
+        if (this.transport != transport) {
+            return;
+        }
+        this.transport = null;
+        KafkaPublisher current = publisher;
+        if (current != null) {
+            current.useTransport(null);
+        }
+        log.info("Loopback transport gone; publishing events to Kafka");
+    }
+
+    @Modified
+    public void modified(Map<String, Object> config) {
+        KafkaPublisher current = publisher;
+        if (current == null) {
+            return;
+        }
+        try {
+            int shards = ProducerProfile.shards(config);
+            current.reconfigure(ProducerProfile.resolve(config), shards);
+            log.info("Kafka producer reconfigured ({} profile, {} shards)",
+                    config.getOrDefault(ProducerProfile.PROFILE_PROPERTY, ProducerProfile.DEFAULT), shards);
+        } catch (RuntimeException ex) {
+            // Keep the running producer rather than stop publishing over a bad setting.
+            log.warn("Kafka producer configuration rejected; keeping the current one: {}", ex.toString());
+        }
+    }
+
+    @Deactivate
+    public void stop() {
+        ready = false;
+        if (warmup != null) {
+            warmup.interrupt();
+            try {
+                warmup.join(KafkaPublisher.DEFAULT_MAX_BLOCK_MS * 2);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        KafkaPublisher toClose = publisher;
+        publisher = null;
+        if (toClose != null) {
+            try {
+                toClose.close();
+            } catch (Exception ex) {
+                log.warn("Failed to close KafkaPublisher", ex);
+            }
+        }
+    }
+
+    /**
+     * Retries until the topic metadata is available. Each attempt blocks for at most {@code max.block.ms}.
+     */
+    void warmUp() {
+        KafkaPublisher target = publisher;
+        while (target != null && !Thread.currentThread().isInterrupted()) {
+            try {
+                int partitions = target.warmUp();
+                ready = true;
+                log.info("Kafka publisher ready ({} partitions, {} shards)", partitions, target.shardCount());
+                if (partitions < target.shardCount()) {
+                    log.warn("Fewer partitions than producer shards; {} shards stay idle",
+                            target.shardCount() - partitions);
+                }
+                return;
+            } catch (RuntimeException ex) {
+                log.warn("Kafka publisher warm-up failed, retrying in {}ms: {}", WARMUP_RETRY_MS, ex.toString());
+            }
+            try {
+                Thread.sleep(WARMUP_RETRY_MS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The shared publisher, or {@code null} when Kafka is not configured.
+     */
+    public KafkaPublisher get() {
+        return publisher;
+    }
+
+    public boolean isConfigured() {
+        return publisher != null;
+    }
+
+    public boolean isReady() {
+        return ready || transport != null && publisher != null;
+    }
+}
@@ -0,0 +1,105 @@
+package com.dthvinh.libs.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear latency histogram in the style of HdrHistogram: every power-of-two range of microseconds is split into
+ * {@value #SUB_BUCKETS} equal buckets, so any recorded value is known to within about 3%. Recording is two atomic
+ * adds and allocates nothing.
+ */
+public final class LatencyHistogram {
+    static final int SUB_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // About 19 hours; anything slower lands in the last bucket.
+    static final long MAX_MICROS = (1L << 36) - 1;
+    static final int BUCKETS = index(MAX_MICROS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sumMicros = new AtomicLong();
+
+    public void recordNanos(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+        counts.incrementAndGet(index(Math.min(micros, MAX_MICROS)));
+        sumMicros.addAndGet(micros);
+    }
+
+    static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BITS;
+        int sub = (int) (micros >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Largest value, in microseconds, that falls into bucket {@code index}.
+     */
+    static long highestMicros(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, sumMicros.get());
+    }
+
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sumMicros;
+
+        private Snapshot(long[] counts, long count, long sumMicros) {
+            this.counts = counts;
+            this.count = count;
+            this.sumMicros = sumMicros;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long sumMicros() {
+            return sumMicros;
+        }
+
+        /**
+         * Number of recorded values no larger than {@code micros}. A bucket that straddles {@code micros} is left
+         * out, so values just below it may be missed.
+         */
+        public long countAtOrBelow(long micros) {
+            long cumulative = 0;
+            for (int i = 0; i < counts.length && highestMicros(i) <= micros; i++) {
+                cumulative += counts[i];
+            }
+            return cumulative;
+        }
+
+        public long valueAtQuantile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= rank) {
+                    return highestMicros(i);
+                }
+            }
+            return MAX_MICROS;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.dthvinh.libs.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Request counters and latency histograms per route and method, plus pluggable {@link Collector}s for everything
+ * else. A {@link Recorder} is looked up once per request and recording through it only touches atomics, so the
+ * request path allocates nothing; all formatting happens when {@code /api/metrics} is scraped.
+ */
+public final class MetricsRegistry {
+    public static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    static final String REQUESTS = "http_server_requests_total";
+    static final String DURATION = "http_server_request_duration_seconds";
+    static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "OTHER"};
+    static final long[] LE_MICROS = {
+            100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000};
+    private static final int MAX_STATUS = 600;
+
+    /**
+     * Writes additional metric families when the registry is scraped.
+     */
+    public interface Collector {
+        void collect(PrometheusWriter out);
+    }
+
+    private final Map<String, Recorder[]> routes = new ConcurrentHashMap<>();
+    private final List<Collector> collectors = new CopyOnWriteArrayList<>();
+
+    public Recorder recorder(String route, String method) {
+        Recorder[] byMethod = routes.get(route);
+        if (byMethod == null) {
+            byMethod = routes.computeIfAbsent(route, MetricsRegistry::newRoute);
+        }
+        return byMethod[methodIndex(method)];
+    }
+
+    private static Recorder[] newRoute(String route) {
+        Recorder[] byMethod = new Recorder[METHODS.length];
+        for (int i = 0; i < byMethod.length; i++) {
+            byMethod[i] = new Recorder(route, METHODS[i]);
+        }
+        return byMethod;
+    }
+
+    private static int methodIndex(String method) {
+        if (method == null) {
+            return METHODS.length - 1;
+        }
+        return switch (method) {
+            case "GET" -> 0;
+            case "POST" -> 1;
+            case "PUT" -> 2;
+            case "DELETE" -> 3;
+            default -> 4;
+        };
+    }
+
+    public void register(Collector collector) {
+        collectors.add(collector);
+    }
+
+    public void unregister(Collector collector) {
+        collectors.remove(collector);
+    }
+
+    public void writeTo(StringBuilder sb) {
+        PrometheusWriter out = new PrometheusWriter(sb);
+
+        out.family(REQUESTS, "counter", "Completed HTTP requests by route, method and status code.");
+        forEachRecorder(recorder -> {
+            for (int status = 0; status < MAX_STATUS; status++) {
+                long count = recorder.statuses.get(status);
+                if (count > 0) {
+                    out.sample(REQUESTS, count,
+                            "method", recorder.method, "route", recorder.route, "status", Integer.toString(status));
+                }
+            }
+        });
+
+        out.family(DURATION, "histogram", "HTTP request latency by route and method.");
+        forEachRecorder(recorder -> {
+            LatencyHistogram.Snapshot snapshot = recorder.latency.snapshot();
+            if (snapshot.count() == 0) {
+                return;
+            }
+            for (long le : LE_MICROS) {
+                out.sample(DURATION + "_bucket", snapshot.countAtOrBelow(le),
+                        "method", recorder.method, "route", recorder.route, "le", seconds(le));
+            }
+            out.sample(DURATION + "_bucket", snapshot.count(),
+                    "method", recorder.method, "route", recorder.route, "le", "+Inf");
+            out.sample(DURATION + "_sum", snapshot.sumMicros() / 1e6,
+                    "method", recorder.method, "route", recorder.route);
+            out.sample(DURATION + "_count", snapshot.count(),
+                    "method", recorder.method, "route", recorder.route);
+        });
+
+        for (Collector collector : collectors) {
+            collector.collect(out);
+        }
+    }
+
+    private void forEachRecorder(Consumer<Recorder> action) {
+        routes.values().forEach(byMethod -> {
+            for (Recorder recorder : byMethod) {
+                action.accept(recorder);
+            }
+        });
+    }
+
+    private static String seconds(long micros) {
+        return Double.toString(micros / (double) TimeUnit.SECONDS.toMicros(1));
+    }
+
+    public static final class Recorder {
+        private final String route;
+        private final String method;
+        private final AtomicLongArray statuses = new AtomicLongArray(MAX_STATUS);
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Recorder(String route, String method) {
+            this.route = route;
+            this.method = method;
+        }
+
+        public void record(int status, long elapsedNanos) {
+            statuses.incrementAndGet(status >= 0 && status < MAX_STATUS ? status : 0);
+            latency.recordNanos(elapsedNanos);
+        }
+
+        public LatencyHistogram.Snapshot latency() {
+            return latency.snapshot();
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package com.dthvinh.libs.outbox;
+
+import com.dthvinh.contracts.BinaryEventCodec;
+import com.dthvinh.contracts.EventCodec;
+import com.dthvinh.contracts.PersonEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of person events on local disk, so writes can be accepted while Kafka is unavailable. Events are
+ * appended to fixed-size memory-mapped segment files and addressed by their byte position in the log. An append is
+ * acknowledged once it has been forced to disk; one background sync covers every append made while the previous
+ * one ran (group commit), after waiting a further {@code syncMs} to gather more if that is set.
+ *
+ * <p>Each record is {@code length:int, crc:int, payload}, the payload being the {@link BinaryEventCodec} encoding
+ * and the CRC-32C covering the record's position as well as its payload. A record that does not fit in the rest of
+ * a segment starts the next one. On open, the log is scanned from the last {@link #checkpoint(long) checkpoint}
+ * and ends at the first record that does not check out, which drops a write torn by a crash and any stale bytes of
+ * a recycled segment. Segments wholly before the checkpoint are deleted, or kept to be reused for new segments.
+ */
+public final class Outbox implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+    public static final long DEFAULT_SYNC_MS = 0;
+    static final int HEADER_BYTES = 8;
+    static final int MAX_FREE_SEGMENTS = 2;
+    private static final int ROLL = -1;
+    private static final int CHECKPOINT_MAGIC = 0x4F425831; // "OBX1"
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String FREE_PREFIX = "free-";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final long syncNanos;
+    private final EventCodec codec = new BinaryEventCodec();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ArrayDeque<Path> free = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    // Guarded by lock.
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private long head;
+    private boolean closed;
+    private IOException failure;
+
+    private volatile long durable;
+    private volatile long checkpoint;
+    private final Thread syncer;
+
+    private Outbox(Path dir, int segmentBytes, long syncMs) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.syncNanos = TimeUnit.MILLISECONDS.toNanos(syncMs);
+        this.syncer = new Thread(this::syncLoop, "Outbox-Sync");
+        this.syncer.setDaemon(true);
+    }
+
+    /**
+     * Opens the log in {@code dir}, creating it if needed, and recovers its end. A log written with another segment
+     * size keeps the size it was written with.
+     */
+    public static Outbox open(Path dir, int segmentBytes, long syncMs) throws IOException {
+        if (segmentBytes < HEADER_BYTES * 2) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+        }
+        Files.createDirectories(dir);
+
+        Path checkpointFile = dir.resolve(CHECKPOINT_FILE);
+        Long checkpointed = null;
+        if (Files.exists(checkpointFile)) {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(checkpointFile));
+            if (in.remaining() != 16 || in.getInt() != CHECKPOINT_MAGIC) {
+                throw new IOException("Corrupt outbox checkpoint " + checkpointFile);
+            }
+            segmentBytes = in.getInt();
+            checkpointed = in.getLong();
+        }
+
+        Outbox outbox = new Outbox(dir, segmentBytes, syncMs);
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : entries) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(FREE_PREFIX)) {
+                    outbox.free.add(file);
+                } else {
+                    files.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), file);
+                }
+            }
+        }
+
+        long start = checkpointed != null ? checkpointed
+                : files.isEmpty() ? 0 : files.firstKey() * segmentBytes;
+        for (Map.Entry<Long, Path> file : files.entrySet()) {
+            if (file.getKey() < outbox.indexOf(start)) {
+                outbox.release(file.getValue());
+            } else {
+                outbox.segments.put(file.getKey(), Segment.map(file.getValue(), segmentBytes));
+            }
+        }
+        outbox.recover(start);
+        if (checkpointed == null) {
+            // Pins the segment size, which positions depend on.
+            outbox.writeCheckpoint(start);
+        }
+        outbox.syncer.start();
+        return outbox;
+    }
+
+    private void recover(long start) throws IOException {
+        long position = start;
+        while (true) {
+            Segment segment = segments.get(indexOf(position));
+            if (segment == null) {
+                break;
+            }
+            int offset = offsetOf(position);
+            if (segmentBytes - offset < HEADER_BYTES) {
+                position = nextSegment(position);
+                continue;
+            }
+            int length = segment.buffer.getInt(offset);
+            int crc = segment.buffer.getInt(offset + 4);
+            if (length == ROLL && crc == checksum(position, EMPTY)) {
+                position = nextSegment(position);
+                continue;
+            }
+            if (length <= 0 || length > segmentBytes - offset - HEADER_BYTES) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            segment.buffer.get(offset + HEADER_BYTES, payload);
+            if (crc != checksum(position, payload)) {
+                break;
+            }
+            position += HEADER_BYTES + length;
+        }
+
+        // Nothing past the end was acknowledged; clear it so that later appends cannot line up with stale records.
+        Segment last = segments.get(indexOf(position));
+        if (last != null) {
+            last.clear(offsetOf(position));
+        }
+        for (Long index : new ArrayList<>(segments.tailMap(indexOf(position), false).keySet())) {
+            Segment segment = segments.remove(index);
+            segment.close();
+            release(segment.file);
+        }
+        head = position;
+        durable = position;
+        checkpoint = start;
+    }
+
+    /**
+     * Appends {@code event}. The returned stage completes, with the position after the event, once the event is on
+     * disk, and fails if it cannot be written or synced.
+     */
+    public CompletableFuture<Long> append(PersonEvent event) {
+        CompletableFuture<Long> ack = new CompletableFuture<>();
+        byte[] payload = codec.encode(event);
+        int size = HEADER_BYTES + payload.length;
+        if (size > segmentBytes) {
+            ack.completeExceptionally(new IllegalArgumentException("Event larger than an outbox segment"));
+            return ack;
+        }
+
+        lock.lock();
+        try {
+            if (closed || failure != null) {
+                ack.completeExceptionally(failure != null ? failure : new IllegalStateException("Outbox is closed"));
+                return ack;
+            }
+            long position = head;
+            int offset = offsetOf(position);
+            if (segmentBytes - offset < size) {
+                if (segmentBytes - offset >= HEADER_BYTES) {
+                    Segment segment = segments.get(indexOf(position));
+                    segment.buffer.putInt(offset, ROLL).putInt(offset + 4, checksum(position, EMPTY));
+                }
+                position = nextSegment(position);
+                offset = 0;
+            }
+            Segment segment = segment(indexOf(position));
+            segment.buffer.putInt(offset, payload.length)
+                    .putInt(offset + 4, checksum(position, payload))
+                    .put(offset + HEADER_BYTES, payload);
+            head = position + size;
+            waiters.add(new Waiter(head, ack));
+            appended.signal();
+        } catch (IOException ex) {
+            ack.completeExceptionally(ex);
+        } finally {
+            lock.unlock();
+        }
+        return ack;
+    }
+
+    private Segment segment(long index) throws IOException {
+        Segment segment = segments.get(index);
+        if (segment == null) {
+            Path file = dir.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+            Path recycled = free.poll();
+            if (recycled != null) {
+                Files.move(recycled, file, StandardCopyOption.ATOMIC_MOVE);
+            }
+            segment = Segment.map(file, segmentBytes);
+            segments.put(index, segment);
+        }
+        return segment;
+    }
+
+    private void syncLoop() {
+        while (true) {
+            lock.lock();
+            try {
+                while ((head == durable || failure != null) && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (head == durable || failure != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (syncNanos > 0) {
+                LockSupport.parkNanos(syncNanos);
+            }
+            sync();
+        }
+    }
+
+    private void sync() {
+        long from = durable;
+        long to;
+        lock.lock();
+        try {
+            to = head;
+        } finally {
+            lock.unlock();
+        }
+
+        IOException error = null;
+        try {
+            long first = indexOf(from);
+            long last = indexOf(to - 1);
+            for (Map.Entry<Long, Segment> segment : segments.subMap(first, true, last, true).entrySet()) {
+                int start = segment.getKey() == first ? offsetOf(from) : 0;
+                int end = segment.getKey() == last ? offsetOf(to - 1) + 1 : segmentBytes;
+                segment.getValue().buffer.force(start, end - start);
+            }
+        } catch (UncheckedIOException ex) {
+            error = ex.getCause();
+        }
+
+        List<Waiter> done = new ArrayList<>();
+        lock.lock();
+        try {
+            if (error == null) {
+                durable = to;
+                synced.signalAll();
+            } else if (failure == null) {
+                // The page cache may have dropped what failed to sync; nothing can be acknowledged from here on.
+                failure = error;
+            }
+            while (!waiters.isEmpty() && (error != null || waiters.peek().end <= to)) {
+                done.add(waiters.poll());
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Waiter waiter : done) {
+            if (error == null) {
+                waiter.ack.complete(waiter.end);
+            } else {
+                waiter.ack.completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     * Waits until events past {@code position} are on disk.
+     *
+     * @return {@code false} if the timeout elapsed or the outbox was closed first
+     */
+    public boolean awaitDurable(long position, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (durable <= position) {
+                if (closed || remaining <= 0) {
+                    return false;
+                }
+                remaining = synced.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the events on disk from {@code position}, which must be a record boundary such as {@link #checkpoint()}
+     * or an {@link Entry#next()}.
+     */
+    public Reader reader(long position) {
+        return new Reader(position);
+    }
+
+    public final class Reader {
+        private long position;
+
+        private Reader(long position) {
+            this.position = position;
+        }
+
+        /**
+         * The next event on disk, or {@code null} if the reader has caught up.
+         */
+        public Entry next() {
+            while (position < durable) {
+                int offset = offsetOf(position);
+                Segment segment = segments.get(indexOf(position));
+                if (segmentBytes - offset < HEADER_BYTES || segment.buffer.getInt(offset) == ROLL) {
+                    position = nextSegment(position);
+                    continue;
+                }
+                byte[] payload = new byte[segment.buffer.getInt(offset)];
+                segment.buffer.get(offset + HEADER_BYTES, payload);
+                long start = position;
+                position += HEADER_BYTES + payload.length;
+                return new Entry(start, position, codec.decode(null, payload));
+            }
+            return null;
+        }
+
+        public long position() {
+            return position;
+        }
+    }
+
+    /**
+     * An event at {@code position}; the next one starts at {@code next}.
+     */
+    public record Entry(long position, long next, PersonEvent event) {
+    }
+
+    /**
+     * Records that every event before {@code position} has been delivered: a reopened outbox starts reading there,
+     * and segments wholly before it are released.
+     */
+    public void checkpoint(long position) throws IOException {
+        if (position <= checkpoint) {
+            return;
+        }
+        writeCheckpoint(position);
+        checkpoint = position;
+
+        for (Long index : new ArrayList<>(segments.headMap(indexOf(position)).keySet())) {
+            Segment segment = segments.remove(index);
+            segment.close();
+            lock.lock();
+            try {
+                release(segment.file);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void writeCheckpoint(long position) throws IOException {
+        Path file = dir.resolve(CHECKPOINT_FILE);
+        Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+        ByteBuffer out = ByteBuffer.allocate(16).putInt(CHECKPOINT_MAGIC).putInt(segmentBytes).putLong(position);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(out.flip());
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void release(Path file) throws IOException {
+        if (free.size() < MAX_FREE_SEGMENTS) {
+            Path recycled = dir.resolve(FREE_PREFIX + file.getFileName());
+            Files.move(file, recycled, StandardCopyOption.ATOMIC_MOVE);
+            free.add(recycled);
+        } else {
+            Files.delete(file);
+        }
+    }
+
+    public long checkpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Position after the last event on disk.
+     */
+    public long durable() {
+        return durable;
+    }
+
+    /**
+     * Bytes of events not yet delivered.
+     */
+    public long backlogBytes() {
+        return durable - checkpoint;
+    }
+
+    public int segmentBytes() {
+        return segmentBytes;
+    }
+
+    /**
+     * Syncs what has been appended and stops accepting appends. Does not move the checkpoint.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            appended.signal();
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            syncer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    private long indexOf(long position) {
+        return position / segmentBytes;
+    }
+
+    private int offsetOf(long position) {
+        return (int) (position % segmentBytes);
+    }
+
+    private long nextSegment(long position) {
+        return (indexOf(position) + 1) * segmentBytes;
+    }
+
+    static int checksum(long position, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (position >>> shift));
+        }
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private record Waiter(long end, CompletableFuture<Long> ack) {
+    }
+
+    private record Segment(Path file, FileChannel channel, MappedByteBuffer buffer) {
+        static Segment map(Path file, int size) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (channel.size() != size) {
+                channel.truncate(size);
+                if (channel.size() < size) {
+                    channel.write(ByteBuffer.allocate(1), size - 1);
+                }
+            }
+            return new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        void clear(int from) {
+            byte[] zeros = new byte[8192];
+            for (int offset = from; offset < buffer.capacity(); offset += zeros.length) {
+                buffer.put(offset, zeros, 0, Math.min(zeros.length, buffer.capacity() - offset));
+            }
+            buffer.force();
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                // The mapping stays valid; nothing else to release.
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.dthvinh.libs.outbox;
+
+import com.dthvinh.contracts.PersonEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Drains an {@link Outbox} to Kafka in log order. Up to {@code window} sends are in flight at once; the checkpoint
+ * only ever moves past a prefix of the log whose sends have all been acknowledged. When a send fails the relay
+ * waits for the others in flight, rewinds to the first unacknowledged event and tries again from there after
+ * {@code retryMs}, so events are delivered at least once and redelivered in their original order.
+ */
+public final class OutboxRelay implements Runnable {
+    public static final int DEFAULT_WINDOW = 1_024;
+    public static final long DEFAULT_RETRY_MS = 1_000;
+    static final long CHECKPOINT_INTERVAL_MS = 100;
+    static final long IDLE_WAIT_MS = 500;
+
+    private final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+    private final Outbox outbox;
+    private final Function<PersonEvent, CompletableFuture<?>> sink;
+    private final int window;
+    private final long retryMs;
+    private final LongAdder relayed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile boolean running = true;
+
+    public OutboxRelay(Outbox outbox, Function<PersonEvent, CompletableFuture<?>> sink, int window, long retryMs) {
+        this.outbox = outbox;
+        this.sink = sink;
+        this.window = window;
+        this.retryMs = retryMs;
+    }
+
+    @Override
+    public void run() {
+        long delivered = outbox.checkpoint();
+        long checkpointedAt = System.nanoTime();
+        Outbox.Reader reader = outbox.reader(delivered);
+        ArrayDeque<InFlight> inFlight = new ArrayDeque<>();
+        try {
+            while (running) {
+                Outbox.Entry entry;
+                while (inFlight.size() < window && (entry = reader.next()) != null) {
+                    inFlight.add(new InFlight(entry.next(), send(entry.event())));
+                }
+
+                if (inFlight.isEmpty()) {
+                    checkpoint(delivered);
+                    checkpointedAt = System.nanoTime();
+                    outbox.awaitDurable(reader.position(), IDLE_WAIT_MS, TimeUnit.MILLISECONDS);
+                    continue;
+                }
+
+                try {
+                    inFlight.peek().ack.get();
+                    delivered = inFlight.poll().end;
+                    relayed.increment();
+                } catch (ExecutionException ex) {
+                    failures.increment();
+                    log.warn("Outbox relay send failed; retrying from position {} in {}ms: {}",
+                            delivered, retryMs, ex.getCause().toString());
+                    for (InFlight pending : inFlight) {
+                        try {
+                            pending.ack.get();
+                        } catch (ExecutionException ignored) {
+                            // Resent below with the rest.
+                        }
+                    }
+                    inFlight.clear();
+                    reader = outbox.reader(delivered);
+                    Thread.sleep(retryMs);
+                }
+
+                if (System.nanoTime() - checkpointedAt >= TimeUnit.MILLISECONDS.toNanos(CHECKPOINT_INTERVAL_MS)) {
+                    checkpoint(delivered);
+                    checkpointedAt = System.nanoTime();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Keep what was acknowledged by the time we were stopped; the rest is sent again on the next start.
+        while (!inFlight.isEmpty() && inFlight.peek().acknowledged()) {
+            delivered = inFlight.poll().end;
+            relayed.increment();
+        }
+        checkpoint(delivered);
+    }
+
+    private CompletableFuture<?> send(PersonEvent event) {
+        try {
+            return sink.apply(event);
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private void checkpoint(long position) {
+        try {
+            outbox.checkpoint(position);
+        } catch (IOException ex) {
+            // Only costs redelivery after a restart; the next checkpoint tries again.
+            log.warn("Could not write outbox checkpoint: {}", ex.toString());
+        }
+    }
+
+    /**
+     * Stops the relay; {@link #run()} returns once the send it is waiting on settles.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    public long relayed() {
+        return relayed.sum();
+    }
+
+    public long failures() {
+        return failures.sum();
+    }
+
+    private record InFlight(long end, CompletableFuture<?> ack) {
+        boolean acknowledged() {
+            return ack.isDone() && !ack.isCompletedExceptionally();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.dthvinh.libs.outbox;
+
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.libs.common.Env;
+import com.dthvinh.libs.kafka.publisher.KafkaPublisher;
+import com.dthvinh.libs.kafka.publisher.SharedPublisher;
+import com.dthvinh.libs.metrics.MetricsRegistry;
+import com.dthvinh.libs.metrics.PrometheusWriter;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The bundle's {@link Outbox} and the relay that drains it through the shared publisher. Enabled by setting
+ * {@code OUTBOX_DIR}; writes are then acknowledged once they are on local disk instead of once Kafka has them.
+ */
+@Component(service = SharedOutbox.class, immediate = true)
+public class SharedOutbox {
+    static final long DEFAULT_MAX_BYTES = 1L << 30;
+    static final long STOP_TIMEOUT_MS = 5_000;
+
+    private final Logger log = LoggerFactory.getLogger(SharedOutbox.class);
+    private final MetricsRegistry.Collector collector = this::collect;
+
+    @Reference
+    private SharedPublisher sharedPublisher;
+
+    private volatile Outbox outbox;
+    private OutboxRelay relay;
+    private Thread relayThread;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
+    public SharedOutbox() {
+    }
+
+    @Activate
+    public void start() {
+        if (Env.OUTBOX_DIR == null || Env.OUTBOX_DIR.isBlank()) {
+            return;
+        }
+        KafkaPublisher publisher = sharedPublisher.get();
+        if (publisher == null) {
+            log.warn("OUTBOX_DIR is set but Kafka is not configured; the outbox stays off");
+            return;
+        }
+
+        Outbox opened;
+        try {
+            opened = Outbox.open(Path.of(Env.OUTBOX_DIR),
+                    (int) Env.longOr(Env.OUTBOX_SEGMENT_BYTES, Outbox.DEFAULT_SEGMENT_BYTES),
+                    Env.longOr(Env.OUTBOX_SYNC_MS, Outbox.DEFAULT_SYNC_MS));
+        } catch (IOException | RuntimeException ex) {
+            log.error("Could not open the outbox in {}; writes go straight to Kafka", Env.OUTBOX_DIR, ex);
+            return;
+        }
+        maxBytes = Env.longOr(Env.OUTBOX_MAX_BYTES, DEFAULT_MAX_BYTES);
+        log.info("Outbox open in {} ({} bytes to relay)", Env.OUTBOX_DIR, opened.backlogBytes());
+
+        relay = new OutboxRelay(opened, publisher::send, OutboxRelay.DEFAULT_WINDOW, OutboxRelay.DEFAULT_RETRY_MS);
+        relayThread = new Thread(relay, "Outbox-Relay");
+        relayThread.setDaemon(true);
+        relayThread.start();
+        outbox = opened;
+        MetricsRegistry.DEFAULT.register(collector);
+    }
+
+    @Deactivate
+    public void stop() {
+        MetricsRegistry.DEFAULT.unregister(collector);
+        Outbox toClose = outbox;
+        outbox = null;
+        if (relay != null) {
+            relay.stop();
+            relayThread.interrupt();
+            try {
+                relayThread.join(STOP_TIMEOUT_MS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            relay = null;
+            relayThread = null;
+        }
+        if (toClose != null) {
+            toClose.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return outbox != null;
+    }
+
+    /**
+     * Appends {@code event}; the stage completes once it is on disk, or fails when the outbox is off.
+     */
+    public CompletableFuture<Long> append(PersonEvent event) {
+        Outbox current = outbox;
+        return current == null
+                ? CompletableFuture.failedFuture(new IllegalStateException("Outbox is off"))
+                : current.append(event);
+    }
+
+    /**
+     * Whether the undelivered backlog is below {@code OUTBOX_MAX_BYTES}.
+     */
+    public boolean hasRoom() {
+        Outbox current = outbox;
+        return current != null && current.backlogBytes() < maxBytes;
+    }
+
+    private void collect(PrometheusWriter out) {
+        Outbox current = outbox;
+        OutboxRelay currentRelay = relay;
+        if (current == null || currentRelay == null) {
+            return;
+        }
+        out.family("outbox_backlog_bytes", "gauge", "Bytes of events in the outbox not yet delivered to Kafka.")
+                .sample("outbox_backlog_bytes", current.backlogBytes());
+        out.family("outbox_relayed_total", "counter", "Events the outbox relay delivered to Kafka.")
+                .sample("outbox_relayed_total", currentRelay.relayed());
+        out.family("outbox_relay_failures_total", "counter", "Outbox relay sends that failed and were retried.")
+                .sample("outbox_relay_failures_total", currentRelay.failures());
+    }
+}
@@ -0,0 +1,65 @@
+package com.dthvinh.libs.readmodel;
+
+import com.dthvinh.models.Person;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Compact stored form of a person: the id is kept as two longs, and the same instance is the key in every index.
+ */
+final class PersonEntry {
+    static final Comparator<PersonEntry> BY_ID = PersonEntry::compareIds;
+    static final Comparator<PersonEntry> BY_NAME = (a, b) -> {
+        int c = String.CASE_INSENSITIVE_ORDER.compare(a.name, b.name);
+        return c != 0 ? c : compareIds(a, b);
+    };
+    static final Comparator<PersonEntry> BY_AGE = (a, b) -> {
+        int c = Integer.compare(a.age, b.age);
+        return c != 0 ? c : compareIds(a, b);
+    };
+
+    final long msb;
+    final long lsb;
+    final String name;
+    final int age;
+
+    PersonEntry(long msb, long lsb, String name, int age) {
+        this.msb = msb;
+        this.lsb = lsb;
+        this.name = name;
+        this.age = age;
+    }
+
+    static PersonEntry of(Person person) {
+        UUID id = person.id();
+        return new PersonEntry(id.getMostSignificantBits(), id.getLeastSignificantBits(),
+                person.name() == null ? "" : person.name(), person.age());
+    }
+
+    static PersonEntry probe(UUID id) {
+        return new PersonEntry(id.getMostSignificantBits(), id.getLeastSignificantBits(), "", 0);
+    }
+
+    static PersonEntry probe(UUID id, String name, int age) {
+        return new PersonEntry(id.getMostSignificantBits(), id.getLeastSignificantBits(), name, age);
+    }
+
+    UUID id() {
+        return new UUID(msb, lsb);
+    }
+
+    Person toPerson() {
+        return new Person(id(), name, age);
+    }
+
+    boolean nameStartsWith(String prefix) {
+        return name.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    // Same ordering as UUID.compareTo.
+    private static int compareIds(PersonEntry a, PersonEntry b) {
+        int c = Long.compare(a.msb, b.msb);
+        return c != 0 ? c : Long.compare(a.lsb, b.lsb);
+    }
+}
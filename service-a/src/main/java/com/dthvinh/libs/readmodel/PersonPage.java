@@ -0,0 +1,8 @@
+package com.dthvinh.libs.readmodel;
+
+import com.dthvinh.models.Person;
+
+import java.util.List;
+
+public record PersonPage(List<Person> items, String nextCursor) {
+}
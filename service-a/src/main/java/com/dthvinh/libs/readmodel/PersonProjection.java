@@ -0,0 +1,259 @@
+package com.dthvinh.libs.readmodel;
+
+import com.dthvinh.contracts.CreatePerson;
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.PersonEventDeserializer;
+import com.dthvinh.contracts.TopicRoutes;
+import com.dthvinh.contracts.UpdatePerson;
+import com.dthvinh.contracts.transport.EventSource;
+import com.dthvinh.contracts.transport.EventTransport;
+import com.dthvinh.contracts.transport.LoopbackTransport;
+import com.dthvinh.libs.common.Env;
+import com.dthvinh.models.Person;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails the person topics ({@link TopicRoutes#topics()}) from the beginning into {@link PersonStore}. Partitions
+ * are assigned directly (no consumer group, no commits), so every service-a instance rebuilds the full model on
+ * start. The store is marked ready once the end offsets seen at start-up have been reached. Routed topics that do
+ * not exist yet are looked up again every {@value #TOPIC_RETRY_MS}ms and read from the beginning once they do.
+ * Events that skip Kafka through the loopback transport are applied as they are handed over.
+ */
+@Component(immediate = true)
+public class PersonProjection implements Runnable {
+    static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    static final long TOPIC_RETRY_MS = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(PersonProjection.class);
+    private final Set<TopicPartition> assigned = new HashSet<>();
+    private final Set<String> pending = new LinkedHashSet<>();
+    private final Map<EventSource, EventSource.Subscription> loopback = new ConcurrentHashMap<>();
+    private Set<String> topics = TopicRoutes.LEGACY.topics();
+
+    @Reference
+    private PersonStore store;
+
+    private Consumer<String, PersonEvent> consumer;
+    private Thread thread;
+    private volatile boolean running;
+
+    public PersonProjection() {
+    }
+
+    // Package-private constructor for unit tests (no broker needed)
+    PersonProjection(PersonStore store, Consumer<String, PersonEvent> consumer) {
+        this.store = store;
+        this.consumer = consumer;
+    }
+
+    @Reference(
+            service = EventSource.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            policyOption = ReferencePolicyOption.GREEDY,
+            target = "(" + EventTransport.TRANSPORT_PROPERTY + "=" + LoopbackTransport.NAME + ")"
+    )
+    protected void bindEventSource(EventSource source) {
+        loopback.put(source, source.subscribe(this::apply));
+    }
+
+    protected void unbindEventSource(EventSource source) {
+        EventSource.Subscription subscription = loopback.remove(source);
+        if (subscription != null) {
+            subscription.close();
+        }
+    }
+
+    @Activate
+    public void start() {
+        if (Env.KAFKA_BOOTSTRAP_SERVER == null) {
+            log.warn("KAFKA_BOOTSTRAP_SERVER is not set; person read model stays empty");
+            return;
+        }
+
+        try {
+            topics = TopicRoutes.parse(Env.EVENT_TOPICS).topics();
+        } catch (IllegalArgumentException ex) {
+            log.warn("{}; reading the default topic only", ex.getMessage());
+        }
+
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, Env.KAFKA_BOOTSTRAP_SERVER);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, PersonEventDeserializer.class.getName());
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        try {
+            Thread.currentThread().setContextClassLoader(null);
+            consumer = new KafkaConsumer<>(props);
+        } finally {
+            Thread.currentThread().setContextClassLoader(context);
+        }
+
+        running = true;
+        thread = new Thread(this, "Person-Projection-Thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Deactivate
+    public void stop() {
+        running = false;
+        if (consumer != null) {
+            consumer.wakeup();
+        }
+        if (thread != null) {
+            try {
+                thread.join(POLL_TIMEOUT.toMillis() * 4);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            Map<TopicPartition, Long> endOffsets = assignAll();
+            long checkedAt = System.nanoTime();
+            while (running) {
+                for (ConsumerRecord<String, PersonEvent> record : consumer.poll(POLL_TIMEOUT)) {
+                    apply(record);
+                }
+                if (!store.isReady() && caughtUp(endOffsets)) {
+                    store.markReady();
+                    log.info("Person read model ready ({} persons)", store.size());
+                }
+                if (!pending.isEmpty()
+                        && System.nanoTime() - checkedAt >= TimeUnit.MILLISECONDS.toNanos(TOPIC_RETRY_MS)) {
+                    assignPending();
+                    checkedAt = System.nanoTime();
+                }
+            }
+        } catch (WakeupException ex) {
+            if (running) {
+                log.error("Person projection woken up unexpectedly", ex);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            log.error("Person projection stopped", ex);
+        } finally {
+            try {
+                consumer.close();
+            } catch (Exception ex) {
+                log.warn("Error closing projection consumer", ex);
+            }
+        }
+    }
+
+    private Map<TopicPartition, Long> assignAll() throws InterruptedException {
+        pending.addAll(topics);
+        while (running && !assignPending()) {
+            // Topics are created on first publish; until one is there is nothing to read.
+            store.markReady();
+            Thread.sleep(TOPIC_RETRY_MS);
+        }
+        return consumer.endOffsets(assigned);
+    }
+
+    /**
+     * Adds the partitions of pending topics that exist by now to the assignment, read from the beginning.
+     *
+     * @return whether any partition was added
+     */
+    private boolean assignPending() {
+        List<TopicPartition> added = new ArrayList<>();
+        for (Iterator<String> it = pending.iterator(); it.hasNext(); ) {
+            List<PartitionInfo> infos = consumer.partitionsFor(it.next());
+            if (infos != null && !infos.isEmpty()) {
+                for (PartitionInfo info : infos) {
+                    added.add(new TopicPartition(info.topic(), info.partition()));
+                }
+                it.remove();
+            }
+        }
+        if (added.isEmpty()) {
+            return false;
+        }
+        assigned.addAll(added);
+        consumer.assign(assigned);
+        consumer.seekToBeginning(added);
+        return true;
+    }
+
+    private boolean caughtUp(Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            if (consumer.position(end.getKey()) < end.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void apply(ConsumerRecord<String, PersonEvent> record) {
+        PersonEvent event = record.value();
+        if (event == null) {
+            log.debug("Skipping unreadable record at partition={} offset={}", record.partition(), record.offset());
+            return;
+        }
+
+        if (event instanceof CreatePerson create && create.id() == null) {
+            store.put(new Person(idOf(record), create.name(), create.age()));
+        } else {
+            apply(event);
+        }
+    }
+
+    void apply(PersonEvent event) {
+        if (event instanceof CreatePerson create) {
+            if (create.id() != null) {
+                store.put(new Person(create.id(), create.name(), create.age()));
+            }
+        } else if (event instanceof UpdatePerson update) {
+            if (update.id() != null) {
+                store.put(new Person(update.id(), update.name(), update.age()));
+            }
+        } else if (event.id() != null) {
+            store.remove(event.id());
+        }
+    }
+
+    // Create events published before ids were assigned carry none; derive a stable one from the record position so
+    // replays agree.
+    static UUID idOf(ConsumerRecord<String, ?> record) {
+        String position = record.topic() + ":" + record.partition() + ":" + record.offset();
+        return UUID.nameUUIDFromBytes(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
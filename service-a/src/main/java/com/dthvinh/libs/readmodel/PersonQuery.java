@@ -0,0 +1,74 @@
+package com.dthvinh.libs.readmodel;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * List query over {@link PersonStore}. {@code namePrefix} matches case-insensitively, the age bounds are inclusive
+ * and {@code cursor} is the opaque {@code nextCursor} of the previous page.
+ */
+public record PersonQuery(String namePrefix, Integer minAge, Integer maxAge, Sort sort, boolean descending,
+                          int limit, String cursor) {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    public enum Sort {
+        ID, NAME, AGE
+    }
+
+    public PersonQuery {
+        if (namePrefix != null && namePrefix.isEmpty()) {
+            namePrefix = null;
+        }
+        if (sort == null) {
+            sort = Sort.ID;
+        }
+        if (limit <= 0) {
+            limit = DEFAULT_LIMIT;
+        }
+        limit = Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * Builds a query from the {@code name}, {@code minAge}, {@code maxAge}, {@code sort}, {@code order},
+     * {@code limit} and {@code cursor} request parameters.
+     *
+     * @throws IllegalArgumentException if a parameter has an invalid value
+     */
+    public static PersonQuery parse(Function<String, String> params) {
+        String sort = params.apply("sort");
+        String order = params.apply("order");
+        if (order != null && !order.equalsIgnoreCase("asc") && !order.equalsIgnoreCase("desc")) {
+            throw new IllegalArgumentException("order must be asc or desc");
+        }
+
+        Sort parsedSort;
+        try {
+            parsedSort = sort == null ? Sort.ID : Sort.valueOf(sort.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("sort must be id, name or age");
+        }
+
+        Integer limit = integer(params, "limit");
+        return new PersonQuery(
+                params.apply("name"),
+                integer(params, "minAge"),
+                integer(params, "maxAge"),
+                parsedSort,
+                "desc".equalsIgnoreCase(order),
+                limit == null ? DEFAULT_LIMIT : limit,
+                params.apply("cursor"));
+    }
+
+    private static Integer integer(Function<String, String> params, String name) {
+        String value = params.apply(name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.dthvinh.libs.readmodel;
+
+import com.dthvinh.models.Person;
+import org.osgi.service.component.annotations.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+/**
+ * In-memory person read model fed by {@link PersonProjection}. Persons are kept once as {@link PersonEntry} and
+ * indexed by id, by case-insensitive name and by age, so every query walks an ordered index instead of scanning.
+ * <p>
+ * Each person has a single writer (the projection thread, or the loopback lane the person is on); readers never
+ * block and may briefly see an update as either the old or the new row.
+ */
+@Component(service = PersonStore.class)
+public class PersonStore {
+    private static final long MIN = Long.MIN_VALUE;
+    private static final long MAX = Long.MAX_VALUE;
+
+    private final ConcurrentSkipListMap<PersonEntry, PersonEntry> byId = new ConcurrentSkipListMap<>(PersonEntry.BY_ID);
+    private final ConcurrentSkipListSet<PersonEntry> byName = new ConcurrentSkipListSet<>(PersonEntry.BY_NAME);
+    private final ConcurrentSkipListSet<PersonEntry> byAge = new ConcurrentSkipListSet<>(PersonEntry.BY_AGE);
+    private volatile boolean ready;
+
+    public void put(Person person) {
+        PersonEntry entry = PersonEntry.of(person);
+        PersonEntry previous = byId.put(entry, entry);
+        if (previous != null) {
+            byName.remove(previous);
+            byAge.remove(previous);
+        }
+        byName.add(entry);
+        byAge.add(entry);
+    }
+
+    public boolean remove(UUID id) {
+        PersonEntry previous = byId.remove(PersonEntry.probe(id));
+        if (previous == null) {
+            return false;
+        }
+        byName.remove(previous);
+        byAge.remove(previous);
+        return true;
+    }
+
+    public Optional<Person> get(UUID id) {
+        PersonEntry entry = byId.get(PersonEntry.probe(id));
+        return entry == null ? Optional.empty() : Optional.of(entry.toPerson());
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    void clear() {
+        ready = false;
+        byId.clear();
+        byName.clear();
+        byAge.clear();
+    }
+
+    /**
+     * Runs a query against the index of its sort field. A filter on that same field narrows the walk to a range;
+     * otherwise, when a filter is present, the filter's own index is walked and the page is picked by the sort
+     * order, so a selective filter never turns into a scan of the whole store.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort
+     */
+    public PersonPage query(PersonQuery query) {
+        PersonQuery.Sort sort = query.sort();
+        PersonEntry after = query.cursor() == null ? null : decodeCursor(query.cursor(), sort);
+        Predicate<PersonEntry> filter = filter(query);
+
+        List<PersonEntry> rows;
+        boolean sortFieldFiltered = (sort == PersonQuery.Sort.NAME && query.namePrefix() != null)
+                || (sort == PersonQuery.Sort.AGE && (query.minAge() != null || query.maxAge() != null));
+        if (sortFieldFiltered || (query.namePrefix() == null && query.minAge() == null && query.maxAge() == null)) {
+            rows = walk(range(query, sort), after, query.descending(), filter, query.limit() + 1);
+        } else {
+            PersonQuery.Sort driving = query.namePrefix() != null ? PersonQuery.Sort.NAME : PersonQuery.Sort.AGE;
+            rows = select(range(query, driving), after, comparator(sort, query.descending()), filter,
+                    query.limit() + 1);
+        }
+
+        String next = null;
+        if (rows.size() > query.limit()) {
+            rows = rows.subList(0, query.limit());
+            next = encodeCursor(rows.get(rows.size() - 1), sort);
+        }
+
+        List<Person> items = new ArrayList<>(rows.size());
+        for (PersonEntry row : rows) {
+            items.add(row.toPerson());
+        }
+        return new PersonPage(items, next);
+    }
+
+    private NavigableSet<PersonEntry> range(PersonQuery query, PersonQuery.Sort field) {
+        switch (field) {
+            case NAME:
+                if (query.namePrefix() == null) {
+                    return byName;
+                }
+                return byName.subSet(
+                        new PersonEntry(MIN, MIN, query.namePrefix(), 0), true,
+                        new PersonEntry(MAX, MAX, query.namePrefix() + Character.MAX_VALUE, 0), true);
+            case AGE:
+                if (query.minAge() == null && query.maxAge() == null) {
+                    return byAge;
+                }
+                int min = query.minAge() == null ? Integer.MIN_VALUE : query.minAge();
+                int max = query.maxAge() == null ? Integer.MAX_VALUE : query.maxAge();
+                return byAge.subSet(new PersonEntry(MIN, MIN, "", min), true, new PersonEntry(MAX, MAX, "", max), true);
+            default:
+                return byId.keySet();
+        }
+    }
+
+    private static List<PersonEntry> walk(NavigableSet<PersonEntry> index, PersonEntry after, boolean descending,
+                                          Predicate<PersonEntry> filter, int max) {
+        NavigableSet<PersonEntry> view = index;
+        if (after != null) {
+            view = descending ? view.headSet(after, false) : view.tailSet(after, false);
+        }
+        Iterator<PersonEntry> it = descending ? view.descendingIterator() : view.iterator();
+
+        List<PersonEntry> rows = new ArrayList<>(Math.min(max, 64));
+        while (rows.size() < max && it.hasNext()) {
+            PersonEntry entry = it.next();
+            if (filter.test(entry)) {
+                rows.add(entry);
+            }
+        }
+        return rows;
+    }
+
+    private static List<PersonEntry> select(NavigableSet<PersonEntry> index, PersonEntry after,
+                                            Comparator<PersonEntry> order, Predicate<PersonEntry> filter, int max) {
+        // Bounded max-heap: keeps the first `max` rows in sort order while walking the filtered range.
+        PriorityQueue<PersonEntry> top = new PriorityQueue<>(max, order.reversed());
+        for (PersonEntry entry : index) {
+            if (!filter.test(entry) || (after != null && order.compare(entry, after) <= 0)) {
+                continue;
+            }
+            if (top.size() < max) {
+                top.add(entry);
+            } else if (order.compare(entry, top.peek()) < 0) {
+                top.poll();
+                top.add(entry);
+            }
+        }
+
+        List<PersonEntry> rows = new ArrayList<>(top);
+        rows.sort(order);
+        return rows;
+    }
+
+    private static Predicate<PersonEntry> filter(PersonQuery query) {
+        String prefix = query.namePrefix();
+        int min = query.minAge() == null ? Integer.MIN_VALUE : query.minAge();
+        int max = query.maxAge() == null ? Integer.MAX_VALUE : query.maxAge();
+        return e -> e.age >= min && e.age <= max && (prefix == null || e.nameStartsWith(prefix));
+    }
+
+    private static Comparator<PersonEntry> comparator(PersonQuery.Sort sort, boolean descending) {
+        Comparator<PersonEntry> order = switch (sort) {
+            case NAME -> PersonEntry.BY_NAME;
+            case AGE -> PersonEntry.BY_AGE;
+            case ID -> PersonEntry.BY_ID;
+        };
+        return descending ? order.reversed() : order;
+    }
+
+    // Cursor = base64url("<sort>|<id>|<sort value>"), i.e. the position of the last row handed out.
+    static String encodeCursor(PersonEntry last, PersonQuery.Sort sort) {
+        String value = switch (sort) {
+            case NAME -> last.name;
+            case AGE -> Integer.toString(last.age);
+            case ID -> "";
+        };
+        String raw = sort.name() + "|" + last.id() + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static PersonEntry decodeCursor(String cursor, PersonQuery.Sort sort) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 3);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (parts.length != 3 || !parts[0].equals(sort.name())) {
+            throw new IllegalArgumentException("Cursor does not match sort");
+        }
+
+        try {
+            UUID id = UUID.fromString(parts[1]);
+            return switch (sort) {
+                case NAME -> PersonEntry.probe(id, parts[2], 0);
+                case AGE -> PersonEntry.probe(id, "", Integer.parseInt(parts[2]));
+                case ID -> PersonEntry.probe(id);
+            };
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.dthvinh.libs.redis;
+
+import java.util.UUID;
+
+/**
+ * Redis keys written by service B; must match its {@code KeyService}.
+ */
+public class KeyService {
+    public static final String PERSON_FILTER_KEY = "persons-filter";
+
+    public static String createKey(UUID id) {
+        return "persons:#%s".formatted(id);
+    }
+}
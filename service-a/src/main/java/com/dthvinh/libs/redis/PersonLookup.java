@@ -0,0 +1,217 @@
+package com.dthvinh.libs.redis;
+
+import com.dthvinh.contracts.filter.CuckooFilter;
+import com.dthvinh.libs.cache.ReadThroughCache;
+import com.dthvinh.libs.common.Env;
+import com.dthvinh.libs.common.IdGenerator;
+import com.dthvinh.libs.metrics.MetricsRegistry;
+import com.dthvinh.libs.metrics.PrometheusWriter;
+import com.dthvinh.libs.servlet.JsonCodec;
+import com.dthvinh.models.Person;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.RedisClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads persons from the Redis entries service B maintains, through a {@link ReadThroughCache}: hot ids are served
+ * from memory, concurrent lookups of one id share a Redis round trip, and entries past their TTL are refreshed in
+ * the background while the old value is still served.
+ *
+ * <p>Before going to Redis, ids are checked against the cuckoo filter service B publishes
+ * ({@link KeyService#PERSON_FILTER_KEY}), so ids that were never created cost no round trip. The snapshot only
+ * vouches for ids minted at least {@code PERSON_FILTER_TRUST_LAG_MS} before it was taken (time-ordered ids carry
+ * their creation time); newer ids, which service B may not have processed yet, always go to Redis.
+ */
+@Component(service = PersonLookup.class, immediate = true)
+public class PersonLookup {
+    static final long DEFAULT_TTL_MS = 1_000;
+    static final long DEFAULT_STALE_MS = 30_000;
+    static final int MAX_ENTRIES = 10_000;
+    static final int REFRESH_THREADS = 2;
+    static final long DEFAULT_FILTER_REFRESH_MS = 10_000;
+    static final long DEFAULT_FILTER_TRUST_LAG_MS = 60_000;
+    private static final String METRIC = "person_cache";
+
+    private final Logger log = LoggerFactory.getLogger(PersonLookup.class);
+    private final Gson gson = JsonCodec.DEFAULT.gson();
+    private final MetricsRegistry.Collector collector = this::collect;
+    private final LongAdder filtered = new LongAdder();
+
+    private RedisClient redis;
+    private ExecutorService refresher;
+    private ScheduledExecutorService filterRefresher;
+    private volatile ReadThroughCache<UUID, Person> cache;
+    private volatile CuckooFilter.Snapshot filter;
+    private long trustLagMs = DEFAULT_FILTER_TRUST_LAG_MS;
+
+    public PersonLookup() {
+    }
+
+    // Package-private constructor for unit tests (no Redis needed)
+    PersonLookup(ReadThroughCache<UUID, Person> cache, CuckooFilter.Snapshot filter, long trustLagMs) {
+        this.cache = cache;
+        this.filter = filter;
+        this.trustLagMs = trustLagMs;
+    }
+
+    @Activate
+    public void start() {
+        if (Env.REDIS_HOST == null || Env.REDIS_HOST.isBlank()) {
+            log.info("REDIS_HOST is not set; person lookups use the read model only");
+            return;
+        }
+
+        redis = RedisClient.builder()
+                .hostAndPort(Env.REDIS_HOST, (int) Env.longOr(Env.REDIS_PORT, 6379))
+                .build();
+        refresher = Executors.newFixedThreadPool(REFRESH_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "Person-Cache-Refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cache = new ReadThroughCache<>(this::fetch,
+                Env.longOr(Env.PERSON_CACHE_TTL_MS, DEFAULT_TTL_MS),
+                Env.longOr(Env.PERSON_CACHE_STALE_MS, DEFAULT_STALE_MS),
+                MAX_ENTRIES, refresher, System::nanoTime);
+
+        trustLagMs = Env.longOr(Env.PERSON_FILTER_TRUST_LAG_MS, DEFAULT_FILTER_TRUST_LAG_MS);
+        long filterRefreshMs = Env.longOr(Env.PERSON_FILTER_REFRESH_MS, DEFAULT_FILTER_REFRESH_MS);
+        filterRefresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Person-Filter-Refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        filterRefresher.scheduleWithFixedDelay(this::refreshFilter, 0, filterRefreshMs, TimeUnit.MILLISECONDS);
+        MetricsRegistry.DEFAULT.register(collector);
+    }
+
+    @Deactivate
+    public void stop() {
+        MetricsRegistry.DEFAULT.unregister(collector);
+        cache = null;
+        filter = null;
+        if (filterRefresher != null) {
+            filterRefresher.shutdownNow();
+            filterRefresher = null;
+        }
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+        if (redis != null) {
+            try {
+                redis.close();
+            } catch (Exception ex) {
+                log.warn("Failed to close Redis client", ex);
+            }
+            redis = null;
+        }
+    }
+
+    public boolean isConfigured() {
+        return cache != null;
+    }
+
+    /**
+     * The person stored for {@code id}, empty if Redis has none or Redis is not configured. Throws when Redis cannot
+     * be reached and nothing is cached for the id.
+     */
+    public Optional<Person> get(UUID id) throws Exception {
+        ReadThroughCache<UUID, Person> current = cache;
+        if (current == null) {
+            return Optional.empty();
+        }
+        if (definitelyAbsent(id)) {
+            filtered.increment();
+            return Optional.empty();
+        }
+        return Optional.ofNullable(current.get(id));
+    }
+
+    private boolean definitelyAbsent(UUID id) {
+        CuckooFilter.Snapshot snapshot = filter;
+        if (snapshot == null) {
+            return false;
+        }
+        // Ids not minted by service A only come from updates of persons that predate it.
+        boolean vouched = id.version() != 7
+                || IdGenerator.timestampOf(id) < snapshot.takenAtMillis() - trustLagMs;
+        return vouched && !snapshot.filter().mightContain(id);
+    }
+
+    void refreshFilter() {
+        try {
+            byte[] bytes = redis.get(KeyService.PERSON_FILTER_KEY.getBytes(StandardCharsets.UTF_8));
+            if (bytes != null) {
+                filter = CuckooFilter.fromBytes(bytes);
+            }
+        } catch (RuntimeException ex) {
+            log.debug("Could not load the person filter", ex);
+        }
+    }
+
+    public ReadThroughCache.Stats stats() {
+        ReadThroughCache<UUID, Person> current = cache;
+        return current == null ? null : current.stats();
+    }
+
+    private Person fetch(UUID id) {
+        return parse(id, redis.get(KeyService.createKey(id)));
+    }
+
+    Person parse(UUID id, String json) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        try {
+            Person stored = gson.fromJson(json, Person.class);
+            return stored == null ? null : new Person(id, stored.name(), stored.age());
+        } catch (JsonParseException ex) {
+            log.debug("Unreadable Redis entry for person {}", id);
+            return null;
+        }
+    }
+
+    private void collect(PrometheusWriter out) {
+        ReadThroughCache.Stats stats = stats();
+        if (stats == null) {
+            return;
+        }
+        out.family(METRIC + "_entries", "gauge", "Persons held in the read-through cache.")
+                .sample(METRIC + "_entries", stats.entries());
+        out.family(METRIC + "_lookups_total", "counter", "Person cache lookups by outcome.")
+                .sample(METRIC + "_lookups_total", stats.hits(), "result", "hit")
+                .sample(METRIC + "_lookups_total", stats.staleHits(), "result", "stale")
+                .sample(METRIC + "_lookups_total", stats.coalesced(), "result", "coalesced")
+                .sample(METRIC + "_lookups_total", stats.misses(), "result", "miss");
+        out.family(METRIC + "_loads_total", "counter", "Redis reads issued by the person cache.")
+                .sample(METRIC + "_loads_total", stats.misses(), "reason", "miss")
+                .sample(METRIC + "_loads_total", stats.refreshes(), "reason", "refresh");
+        out.family(METRIC + "_load_failures_total", "counter", "Redis reads that failed.")
+                .sample(METRIC + "_load_failures_total", stats.failures());
+        out.family(METRIC + "_filtered_total", "counter", "Lookups answered absent by the person filter.")
+                .sample(METRIC + "_filtered_total", filtered.sum());
+
+        CuckooFilter.Snapshot snapshot = filter;
+        if (snapshot != null) {
+            out.family("person_filter_ids", "gauge", "Person ids in the loaded filter snapshot.")
+                    .sample("person_filter_ids", snapshot.filter().size());
+            out.family("person_filter_bytes", "gauge", "Size of the loaded filter snapshot.")
+                    .sample("person_filter_bytes", snapshot.filter().bytes());
+        }
+    }
+}
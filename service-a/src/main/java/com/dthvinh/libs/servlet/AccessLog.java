@@ -0,0 +1,45 @@
+package com.dthvinh.libs.servlet;
+
+import com.dthvinh.libs.common.Env;
+import org.slf4j.Logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which finished requests get an access log line. At DEBUG every request is logged; at INFO only server
+ * errors, slow requests and a random one-in-{@code sampleEvery} sample are, so the log volume stays flat as traffic
+ * grows.
+ */
+final class AccessLog {
+    static final int DEFAULT_SAMPLE_EVERY = 100;
+    static final long DEFAULT_SLOW_MS = 1_000;
+
+    private final Logger log;
+    private final int sampleEvery;
+    private final long slowNs;
+
+    AccessLog(Logger log, int sampleEvery, long slowMs) {
+        this.log = log;
+        this.sampleEvery = sampleEvery;
+        this.slowNs = TimeUnit.MILLISECONDS.toNanos(slowMs);
+    }
+
+    static AccessLog fromEnv(Logger log) {
+        return new AccessLog(log,
+                (int) Env.longOr(Env.ACCESS_LOG_SAMPLE_EVERY, DEFAULT_SAMPLE_EVERY),
+                Env.longOr(Env.ACCESS_LOG_SLOW_MS, DEFAULT_SLOW_MS));
+    }
+
+    boolean shouldLog(int status, long elapsedNs) {
+        if (log.isDebugEnabled()) {
+            return true;
+        }
+        if (!log.isInfoEnabled()) {
+            return false;
+        }
+        return status >= 500
+                || elapsedNs >= slowNs
+                || (sampleEvery > 0 && ThreadLocalRandom.current().nextInt(sampleEvery) == 0);
+    }
+}
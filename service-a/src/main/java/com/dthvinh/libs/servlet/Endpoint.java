@@ -1,63 +1,100 @@
 package com.dthvinh.libs.servlet;
 
-import com.dthvinh.libs.common.ApplicationConstants;
-import com.dthvinh.libs.common.Env;
+import com.dthvinh.libs.common.ER;
 import com.dthvinh.libs.kafka.publisher.KafkaPublisher;
-import com.google.gson.Gson;
-import org.osgi.service.component.annotations.Deactivate;
+import com.dthvinh.libs.kafka.publisher.SharedPublisher;
+import com.dthvinh.libs.metrics.MetricsRegistry;
+import com.dthvinh.libs.outbox.SharedOutbox;
+import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.Optional;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 public abstract class Endpoint extends HttpServlet {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    protected static final int SC_TOO_MANY_REQUESTS = 429;
+
     protected final Logger log = LoggerFactory.getLogger(getClass());
-    public HttpServletRequest req;
-    public HttpServletResponse resp;
-    protected Gson gson = new Gson();
-    protected volatile KafkaPublisher publisher;
-
-    @Deactivate
-    void deactivate() {
-        KafkaPublisher toClose = publisher;
-        publisher = null;
-        if (toClose != null) {
-            try {
-                toClose.close();
-            } catch (Exception ex) {
-                log.warn("Failed to close KafkaPublisher", ex);
-            }
-        }
+    protected final JsonCodec codec = JsonCodec.DEFAULT;
+    protected final MetricsRegistry metrics = MetricsRegistry.DEFAULT;
+    private final AccessLog accessLog = AccessLog.fromEnv(log);
+    private volatile RouteTable routeTable;
+
+    @Reference
+    protected SharedPublisher sharedPublisher;
+
+    /**
+     * The bundle's shared publisher, or {@code null} when Kafka is not configured.
+     */
+    protected KafkaPublisher getPublisher() {
+        SharedPublisher shared = sharedPublisher;
+        return shared == null ? null : shared.get();
     }
 
-    protected KafkaPublisher getOrCreatePublisher() {
-        KafkaPublisher existing = publisher;
-        if (existing != null) {
-            return existing;
-        }
+    @Reference
+    protected SharedOutbox sharedOutbox;
 
-        synchronized (this) {
-            existing = publisher;
-            if (existing != null) {
-                return existing;
-            }
+    /**
+     * The bundle's outbox, or {@code null} when it is off and writes go straight to Kafka.
+     */
+    protected SharedOutbox getOutbox() {
+        SharedOutbox shared = sharedOutbox;
+        return shared == null || !shared.isEnabled() ? null : shared;
+    }
+
+    protected IdempotencyCache idempotencyCache() {
+        return IdempotencyCache.DEFAULT;
+    }
+
+    /**
+     * Declares the routes below this servlet's mount point. Endpoints that declare none handle every path in
+     * {@link #handleGet} and friends.
+     */
+    protected void routes(RouteTable.Builder routes) {
+    }
+
+    @Override
+    public void init() throws ServletException {
+        routeTable();
+    }
 
-            String bootstrapServers = Env.KAFKA_BOOTSTRAP_SERVER;
-            if (bootstrapServers == null || bootstrapServers.isBlank()) {
-                return null;
+    RouteTable routeTable() {
+        RouteTable table = routeTable;
+        if (table == null) {
+            synchronized (this) {
+                table = routeTable;
+                if (table == null) {
+                    RouteTable.Builder builder = new RouteTable.Builder();
+                    routes(builder);
+                    table = builder.build();
+                    routeTable = table;
+                }
             }
+        }
+        return table;
+    }
 
-            publisher = new KafkaPublisher(bootstrapServers, ApplicationConstants.AppGlobalTopic);
-            return publisher;
+    /**
+     * Route label for request metrics: the matched route template, so raw ids in the path never become labels.
+     */
+    protected String routeOf(HttpServletRequest req) {
+        String servletPath = req.getServletPath();
+        if (servletPath == null || servletPath.isEmpty()) {
+            return "other";
         }
+        RouteTable.Route route = routeTable().match(RouteTable.Method.of(req.getMethod()), req.getPathInfo());
+        return route == null ? servletPath : route.label(servletPath);
     }
 
     @Override
@@ -68,145 +105,208 @@ public abstract class Endpoint extends HttpServlet {
 
         long startNs = System.nanoTime();
         String method = req.getMethod();
-        String uri = req.getRequestURI();
-        String query = req.getQueryString();
-        String pathWithQuery = query == null ? uri : (uri + "?" + query);
-
-        this.req = req;
-        this.resp = resp;
+        MetricsRegistry.Recorder recorder = metrics.recorder(routeOf(req), method);
+        boolean failed = false;
 
         try {
-            log.info("=> {} {}", method, pathWithQuery);
-            super.service(req, resp);
+            if (log.isDebugEnabled()) {
+                log.debug("=> {} {}", method, pathWithQuery(req));
+            }
+            String idempotencyKey = isWrite(method) ? req.getHeader(IDEMPOTENCY_KEY_HEADER) : null;
+            if (idempotencyKey == null) {
+                super.service(req, resp);
+            } else {
+                serviceOnce(req, resp, method + " " + pathWithQuery(req), idempotencyKey);
+            }
         } catch (Exception ex) {
-            log.error("!! {} {}", method, pathWithQuery, ex);
+            failed = true;
+            log.error("!! {} {}", method, pathWithQuery(req), ex);
             throw ex;
         } finally {
-            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
-            int status = resp.getStatus();
-            log.info("<= {} {} -> {} ({}ms)", method, pathWithQuery, status, elapsedMs);
-            this.req = null;
-            this.resp = null;
+            if (req.isAsyncStarted()) {
+                req.getAsyncContext().addListener(new AsyncCompletion(req, resp, recorder, startNs));
+            } else {
+                int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : resp.getStatus();
+                finish(req, recorder, status, System.nanoTime() - startNs);
+            }
         }
     }
 
-    @Override
-    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
-            throws IOException {
-        handleGet();
+    private void finish(HttpServletRequest req, MetricsRegistry.Recorder recorder, int status, long elapsedNs) {
+        recorder.record(status, elapsedNs);
+        if (accessLog.shouldLog(status, elapsedNs)) {
+            log.info("<= {} {} -> {} ({}ms)", req.getMethod(), pathWithQuery(req), status,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNs));
+        }
     }
 
-    @Override
-    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
-            throws IOException {
-        handlePost();
+    private static String pathWithQuery(HttpServletRequest req) {
+        String uri = req.getRequestURI();
+        String query = req.getQueryString();
+        return query == null ? uri : (uri + "?" + query);
     }
 
-    @Override
-    protected void doPut(HttpServletRequest req, HttpServletResponse resp)
-            throws IOException {
-        handlePut();
-    }
+    /**
+     * Finishes an async request once the container completes it, so its latency covers the wait for the ack.
+     */
+    private final class AsyncCompletion implements AsyncListener {
+        private final HttpServletRequest req;
+        private final HttpServletResponse resp;
+        private final MetricsRegistry.Recorder recorder;
+        private final long startNs;
+
+        AsyncCompletion(HttpServletRequest req, HttpServletResponse resp, MetricsRegistry.Recorder recorder,
+                        long startNs) {
+            this.req = req;
+            this.resp = resp;
+            this.recorder = recorder;
+            this.startNs = startNs;
+        }
 
-    @Override
-    protected void doDelete(HttpServletRequest req, HttpServletResponse resp)
-            throws IOException {
-        handleDelete();
-    }
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish(req, recorder, resp.getStatus(), System.nanoTime() - startNs);
+        }
 
-    protected void handleGet() throws IOException {
-        sendMethodNotAllowed();
-    }
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
 
-    protected void handlePost() throws IOException {
-        sendMethodNotAllowed();
-    }
+        @Override
+        public void onError(AsyncEvent event) {
+        }
 
-    protected void handlePut() throws IOException {
-        sendMethodNotAllowed();
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
     }
 
-    protected void handleDelete() throws IOException {
-        sendMethodNotAllowed();
+    private static boolean isWrite(String method) {
+        return "POST".equals(method) || "PUT".equals(method) || "DELETE".equals(method);
     }
 
-    protected String query(String name) {
-        return req.getParameter(name);
-    }
+    /**
+     * Runs a write at most once per {@code Idempotency-Key} (scoped to method, path and query). Duplicates replay the
+     * stored response, or wait for it while the first request is still running.
+     */
+    private void serviceOnce(HttpServletRequest req, HttpServletResponse resp, String target, String key)
+            throws ServletException, IOException {
+        if (key.isBlank() || key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            newContext(req, resp).sendBadRequest(Map.of("reason", ER.IDEMPOTENCY_KEY_INVALID));
+            return;
+        }
 
-    protected Optional<String> queryOpt(String name) {
-        return Optional.ofNullable(req.getParameter(name));
-    }
+        IdempotencyCache cache = idempotencyCache();
+        IdempotencyCache.Entry entry = cache.claim(target + " " + key);
+        if (!entry.owner) {
+            newContext(req, resp).respondAsync(entry.response, (ctx, stored, failure) -> {
+                if (failure != null) {
+                    ctx.sendObject(HttpServletResponse.SC_CONFLICT, Map.of("reason", ER.IDEMPOTENT_REQUEST_FAILED));
+                } else {
+                    RecordingResponse.replay(ctx.response(), stored);
+                }
+            });
+            return;
+        }
 
-    protected String path() {
-        return req.getRequestURI();
-    }
+        RecordingResponse recording = new RecordingResponse(resp, cache.maxBodyBytes());
+        try {
+            super.service(req, recording);
+        } catch (ServletException | IOException | RuntimeException ex) {
+            cache.fail(entry, ex);
+            throw ex;
+        }
 
-    protected String method() {
-        return req.getMethod();
-    }
+        if (!req.isAsyncStarted()) {
+            store(cache, entry, recording);
+            return;
+        }
+        req.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                store(cache, entry, recording);
+            }
 
-    protected void sendOk(String body) throws IOException {
-        send(HttpServletResponse.SC_OK, body);
-    }
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
 
-    protected void sendOk(Object body) throws IOException {
-        sendObject(HttpServletResponse.SC_OK, body);
-    }
+            @Override
+            public void onError(AsyncEvent event) {
+                cache.fail(entry, event.getThrowable());
+            }
 
-    protected void sendCreated(String body) throws IOException {
-        send(HttpServletResponse.SC_CREATED, body);
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
     }
 
-    protected void sendNotFound() throws IOException {
-        send(HttpServletResponse.SC_NOT_FOUND, "");
+    private static void store(IdempotencyCache cache, IdempotencyCache.Entry entry, RecordingResponse recording) {
+        if (!recording.complete()) {
+            cache.fail(entry, new IllegalStateException("Response too large to replay"));
+            return;
+        }
+        // Server errors and load shedding are handed to waiting duplicates but not kept, so a later retry runs again.
+        int status = recording.getStatus();
+        cache.complete(entry, recording.toStored(), status < 500 && status != SC_TOO_MANY_REQUESTS);
     }
 
-    protected void sendBadRequest(String body) throws IOException {
-        send(HttpServletResponse.SC_BAD_REQUEST, body);
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+        handleGet(newContext(req, resp));
     }
 
-    protected void sendBadRequest(Object body) throws IOException {
-        sendObject(HttpServletResponse.SC_BAD_REQUEST, body);
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+        handlePost(newContext(req, resp));
     }
 
-    protected void sendMethodNotAllowed() {
-        resp.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+    @Override
+    protected void doPut(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+        handlePut(newContext(req, resp));
     }
 
-    protected void send(int status, String body) throws IOException {
-        resp.setStatus(status);
-        resp.setContentType("application/json");
-        resp.getWriter().write(body);
+    @Override
+    protected void doDelete(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+        handleDelete(newContext(req, resp));
     }
 
-    protected void sendObject(int status, Object body) throws IOException {
-        resp.setStatus(status);
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("UTF-8");
+    protected RequestContext newContext(HttpServletRequest req, HttpServletResponse resp) {
+        return new RequestContext(req, resp, codec);
+    }
 
-        if (body == null) {
-            return;
-        }
+    protected void handleGet(RequestContext ctx) throws IOException {
+        dispatch(RouteTable.Method.GET, ctx);
+    }
 
-        String json = gson.toJson(body);
+    protected void handlePost(RequestContext ctx) throws IOException {
+        dispatch(RouteTable.Method.POST, ctx);
+    }
 
-        PrintWriter writer = resp.getWriter();
-        writer.write(json);
-        writer.flush();
+    protected void handlePut(RequestContext ctx) throws IOException {
+        dispatch(RouteTable.Method.PUT, ctx);
     }
 
-    protected <T> T readJsonBody(Class<T> clazz) throws IOException {
-        StringBuilder json = new StringBuilder();
-        String line;
+    protected void handleDelete(RequestContext ctx) throws IOException {
+        dispatch(RouteTable.Method.DELETE, ctx);
+    }
 
-        try (BufferedReader reader = req.getReader()) {
-            while ((line = reader.readLine()) != null) {
-                json.append(line);
-            }
+    private void dispatch(RouteTable.Method method, RequestContext ctx) throws IOException {
+        RouteTable table = routeTable();
+        String path = ctx.pathInfo();
+        RouteTable.Route route = table.match(method, path);
+        if (route != null) {
+            ctx.route(route);
+            route.handler().handle(ctx);
+        } else if (table.isEmpty() || table.hasPath(path)) {
+            ctx.sendMethodNotAllowed();
+        } else {
+            ctx.sendNotFound();
         }
-
-        Gson gson = new Gson();
-        return gson.fromJson(json.toString(), clazz);
     }
 }
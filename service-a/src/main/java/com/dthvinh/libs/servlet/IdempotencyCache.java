@@ -0,0 +1,190 @@
+package com.dthvinh.libs.servlet;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Recent {@code Idempotency-Key}s and the responses they produced. The first request for a key owns the entry and
+ * runs; duplicates get the entry's future and replay its response once it completes. Entries expire a fixed time
+ * after they were claimed and are evicted oldest-first once the entry or byte cap is exceeded. The entry cap counts
+ * the claim queue, which still holds entries already dropped by a failure or an uncached response until they reach
+ * its head, so keyed retries that keep failing cannot grow it past the cap either.
+ */
+public final class IdempotencyCache {
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    public static final long DEFAULT_TTL_MS = TimeUnit.MINUTES.toMillis(10);
+
+    public static final IdempotencyCache DEFAULT =
+            new IdempotencyCache(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, DEFAULT_TTL_MS, System::nanoTime);
+
+    // Rough per-entry overhead (map node, entry, future) charged on top of the stored body.
+    static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> claimOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNs;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder uncached = new LongAdder();
+
+    public IdempotencyCache(int maxEntries, long maxBytes, long ttlMs, LongSupplier nanoClock) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNs = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.clock = nanoClock;
+    }
+
+    long maxBodyBytes() {
+        return maxBytes / 16;
+    }
+
+    Entry claim(String key) {
+        long now = clock.getAsLong();
+        Entry fresh = new Entry(key, now);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, fresh);
+            if (existing == null) {
+                misses.increment();
+                claimOrder.add(fresh);
+                queued.incrementAndGet();
+                evict(now);
+                return fresh;
+            }
+            if (now - existing.claimedNs >= ttlNs) {
+                if (entries.remove(key, existing)) {
+                    expired.increment();
+                    release(existing);
+                }
+                continue;
+            }
+
+            if (existing.response.isDone()) {
+                hits.increment();
+            } else {
+                waits.increment();
+            }
+            return existing.duplicate();
+        }
+    }
+
+    /**
+     * Completes an owned entry. Responses that should not be replayed later (server errors, oversized bodies) are
+     * still handed to the duplicates already waiting, but the key is forgotten so the next retry runs again.
+     */
+    void complete(Entry owner, StoredResponse response, boolean cacheable) {
+        if (cacheable && response.body().length <= maxBodyBytes()) {
+            int charge = ENTRY_OVERHEAD_BYTES + owner.key.length() * 2 + response.body().length;
+            bytes.addAndGet(charge);
+            if (!owner.charged.compareAndSet(0, charge)) {
+                // evicted while in flight
+                bytes.addAndGet(-charge);
+            }
+        } else {
+            uncached.increment();
+            if (entries.remove(owner.key, owner)) {
+                release(owner);
+            }
+        }
+        owner.response.complete(response);
+        evict(clock.getAsLong());
+    }
+
+    void fail(Entry owner, Throwable failure) {
+        if (entries.remove(owner.key, owner)) {
+            release(owner);
+        }
+        owner.response.completeExceptionally(failure);
+    }
+
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = claimOrder.peek()) != null) {
+            boolean stale = now - oldest.claimedNs >= ttlNs;
+            boolean over = queued.get() > maxEntries || bytes.get() > maxBytes;
+            if (!stale && !over) {
+                return;
+            }
+            Entry polled = claimOrder.poll();
+            if (polled == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            if (entries.remove(polled.key, polled)) {
+                (now - polled.claimedNs >= ttlNs ? expired : evicted).increment();
+                release(polled);
+            }
+        }
+    }
+
+    /**
+     * Claims still queued, including those already dropped from the map.
+     */
+    int queued() {
+        return queued.get();
+    }
+
+    private void release(Entry entry) {
+        int charge = entry.charged.getAndSet(-1);
+        if (charge > 0) {
+            bytes.addAndGet(-charge);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(entries.size(), bytes.get(), hits.sum(), waits.sum(), misses.sum(), expired.sum(),
+                evicted.sum(), uncached.sum());
+    }
+
+    public record Stats(int entries, long bytes, long hits, long waits, long misses, long expired, long evicted,
+                        long uncached) {
+    }
+
+    static final class Entry {
+        final String key;
+        final long claimedNs;
+        final CompletableFuture<StoredResponse> response;
+        final boolean owner;
+        // 0 = nothing charged yet, > 0 = bytes charged, -1 = released
+        final AtomicInteger charged;
+
+        private Entry(String key, long claimedNs) {
+            this(key, claimedNs, new CompletableFuture<>(), true, new AtomicInteger());
+        }
+
+        private Entry(String key, long claimedNs, CompletableFuture<StoredResponse> response, boolean owner,
+                      AtomicInteger charged) {
+            this.key = key;
+            this.claimedNs = claimedNs;
+            this.response = response;
+            this.owner = owner;
+            this.charged = charged;
+        }
+
+        private Entry duplicate() {
+            return new Entry(key, claimedNs, response, false, charged);
+        }
+    }
+
+    /**
+     * A response as it went out: status, the headers set by the handler, and the body bytes.
+     */
+    record StoredResponse(int status, String contentType, Map<String, String> headers, byte[] body) {
+    }
+}
@@ -0,0 +1,186 @@
+package com.dthvinh.libs.servlet;
+
+import com.dthvinh.contracts.json.PersonJson;
+import com.dthvinh.dto.CreatePersonDto;
+import com.dthvinh.dto.UpdatePersonDto;
+import com.dthvinh.models.Person;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * JSON codec shared by every {@link Endpoint}. Request bodies are parsed straight from the request reader and
+ * responses are serialized into a pooled per-thread buffer, so a typical response costs no intermediate
+ * {@code String} and goes out with a {@code Content-Length}. Bodies larger than {@link #MAX_BUFFERED_BYTES} are
+ * streamed to the client as they are produced instead.
+ *
+ * <p>{@link #DEFAULT} is the bundle's one {@code Gson}. Person-shaped bodies and events go through the
+ * hand-written adapters of {@link PersonJson} rather than reflection.
+ */
+public final class JsonCodec {
+    public static final JsonCodec DEFAULT = new JsonCodec(PersonJson.register(new GsonBuilder())
+            .registerTypeAdapter(CreatePersonDto.class, CreatePersonDto.JSON)
+            .registerTypeAdapter(UpdatePersonDto.class, UpdatePersonDto.JSON)
+            .registerTypeAdapter(Person.class, Person.JSON)
+            .disableHtmlEscaping()
+            .create());
+
+    static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+    static final int INITIAL_BUFFER_BYTES = 1024;
+    static final int RETAINED_BUFFER_BYTES = 16 * 1024;
+    static final int MAX_BUFFERED_BYTES = 64 * 1024;
+
+    private static final ThreadLocal<ResponseBuffer> BUFFERS = ThreadLocal.withInitial(ResponseBuffer::new);
+
+    private final Gson gson;
+
+    public JsonCodec(Gson gson) {
+        this.gson = gson;
+    }
+
+    public Gson gson() {
+        return gson;
+    }
+
+    public <T> T read(HttpServletRequest req, Class<T> type) throws IOException {
+        try (Reader reader = req.getReader()) {
+            return gson.fromJson(reader, type);
+        }
+    }
+
+    public void write(HttpServletResponse resp, Object body) throws IOException {
+        resp.setContentType(CONTENT_TYPE);
+        if (body == null) {
+            resp.setContentLength(0);
+            return;
+        }
+
+        ResponseBuffer buffer = BUFFERS.get();
+        buffer.open(resp);
+        boolean finished = false;
+        try {
+            gson.toJson(body, buffer.writer);
+            buffer.finish();
+            finished = true;
+        } finally {
+            buffer.release(finished);
+        }
+    }
+
+    public void writeRaw(HttpServletResponse resp, String json) throws IOException {
+        resp.setContentType(CONTENT_TYPE);
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        resp.setContentLength(bytes.length);
+        if (bytes.length > 0) {
+            resp.getOutputStream().write(bytes);
+        }
+    }
+
+    /**
+     * Growable byte buffer with its own UTF-8 writer, reused by one thread across requests. Once the body outgrows
+     * the limit it spills to the response stream and the rest is written through.
+     */
+    static final class ResponseBuffer extends OutputStream {
+        final Writer writer = new OutputStreamWriter(this, StandardCharsets.UTF_8);
+
+        private byte[] buf = new byte[INITIAL_BUFFER_BYTES];
+        private int count;
+        private HttpServletResponse resp;
+        private OutputStream spill;
+        private boolean discard;
+
+        void open(HttpServletResponse resp) {
+            this.resp = resp;
+            this.count = 0;
+            this.spill = null;
+        }
+
+        void finish() throws IOException {
+            writer.flush();
+            if (spill != null) {
+                spill.flush();
+                return;
+            }
+            resp.setContentLength(count);
+            resp.getOutputStream().write(buf, 0, count);
+        }
+
+        void release(boolean finished) {
+            if (!finished) {
+                // Drain whatever the writer still holds so it cannot leak into the next response.
+                discard = true;
+                try {
+                    writer.flush();
+                } catch (IOException ignored) {
+                    // nothing reaches a stream while discarding
+                } finally {
+                    discard = false;
+                }
+            }
+            resp = null;
+            spill = null;
+            count = 0;
+            if (buf.length > RETAINED_BUFFER_BYTES) {
+                buf = new byte[INITIAL_BUFFER_BYTES];
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (discard) {
+                return;
+            }
+            if (spill != null) {
+                spill.write(b);
+                return;
+            }
+            if (count == buf.length && !grow(1)) {
+                spill().write(b);
+                return;
+            }
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (discard) {
+                return;
+            }
+            if (spill != null) {
+                spill.write(b, off, len);
+                return;
+            }
+            if (count + len > buf.length && !grow(len)) {
+                spill().write(b, off, len);
+                return;
+            }
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+
+        private boolean grow(int extra) {
+            int needed = count + extra;
+            if (needed > MAX_BUFFERED_BYTES) {
+                return false;
+            }
+            buf = Arrays.copyOf(buf, Math.min(MAX_BUFFERED_BYTES, Math.max(needed, buf.length * 2)));
+            return true;
+        }
+
+        private OutputStream spill() throws IOException {
+            spill = resp.getOutputStream();
+            spill.write(buf, 0, count);
+            count = 0;
+            return spill;
+        }
+    }
+}
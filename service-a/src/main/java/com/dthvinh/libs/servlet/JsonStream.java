@@ -0,0 +1,45 @@
+package com.dthvinh.libs.servlet;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Incremental reader for request bodies that carry many JSON values: either one top-level array or
+ * newline-delimited JSON (NDJSON). Elements are handed out one at a time as they are parsed, so only the current
+ * element is held in memory.
+ */
+public final class JsonStream {
+    private JsonStream() {
+    }
+
+    public static int forEach(Reader source, ElementHandler handler) throws IOException {
+        JsonReader reader = new JsonReader(source);
+        reader.setStrictness(Strictness.LENIENT);
+
+        int index = 0;
+        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                handler.accept(index++, JsonParser.parseReader(reader));
+            }
+            reader.endArray();
+            return index;
+        }
+
+        while (reader.peek() != JsonToken.END_DOCUMENT) {
+            handler.accept(index++, JsonParser.parseReader(reader));
+        }
+        return index;
+    }
+
+    @FunctionalInterface
+    public interface ElementHandler {
+        void accept(int index, JsonElement element) throws IOException;
+    }
+}
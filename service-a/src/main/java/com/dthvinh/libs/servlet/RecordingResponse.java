@@ -0,0 +1,136 @@
+package com.dthvinh.libs.servlet;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Passes everything through to the real response while keeping a copy of the headers and body, so the response
+ * can be stored for {@code Idempotency-Key} replays. Recording stops once the body grows past {@code maxBodyBytes}.
+ */
+final class RecordingResponse extends HttpServletResponseWrapper {
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final long maxBodyBytes;
+    private boolean overflowed;
+    private ServletOutputStream out;
+    private PrintWriter writer;
+
+    RecordingResponse(HttpServletResponse response, long maxBodyBytes) {
+        super(response);
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        headers.put(name, value);
+        super.setHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        headers.merge(name, value, (a, b) -> a + ", " + b);
+        super.addHeader(name, value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (out == null) {
+            out = new TeeOutputStream(super.getOutputStream());
+        }
+        return out;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), StandardCharsets.UTF_8));
+        }
+        return writer;
+    }
+
+    boolean complete() {
+        if (writer != null) {
+            writer.flush();
+        }
+        return !overflowed;
+    }
+
+    IdempotencyCache.StoredResponse toStored() {
+        return new IdempotencyCache.StoredResponse(getStatus(), getContentType(), Map.copyOf(headers),
+                overflowed ? new byte[0] : body.toByteArray());
+    }
+
+    static void replay(HttpServletResponse resp, IdempotencyCache.StoredResponse stored) throws IOException {
+        resp.setStatus(stored.status());
+        stored.headers().forEach(resp::setHeader);
+        resp.setHeader(Endpoint.IDEMPOTENT_REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) {
+            resp.setContentType(stored.contentType());
+        }
+        resp.setContentLength(stored.body().length);
+        if (stored.body().length > 0) {
+            resp.getOutputStream().write(stored.body());
+        }
+    }
+
+    private void record(byte[] b, int off, int len) {
+        if (overflowed) {
+            return;
+        }
+        if (body.size() + len > maxBodyBytes) {
+            overflowed = true;
+            body.reset();
+            return;
+        }
+        body.write(b, off, len);
+    }
+
+    private final class TeeOutputStream extends ServletOutputStream {
+        private final ServletOutputStream target;
+
+        TeeOutputStream(ServletOutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+            record(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+            record(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public boolean isReady() {
+            return target.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            target.setWriteListener(listener);
+        }
+    }
+}
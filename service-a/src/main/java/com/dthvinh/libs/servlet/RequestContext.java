@@ -0,0 +1,206 @@
+package com.dthvinh.libs.servlet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * State of a single HTTP exchange. A new instance is created for every request, so handlers on a shared
+ * {@link Endpoint} instance never see each other's request or response.
+ */
+public final class RequestContext {
+    static final long ASYNC_TIMEOUT_MS = 30_000;
+
+    private static final Logger log = LoggerFactory.getLogger(RequestContext.class);
+
+    private final HttpServletRequest req;
+    private final HttpServletResponse resp;
+    private final JsonCodec codec;
+    private RouteTable.Route route;
+
+    public RequestContext(HttpServletRequest req, HttpServletResponse resp, JsonCodec codec) {
+        this.req = req;
+        this.resp = resp;
+        this.codec = codec;
+    }
+
+    public HttpServletRequest request() {
+        return req;
+    }
+
+    public HttpServletResponse response() {
+        return resp;
+    }
+
+    public String query(String name) {
+        return req.getParameter(name);
+    }
+
+    public Optional<String> queryOpt(String name) {
+        return Optional.ofNullable(req.getParameter(name));
+    }
+
+    public String path() {
+        return req.getRequestURI();
+    }
+
+    public String pathInfo() {
+        return req.getPathInfo();
+    }
+
+    public String method() {
+        return req.getMethod();
+    }
+
+    void route(RouteTable.Route route) {
+        this.route = route;
+    }
+
+    /**
+     * Value of a {@code {name}} variable in the matched route, or {@code null} if the route has none.
+     */
+    public String pathVariable(String name) {
+        return route == null ? null : route.variable(req.getPathInfo(), name);
+    }
+
+    public void sendOk(String body) throws IOException {
+        send(HttpServletResponse.SC_OK, body);
+    }
+
+    public void sendOk(Object body) throws IOException {
+        sendObject(HttpServletResponse.SC_OK, body);
+    }
+
+    public void sendCreated(String body) throws IOException {
+        send(HttpServletResponse.SC_CREATED, body);
+    }
+
+    public void sendNotFound() throws IOException {
+        send(HttpServletResponse.SC_NOT_FOUND, "");
+    }
+
+    public void sendBadRequest(String body) throws IOException {
+        send(HttpServletResponse.SC_BAD_REQUEST, body);
+    }
+
+    public void sendBadRequest(Object body) throws IOException {
+        sendObject(HttpServletResponse.SC_BAD_REQUEST, body);
+    }
+
+    public void sendMethodNotAllowed() {
+        resp.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+    }
+
+    public void send(int status, String body) throws IOException {
+        resp.setStatus(status);
+        codec.writeRaw(resp, body);
+    }
+
+    public void sendObject(int status, Object body) throws IOException {
+        resp.setStatus(status);
+        codec.write(resp, body);
+    }
+
+    public void sendText(int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        resp.setStatus(status);
+        resp.setContentType(contentType);
+        resp.setContentLength(bytes.length);
+        resp.getOutputStream().write(bytes);
+    }
+
+    /**
+     * Writes the response once {@code stage} completes. When the container supports it the request is put into
+     * async mode, so no container thread waits for the result; otherwise the calling thread waits for it.
+     */
+    public <T> void respondAsync(CompletionStage<T> stage, Responder<T> responder) throws IOException {
+        if (!req.isAsyncSupported()) {
+            T result = null;
+            Throwable failure = null;
+            try {
+                result = stage.toCompletableFuture().join();
+            } catch (CompletionException | CancellationException ex) {
+                failure = unwrap(ex);
+            }
+            responder.respond(this, result, failure);
+            return;
+        }
+
+        AsyncContext async = req.startAsync();
+        AtomicBoolean done = new AtomicBoolean();
+        async.setTimeout(ASYNC_TIMEOUT_MS);
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                if (done.compareAndSet(false, true)) {
+                    resp.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+                    async.complete();
+                }
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                done.set(true);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        // Hand the write back to the container pool so the completing thread (e.g. the Kafka sender) is never
+        // held up by a slow client.
+        stage.whenComplete((result, failure) -> {
+            if (done.get()) {
+                return;
+            }
+            async.start(() -> {
+                if (!done.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    responder.respond(this, result, unwrap(failure));
+                } catch (Exception ex) {
+                    log.error("Async response failed for {} {}", req.getMethod(), req.getRequestURI(), ex);
+                    resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                } finally {
+                    async.complete();
+                }
+            });
+        });
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        while ((failure instanceof CompletionException || failure instanceof ExecutionException)
+                && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure;
+    }
+
+    public <T> T readJsonBody(Class<T> clazz) throws IOException {
+        return codec.read(req, clazz);
+    }
+
+    @FunctionalInterface
+    public interface Responder<T> {
+        void respond(RequestContext ctx, T result, Throwable failure) throws IOException;
+    }
+}
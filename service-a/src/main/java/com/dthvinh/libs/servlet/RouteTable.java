@@ -0,0 +1,322 @@
+package com.dthvinh.libs.servlet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes below an {@link Endpoint}'s mount point, compiled into a segment trie. Patterns are {@code /}-separated
+ * literals and {@code {name}} variables, e.g. {@code /batch} or {@code /{id}}. Matching walks the path once, finds
+ * literal children through a per-node hash table keyed on the segment's characters, and allocates nothing; variables
+ * are only cut out of the path when a handler asks for them.
+ */
+public final class RouteTable {
+
+    public enum Method {
+        GET, POST, PUT, DELETE;
+
+        /**
+         * The method for an HTTP method name, or {@code null} if routes cannot be declared for it.
+         */
+        public static Method of(String name) {
+            if (name == null) {
+                return null;
+            }
+            return switch (name) {
+                case "GET" -> GET;
+                case "POST" -> POST;
+                case "PUT" -> PUT;
+                case "DELETE" -> DELETE;
+                default -> null;
+            };
+        }
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        void handle(RequestContext ctx) throws IOException;
+    }
+
+    private final Node root;
+    private final boolean empty;
+
+    private RouteTable(Node root, boolean empty) {
+        this.root = root;
+        this.empty = empty;
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * The route for {@code method} and {@code path} (a servlet path info; {@code null} means the mount point), or
+     * {@code null}.
+     */
+    public Route match(Method method, String path) {
+        if (method == null) {
+            return null;
+        }
+        Node node = find(root, path == null ? "" : path, 0);
+        return node == null ? null : node.routes[method.ordinal()];
+    }
+
+    /**
+     * Whether any method is routed for {@code path}, to tell {@code 405} from {@code 404}.
+     */
+    public boolean hasPath(String path) {
+        Node node = find(root, path == null ? "" : path, 0);
+        if (node != null) {
+            for (Route route : node.routes) {
+                if (route != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Node reached by the path from {@code from} on. Literal segments win over variables; if the literal branch
+     * dead-ends deeper down, the variable branch is tried instead.
+     */
+    private static Node find(Node node, String path, int from) {
+        int start = skipSlashes(path, from);
+        if (start == path.length()) {
+            return node.terminal ? node : null;
+        }
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+
+        Node literal = node.literal(path, start, end);
+        if (literal != null) {
+            Node found = find(literal, path, end);
+            if (found != null) {
+                return found;
+            }
+        }
+        return node.variable == null ? null : find(node.variable, path, end);
+    }
+
+    private static int skipSlashes(String path, int from) {
+        while (from < path.length() && path.charAt(from) == '/') {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Same hash as {@link String#hashCode()} of the segment, computed in place.
+     */
+    static int hash(CharSequence s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h;
+    }
+
+    public static final class Route {
+        private final Method method;
+        private final String pattern;
+        private final Handler handler;
+        private final String[] variables;
+        private final int[] variableSegments;
+        private volatile String[] label;
+
+        private Route(Method method, String pattern, Handler handler, String[] variables, int[] variableSegments) {
+            this.method = method;
+            this.pattern = pattern;
+            this.handler = handler;
+            this.variables = variables;
+            this.variableSegments = variableSegments;
+        }
+
+        public Method method() {
+            return method;
+        }
+
+        public String pattern() {
+            return pattern;
+        }
+
+        public Handler handler() {
+            return handler;
+        }
+
+        /**
+         * Value of path variable {@code name} in {@code path}, which must be the path this route matched, or
+         * {@code null} if the pattern has no such variable.
+         */
+        public String variable(String path, String name) {
+            for (int i = 0; i < variables.length; i++) {
+                if (variables[i].equals(name)) {
+                    return segment(path, variableSegments[i]);
+                }
+            }
+            return null;
+        }
+
+        private static String segment(String path, int index) {
+            int start = skipSlashes(path, 0);
+            for (int i = 0; i < index; i++) {
+                start = skipSlashes(path, path.indexOf('/', start));
+            }
+            int end = path.indexOf('/', start);
+            return path.substring(start, end < 0 ? path.length() : end);
+        }
+
+        /**
+         * Full route template under {@code mount} (the servlet path), e.g. {@code /api/person/{id}}. Cached, so
+         * repeated calls with the same mount do not allocate.
+         */
+        public String label(String mount) {
+            String[] cached = label;
+            if (cached != null && cached[0].equals(mount)) {
+                return cached[1];
+            }
+            String full = "/".equals(pattern) ? mount : mount + pattern;
+            label = new String[]{mount, full};
+            return full;
+        }
+    }
+
+    public static final class Builder {
+        private final Node root = new Node();
+        private boolean empty = true;
+
+        public Builder get(String pattern, Handler handler) {
+            return route(Method.GET, pattern, handler);
+        }
+
+        public Builder post(String pattern, Handler handler) {
+            return route(Method.POST, pattern, handler);
+        }
+
+        public Builder put(String pattern, Handler handler) {
+            return route(Method.PUT, pattern, handler);
+        }
+
+        public Builder delete(String pattern, Handler handler) {
+            return route(Method.DELETE, pattern, handler);
+        }
+
+        public Builder route(Method method, String pattern, Handler handler) {
+            if (pattern == null || !pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Route pattern must start with '/': " + pattern);
+            }
+
+            Node node = root;
+            List<String> variables = new ArrayList<>();
+            List<Integer> variableSegments = new ArrayList<>();
+            int index = 0;
+            for (String segment : pattern.split("/")) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                if (segment.startsWith("{") && segment.endsWith("}") && segment.length() > 2) {
+                    String name = segment.substring(1, segment.length() - 1);
+                    if (variables.contains(name)) {
+                        throw new IllegalArgumentException("Duplicate variable '" + name + "' in " + pattern);
+                    }
+                    variables.add(name);
+                    variableSegments.add(index);
+                    if (node.variable == null) {
+                        node.variable = new Node();
+                    }
+                    node = node.variable;
+                } else if (segment.indexOf('{') >= 0 || segment.indexOf('}') >= 0) {
+                    throw new IllegalArgumentException("Variables must span a whole segment: " + pattern);
+                } else {
+                    node = node.addLiteral(segment);
+                }
+                index++;
+            }
+
+            if (node.routes[method.ordinal()] != null) {
+                throw new IllegalArgumentException("Duplicate route " + method + " " + pattern);
+            }
+            node.terminal = true;
+            node.routes[method.ordinal()] = new Route(method, pattern, handler,
+                    variables.toArray(new String[0]),
+                    variableSegments.stream().mapToInt(Integer::intValue).toArray());
+            empty = false;
+            return this;
+        }
+
+        public RouteTable build() {
+            return new RouteTable(root, empty);
+        }
+    }
+
+    private static final class Node {
+        final Route[] routes = new Route[Method.values().length];
+        boolean terminal;
+        Node variable;
+        // Open-addressing table of literal children, sized to stay at most half full. Slots come from Fibonacci
+        // hashing, so similar segments such as "r1", "r2" do not cluster.
+        String[] keys = new String[0];
+        Node[] children = new Node[0];
+        int shift = 32;
+        int size;
+
+        Node literal(String path, int start, int end) {
+            if (size == 0) {
+                return null;
+            }
+            int length = end - start;
+            int mask = keys.length - 1;
+            for (int i = slot(hash(path, start, end)); keys[i] != null; i = (i + 1) & mask) {
+                String key = keys[i];
+                if (key.length() == length && path.regionMatches(start, key, 0, length)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node addLiteral(String segment) {
+            Node existing = literal(segment, 0, segment.length());
+            if (existing != null) {
+                return existing;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                resize(Math.max(4, keys.length * 2));
+            }
+            Node child = new Node();
+            insert(segment, child);
+            return child;
+        }
+
+        private void resize(int capacity) {
+            String[] oldKeys = keys;
+            Node[] oldChildren = children;
+            keys = new String[capacity];
+            children = new Node[capacity];
+            shift = 32 - Integer.numberOfTrailingZeros(capacity);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    insert(oldKeys[i], oldChildren[i]);
+                }
+            }
+        }
+
+        private int slot(int hash) {
+            return (hash * 0x9E3779B9) >>> shift;
+        }
+
+        private void insert(String key, Node child) {
+            int mask = keys.length - 1;
+            int i = slot(key.hashCode());
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            children[i] = child;
+            size++;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.dthvinh.models;
 
-public class Person {
-    public int id;
-    public int age;
-    public String name;
+import com.dthvinh.contracts.json.PersonJson;
+import com.google.gson.TypeAdapter;
+
+import java.util.UUID;
+
+public record Person(UUID id, String name, int age) {
+    public static final TypeAdapter<Person> JSON =
+            PersonJson.adapter(Person::new, Person::id, Person::name, Person::age);
 }
@@ -1,21 +1,61 @@
 package com.dthvinh.rs;
 
 import com.dthvinh.libs.servlet.Endpoint;
+import com.dthvinh.libs.servlet.RequestContext;
+import com.dthvinh.libs.servlet.RouteTable;
 import org.osgi.service.component.annotations.Component;
 
 import javax.servlet.Servlet;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Map;
 
 @Component(service = Servlet.class, property = {
-        "osgi.http.whiteboard.servlet.pattern=/api/health",
+        "osgi.http.whiteboard.servlet.pattern=/api/health/*",
         "osgi.http.whiteboard.servlet.name=test-servlet",
         "osgi.http.whiteboard.context.select=(osgi.http.whiteboard.context.name=default)"
 })
 public class HealthResource extends Endpoint {
+    static final String READY_PATH = "/ready";
 
     @Override
-    protected void handleGet() throws IOException {
-        sendOk(Map.of("status", "ok"));
+    protected void routes(RouteTable.Builder routes) {
+        routes.get("/", this::liveness)
+                .get(READY_PATH, this::readiness);
+    }
+
+    /**
+     * Always {@code 200} while the bundle is up, so a slow Kafka never gets the pod restarted; the Kafka state is in
+     * the body.
+     */
+    private void liveness(RequestContext ctx) throws IOException {
+        ctx.sendOk(Map.of(
+                "status", "ok",
+                "kafka", kafkaState(),
+                "idempotency", idempotencyCache().stats()
+        ));
+    }
+
+    /**
+     * Answers {@code 503} while the shared Kafka publisher is still warming up, so traffic is only routed here once
+     * writes can be served without a metadata fetch. With the outbox on, writes never wait for Kafka, so neither
+     * does readiness.
+     */
+    private void readiness(RequestContext ctx) throws IOException {
+        String kafka = kafkaState();
+        boolean outbox = getOutbox() != null;
+        boolean starting = !outbox && "warming-up".equals(kafka);
+        ctx.sendObject(starting ? HttpServletResponse.SC_SERVICE_UNAVAILABLE : HttpServletResponse.SC_OK, Map.of(
+                "status", starting ? "starting" : "ready",
+                "kafka", kafka,
+                "outbox", outbox
+        ));
+    }
+
+    private String kafkaState() {
+        if (sharedPublisher == null || !sharedPublisher.isConfigured()) {
+            return "not-configured";
+        }
+        return sharedPublisher.isReady() ? "ready" : "warming-up";
     }
 }
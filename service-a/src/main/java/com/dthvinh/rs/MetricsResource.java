@@ -0,0 +1,58 @@
+package com.dthvinh.rs;
+
+import com.dthvinh.libs.metrics.MetricsRegistry;
+import com.dthvinh.libs.metrics.PrometheusWriter;
+import com.dthvinh.libs.servlet.Endpoint;
+import com.dthvinh.libs.servlet.IdempotencyCache;
+import com.dthvinh.libs.servlet.RequestContext;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@Component(service = Servlet.class, property = {
+        "osgi.http.whiteboard.servlet.pattern=/api/metrics",
+        "osgi.http.whiteboard.servlet.name=metrics-servlet",
+        "osgi.http.whiteboard.context.select=(osgi.http.whiteboard.context.name=default)"
+})
+public class MetricsResource extends Endpoint {
+    private static final String IDEMPOTENCY = "idempotency_cache";
+
+    private final MetricsRegistry.Collector idempotency = this::collectIdempotency;
+
+    @Activate
+    void activate() {
+        metrics.register(idempotency);
+    }
+
+    @Deactivate
+    void unregister() {
+        metrics.unregister(idempotency);
+    }
+
+    @Override
+    protected void handleGet(RequestContext ctx) throws IOException {
+        StringBuilder body = new StringBuilder(8 * 1024);
+        metrics.writeTo(body);
+        ctx.sendText(HttpServletResponse.SC_OK, PrometheusWriter.CONTENT_TYPE, body.toString());
+    }
+
+    private void collectIdempotency(PrometheusWriter out) {
+        IdempotencyCache.Stats stats = idempotencyCache().stats();
+        out.family(IDEMPOTENCY + "_entries", "gauge", "Responses held for Idempotency-Key replay.")
+                .sample(IDEMPOTENCY + "_entries", stats.entries());
+        out.family(IDEMPOTENCY + "_bytes", "gauge", "Approximate bytes held by the idempotency cache.")
+                .sample(IDEMPOTENCY + "_bytes", stats.bytes());
+        out.family(IDEMPOTENCY + "_lookups_total", "counter", "Idempotency-Key lookups by outcome.")
+                .sample(IDEMPOTENCY + "_lookups_total", stats.hits(), "result", "hit")
+                .sample(IDEMPOTENCY + "_lookups_total", stats.waits(), "result", "wait")
+                .sample(IDEMPOTENCY + "_lookups_total", stats.misses(), "result", "miss")
+                .sample(IDEMPOTENCY + "_lookups_total", stats.expired(), "result", "expired");
+        out.family(IDEMPOTENCY + "_dropped_total", "counter", "Responses dropped from the idempotency cache.")
+                .sample(IDEMPOTENCY + "_dropped_total", stats.evicted(), "reason", "evicted")
+                .sample(IDEMPOTENCY + "_dropped_total", stats.uncached(), "reason", "uncached");
+    }
+}
@@ -1,127 +1,363 @@
 package com.dthvinh.rs;
 
+import com.dthvinh.contracts.CreatePerson;
+import com.dthvinh.contracts.DeletePerson;
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.UpdatePerson;
+import com.dthvinh.dto.BatchSummary;
 import com.dthvinh.dto.CreatePersonDto;
 import com.dthvinh.dto.UpdatePersonDto;
 import com.dthvinh.libs.common.ER;
-import com.dthvinh.libs.kafka.event.CreatePersonEventArgs;
-import com.dthvinh.libs.kafka.event.DeletePersonEventArgs;
-import com.dthvinh.libs.kafka.event.UpdatePersonEventArgs;
+import com.dthvinh.libs.common.IdGenerator;
+import com.dthvinh.libs.kafka.publisher.AdmissionController;
+import com.dthvinh.libs.kafka.publisher.BatchTracker;
 import com.dthvinh.libs.kafka.publisher.KafkaPublisher;
+import com.dthvinh.libs.outbox.SharedOutbox;
+import com.dthvinh.libs.readmodel.PersonPage;
+import com.dthvinh.libs.readmodel.PersonQuery;
+import com.dthvinh.libs.readmodel.PersonStore;
+import com.dthvinh.libs.redis.PersonLookup;
 import com.dthvinh.libs.servlet.Endpoint;
+import com.dthvinh.libs.servlet.JsonStream;
+import com.dthvinh.libs.servlet.RequestContext;
+import com.dthvinh.libs.servlet.RouteTable;
+import com.dthvinh.models.Person;
+import com.google.gson.JsonParseException;
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 
 import javax.servlet.Servlet;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Component(service = Servlet.class, property = {
         "osgi.http.whiteboard.servlet.pattern=/api/person/*",
         "osgi.http.whiteboard.servlet.name=persons-servlet",
+        "osgi.http.whiteboard.servlet.asyncSupported=true",
         "osgi.http.whiteboard.context.select=(osgi.http.whiteboard.context.name=default)"
 })
 public class PersonResource extends Endpoint {
+    static final String BATCH_PATH = "/batch";
+    static final String NOT_READY_RETRY_AFTER_SECONDS = "1";
+    static final String CREATE_LANE = "POST /api/person";
+    static final String BATCH_LANE = "POST /api/person/batch";
+    static final String UPDATE_LANE = "PUT /api/person";
+    static final String DELETE_LANE = "DELETE /api/person";
+
+    AdmissionController admission = AdmissionController.fromEnv();
+    IdGenerator ids = IdGenerator.DEFAULT;
+
+    @Reference
+    PersonStore personStore;
+
+    @Reference
+    PersonLookup personLookup;
+
     @Override
-    protected void handleGet() throws IOException {
+    protected void routes(RouteTable.Builder routes) {
+        routes.get("/", this::listPersons)
+                .get("/{id}", this::getPerson)
+                .post("/", this::createPerson)
+                .post(BATCH_PATH, this::createBatch)
+                .put("/", this::updatePerson)
+                .delete("/{id}", this::deletePerson)
+                // Older clients send the id as ?id=.
+                .delete("/", this::deletePerson);
+    }
+
+    private void listPersons(RequestContext ctx) throws IOException {
+        if (!personStore.isReady()) {
+            sendNotReady(ctx);
+            return;
+        }
+
+        PersonPage page;
+        try {
+            page = personStore.query(PersonQuery.parse(ctx::query));
+        } catch (IllegalArgumentException ex) {
+            ctx.sendBadRequest(Map.of("reason", ex.getMessage()));
+            return;
+        }
+        ctx.sendOk(page);
+    }
+
+    private void getPerson(RequestContext ctx) throws IOException {
+        UUID id;
+        try {
+            id = UUID.fromString(ctx.pathVariable("id"));
+        } catch (IllegalArgumentException ex) {
+            ctx.sendBadRequest(Map.of("reason", ER.PERSON_ID_INVALID));
+            return;
+        }
+
+        boolean ready = personStore.isReady();
+        Optional<Person> person = ready ? personStore.get(id) : Optional.empty();
+        if (person.isEmpty()) {
+            person = lookup(id);
+        }
+
+        if (person.isPresent()) {
+            ctx.sendOk(person.get());
+        } else if (!ready) {
+            sendNotReady(ctx);
+        } else {
+            ctx.sendNotFound();
+        }
+    }
+
+    /**
+     * Falls back to the Redis entries service B writes, for persons the read model has not caught up with yet.
+     */
+    private Optional<Person> lookup(UUID id) {
+        PersonLookup lookup = personLookup;
+        if (lookup == null) {
+            return Optional.empty();
+        }
         try {
-            sendOk(Map.of(
-                    "message", "GET /api/person - List all persons (not implemented yet)",
-                    "status", "ok"
-            ));
+            return lookup.get(id);
         } catch (Exception ex) {
-            log.error("GET failed", ex);
-            send(500, "{\"reason\":\"Internal server error during GET\"}");
+            log.debug("Redis lookup failed for person {}", id, ex);
+            return Optional.empty();
         }
     }
 
-    @Override
-    protected void handlePost() throws IOException {
+    private static void sendNotReady(RequestContext ctx) throws IOException {
+        ctx.response().setHeader("Retry-After", NOT_READY_RETRY_AFTER_SECONDS);
+        ctx.sendObject(503, Map.of("reason", ER.READ_MODEL_NOT_READY));
+    }
+
+    private void createPerson(RequestContext ctx) throws IOException {
         CreatePersonDto dto;
         try {
-            dto = readJsonBody(CreatePersonDto.class);
+            dto = ctx.readJsonBody(CreatePersonDto.class);
         } catch (Exception ex) {
             log.warn("Invalid POST body", ex);
-            sendBadRequest(Map.of("reason", ER.REQUEST_BODY_UNEXPECTED_EMPTY));
+            ctx.sendBadRequest(Map.of("reason", ER.REQUEST_BODY_UNEXPECTED_EMPTY));
             return;
         }
 
-        KafkaPublisher publisher = getOrCreatePublisher();
+        KafkaPublisher publisher = getPublisher();
         if (publisher == null) {
             log.warn("Kafka publisher not available - env var missing?");
-            sendBadRequest(Map.of("reason", ER.KAFKA_SERVER_ENV_NOT_SET));
+            ctx.sendBadRequest(Map.of("reason", ER.KAFKA_SERVER_ENV_NOT_SET));
             return;
         }
 
-        try {
-            CreatePersonEventArgs e = new CreatePersonEventArgs(dto);
-            publisher.send(e);
-            log.info("Person creation event queued: {}", dto);
-            sendObject(201, Map.of(
-                    "status", "request queued",
-                    "name", dto.getName()
-            ));
-        } catch (Exception ex) {
-            log.error("Failed to queue person creation event", ex);
-            send(500, "{\"reason\":\"Kafka send failed\"}");
+        UUID id = ids.next();
+        publish(ctx, CREATE_LANE, publisher, new CreatePerson(id, dto.name(), dto.age()), 201, Map.of(
+                "status", "created",
+                "id", id,
+                "name", dto.getName()
+        ));
+    }
+
+    /**
+     * Streams a JSON array or NDJSON body and publishes every person as soon as it is parsed. The response is a
+     * per-item summary sent once all publishes are acknowledged.
+     */
+    private void createBatch(RequestContext ctx) throws IOException {
+        KafkaPublisher publisher = getPublisher();
+        if (publisher == null) {
+            ctx.sendBadRequest(Map.of("reason", ER.KAFKA_SERVER_ENV_NOT_SET));
+            return;
+        }
+
+        SharedOutbox outbox = getOutbox();
+        AdmissionController.Lane lane = admission.lane(BATCH_LANE);
+        if (!admit(ctx, outbox == null ? lane.tryAcquire(publisher) : lane.tryAcquire(outbox::hasRoom),
+                outbox == null ? ER.PRODUCER_SATURATED : ER.OUTBOX_FULL)) {
+            return;
         }
+
+        BatchTracker tracker = new BatchTracker();
+        CompletableFuture<BatchSummary> done;
+        String parseError = null;
+        try (Reader body = ctx.request().getReader()) {
+            JsonStream.forEach(body, (index, element) -> {
+                CreatePersonDto dto;
+                try {
+                    dto = codec.gson().fromJson(element, CreatePersonDto.class);
+                } catch (JsonParseException ex) {
+                    tracker.reject(index, "Invalid person");
+                    return;
+                }
+
+                if (dto == null || dto.name() == null || dto.name().isBlank()) {
+                    tracker.reject(index, "Missing name");
+                    return;
+                }
+                if (dto.age() < 0) {
+                    tracker.reject(index, "Invalid age");
+                    return;
+                }
+                if (outbox != null) {
+                    if (!outbox.hasRoom()) {
+                        tracker.reject(index, ER.OUTBOX_FULL);
+                        return;
+                    }
+                    tracker.track(index, outbox.append(new CreatePerson(ids.next(), dto.name(), dto.age())));
+                    return;
+                }
+                if (!admission.hasHeadroom(publisher)) {
+                    tracker.reject(index, ER.PRODUCER_SATURATED);
+                    return;
+                }
+
+                tracker.track(index, publisher.send(new CreatePerson(ids.next(), dto.name(), dto.age())));
+            });
+        } catch (JsonParseException | IOException ex) {
+            // Gson reports syntax errors as MalformedJsonException, an IOException; a broken upload ends up here too.
+            log.warn("Malformed batch body", ex);
+            parseError = ER.BATCH_BODY_MALFORMED;
+        } finally {
+            // Whatever escaped, the slot goes back once the items already sent are acknowledged.
+            done = tracker.finish();
+            done.whenComplete((summary, failure) -> lane.release());
+        }
+
+        String reason = parseError;
+        ctx.respondAsync(done, (c, summary, failure) -> {
+            if (reason == null) {
+                c.sendOk(summary);
+            } else {
+                c.sendBadRequest(Map.of("reason", reason, "summary", summary));
+            }
+        });
     }
 
-    @Override
-    protected void handlePut() throws IOException {
+    private void updatePerson(RequestContext ctx) throws IOException {
         UpdatePersonDto dto;
         try {
-            dto = readJsonBody(UpdatePersonDto.class);
+            dto = ctx.readJsonBody(UpdatePersonDto.class);
         } catch (Exception ex) {
             log.warn("Invalid PUT body", ex);
-            sendBadRequest(Map.of("reason", "Invalid or empty request body"));
+            ctx.sendBadRequest(Map.of("reason", "Invalid or empty request body"));
             return;
         }
 
-        KafkaPublisher publisher = getOrCreatePublisher();
+        KafkaPublisher publisher = getPublisher();
         if (publisher == null) {
-            sendBadRequest(Map.of("reason", ER.KAFKA_SERVER_ENV_NOT_SET));
+            ctx.sendBadRequest(Map.of("reason", ER.KAFKA_SERVER_ENV_NOT_SET));
             return;
         }
 
-        try {
-            UpdatePersonEventArgs e = new UpdatePersonEventArgs(dto);
-            publisher.send(e);
-            log.info("Person update event queued for id: {}", dto.getId());
-            sendObject(200, Map.of(
-                    "status", "update request queued",
-                    "personId", dto.getId()
-            ));
-        } catch (Exception ex) {
-            log.error("Failed to queue person update event for id: {}", dto.getId(), ex);
-            send(500, "{\"reason\":\"Kafka send failed\"}");
-        }
+        publish(ctx, UPDATE_LANE, publisher, new UpdatePerson(dto.id(), dto.name(), dto.age()), 200, Map.of(
+                "status", "updated",
+                "personId", dto.getId()
+        ));
     }
 
-    @Override
-    protected void handleDelete() throws IOException {
-        String personId = query("id");
+    private void deletePerson(RequestContext ctx) throws IOException {
+        String personId = ctx.pathVariable("id");
+        if (personId == null) {
+            personId = ctx.query("id");
+        }
 
         if (personId == null || personId.trim().isEmpty()) {
-            sendBadRequest(Map.of("reason", "Missing person ID"));
+            ctx.sendBadRequest(Map.of("reason", "Missing person ID"));
+            return;
+        }
+        UUID id;
+        try {
+            id = UUID.fromString(personId.trim());
+        } catch (IllegalArgumentException ex) {
+            ctx.sendBadRequest(Map.of("reason", ER.PERSON_ID_INVALID));
             return;
         }
 
-        KafkaPublisher publisher = getOrCreatePublisher();
+        KafkaPublisher publisher = getPublisher();
         if (publisher == null) {
-            sendBadRequest(Map.of("reason", ER.KAFKA_SERVER_ENV_NOT_SET));
+            ctx.sendBadRequest(Map.of("reason", ER.KAFKA_SERVER_ENV_NOT_SET));
             return;
         }
 
-        try {
-            DeletePersonEventArgs e = new DeletePersonEventArgs(personId);
-            publisher.send(e);
-            log.info("Person delete event queued for id: {}", personId);
-            sendObject(200, Map.of(
-                    "status", "delete request queued",
-                    "personId", personId
-            ));
-        } catch (Exception ex) {
-            log.error("Failed to queue person delete event for id: {}", personId, ex);
-            send(500, "{\"reason\":\"Kafka send failed\"}");
+        publish(ctx, DELETE_LANE, publisher, new DeletePerson(id), 200, Map.of(
+                "status", "deleted",
+                "personId", id
+        ));
+    }
+
+    /**
+     * Answers {@code 429} or {@code 503} with {@code Retry-After} unless the decision admits the request.
+     */
+    private boolean admit(RequestContext ctx, AdmissionController.Decision decision) throws IOException {
+        return admit(ctx, decision, ER.PRODUCER_SATURATED);
+    }
+
+    private boolean admit(RequestContext ctx, AdmissionController.Decision decision, String saturatedReason)
+            throws IOException {
+        if (decision == AdmissionController.Decision.ADMITTED) {
+            return true;
+        }
+
+        ctx.response().setHeader("Retry-After", Integer.toString(admission.retryAfterSeconds()));
+        if (decision == AdmissionController.Decision.THROTTLED) {
+            ctx.sendObject(SC_TOO_MANY_REQUESTS, Map.of("reason", ER.TOO_MANY_IN_FLIGHT));
+        } else {
+            ctx.sendObject(HttpServletResponse.SC_SERVICE_UNAVAILABLE, Map.of("reason", saturatedReason));
+        }
+        return false;
+    }
+
+    private void publish(RequestContext ctx, String laneName, KafkaPublisher publisher, PersonEvent event,
+                         int status, Map<String, Object> body) throws IOException {
+        SharedOutbox outbox = getOutbox();
+        if (outbox != null) {
+            enqueue(ctx, laneName, outbox, event, body);
+            return;
+        }
+
+        AdmissionController.Lane lane = admission.lane(laneName);
+        if (!admit(ctx, lane.tryAcquire(publisher))) {
+            return;
         }
+
+        CompletableFuture<RecordMetadata> ack = publisher.send(event);
+        ack.whenComplete((metadata, failure) -> lane.release());
+        ctx.respondAsync(ack, (c, metadata, failure) -> {
+            if (failure != null) {
+                log.error("Kafka send failed for {}", event.type(), failure);
+                c.sendObject(503, Map.of("reason", ER.KAFKA_SEND_FAILED));
+                return;
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("{} acknowledged at partition={} offset={}",
+                        event.type(), metadata.partition(), metadata.offset());
+            }
+            Map<String, Object> response = new LinkedHashMap<>(body);
+            response.put("partition", metadata.partition());
+            response.put("offset", metadata.offset());
+            c.sendObject(status, response);
+        });
+    }
+
+    /**
+     * Answers {@code 202} once {@code event} is in the outbox; the relay delivers it to Kafka later.
+     */
+    private void enqueue(RequestContext ctx, String laneName, SharedOutbox outbox, PersonEvent event,
+                         Map<String, Object> body) throws IOException {
+        AdmissionController.Lane lane = admission.lane(laneName);
+        if (!admit(ctx, lane.tryAcquire(outbox::hasRoom), ER.OUTBOX_FULL)) {
+            return;
+        }
+
+        CompletableFuture<Long> ack = outbox.append(event);
+        ack.whenComplete((position, failure) -> lane.release());
+        ctx.respondAsync(ack, (c, position, failure) -> {
+            if (failure != null) {
+                log.error("Outbox append failed for {}", event.type(), failure);
+                c.sendObject(503, Map.of("reason", ER.OUTBOX_APPEND_FAILED));
+                return;
+            }
+            c.sendObject(HttpServletResponse.SC_ACCEPTED, body);
+        });
     }
 }
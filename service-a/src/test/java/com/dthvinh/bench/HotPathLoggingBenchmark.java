@@ -0,0 +1,146 @@
+package com.dthvinh.bench;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dthvinh.libs.servlet.Endpoint;
+import com.dthvinh.libs.servlet.RequestContext;
+
+/**
+ * Request and publish-ack throughput with the previous logging (an INFO line on entry and exit of every request, an
+ * INFO line and a {@code System.out.printf} per acknowledged send) against the current hot path (sampled access log,
+ * guarded DEBUG lines, counters). Logging goes to a file through slf4j-simple, stdout to another file:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dthvinh.bench.HotPathLoggingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.logFile=target/hot-path-logging-bench.log")
+@Threads(4)
+public class HotPathLoggingBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(HotPathLoggingBenchmark.class);
+
+    private final LegacyEndpoint legacy = new LegacyEndpoint();
+    private final HealthEndpoint hotPath = new HealthEndpoint();
+    private final LongAdder acknowledged = new LongAdder();
+
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private PrintStream stdout;
+    private PrintStream originalStdout;
+
+    @Setup(Level.Trial)
+    public void setUp() throws FileNotFoundException {
+        request = ServletFakes.request("GET", "/api/health", null, () -> "");
+        response = ServletFakes.response();
+        originalStdout = System.out;
+        stdout = new PrintStream(new FileOutputStream("target/hot-path-logging-bench.out"), true);
+        System.setOut(stdout);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalStdout);
+        stdout.close();
+    }
+
+    @Benchmark
+    public void legacyRequest() throws ServletException, IOException {
+        legacy.service(request, response);
+    }
+
+    @Benchmark
+    public void hotPathRequest() throws ServletException, IOException {
+        hotPath.service(request, response);
+    }
+
+    @Benchmark
+    public void legacyAck() {
+        int partition = 3;
+        long offset = 42L;
+        System.out.printf("Sent to topic=%s partition=%d offset=%d%n", "microservice-service-bridge", partition, offset);
+        log.info("{} acknowledged at partition={} offset={}", "CreatePersonEvent", partition, offset);
+    }
+
+    @Benchmark
+    public void hotPathAck() {
+        int partition = 3;
+        long offset = 42L;
+        acknowledged.increment();
+        if (log.isDebugEnabled()) {
+            log.debug("{} acknowledged at partition={} offset={}", "CreatePersonEvent", partition, offset);
+        }
+    }
+
+    static final class HealthEndpoint extends Endpoint {
+        @Override
+        protected void handleGet(RequestContext ctx) throws IOException {
+            ctx.sendOk("{\"status\":\"ok\"}");
+        }
+    }
+
+    /**
+     * {@code Endpoint.service} before hot-path logging, minus metrics and idempotency.
+     */
+    static final class LegacyEndpoint extends HttpServlet {
+        private final Logger log = LoggerFactory.getLogger(LegacyEndpoint.class);
+
+        @Override
+        protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            long startNs = System.nanoTime();
+            String method = req.getMethod();
+            String uri = req.getRequestURI();
+            String query = req.getQueryString();
+            String pathWithQuery = query == null ? uri : (uri + "?" + query);
+
+            try {
+                log.info("=> {} {}", method, pathWithQuery);
+                resp.setStatus(HttpServletResponse.SC_OK);
+                resp.getOutputStream().write("{\"status\":\"ok\"}".getBytes());
+            } finally {
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+                log.info("<= {} {} -> {} ({}ms)", method, pathWithQuery, resp.getStatus(), elapsedMs);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HotPathLoggingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
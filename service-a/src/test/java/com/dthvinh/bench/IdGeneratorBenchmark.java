@@ -0,0 +1,67 @@
+package com.dthvinh.bench;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dthvinh.libs.common.IdGenerator;
+
+/**
+ * Throughput of person id generation, alone and with 8 threads sharing one generator, against
+ * {@link UUID#randomUUID()} (what service B used to key creates with).
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dthvinh.bench.IdGeneratorBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    private final IdGenerator ids = new IdGenerator(42, System::currentTimeMillis);
+
+    @Benchmark
+    public UUID next() {
+        return ids.next();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public UUID nextContended() {
+        return ids.next();
+    }
+
+    @Benchmark
+    public UUID randomUuid() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public UUID randomUuidContended() {
+        return UUID.randomUUID();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IdGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,128 @@
+package com.dthvinh.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dthvinh.dto.CreatePersonDto;
+import com.dthvinh.dto.UpdatePersonDto;
+import com.dthvinh.libs.servlet.JsonCodec;
+import com.google.gson.Gson;
+
+/**
+ * Per-request cost of reading a person body and writing the JSON reply: the previous {@code Endpoint} path
+ * (line-by-line {@code StringBuilder}, a new {@code Gson} per read, {@code toJson} into a {@code String}) against
+ * {@link JsonCodec}. Run with the GC profiler to compare {@code gc.alloc.rate.norm}:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dthvinh.bench.JsonCodecBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    private static final String CREATE_BODY = "{\n  \"name\": \"Alice\",\n  \"age\": 30\n}";
+    private static final String UPDATE_BODY =
+            "{\n  \"id\": \"" + UUID.randomUUID() + "\",\n  \"name\": \"Alice B.\",\n  \"age\": 31\n}";
+
+    private final Gson legacyGson = new Gson();
+    private final JsonCodec codec = JsonCodec.DEFAULT;
+
+    private HttpServletRequest createRequest;
+    private HttpServletRequest updateRequest;
+    private HttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        createRequest = ServletFakes.request("POST", "/api/person", null, () -> CREATE_BODY);
+        updateRequest = ServletFakes.request("PUT", "/api/person", null, () -> UPDATE_BODY);
+        response = ServletFakes.response();
+    }
+
+    @Benchmark
+    public CreatePersonDto legacyCreate() throws IOException {
+        CreatePersonDto dto = legacyRead(createRequest, CreatePersonDto.class);
+        legacyWrite(response, 201, Map.of("status", "created", "name", dto.name()));
+        return dto;
+    }
+
+    @Benchmark
+    public CreatePersonDto codecCreate() throws IOException {
+        CreatePersonDto dto = codec.read(createRequest, CreatePersonDto.class);
+        codec.write(response, Map.of("status", "created", "name", dto.name()));
+        return dto;
+    }
+
+    @Benchmark
+    public UpdatePersonDto legacyUpdate() throws IOException {
+        UpdatePersonDto dto = legacyRead(updateRequest, UpdatePersonDto.class);
+        legacyWrite(response, 200, Map.of("status", "updated", "personId", dto.id()));
+        return dto;
+    }
+
+    @Benchmark
+    public UpdatePersonDto codecUpdate() throws IOException {
+        UpdatePersonDto dto = codec.read(updateRequest, UpdatePersonDto.class);
+        codec.write(response, Map.of("status", "updated", "personId", dto.id()));
+        return dto;
+    }
+
+    private static <T> T legacyRead(HttpServletRequest req, Class<T> clazz) throws IOException {
+        StringBuilder json = new StringBuilder();
+        String line;
+
+        try (BufferedReader reader = req.getReader()) {
+            while ((line = reader.readLine()) != null) {
+                json.append(line);
+            }
+        }
+
+        Gson gson = new Gson();
+        return gson.fromJson(json.toString(), clazz);
+    }
+
+    private void legacyWrite(HttpServletResponse resp, int status, Object body) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        String json = legacyGson.toJson(body);
+
+        PrintWriter writer = resp.getWriter();
+        writer.write(json);
+        writer.flush();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JsonCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
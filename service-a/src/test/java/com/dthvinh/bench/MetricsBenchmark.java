@@ -0,0 +1,78 @@
+package com.dthvinh.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dthvinh.libs.metrics.MetricsRegistry;
+
+/**
+ * Cost that request metrics add to every request: the recorder lookup plus one status count and one histogram
+ * update, against just reading the clock. {@code gc.alloc.rate.norm} should stay at zero for the recording paths.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dthvinh.bench.MetricsBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Benchmark
+    public long clockOnly() {
+        long start = System.nanoTime();
+        return System.nanoTime() - start;
+    }
+
+    @Benchmark
+    public void record() {
+        long start = System.nanoTime();
+        registry.recorder("/api/person", "POST").record(201, System.nanoTime() - start + latency());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void recordContended() {
+        long start = System.nanoTime();
+        registry.recorder("/api/person", "POST").record(201, System.nanoTime() - start + latency());
+    }
+
+    @Benchmark
+    public int scrape() {
+        StringBuilder out = new StringBuilder(8 * 1024);
+        registry.writeTo(out);
+        return out.length();
+    }
+
+    // Spread samples over realistic buckets instead of hammering the first one.
+    private static long latency() {
+        return ThreadLocalRandom.current().nextLong(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MetricsBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,138 @@
+package com.dthvinh.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dthvinh.contracts.CreatePerson;
+import com.dthvinh.libs.outbox.Outbox;
+import com.dthvinh.libs.outbox.OutboxRelay;
+
+/**
+ * Append latency of {@link Outbox} (append until it is on disk) with one and with 16 writers, for a few group
+ * commit windows; with more writers one sync acknowledges many appends. A relay drains the outbox into a sink that
+ * acknowledges at once, as it would with a healthy broker. {@code main} also prints how fast a relay drains a
+ * backlog of a million events. Uses the temporary directory, so run it on the disk the outbox would live on:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dthvinh.bench.OutboxBenchmark \
+ *   -Djava.io.tmpdir=/var/lib/service-a
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OutboxBenchmark {
+    static final int DRAIN_EVENTS = 1_000_000;
+
+    @Param({"0", "1", "5"})
+    public long syncMs;
+
+    private final AtomicLong next = new AtomicLong();
+    private Path dir;
+    private Outbox outbox;
+    private OutboxRelay relay;
+    private Thread relayThread;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("outbox-bench");
+        outbox = Outbox.open(dir, Outbox.DEFAULT_SEGMENT_BYTES, syncMs);
+        relay = new OutboxRelay(outbox, event -> CompletableFuture.completedFuture(null),
+                OutboxRelay.DEFAULT_WINDOW, OutboxRelay.DEFAULT_RETRY_MS);
+        relayThread = new Thread(relay, "Outbox-Relay");
+        relayThread.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        relay.stop();
+        relayThread.join();
+        outbox.close();
+        delete(dir);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long append1() {
+        return outbox.append(event(next.incrementAndGet())).join();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long append16() {
+        return outbox.append(event(next.incrementAndGet())).join();
+    }
+
+    private static CreatePerson event(long i) {
+        return new CreatePerson(new UUID(0, i), "person " + i, (int) (i % 100));
+    }
+
+    static void drain() throws Exception {
+        Path dir = Files.createTempDirectory("outbox-bench");
+        try (Outbox outbox = Outbox.open(dir, Outbox.DEFAULT_SEGMENT_BYTES, Outbox.DEFAULT_SYNC_MS)) {
+            CompletableFuture<Long> last = null;
+            for (int i = 0; i < DRAIN_EVENTS; i++) {
+                last = outbox.append(event(i));
+            }
+            last.join();
+
+            OutboxRelay relay = new OutboxRelay(outbox, event -> CompletableFuture.completedFuture(null),
+                    OutboxRelay.DEFAULT_WINDOW, OutboxRelay.DEFAULT_RETRY_MS);
+            long start = System.nanoTime();
+            Thread thread = new Thread(relay, "Outbox-Relay");
+            thread.start();
+            while (outbox.checkpoint() < outbox.durable()) {
+                Thread.sleep(1);
+            }
+            long elapsed = System.nanoTime() - start;
+            relay.stop();
+            thread.join();
+            System.out.printf("Outbox drain: %d events in %d ms (%.0f events/s)%n", DRAIN_EVENTS,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), DRAIN_EVENTS / (elapsed / 1e9));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        drain();
+        new Runner(new OptionsBuilder()
+                .include(OutboxBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
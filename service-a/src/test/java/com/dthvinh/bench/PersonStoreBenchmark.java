@@ -0,0 +1,122 @@
+package com.dthvinh.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dthvinh.libs.readmodel.PersonPage;
+import com.dthvinh.libs.readmodel.PersonQuery;
+import com.dthvinh.libs.readmodel.PersonStore;
+import com.dthvinh.models.Person;
+
+/**
+ * Lookup and list latency of {@link PersonStore} at a few million persons. Setup prints the retained heap of the
+ * loaded store (used heap after GC, minus the empty baseline) and the resulting bytes per person. Needs a large heap:
+ *
+ * <pre>
+ * MAVEN_OPTS=-Xmx4g mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dthvinh.bench.PersonStoreBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PersonStoreBenchmark {
+
+    private static final String[] FIRST = {"an", "bao", "chi", "dung", "giang", "hoa", "khanh", "linh", "minh",
+            "ngoc", "phuong", "quang", "son", "thao", "trang", "tuan", "vinh", "yen"};
+
+    @Param({"1000000", "3000000"})
+    public int persons;
+
+    private PersonStore store;
+    private UUID[] ids;
+    private String secondPageCursor;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void load() {
+        long baseline = usedHeapAfterGc();
+
+        store = new PersonStore();
+        ids = new UUID[persons];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < persons; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            ids[i] = id;
+            store.put(new Person(id, FIRST[random.nextInt(FIRST.length)] + " " + i, random.nextInt(100)));
+        }
+
+        long retained = usedHeapAfterGc() - baseline - (long) persons * 36;
+        System.out.printf("%nPersonStore: %d persons retain %d MiB (%d bytes/person, excluding the benchmark's id array)%n",
+                persons, retained >> 20, retained / persons);
+
+        secondPageCursor = store.query(new PersonQuery(null, null, null, PersonQuery.Sort.NAME, false, 50, null))
+                .nextCursor();
+    }
+
+    @Benchmark
+    public Optional<Person> getById() {
+        return store.get(ids[next++ % ids.length]);
+    }
+
+    @Benchmark
+    public PersonPage firstPageById() {
+        return store.query(new PersonQuery(null, null, null, PersonQuery.Sort.ID, false, 50, null));
+    }
+
+    @Benchmark
+    public PersonPage nextPageByName() {
+        return store.query(new PersonQuery(null, null, null, PersonQuery.Sort.NAME, false, 50, secondPageCursor));
+    }
+
+    @Benchmark
+    public PersonPage namePrefix() {
+        return store.query(new PersonQuery("linh 12", null, null, PersonQuery.Sort.NAME, false, 50, null));
+    }
+
+    @Benchmark
+    public PersonPage ageRangeDescending() {
+        return store.query(new PersonQuery(null, 30, 40, PersonQuery.Sort.AGE, true, 50, null));
+    }
+
+    @Benchmark
+    public PersonPage namePrefixSortedByAge() {
+        return store.query(new PersonQuery("linh 12", null, null, PersonQuery.Sort.AGE, false, 50, null));
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PersonStoreBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
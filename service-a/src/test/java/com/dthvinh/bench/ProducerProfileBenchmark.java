@@ -0,0 +1,100 @@
+package com.dthvinh.bench;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dthvinh.contracts.CreatePerson;
+import com.dthvinh.libs.common.Env;
+import com.dthvinh.libs.common.IdGenerator;
+import com.dthvinh.libs.kafka.publisher.KafkaPublisher;
+import com.dthvinh.libs.kafka.publisher.ProducerProfile;
+import com.dthvinh.libs.metrics.LatencyHistogram;
+
+/**
+ * Create events per second through {@link KafkaPublisher} for each {@link ProducerProfile}, with 4 threads
+ * publishing. Sends block once the producer buffer is full, so the score settles at what the broker accepts. The
+ * acknowledgement latency (send to ack) of every event is recorded and its p50/p99 printed at the end of each run.
+ * Needs a broker:
+ *
+ * <pre>
+ * KAFKA_BOOTSTRAP_SERVER=localhost:9092 \
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dthvinh.bench.ProducerProfileBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProducerProfileBenchmark {
+    static final String TOPIC = "bench-producer-profiles";
+
+    @Param({"THROUGHPUT", "LATENCY", "DURABLE"})
+    public String profile;
+
+    private final IdGenerator ids = new IdGenerator(42, System::currentTimeMillis);
+    private LatencyHistogram acks;
+    private KafkaPublisher publisher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        publisher = new KafkaPublisher(Env.KAFKA_BOOTSTRAP_SERVER, TOPIC,
+                ProducerProfile.valueOf(profile).properties());
+        publisher.warmUp();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetLatencies() {
+        acks = new LatencyHistogram();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportLatencies() {
+        LatencyHistogram.Snapshot snapshot = acks.snapshot();
+        System.out.printf("%n%s: %d acks, p50 %d us, p99 %d us%n", profile, snapshot.count(),
+                snapshot.valueAtQuantile(0.50), snapshot.valueAtQuantile(0.99));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        publisher.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void publish() {
+        LatencyHistogram histogram = acks;
+        long start = System.nanoTime();
+        publisher.send(new CreatePerson(ids.next(), "Benchmark Person", 30))
+                .whenComplete((metadata, error) -> {
+                    if (error == null) {
+                        histogram.recordNanos(System.nanoTime() - start);
+                    }
+                });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProducerProfileBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,91 @@
+package com.dthvinh.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dthvinh.libs.servlet.RouteTable;
+
+/**
+ * Dispatch cost as the route set grows: {@link RouteTable} against the hand-written alternative of trying every
+ * route's prefix and splitting the remainder. The trie should stay flat across {@code routes} and allocate nothing:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dthvinh.bench.RouteTableBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteTableBenchmark {
+
+    @Param({"4", "64", "1024"})
+    public int routes;
+
+    private RouteTable table;
+    private List<String> prefixes;
+    private String firstPath;
+    private String lastPath;
+
+    @Setup
+    public void setUp() {
+        RouteTable.Builder builder = new RouteTable.Builder();
+        prefixes = new ArrayList<>();
+        for (int i = 0; i < routes; i++) {
+            String prefix = "/resource" + i;
+            builder.get(prefix + "/{id}", ctx -> {
+            });
+            prefixes.add(prefix + "/");
+        }
+        table = builder.build();
+        firstPath = "/resource0/0b6a8c7e-4f0e-4b5e-9f35-6c1c2b7f1a11";
+        lastPath = "/resource" + (routes - 1) + "/0b6a8c7e-4f0e-4b5e-9f35-6c1c2b7f1a11";
+    }
+
+    @Benchmark
+    public RouteTable.Route trieFirst() {
+        return table.match(RouteTable.Method.GET, firstPath);
+    }
+
+    @Benchmark
+    public RouteTable.Route trieLast() {
+        return table.match(RouteTable.Method.GET, lastPath);
+    }
+
+    @Benchmark
+    public String linearLast() {
+        for (String prefix : prefixes) {
+            if (lastPath.startsWith(prefix)) {
+                String[] rest = lastPath.substring(prefix.length()).split("/");
+                return rest.length == 1 ? rest[0] : null;
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RouteTableBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
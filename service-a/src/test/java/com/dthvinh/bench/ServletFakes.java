@@ -0,0 +1,94 @@
+package com.dthvinh.bench;
+
+import java.io.BufferedReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Allocation-light servlet request/response fakes for benchmarks, where Mockito's invocation recording would
+ * dominate the measurement. Unlisted methods return {@code null}, {@code 0} or {@code false}.
+ */
+final class ServletFakes {
+    private ServletFakes() {
+    }
+
+    static HttpServletRequest request(String method, String uri, String pathInfo, Supplier<String> body) {
+        return request(method, uri, pathInfo, body, Map.of());
+    }
+
+    static HttpServletRequest request(String method, String uri, String pathInfo, Supplier<String> body,
+                                      Map<String, String> headers) {
+        return (HttpServletRequest) Proxy.newProxyInstance(
+                HttpServletRequest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class},
+                (proxy, m, args) -> switch (m.getName()) {
+                    case "getMethod" -> method;
+                    case "getRequestURI" -> uri;
+                    case "getPathInfo" -> pathInfo;
+                    case "getReader" -> new BufferedReader(new StringReader(body.get()));
+                    case "getHeader" -> headers.get((String) args[0]);
+                    default -> defaultValue(m.getReturnType());
+                });
+    }
+
+    static HttpServletResponse response() {
+        ServletOutputStream out = new NullServletOutputStream();
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        int[] status = new int[1];
+        return (HttpServletResponse) Proxy.newProxyInstance(
+                HttpServletResponse.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class},
+                (proxy, m, args) -> switch (m.getName()) {
+                    case "getOutputStream" -> out;
+                    case "getWriter" -> writer;
+                    case "setStatus" -> {
+                        status[0] = (Integer) args[0];
+                        yield null;
+                    }
+                    case "getStatus" -> status[0];
+                    default -> defaultValue(m.getReturnType());
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    static final class NullServletOutputStream extends ServletOutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.dthvinh.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dthvinh.contracts.CreatePerson;
+import com.dthvinh.libs.common.Env;
+import com.dthvinh.libs.common.IdGenerator;
+import com.dthvinh.libs.kafka.publisher.KafkaPublisher;
+import com.dthvinh.libs.kafka.publisher.ProducerProfile;
+
+/**
+ * Create events per second through {@link KafkaPublisher} with one producer (as before sharding) and with 2, 4 and
+ * 8 producer shards, 32 threads publishing with the default profile. The topic needs at least as many partitions
+ * as the largest shard count, and the score only scales while the machine has cores to spare for the extra sender
+ * threads. Needs a broker:
+ *
+ * <pre>
+ * KAFKA_BOOTSTRAP_SERVER=localhost:9092 \
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dthvinh.bench.ShardedPublisherBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ShardedPublisherBenchmark {
+    static final String TOPIC = "bench-producer-shards";
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    private final IdGenerator ids = new IdGenerator(43, System::currentTimeMillis);
+    private KafkaPublisher publisher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        publisher = new KafkaPublisher(Env.KAFKA_BOOTSTRAP_SERVER, TOPIC, ProducerProfile.DEFAULT.properties(),
+                shards);
+        int partitions = publisher.warmUp();
+        if (partitions < shards) {
+            System.out.printf("%nOnly %d partitions for %d shards; some shards stay idle%n", partitions, shards);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        publisher.close();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void publish() {
+        publisher.send(new CreatePerson(ids.next(), "Benchmark Person", 30));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ShardedPublisherBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
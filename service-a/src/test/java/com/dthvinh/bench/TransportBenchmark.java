@@ -0,0 +1,167 @@
+package com.dthvinh.bench;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.PersonEventDeserializer;
+import com.dthvinh.contracts.UpdatePerson;
+import com.dthvinh.contracts.transport.LoopbackTransport;
+import com.dthvinh.libs.common.Env;
+import com.dthvinh.libs.kafka.publisher.KafkaPublisher;
+import com.dthvinh.libs.kafka.publisher.ProducerProfile;
+
+/**
+ * End to end, from {@link KafkaPublisher#send} until a consumer has the event, through Kafka and through the
+ * in-VM {@link LoopbackTransport}: latency with one publisher ({@code roundTrip}) and events per second with 16
+ * ({@code roundTrip16}). The Kafka consumer reads the topic directly, deserializing as service B does; the loopback
+ * sink gets the sent object itself. The Kafka runs need a broker:
+ *
+ * <pre>
+ * KAFKA_BOOTSTRAP_SERVER=localhost:9092 \
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dthvinh.bench.TransportBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransportBenchmark {
+    static final String TOPIC = "bench-transport";
+
+    @Param({"kafka", "loopback"})
+    public String transport;
+
+    // Person id -> the send waiting for the consumer to see it.
+    private final Map<UUID, CompletableFuture<Void>> waiting = new ConcurrentHashMap<>();
+    private KafkaPublisher publisher;
+    private LoopbackTransport loopback;
+    private KafkaConsumer<String, PersonEvent> consumer;
+    private Thread consumerThread;
+    private volatile boolean running;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        publisher = new KafkaPublisher(Env.KAFKA_BOOTSTRAP_SERVER, TOPIC, ProducerProfile.LATENCY.properties());
+        if (LoopbackTransport.NAME.equals(transport)) {
+            loopback = new LoopbackTransport();
+            loopback.subscribe(this::received);
+            publisher.useTransport(loopback);
+            return;
+        }
+
+        publisher.warmUp();
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, Env.KAFKA_BOOTSTRAP_SERVER);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, PersonEventDeserializer.class.getName());
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, "1");
+        consumer = new KafkaConsumer<>(props);
+        List<TopicPartition> partitions = consumer.partitionsFor(TOPIC).stream()
+                .map(info -> new TopicPartition(TOPIC, info.partition()))
+                .toList();
+        consumer.assign(partitions);
+        consumer.seekToEnd(partitions);
+        partitions.forEach(consumer::position);
+
+        running = true;
+        consumerThread = new Thread(this::consume, "Bench-Consumer");
+        consumerThread.start();
+    }
+
+    private void consume() {
+        try {
+            while (running) {
+                for (ConsumerRecord<String, PersonEvent> record : consumer.poll(Duration.ofMillis(100))) {
+                    if (record.value() != null) {
+                        received(record.value());
+                    }
+                }
+            }
+        } catch (WakeupException ex) {
+            // Stopped by tearDown.
+        } finally {
+            consumer.close();
+        }
+    }
+
+    private void received(PersonEvent event) {
+        CompletableFuture<Void> send = waiting.remove(event.id());
+        if (send != null) {
+            send.complete(null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        publisher.close();
+        if (loopback != null) {
+            loopback.close();
+        }
+        if (consumer != null) {
+            running = false;
+            consumer.wakeup();
+            consumerThread.join();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @Threads(1)
+    public void roundTrip() {
+        sendAndAwait();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(16)
+    public void roundTrip16() {
+        sendAndAwait();
+    }
+
+    private void sendAndAwait() {
+        UUID id = UUID.randomUUID();
+        CompletableFuture<Void> seen = new CompletableFuture<>();
+        waiting.put(id, seen);
+        publisher.send(new UpdatePerson(id, "Benchmark Person", 30));
+        seen.join();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransportBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
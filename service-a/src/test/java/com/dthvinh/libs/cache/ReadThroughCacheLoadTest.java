@@ -0,0 +1,127 @@
+package com.dthvinh.libs.cache;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Person reads with a Zipf-skewed id distribution against a simulated Redis round trip, straight to Redis and
+ * through {@link ReadThroughCache}. Reports how many Redis calls the cache saves and the resulting latencies.
+ */
+class ReadThroughCacheLoadTest {
+
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 5_000;
+    private static final int IDS = 10_000;
+    private static final double SKEW = 1.1;
+    private static final long REDIS_RTT_NS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    record Result(int requests, long redisCalls, long p50Us, long p99Us) {
+        @Override
+        public String toString() {
+            return String.format("%d requests, %d Redis calls, p50=%dus p99=%dus", requests, redisCalls, p50Us, p99Us);
+        }
+    }
+
+    @FunctionalInterface
+    interface Reader {
+        String read(int id) throws Exception;
+    }
+
+    @Test
+    void zipfReads_cacheCollapsesRedisCalls() throws Exception {
+        double[] cdf = zipfCdf(IDS, SKEW);
+
+        AtomicLong direct = new AtomicLong();
+        Result uncached = run(cdf, direct, id -> redis(direct, id));
+
+        AtomicLong behindCache = new AtomicLong();
+        ExecutorService refresher = Executors.newFixedThreadPool(2);
+        ReadThroughCache<Integer, String> cache = new ReadThroughCache<>(id -> redis(behindCache, id),
+                1_000, 30_000, IDS, refresher, System::nanoTime);
+        Result cached = run(cdf, behindCache, cache::get);
+        refresher.shutdown();
+
+        long saved = uncached.redisCalls() - cached.redisCalls();
+        System.out.println("direct:        " + uncached);
+        System.out.println("read-through:  " + cached + ", " + cache.stats());
+        System.out.printf("Redis calls saved: %d (%.1f%%)%n", saved, 100.0 * saved / uncached.redisCalls());
+
+        assertTrue(cached.redisCalls() * 4 < uncached.redisCalls(), "cache saved too little: " + cached);
+        assertTrue(cached.p50Us() < uncached.p50Us(), "cache did not cut latency: " + cached);
+    }
+
+    private static String redis(AtomicLong calls, int id) {
+        calls.incrementAndGet();
+        LockSupport.parkNanos(REDIS_RTT_NS);
+        return "{\"id\":" + id + "}";
+    }
+
+    private static Result run(double[] cdf, AtomicLong redisCalls, Reader reader) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                long[] latencies = new long[REQUESTS_PER_THREAD];
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < latencies.length; i++) {
+                    int id = sample(cdf, random.nextDouble());
+                    long begin = System.nanoTime();
+                    reader.read(id);
+                    latencies[i] = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin);
+                }
+                return latencies;
+            }));
+        }
+
+        start.countDown();
+        long[] all = new long[THREADS * REQUESTS_PER_THREAD];
+        int n = 0;
+        for (Future<long[]> worker : workers) {
+            long[] latencies = worker.get(1, TimeUnit.MINUTES);
+            System.arraycopy(latencies, 0, all, n, latencies.length);
+            n += latencies.length;
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        Arrays.sort(all);
+        return new Result(all.length, redisCalls.get(), percentile(all, 0.50), percentile(all, 0.99));
+    }
+
+    private static double[] zipfCdf(int n, double skew) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1 / Math.pow(k, skew);
+            cdf[k - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+
+    private static int sample(double[] cdf, double u) {
+        int i = Arrays.binarySearch(cdf, u);
+        return Math.min(cdf.length - 1, i >= 0 ? i : -i - 1);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,173 @@
+package com.dthvinh.libs.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class ReadThroughCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ReadThroughCache<String, String> cache(ReadThroughCache.Loader<String, String> loader) {
+        return new ReadThroughCache<>(loader, 100, 1_000, 100, Runnable::run, clock::get);
+    }
+
+    @Test
+    void freshEntries_areServedWithoutLoading() throws Exception {
+        ReadThroughCache<String, String> cache = cache(key -> key + "-" + loads.incrementAndGet());
+
+        assertEquals("a-1", cache.get("a"));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(99));
+        assertEquals("a-1", cache.get("a"));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void absentValues_areCachedToo() throws Exception {
+        ReadThroughCache<String, String> cache = cache(key -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        assertNull(cache.get("missing"));
+        assertNull(cache.get("missing"));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void staleEntries_areServedWhileOneRefreshRuns() throws Exception {
+        ExecutorService refresher = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        ReadThroughCache<String, String> cache = new ReadThroughCache<>(key -> {
+            if (loads.incrementAndGet() > 1) {
+                release.await();
+            }
+            return "v" + loads.get();
+        }, 100, 1_000, 100, refresher, clock::get);
+
+        assertEquals("v1", cache.get("a"));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(150));
+
+        // The refresh is blocked, yet readers get the stale value straight away and start no further loads.
+        for (int i = 0; i < 10; i++) {
+            assertEquals("v1", cache.get("a"));
+        }
+        release.countDown();
+        refresher.shutdown();
+        assertTrue(refresher.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals("v2", cache.get("a"));
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.stats().refreshes());
+        assertEquals(10, cache.stats().staleHits());
+    }
+
+    @Test
+    void expiredEntries_areLoadedAgain() throws Exception {
+        ReadThroughCache<String, String> cache = cache(key -> "v" + loads.incrementAndGet());
+
+        cache.get("a");
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_100));
+
+        assertEquals("v2", cache.get("a"));
+        assertEquals(2, cache.stats().misses());
+    }
+
+    @Test
+    void concurrentMisses_shareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ReadThroughCache<String, String> cache = cache(key -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return "value";
+        });
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(pool.submit(() -> cache.get("hot")));
+        }
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        while (cache.stats().coalesced() < threads - 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("value", result.get(5, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        assertEquals(1, loads.get());
+        assertEquals(threads - 1, cache.stats().coalesced());
+    }
+
+    @Test
+    void failedLoad_fallsBackToPreviousValue_orThrows() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ReadThroughCache<String, String> cache = cache(key -> {
+            if (calls.incrementAndGet() > 1) {
+                throw new IOException("redis down");
+            }
+            return "v1";
+        });
+
+        cache.get("a");
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5_000));
+
+        assertEquals("v1", cache.get("a"));
+        assertThrows(IOException.class, () -> cache.get("b"));
+        assertEquals(2, cache.stats().failures());
+    }
+
+    @Test
+    void entryCap_isEnforced() throws Exception {
+        ReadThroughCache<String, String> cache = cache(key -> key);
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.get("k" + i);
+        }
+
+        assertTrue(cache.stats().entries() <= 100);
+    }
+
+    @Test
+    void fullCache_evictsDownToTheLowWaterMark_soTheNextInsertsDoNotScan() throws Exception {
+        ReadThroughCache<String, String> cache = cache(key -> key);
+
+        for (int i = 0; i <= 100; i++) {
+            cache.get("k" + i);
+        }
+        assertEquals(90, cache.stats().entries());
+
+        for (int i = 101; i <= 110; i++) {
+            cache.get("k" + i);
+        }
+        assertEquals(100, cache.stats().entries());
+
+        cache.get("k111");
+        assertEquals(90, cache.stats().entries());
+    }
+}
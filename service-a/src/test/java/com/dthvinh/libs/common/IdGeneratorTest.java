@@ -0,0 +1,101 @@
+package com.dthvinh.libs.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class IdGeneratorTest {
+
+    @Test
+    void next_hasVersion7LayoutAndTimestamp() {
+        IdGenerator ids = new IdGenerator(42, () -> 1_700_000_000_123L);
+
+        UUID id = ids.next();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(1_700_000_000_123L, IdGenerator.timestampOf(id));
+    }
+
+    @Test
+    void next_isStrictlyIncreasing_whenClockStallsOrStepsBack() {
+        AtomicLong clock = new AtomicLong(1_000);
+        IdGenerator ids = new IdGenerator(1, clock::get);
+
+        UUID prev = ids.next();
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                clock.set(900);
+            }
+            UUID next = ids.next();
+            assertTrue(Long.compareUnsigned(next.getMostSignificantBits(), prev.getMostSignificantBits()) > 0,
+                    prev + " then " + next);
+            prev = next;
+        }
+        // 10,000 ids in one millisecond overflow the 12-bit counter into the next two.
+        assertEquals(1_002, IdGenerator.timestampOf(prev));
+    }
+
+    @Test
+    void next_followsTheClockOnceItMovesOn() {
+        AtomicLong clock = new AtomicLong(1_000);
+        IdGenerator ids = new IdGenerator(1, clock::get);
+        ids.next();
+
+        clock.set(2_000);
+
+        assertEquals(2_000, IdGenerator.timestampOf(ids.next()));
+    }
+
+    @Test
+    void next_isUniqueAcrossThreads() throws Exception {
+        IdGenerator ids = new IdGenerator(7, System::currentTimeMillis);
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<UUID[]>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(pool.submit(() -> {
+                UUID[] out = new UUID[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    out[i] = ids.next();
+                }
+                return out;
+            }));
+        }
+
+        Set<UUID> seen = new HashSet<>();
+        for (Future<UUID[]> worker : workers) {
+            UUID[] out = worker.get(1, TimeUnit.MINUTES);
+            for (int i = 1; i < out.length; i++) {
+                assertTrue(Long.compareUnsigned(out[i].getMostSignificantBits(),
+                        out[i - 1].getMostSignificantBits()) > 0);
+            }
+            seen.addAll(List.of(out));
+        }
+        pool.shutdown();
+
+        assertEquals(threads * perThread, seen.size());
+    }
+
+    @Test
+    void generatorsWithDifferentNodes_doNotCollide() {
+        IdGenerator a = new IdGenerator(1, () -> 1_000);
+        IdGenerator b = new IdGenerator(2, () -> 1_000);
+
+        assertNotEquals(a.next(), b.next());
+    }
+}
@@ -0,0 +1,61 @@
+package com.dthvinh.libs.kafka.publisher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.contracts.CreatePerson;
+import com.dthvinh.contracts.Topics;
+
+class AdmissionControllerTest {
+
+    private final StallingProducer producer = new StallingProducer(10_000, 50);
+    private final KafkaPublisher publisher = new KafkaPublisher(producer, Topics.PERSONS);
+
+    @Test
+    void lane_throttlesAboveMaxInFlight() {
+        AdmissionController admission = new AdmissionController(2, 0.1, 1);
+        AdmissionController.Lane lane = admission.lane("POST /api/person");
+
+        assertEquals(AdmissionController.Decision.ADMITTED, lane.tryAcquire(publisher));
+        assertEquals(AdmissionController.Decision.ADMITTED, lane.tryAcquire(publisher));
+        assertEquals(AdmissionController.Decision.THROTTLED, lane.tryAcquire(publisher));
+        assertEquals(AdmissionController.Decision.ADMITTED, admission.lane("PUT /api/person").tryAcquire(publisher));
+
+        lane.release();
+        assertEquals(AdmissionController.Decision.ADMITTED, lane.tryAcquire(publisher));
+        assertEquals(new AdmissionController.LaneStats(2, 3, 1, 0), admission.stats().get("POST /api/person"));
+    }
+
+    @Test
+    void lane_shedsWhenProducerBufferIsNearlyFull() {
+        AdmissionController admission = new AdmissionController(1_000, 0.1, 1);
+        AdmissionController.Lane lane = admission.lane("POST /api/person");
+        producer.stall();
+
+        int admitted = 0;
+        while (lane.tryAcquire(publisher) == AdmissionController.Decision.ADMITTED) {
+            publisher.send(new CreatePerson(UUID.randomUUID(), "person-" + admitted, 30));
+            admitted++;
+        }
+
+        assertTrue(publisher.bufferHeadroom() < 0.1);
+        assertTrue(admitted > 0);
+        assertEquals(1, admission.stats().get("POST /api/person").saturated());
+
+        producer.resume();
+        assertEquals(1.0, publisher.bufferHeadroom());
+        assertEquals(AdmissionController.Decision.ADMITTED, lane.tryAcquire(publisher));
+    }
+
+    @Test
+    void bufferHeadroom_withoutProducerMetrics_isFull() {
+        KafkaPublisher plain = new KafkaPublisher(new org.apache.kafka.clients.producer.MockProducer<>(),
+                Topics.PERSONS);
+
+        assertEquals(1.0, plain.bufferHeadroom());
+    }
+}
@@ -0,0 +1,327 @@
+package com.dthvinh.libs.kafka.publisher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.clients.producer.internals.BuiltInPartitioner;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.contracts.ContentType;
+import com.dthvinh.contracts.CreatePerson;
+import com.dthvinh.contracts.DeletePerson;
+import com.dthvinh.contracts.EventHeaders;
+import com.dthvinh.contracts.Events;
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.PersonEventSerializer;
+import com.dthvinh.contracts.TopicRoutes;
+import com.dthvinh.contracts.Topics;
+import com.dthvinh.contracts.UpdatePerson;
+import com.dthvinh.contracts.transport.LoopbackTransport;
+import com.dthvinh.libs.common.IdGenerator;
+
+class KafkaPublisherTest {
+
+    private final List<StallingProducer> built = new ArrayList<>();
+    private final List<Properties> configs = new ArrayList<>();
+
+    private KafkaPublisher publisher() {
+        Properties base = new Properties();
+        base.put("bootstrap.servers", "broker:9092");
+        return new KafkaPublisher(props -> {
+            configs.add(props);
+            StallingProducer producer = new StallingProducer(10_000, 50);
+            built.add(producer);
+            return producer;
+        }, Topics.PERSONS, base, ProducerProfile.DURABLE.properties());
+    }
+
+    private static CreatePerson event() {
+        return new CreatePerson(UUID.randomUUID(), "person", 30);
+    }
+
+    @Test
+    void reconfigure_buildsProducerFromBaseAndNewProfile() {
+        KafkaPublisher publisher = publisher();
+
+        publisher.reconfigure(ProducerProfile.THROUGHPUT.properties());
+
+        assertEquals(2, configs.size());
+        assertEquals("broker:9092", configs.get(1).get("bootstrap.servers"));
+        assertEquals("lz4", configs.get(1).get("compression.type"));
+        assertEquals("1", configs.get(1).get("acks"));
+    }
+
+    @Test
+    void reconfigure_keepsInFlightSendsOfRetiredProducer() throws Exception {
+        KafkaPublisher publisher = publisher();
+        StallingProducer first = built.get(0);
+        first.stall();
+        CompletableFuture<RecordMetadata> inFlight = publisher.send(event());
+
+        publisher.reconfigure(ProducerProfile.LATENCY.properties());
+        CompletableFuture<RecordMetadata> next = publisher.send(event());
+
+        assertTrue(next.isDone());
+        assertFalse(inFlight.isDone());
+        first.resume();
+        inFlight.get(1, TimeUnit.SECONDS);
+        assertEquals(new KafkaPublisher.SendStats(2, 0), publisher.sendStats());
+    }
+
+    @Test
+    void send_racingWithReconfigure_goesToNewProducer() throws Exception {
+        KafkaPublisher[] holder = new KafkaPublisher[1];
+        List<StallingProducer> producers = new ArrayList<>();
+        Properties base = new Properties();
+        holder[0] = new KafkaPublisher(props -> {
+            StallingProducer producer = producers.isEmpty()
+                    ? new RetiringProducer(holder)
+                    : new StallingProducer(10_000, 50);
+            producers.add(producer);
+            return producer;
+        }, Topics.PERSONS, base, ProducerProfile.DURABLE.properties());
+
+        holder[0].send(event()).get(1, TimeUnit.SECONDS);
+
+        assertEquals(2, producers.size());
+        assertEquals(new KafkaPublisher.SendStats(1, 0), holder[0].sendStats());
+    }
+
+    @Test
+    void send_keysByPersonIdAndCarriesEventType() {
+        List<ProducerRecord<String, PersonEvent>> sent = new ArrayList<>();
+        KafkaPublisher publisher = new KafkaPublisher(recording(sent), Topics.PERSONS);
+        UUID id = UUID.randomUUID();
+
+        publisher.send(new CreatePerson(id, "person", 30));
+        publisher.send(new UpdatePerson(id, "person", 31));
+        publisher.send(new DeletePerson(id));
+
+        assertEquals(List.of(id.toString(), id.toString(), id.toString()),
+                sent.stream().map(ProducerRecord::key).toList());
+        PersonEventSerializer serializer = new PersonEventSerializer();
+        for (ProducerRecord<String, PersonEvent> record : sent) {
+            serializer.serialize(record.topic(), record.headers(), record.value());
+        }
+        assertEquals(List.of(Events.CreatePersonEvent, Events.UpdatePersonEvent, Events.DeletePersonEvent),
+                sent.stream().map(record -> EventHeaders.get(record.headers(), EventHeaders.EVENT_TYPE)).toList());
+        assertEquals(ContentType.BINARY.headerValue(),
+                EventHeaders.get(sent.get(0).headers(), EventHeaders.CONTENT_TYPE));
+    }
+
+    @Test
+    void send_goesThroughTheTransportWhileOneIsSet() throws Exception {
+        List<ProducerRecord<String, PersonEvent>> sent = new ArrayList<>();
+        List<PersonEvent> handed = new CopyOnWriteArrayList<>();
+        KafkaPublisher publisher = new KafkaPublisher(recording(sent), Topics.PERSONS);
+        try (LoopbackTransport loopback = new LoopbackTransport(1, 16, 100)) {
+            loopback.subscribe(handed::add);
+            publisher.useTransport(loopback);
+            CreatePerson event = event();
+
+            RecordMetadata metadata = publisher.send(event).get(5, TimeUnit.SECONDS);
+
+            assertSame(event, handed.get(0));
+            assertTrue(sent.isEmpty());
+            assertEquals(Topics.PERSONS, metadata.topic());
+            assertEquals(0, metadata.partition());
+            assertEquals(0, metadata.offset());
+
+            publisher.useTransport(null);
+            publisher.send(event);
+            assertEquals(1, sent.size());
+            assertEquals(1, handed.size());
+        }
+    }
+
+    @Test
+    void personIds_spreadEvenlyAcrossPartitions() {
+        List<ProducerRecord<String, PersonEvent>> sent = new ArrayList<>();
+        KafkaPublisher publisher = new KafkaPublisher(recording(sent), Topics.PERSONS);
+        IdGenerator ids = new IdGenerator(7, System::currentTimeMillis);
+        int partitions = 12;
+        int events = 24_000;
+        for (int i = 0; i < events; i++) {
+            publisher.send(new CreatePerson(ids.next(), "person-" + i, 30));
+        }
+
+        int[] perPartition = new int[partitions];
+        for (ProducerRecord<String, PersonEvent> record : sent) {
+            // What the default partitioner does with a keyed record.
+            perPartition[BuiltInPartitioner.partitionForKey(
+                    record.key().getBytes(StandardCharsets.UTF_8), partitions)]++;
+        }
+        int expected = events / partitions;
+        for (int count : perPartition) {
+            assertTrue(Math.abs(count - expected) < expected * 0.1,
+                    "Uneven spread: " + Arrays.toString(perPartition));
+        }
+    }
+
+    @Test
+    void send_publishesEachTypeToItsRoutedTopic() {
+        List<ProducerRecord<String, PersonEvent>> sent = new ArrayList<>();
+        KafkaPublisher publisher = new KafkaPublisher(props -> recording(sent),
+                TopicRoutes.parse("UpdatePersonEvent=person-updates"), new Properties(),
+                ProducerProfile.DURABLE.properties(), 1);
+        UUID id = UUID.randomUUID();
+
+        publisher.send(new CreatePerson(id, "person", 30));
+        publisher.send(new UpdatePerson(id, "person", 31));
+        publisher.send(new DeletePerson(id));
+
+        assertEquals(List.of(Topics.PERSONS, "person-updates", Topics.PERSONS),
+                sent.stream().map(ProducerRecord::topic).toList());
+        assertEquals(new KafkaPublisher.SendStats(3, 0), publisher.sendStats());
+    }
+
+    @Test
+    void reconfigure_fixedProducer_isRejected() {
+        KafkaPublisher publisher = new KafkaPublisher(new MockProducer<>(), Topics.PERSONS);
+
+        assertThrows(IllegalStateException.class,
+                () -> publisher.reconfigure(ProducerProfile.LATENCY.properties()));
+    }
+
+    @Test
+    void shardedSend_givesEachPartitionToOneProducer_andKeepsPersonOrder() {
+        List<ShardProducer> shards = new ArrayList<>();
+        KafkaPublisher publisher = new KafkaPublisher(props -> {
+            ShardProducer producer = new ShardProducer(12);
+            shards.add(producer);
+            return producer;
+        }, Topics.PERSONS, new Properties(), ProducerProfile.DURABLE.properties(), 4);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        Map<UUID, List<PersonEvent>> published = new HashMap<>();
+        for (int age = 0; age < 10; age++) {
+            for (UUID id : ids) {
+                PersonEvent event = new UpdatePerson(id, "person", age);
+                published.computeIfAbsent(id, key -> new ArrayList<>()).add(event);
+                publisher.send(event);
+            }
+        }
+
+        assertEquals(4, shards.size());
+        Map<UUID, List<PersonEvent>> received = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            assertFalse(shards.get(shard).sent.isEmpty(), "Idle shard " + shard);
+            for (ProducerRecord<String, PersonEvent> record : shards.get(shard).sent) {
+                int partition = BuiltInPartitioner.partitionForKey(
+                        record.key().getBytes(StandardCharsets.UTF_8), 12);
+                assertEquals(Integer.valueOf(partition), record.partition());
+                assertEquals(shard, partition % 4);
+                received.computeIfAbsent(record.value().id(), key -> new ArrayList<>()).add(record.value());
+            }
+        }
+        assertEquals(published, received);
+        assertEquals(new KafkaPublisher.SendStats(1_000, 0), publisher.sendStats());
+    }
+
+    @Test
+    void close_flushesAndClosesEveryShard() {
+        List<ShardProducer> shards = new ArrayList<>();
+        KafkaPublisher publisher = new KafkaPublisher(props -> {
+            ShardProducer producer = new ShardProducer(12);
+            shards.add(producer);
+            return producer;
+        }, Topics.PERSONS, new Properties(), ProducerProfile.DURABLE.properties(), 3);
+
+        publisher.close();
+
+        for (ShardProducer shard : shards) {
+            assertTrue(shard.flushed && shard.closed);
+        }
+    }
+
+    private static StallingProducer recording(List<ProducerRecord<String, PersonEvent>> sent) {
+        return new StallingProducer(Long.MAX_VALUE, 50) {
+            @Override
+            public Future<RecordMetadata> send(ProducerRecord<String, PersonEvent> record, Callback callback) {
+                sent.add(record);
+                return super.send(record, callback);
+            }
+        };
+    }
+
+    /**
+     * Gets replaced while a send is on its way in, then refuses the send the way a closed producer does.
+     */
+    private static final class RetiringProducer extends StallingProducer {
+        private final KafkaPublisher[] publisher;
+
+        RetiringProducer(KafkaPublisher[] publisher) {
+            super(10_000, 50);
+            this.publisher = publisher;
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<String, PersonEvent> record, Callback callback) {
+            publisher[0].reconfigure(ProducerProfile.LATENCY.properties());
+            throw new IllegalStateException("Cannot perform operation after producer has been closed");
+        }
+    }
+
+    /**
+     * Records what it is sent and knows the topic's partition count, as a producer with fetched metadata does.
+     */
+    private static final class ShardProducer extends StallingProducer {
+        final List<ProducerRecord<String, PersonEvent>> sent = new ArrayList<>();
+        private final int partitions;
+        boolean flushed;
+        boolean closed;
+
+        ShardProducer(int partitions) {
+            super(Long.MAX_VALUE, 50);
+            this.partitions = partitions;
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<String, PersonEvent> record, Callback callback) {
+            sent.add(record);
+            return super.send(record, callback);
+        }
+
+        @Override
+        public List<PartitionInfo> partitionsFor(String topic) {
+            List<PartitionInfo> infos = new ArrayList<>();
+            for (int i = 0; i < partitions; i++) {
+                infos.add(new PartitionInfo(topic, i, null, null, null));
+            }
+            return infos;
+        }
+
+        @Override
+        public void flush() {
+            flushed = true;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.dthvinh.libs.kafka.publisher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+
+class ProducerProfileTest {
+
+    @Test
+    void resolve_withoutConfiguration_usesDurableProfile() {
+        Properties props = ProducerProfile.resolve(Map.of());
+
+        assertEquals("all", props.get(ProducerConfig.ACKS_CONFIG));
+        assertEquals("true", props.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+        assertEquals(ProducerProfile.DURABLE.properties(), ProducerProfile.resolve(null));
+    }
+
+    @Test
+    void resolve_appliesOverridesOnTopOfProfile() {
+        Properties props = ProducerProfile.resolve(Map.of(
+                "profile", "Throughput",
+                "producer.linger.ms", 50,
+                "producer.compression.type", "zstd",
+                "service.pid", ProducerProfile.PID));
+
+        assertEquals("50", props.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals("zstd", props.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals("262144", props.get(ProducerConfig.BATCH_SIZE_CONFIG));
+        assertNull(props.get("service.pid"));
+    }
+
+    @Test
+    void resolve_unknownProfile_isRejected() {
+        assertNull(ProducerProfile.of("fastest"));
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.resolve(Map.of("profile", "fastest")));
+    }
+
+    @Test
+    void shards_defaultsToOne_andRejectsNonPositiveCounts() {
+        assertEquals(1, ProducerProfile.shards(Map.of()));
+        assertEquals(8, ProducerProfile.shards(Map.of("shards", " 8")));
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.shards(Map.of("shards", 0)));
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.shards(Map.of("shards", "many")));
+    }
+}
@@ -0,0 +1,100 @@
+package com.dthvinh.libs.kafka.publisher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.contracts.TopicRoutes;
+
+class SharedPublisherTest {
+
+    @Test
+    void warmUp_becomesReadyOnceMetadataIsAvailable() {
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.warmUp()).thenReturn(3);
+        SharedPublisher shared = new SharedPublisher(publisher);
+
+        assertTrue(shared.isConfigured());
+        assertFalse(shared.isReady());
+
+        shared.warmUp();
+
+        assertTrue(shared.isReady());
+        verify(publisher, times(1)).warmUp();
+    }
+
+    @Test
+    void warmUp_stopsRetryingWhenInterrupted() {
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.warmUp()).thenThrow(new TimeoutException("no broker"));
+        SharedPublisher shared = new SharedPublisher(publisher);
+
+        Thread.currentThread().interrupt();
+        shared.warmUp();
+        Thread.interrupted();
+
+        assertFalse(shared.isReady());
+    }
+
+    @Test
+    void stop_closesPublisher() {
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        SharedPublisher shared = new SharedPublisher(publisher);
+
+        shared.stop();
+
+        verify(publisher).close();
+        assertNull(shared.get());
+        assertFalse(shared.isConfigured());
+    }
+
+    @Test
+    void create_fallsBackToTheDefaultProfileWhenTheProducerRejectsAnOverride() {
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        List<Properties> attempts = new ArrayList<>();
+        SharedPublisher shared = new SharedPublisher() {
+            @Override
+            KafkaPublisher newPublisher(String bootstrapServers, TopicRoutes routes, Properties tuning, int shards) {
+                attempts.add(tuning);
+                if ("bogus".equals(tuning.getProperty(ProducerConfig.ACKS_CONFIG))) {
+                    throw new ConfigException(ProducerConfig.ACKS_CONFIG, "bogus", "Invalid value");
+                }
+                return publisher;
+            }
+        };
+
+        KafkaPublisher created = shared.create("localhost:9092",
+                Map.of(ProducerProfile.OVERRIDE_PREFIX + ProducerConfig.ACKS_CONFIG, "bogus"));
+
+        assertEquals(publisher, created);
+        assertEquals(2, attempts.size());
+        assertEquals(ProducerProfile.DEFAULT.properties(), attempts.get(1));
+    }
+
+    @Test
+    void create_returnsNullWhenEvenTheDefaultIsRejected() {
+        SharedPublisher shared = new SharedPublisher() {
+            @Override
+            KafkaPublisher newPublisher(String bootstrapServers, TopicRoutes routes, Properties tuning, int shards) {
+                throw new ConfigException("No resolvable bootstrap urls given in bootstrap.servers");
+            }
+        };
+
+        assertNull(shared.create("nowhere:9092", Map.of()));
+    }
+}
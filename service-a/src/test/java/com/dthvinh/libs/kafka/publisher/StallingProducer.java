@@ -0,0 +1,141 @@
+package com.dthvinh.libs.kafka.publisher;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.PersonEventSerializer;
+
+/**
+ * Producer with a bounded record buffer that behaves like {@code KafkaProducer} when the broker stops answering:
+ * records pile up until the buffer is full, then {@code send} blocks for up to {@code maxBlockMs} and fails. The
+ * buffer metrics are exposed under the same names as the real producer's.
+ */
+public class StallingProducer extends MockProducer<String, PersonEvent> {
+    private static final PersonEventSerializer VALUES = new PersonEventSerializer();
+
+    private final long capacity;
+    private final long maxBlockMs;
+    private final Deque<Pending> pending = new ArrayDeque<>();
+    private long used;
+    private long offset;
+    private boolean stalled;
+
+    public StallingProducer(long capacity, long maxBlockMs) {
+        super(false, null, new StringSerializer(), new PersonEventSerializer());
+        this.capacity = capacity;
+        this.maxBlockMs = maxBlockMs;
+    }
+
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<String, PersonEvent> record, Callback callback) {
+        long size = size(record);
+        CompletableFuture<RecordMetadata> future = new CompletableFuture<>();
+        boolean deliver;
+        synchronized (this) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBlockMs);
+            try {
+                while (used + size > capacity) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) {
+                        TimeoutException timeout = new TimeoutException("Buffer full for " + maxBlockMs + " ms");
+                        callback.onCompletion(null, timeout);
+                        return CompletableFuture.failedFuture(timeout);
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, left);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+
+            used += size;
+            pending.add(new Pending(record.topic(), size, callback, future));
+            deliver = !stalled;
+        }
+        if (deliver) {
+            drain();
+        }
+        return future;
+    }
+
+    public synchronized void stall() {
+        stalled = true;
+    }
+
+    public void resume() {
+        synchronized (this) {
+            stalled = false;
+        }
+        drain();
+    }
+
+    private void drain() {
+        while (true) {
+            Pending next;
+            RecordMetadata metadata;
+            synchronized (this) {
+                next = pending.poll();
+                if (next == null) {
+                    return;
+                }
+                used -= next.size;
+                metadata = new RecordMetadata(new TopicPartition(next.topic, 0), offset++, 0, 0L, 0, 0);
+                notifyAll();
+            }
+            next.callback.onCompletion(metadata, null);
+            next.future.complete(metadata);
+        }
+    }
+
+    public synchronized long bufferUsed() {
+        return used;
+    }
+
+    @Override
+    public Map<MetricName, Metric> metrics() {
+        return Map.of(
+                metricName("buffer-available-bytes"), gauge("buffer-available-bytes", () -> capacity - bufferUsed()),
+                metricName("buffer-total-bytes"), gauge("buffer-total-bytes", () -> capacity));
+    }
+
+    private static long size(ProducerRecord<String, PersonEvent> record) {
+        return (record.key() == null ? 0 : record.key().length())
+                + (record.value() == null ? 0 : VALUES.serialize(record.topic(), record.value()).length);
+    }
+
+    private static MetricName metricName(String name) {
+        return new MetricName(name, "producer-metrics", "", Map.of());
+    }
+
+    private static Metric gauge(String name, java.util.function.LongSupplier value) {
+        return new Metric() {
+            @Override
+            public MetricName metricName() {
+                return StallingProducer.metricName(name);
+            }
+
+            @Override
+            public Object metricValue() {
+                return (double) value.getAsLong();
+            }
+        };
+    }
+
+    private record Pending(String topic, long size, Callback callback, CompletableFuture<RecordMetadata> future) {
+    }
+}
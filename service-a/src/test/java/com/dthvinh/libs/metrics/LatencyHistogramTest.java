@@ -0,0 +1,58 @@
+package com.dthvinh.libs.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void buckets_coverEveryValueWithinThreePercent() {
+        for (long micros = 0; micros < 5_000_000; micros += 1 + micros / 50) {
+            int index = LatencyHistogram.index(micros);
+            long highest = LatencyHistogram.highestMicros(index);
+            assertTrue(highest >= micros, "value " + micros + " above its bucket " + highest);
+            assertTrue(index == 0 || LatencyHistogram.highestMicros(index - 1) < micros,
+                    "value " + micros + " also fits the previous bucket");
+            assertTrue(highest - micros <= Math.max(1, micros / LatencyHistogram.SUB_BUCKETS),
+                    "bucket too wide for " + micros);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.index(LatencyHistogram.MAX_MICROS));
+    }
+
+    @Test
+    void quantiles_matchRecordedDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 100; ms++) {
+            histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.count());
+        assertEquals(5_050_000, snapshot.sumMicros());
+        assertWithin(50_000, snapshot.valueAtQuantile(0.5));
+        assertWithin(99_000, snapshot.valueAtQuantile(0.99));
+        assertEquals(9, snapshot.countAtOrBelow(10_000), "bucket straddling 10ms is left out");
+        assertEquals(10, snapshot.countAtOrBelow(10_500));
+    }
+
+    @Test
+    void outOfRangeValues_areClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(-5);
+        histogram.recordNanos(Long.MAX_VALUE);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.count());
+        assertEquals(0, snapshot.valueAtQuantile(0.5));
+        assertEquals(LatencyHistogram.MAX_MICROS, snapshot.valueAtQuantile(1.0));
+    }
+
+    private static void assertWithin(long expectedMicros, long actualMicros) {
+        assertTrue(Math.abs(actualMicros - expectedMicros) <= expectedMicros / LatencyHistogram.SUB_BUCKETS,
+                "expected ~" + expectedMicros + " but was " + actualMicros);
+    }
+}
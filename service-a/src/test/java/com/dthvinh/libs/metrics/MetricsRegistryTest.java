@@ -0,0 +1,66 @@
+package com.dthvinh.libs.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class MetricsRegistryTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    void recorder_isSharedPerRouteAndMethod() {
+        assertSame(registry.recorder("/api/person", "POST"), registry.recorder("/api/person", "POST"));
+        assertSame(registry.recorder("/api/person", "PATCH"), registry.recorder("/api/person", "TRACE"));
+    }
+
+    @Test
+    void writeTo_rendersCountersAndCumulativeBuckets() {
+        MetricsRegistry.Recorder post = registry.recorder("/api/person", "POST");
+        post.record(201, TimeUnit.MICROSECONDS.toNanos(800));
+        post.record(201, TimeUnit.MILLISECONDS.toNanos(30));
+        post.record(503, TimeUnit.MICROSECONDS.toNanos(50));
+        registry.recorder("/api/health", "GET");
+
+        String text = render();
+
+        assertTrue(text.contains("# TYPE http_server_requests_total counter\n"));
+        assertTrue(text.contains(
+                "http_server_requests_total{method=\"POST\",route=\"/api/person\",status=\"201\"} 2\n"), text);
+        assertTrue(text.contains(
+                "http_server_requests_total{method=\"POST\",route=\"/api/person\",status=\"503\"} 1\n"), text);
+        assertTrue(text.contains(
+                "http_server_request_duration_seconds_bucket{method=\"POST\",route=\"/api/person\",le=\"1.0E-4\"} 1\n"),
+                text);
+        assertTrue(text.contains(
+                "http_server_request_duration_seconds_bucket{method=\"POST\",route=\"/api/person\",le=\"0.001\"} 2\n"),
+                text);
+        assertTrue(text.contains(
+                "http_server_request_duration_seconds_bucket{method=\"POST\",route=\"/api/person\",le=\"+Inf\"} 3\n"),
+                text);
+        assertTrue(text.contains(
+                "http_server_request_duration_seconds_count{method=\"POST\",route=\"/api/person\"} 3\n"), text);
+        assertFalse(text.contains("route=\"/api/health\""), "idle routes should not be exported");
+    }
+
+    @Test
+    void collectors_areAppendedUntilUnregistered() {
+        MetricsRegistry.Collector collector = out -> out.family("custom_gauge", "gauge", "A test gauge.")
+                .sample("custom_gauge", 1.5, "label", "a\"b");
+        registry.register(collector);
+        assertTrue(render().contains("custom_gauge{label=\"a\\\"b\"} 1.5\n"));
+
+        registry.unregister(collector);
+        assertFalse(render().contains("custom_gauge"));
+    }
+
+    private String render() {
+        StringBuilder out = new StringBuilder();
+        registry.writeTo(out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package com.dthvinh.libs.outbox;
+
+import static com.dthvinh.libs.outbox.OutboxTest.appendAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.dthvinh.contracts.PersonEvent;
+
+class OutboxRelayTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void relay_deliversInOrderAndCheckpoints() throws Exception {
+        try (Outbox outbox = Outbox.open(dir, 4_096, 1)) {
+            List<PersonEvent> appended = appendAll(outbox, 0, 1_000);
+            List<PersonEvent> sent = new CopyOnWriteArrayList<>();
+            OutboxRelay relay = new OutboxRelay(outbox, event -> {
+                sent.add(event);
+                return CompletableFuture.completedFuture(null);
+            }, 64, 10);
+
+            Thread thread = start(relay);
+            awaitDrained(outbox);
+            relay.stop();
+            thread.join(5_000);
+
+            assertEquals(appended, sent);
+            assertEquals(1_000, relay.relayed());
+            assertEquals(0, outbox.backlogBytes());
+        }
+    }
+
+    @Test
+    void failedSend_isRetriedFromTheFirstUnacknowledgedEvent() throws Exception {
+        try (Outbox outbox = Outbox.open(dir, 4_096, 1)) {
+            List<PersonEvent> appended = appendAll(outbox, 0, 50);
+            List<PersonEvent> delivered = new CopyOnWriteArrayList<>();
+            AtomicInteger calls = new AtomicInteger();
+            OutboxRelay relay = new OutboxRelay(outbox, event -> {
+                if (calls.incrementAndGet() == 10) {
+                    return CompletableFuture.failedFuture(new IllegalStateException("broker down"));
+                }
+                delivered.add(event);
+                return CompletableFuture.completedFuture(null);
+            }, 4, 10);
+
+            Thread thread = start(relay);
+            awaitDrained(outbox);
+            relay.stop();
+            thread.join(5_000);
+
+            assertEquals(1, relay.failures());
+            assertTrue(delivered.containsAll(appended));
+            // The failed event and everything sent after it go out again, in their original order.
+            assertEquals(appended.subList(9, 50), delivered.subList(delivered.size() - 41, delivered.size()));
+        }
+    }
+
+    @Test
+    void relayKilledMidDrain_losesNothing() throws Exception {
+        List<PersonEvent> appended;
+        Set<PersonEvent> acknowledged = ConcurrentHashMap.newKeySet();
+        ExecutorService broker = Executors.newFixedThreadPool(4);
+        try (Outbox outbox = Outbox.open(dir, 4_096, 1)) {
+            appended = appendAll(outbox, 0, 5_000);
+            AtomicInteger calls = new AtomicInteger();
+            Function<PersonEvent, CompletableFuture<?>> sink = event -> {
+                // Dies like a crashed process: no clean stop, no last checkpoint, sends still in flight.
+                if (calls.incrementAndGet() > 1_000 && outbox.checkpoint() > 0) {
+                    throw new Killed();
+                }
+                return CompletableFuture.runAsync(() -> {
+                    sleepMicros(ThreadLocalRandom.current().nextInt(1_000));
+                    acknowledged.add(event);
+                }, broker);
+            };
+
+            Thread thread = new Thread(new OutboxRelay(outbox, sink, 256, 10), "Outbox-Relay-Test");
+            thread.setUncaughtExceptionHandler((t, ex) -> {
+            });
+            thread.start();
+            thread.join(30_000);
+        } finally {
+            broker.shutdown();
+            broker.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        try (Outbox outbox = Outbox.open(dir, 4_096, 1)) {
+            List<PersonEvent> resent = new CopyOnWriteArrayList<>();
+            OutboxRelay relay = new OutboxRelay(outbox, event -> {
+                resent.add(event);
+                return CompletableFuture.completedFuture(null);
+            }, 256, 10);
+            Thread thread = start(relay);
+            awaitDrained(outbox);
+            relay.stop();
+            thread.join(5_000);
+
+            int restart = appended.indexOf(resent.get(0));
+            assertTrue(restart > 0 && restart < appended.size());
+            assertTrue(acknowledged.containsAll(appended.subList(0, restart)));
+            assertEquals(appended.subList(restart, appended.size()), resent);
+        }
+    }
+
+    private static Thread start(OutboxRelay relay) {
+        Thread thread = new Thread(relay, "Outbox-Relay-Test");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitDrained(Outbox outbox) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (outbox.checkpoint() < outbox.durable()) {
+            assertTrue(System.nanoTime() < deadline, "relay did not drain the outbox");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void sleepMicros(long micros) {
+        try {
+            TimeUnit.MICROSECONDS.sleep(micros);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Killed extends Error {
+    }
+}
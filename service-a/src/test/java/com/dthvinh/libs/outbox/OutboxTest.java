@@ -0,0 +1,147 @@
+package com.dthvinh.libs.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.dthvinh.contracts.CreatePerson;
+import com.dthvinh.contracts.PersonEvent;
+
+class OutboxTest {
+
+    @TempDir
+    Path dir;
+
+    static PersonEvent event(int i) {
+        return new CreatePerson(new UUID(0, i), "person-" + i, i % 100);
+    }
+
+    static List<PersonEvent> readAll(Outbox outbox, long from) {
+        List<PersonEvent> events = new ArrayList<>();
+        Outbox.Reader reader = outbox.reader(from);
+        for (Outbox.Entry entry = reader.next(); entry != null; entry = reader.next()) {
+            events.add(entry.event());
+        }
+        return events;
+    }
+
+    static List<PersonEvent> appendAll(Outbox outbox, int from, int to) {
+        List<PersonEvent> events = new ArrayList<>();
+        List<CompletableFuture<Long>> acks = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            events.add(event(i));
+            acks.add(outbox.append(event(i)));
+        }
+        acks.forEach(CompletableFuture::join);
+        return events;
+    }
+
+    @Test
+    void appends_areAcknowledgedOnceSynced_andReadBackInOrder() throws Exception {
+        try (Outbox outbox = Outbox.open(dir, 4_096, 1)) {
+            List<PersonEvent> appended = appendAll(outbox, 0, 200);
+
+            assertEquals(appended, readAll(outbox, outbox.checkpoint()));
+            assertEquals(outbox.durable(), outbox.backlogBytes());
+        }
+    }
+
+    @Test
+    void reopen_resumesAfterCheckpoint() throws Exception {
+        List<PersonEvent> appended;
+        try (Outbox outbox = Outbox.open(dir, 4_096, 0)) {
+            appended = appendAll(outbox, 0, 10);
+            Outbox.Reader reader = outbox.reader(outbox.checkpoint());
+            for (int i = 0; i < 4; i++) {
+                reader.next();
+            }
+            outbox.checkpoint(reader.position());
+        }
+
+        try (Outbox outbox = Outbox.open(dir, 4_096, 0)) {
+            assertEquals(appended.subList(4, 10), readAll(outbox, outbox.checkpoint()));
+
+            appended.addAll(appendAll(outbox, 10, 12));
+            assertEquals(appended.subList(4, 12), readAll(outbox, outbox.checkpoint()));
+        }
+    }
+
+    @Test
+    void reopen_dropsRecordTornByCrash() throws Exception {
+        List<PersonEvent> appended;
+        long lastPosition;
+        try (Outbox outbox = Outbox.open(dir, 4_096, 0)) {
+            appended = appendAll(outbox, 0, 5);
+            Outbox.Reader reader = outbox.reader(0);
+            Outbox.Entry last = null;
+            for (Outbox.Entry entry = reader.next(); entry != null; entry = reader.next()) {
+                last = entry;
+            }
+            lastPosition = last.position();
+        }
+
+        try (FileChannel segment = FileChannel.open(segmentFile(0), StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.wrap(new byte[]{0x7F}), lastPosition + Outbox.HEADER_BYTES + 3);
+        }
+
+        try (Outbox outbox = Outbox.open(dir, 4_096, 0)) {
+            assertEquals(lastPosition, outbox.durable());
+            assertEquals(appended.subList(0, 4), readAll(outbox, 0));
+
+            List<PersonEvent> expected = new ArrayList<>(appended.subList(0, 4));
+            expected.addAll(appendAll(outbox, 5, 7));
+            assertEquals(expected, readAll(outbox, 0));
+        }
+    }
+
+    @Test
+    void segments_rollAndDrainedOnesAreRecycled() throws Exception {
+        int segmentBytes = 256;
+        List<PersonEvent> appended;
+        try (Outbox outbox = Outbox.open(dir, segmentBytes, 0)) {
+            appendAll(outbox, 0, 100);
+            assertTrue(countSegments(false) > 10);
+
+            outbox.checkpoint(outbox.durable());
+            assertTrue(countSegments(false) <= 1);
+            assertEquals(Outbox.MAX_FREE_SEGMENTS, countSegments(true));
+            assertNull(outbox.reader(outbox.checkpoint()).next());
+
+            // New segments reuse the recycled files, whose old records must not be read back.
+            appended = appendAll(outbox, 100, 120);
+            assertEquals(0, countSegments(true));
+            assertEquals(appended, readAll(outbox, outbox.checkpoint()));
+        }
+
+        try (Outbox outbox = Outbox.open(dir, segmentBytes, 0)) {
+            assertEquals(appended, readAll(outbox, outbox.checkpoint()));
+        }
+    }
+
+    private Path segmentFile(long index) {
+        return dir.resolve(String.format("%020d.seg", index));
+    }
+
+    private long countSegments(boolean free) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(".seg") && name.startsWith("free-") == free)
+                    .count();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.dthvinh.libs.readmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.contracts.CreatePerson;
+import com.dthvinh.contracts.DeletePerson;
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.Topics;
+import com.dthvinh.contracts.UpdatePerson;
+import com.dthvinh.models.Person;
+
+class PersonProjectionTest {
+
+    private final PersonStore store = new PersonStore();
+    private final PersonProjection projection = new PersonProjection(store, null);
+
+    @Test
+    void createUpdateDelete_areAppliedToStore() {
+        UUID id = UUID.randomUUID();
+        projection.apply(record(0, new CreatePerson(id, "Alice", 30)));
+        assertEquals(new Person(id, "Alice", 30), store.get(id).orElseThrow());
+
+        projection.apply(record(1, new UpdatePerson(id, "Alice B.", 31)));
+        assertEquals(new Person(id, "Alice B.", 31), store.get(id).orElseThrow());
+
+        projection.apply(record(2, new DeletePerson(id)));
+        assertTrue(store.get(id).isEmpty());
+    }
+
+    @Test
+    void legacyCreate_getsIdFromRecordPosition() {
+        ConsumerRecord<String, PersonEvent> create = record(7, new CreatePerson(null, "Bob", 40));
+        projection.apply(create);
+
+        UUID id = PersonProjection.idOf(create);
+        assertEquals(new Person(id, "Bob", 40), store.get(id).orElseThrow());
+    }
+
+    @Test
+    void legacyCreateIds_areStableAcrossReplays() {
+        assertEquals(PersonProjection.idOf(record(7, new CreatePerson(null, "Bob", 40))),
+                PersonProjection.idOf(record(7, new CreatePerson(null, "Bob", 40))));
+        assertNotEquals(PersonProjection.idOf(record(7, new CreatePerson(null, "Bob", 40))),
+                PersonProjection.idOf(record(8, new CreatePerson(null, "Bob", 40))));
+    }
+
+    @Test
+    void unreadableRecords_areSkipped() {
+        projection.apply(record(0, null));
+        projection.apply(record(1, new UpdatePerson(null, "no id", 1)));
+
+        assertEquals(0, store.size());
+    }
+
+    // Values arrive decoded by PersonEventDeserializer, which yields null for records it cannot read.
+    private static ConsumerRecord<String, PersonEvent> record(long offset, PersonEvent event) {
+        String key = event == null || event.id() == null ? null : event.id().toString();
+        return new ConsumerRecord<>(Topics.PERSONS, 0, offset, key, event);
+    }
+}
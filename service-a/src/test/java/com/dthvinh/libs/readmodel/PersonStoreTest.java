@@ -0,0 +1,136 @@
+package com.dthvinh.libs.readmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.models.Person;
+
+class PersonStoreTest {
+
+    private PersonStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new PersonStore();
+        String[] names = {"alice", "Alan", "bob", "Albert", "carol", "ALBA", "dave", "alfred"};
+        for (int i = 0; i < names.length; i++) {
+            store.put(new Person(new UUID(0, i), names[i], 20 + i));
+        }
+    }
+
+    @Test
+    void put_replacesRowInEveryIndex() {
+        UUID id = new UUID(0, 2);
+        store.put(new Person(id, "Bobby", 99));
+
+        assertEquals(8, store.size());
+        assertEquals("Bobby", store.get(id).orElseThrow().name());
+        assertEquals(List.of("Bobby"), names(store.query(query("bob", null, null, PersonQuery.Sort.NAME, false, 10, null))));
+        assertEquals(0, store.query(query(null, 22, 22, PersonQuery.Sort.AGE, false, 10, null)).items().size());
+    }
+
+    @Test
+    void remove_dropsRowFromEveryIndex() {
+        assertTrue(store.remove(new UUID(0, 0)));
+        assertFalse(store.remove(new UUID(0, 0)));
+
+        assertTrue(store.get(new UUID(0, 0)).isEmpty());
+        assertEquals(List.of("alfred", "ALBA", "Albert", "Alan"),
+                names(store.query(query("al", null, null, PersonQuery.Sort.AGE, true, 10, null))));
+    }
+
+    @Test
+    void namePrefix_isCaseInsensitiveAndSortedByName() {
+        PersonPage page = store.query(query("AL", null, null, PersonQuery.Sort.NAME, false, 10, null));
+
+        assertEquals(List.of("ALBA", "Albert", "alfred", "alice", "Alan").stream().sorted(String.CASE_INSENSITIVE_ORDER).toList(),
+                names(page));
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void ageRange_withNameFilter_usesBothFilters() {
+        PersonPage page = store.query(query("a", 21, 25, PersonQuery.Sort.ID, false, 10, null));
+
+        assertEquals(List.of("Alan", "Albert", "ALBA"), names(page));
+    }
+
+    @Test
+    void cursor_walksEveryRowExactlyOnce() {
+        for (PersonQuery.Sort sort : PersonQuery.Sort.values()) {
+            for (boolean descending : new boolean[]{false, true}) {
+                List<String> seen = new ArrayList<>();
+                String cursor = null;
+                do {
+                    PersonPage page = store.query(query(null, null, null, sort, descending, 3, cursor));
+                    seen.addAll(names(page));
+                    cursor = page.nextCursor();
+                } while (cursor != null);
+
+                assertEquals(8, seen.size(), sort + " desc=" + descending);
+                assertEquals(8, seen.stream().distinct().count(), sort + " desc=" + descending);
+            }
+        }
+    }
+
+    @Test
+    void cursor_onFilteredSecondaryIndex_continuesInSortOrder() {
+        PersonPage first = store.query(query("al", null, null, PersonQuery.Sort.AGE, false, 2, null));
+        PersonPage second = store.query(query("al", null, null, PersonQuery.Sort.AGE, false, 2, first.nextCursor()));
+        PersonPage third = store.query(query("al", null, null, PersonQuery.Sort.AGE, false, 2, second.nextCursor()));
+
+        assertEquals(List.of("alice", "Alan"), names(first));
+        assertEquals(List.of("Albert", "ALBA"), names(second));
+        assertEquals(List.of("alfred"), names(third));
+        assertNull(third.nextCursor());
+    }
+
+    @Test
+    void cursor_fromAnotherSort_isRejected() {
+        String cursor = store.query(query(null, null, null, PersonQuery.Sort.NAME, false, 1, null)).nextCursor();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> store.query(query(null, null, null, PersonQuery.Sort.AGE, false, 1, cursor)));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.query(query(null, null, null, PersonQuery.Sort.AGE, false, 1, "not a cursor")));
+    }
+
+    @Test
+    void parse_readsRequestParameters() {
+        PersonQuery q = PersonQuery.parse(name -> switch (name) {
+            case "name" -> "al";
+            case "minAge" -> "18";
+            case "sort" -> "age";
+            case "order" -> "desc";
+            case "limit" -> "10000";
+            default -> null;
+        });
+
+        assertEquals("al", q.namePrefix());
+        assertEquals(Integer.valueOf(18), q.minAge());
+        assertNull(q.maxAge());
+        assertEquals(PersonQuery.Sort.AGE, q.sort());
+        assertTrue(q.descending());
+        assertEquals(PersonQuery.MAX_LIMIT, q.limit());
+        assertThrows(IllegalArgumentException.class, () -> PersonQuery.parse(name -> "x"));
+    }
+
+    private static PersonQuery query(String prefix, Integer minAge, Integer maxAge, PersonQuery.Sort sort,
+                                     boolean descending, int limit, String cursor) {
+        return new PersonQuery(prefix, minAge, maxAge, sort, descending, limit, cursor);
+    }
+
+    private static List<String> names(PersonPage page) {
+        return page.items().stream().map(Person::name).toList();
+    }
+}
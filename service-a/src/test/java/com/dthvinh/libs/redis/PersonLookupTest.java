@@ -0,0 +1,83 @@
+package com.dthvinh.libs.redis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.contracts.filter.CuckooFilter;
+import com.dthvinh.libs.cache.ReadThroughCache;
+import com.dthvinh.libs.common.IdGenerator;
+import com.dthvinh.models.Person;
+
+class PersonLookupTest {
+
+    private static final long SNAPSHOT_AT = 1_700_000_000_000L;
+    private static final long TRUST_LAG_MS = 60_000;
+
+    private final AtomicInteger redisCalls = new AtomicInteger();
+    private final ReadThroughCache<UUID, Person> cache = new ReadThroughCache<>(id -> {
+        redisCalls.incrementAndGet();
+        return new Person(id, "Erin", 40);
+    }, 1_000, 1_000, 100, Runnable::run, System::nanoTime);
+
+    @Test
+    void idsAbsentFromFilter_skipRedis() throws Exception {
+        PersonLookup lookup = new PersonLookup(cache, snapshot(), TRUST_LAG_MS);
+
+        assertTrue(lookup.get(idMintedAt(SNAPSHOT_AT - 2 * TRUST_LAG_MS)).isEmpty());
+        assertTrue(lookup.get(UUID.randomUUID()).isEmpty());
+
+        assertEquals(0, redisCalls.get());
+    }
+
+    @Test
+    void idsInFilter_areReadFromRedis() throws Exception {
+        UUID known = idMintedAt(SNAPSHOT_AT - 2 * TRUST_LAG_MS);
+        PersonLookup lookup = new PersonLookup(cache, snapshot(known), TRUST_LAG_MS);
+
+        assertEquals("Erin", lookup.get(known).orElseThrow().name());
+        assertEquals(1, redisCalls.get());
+    }
+
+    @Test
+    void idsNewerThanTheSnapshotCanVouchFor_areReadFromRedis() throws Exception {
+        PersonLookup lookup = new PersonLookup(cache, snapshot(), TRUST_LAG_MS);
+
+        assertTrue(lookup.get(idMintedAt(SNAPSHOT_AT - TRUST_LAG_MS / 2)).isPresent());
+        assertEquals(1, redisCalls.get());
+    }
+
+    @Test
+    void withoutFilter_everyIdIsReadFromRedis() throws Exception {
+        PersonLookup lookup = new PersonLookup(cache, null, TRUST_LAG_MS);
+
+        assertTrue(lookup.get(UUID.randomUUID()).isPresent());
+        assertEquals(1, redisCalls.get());
+    }
+
+    @Test
+    void parse_takesIdFromKey_andSkipsUnreadableEntries() {
+        PersonLookup lookup = new PersonLookup(cache, null, TRUST_LAG_MS);
+        UUID id = UUID.randomUUID();
+
+        assertEquals(new Person(id, "Finn", 33), lookup.parse(id, "{\"name\":\"Finn\",\"age\":33}"));
+        assertNull(lookup.parse(id, "not json"));
+    }
+
+    private static CuckooFilter.Snapshot snapshot(UUID... ids) {
+        CuckooFilter filter = CuckooFilter.withCapacity(1_000);
+        for (UUID id : ids) {
+            filter.add(id);
+        }
+        return CuckooFilter.fromBytes(filter.toBytes(SNAPSHOT_AT));
+    }
+
+    private static UUID idMintedAt(long millis) {
+        return new IdGenerator(1, () -> millis).next();
+    }
+}
@@ -0,0 +1,55 @@
+package com.dthvinh.libs.servlet;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+class AccessLogTest {
+
+    private static final long FAST_NS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    @Test
+    void info_logsErrorsAndSlowRequestsAlways() {
+        AccessLog accessLog = new AccessLog(logger(false, true), 0, 500);
+
+        assertFalse(accessLog.shouldLog(201, FAST_NS));
+        assertFalse(accessLog.shouldLog(404, FAST_NS));
+        assertTrue(accessLog.shouldLog(503, FAST_NS));
+        assertTrue(accessLog.shouldLog(201, TimeUnit.MILLISECONDS.toNanos(500)));
+    }
+
+    @Test
+    void info_samplesRoughlyOneInN() {
+        AccessLog accessLog = new AccessLog(logger(false, true), 100, 500);
+
+        int logged = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (accessLog.shouldLog(200, FAST_NS)) {
+                logged++;
+            }
+        }
+
+        assertTrue(logged > 700 && logged < 1_300, "logged " + logged);
+    }
+
+    @Test
+    void debug_logsEverything_andWarnLogsNothing() {
+        assertTrue(new AccessLog(logger(true, true), 0, 500).shouldLog(200, FAST_NS));
+        assertFalse(new AccessLog(logger(false, false), 1, 500).shouldLog(503, FAST_NS));
+        assertTrue(new AccessLog(logger(false, true), 1, 500).shouldLog(200, FAST_NS));
+    }
+
+    private static Logger logger(boolean debug, boolean info) {
+        return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[]{Logger.class},
+                (proxy, m, args) -> switch (m.getName()) {
+                    case "isDebugEnabled" -> debug;
+                    case "isInfoEnabled" -> info;
+                    default -> m.getReturnType() == boolean.class ? false : null;
+                });
+    }
+}
@@ -0,0 +1,42 @@
+package com.dthvinh.libs.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+/**
+ * Response stream for tests; {@link #toString()} returns what was written, decoded as UTF-8.
+ */
+public class CapturingOutputStream extends ServletOutputStream {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    @Override
+    public void write(int b) {
+        bytes.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        bytes.write(b, off, len);
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener listener) {
+    }
+
+    public int size() {
+        return bytes.size();
+    }
+
+    @Override
+    public String toString() {
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
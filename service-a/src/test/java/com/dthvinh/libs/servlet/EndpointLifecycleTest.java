@@ -4,51 +4,50 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import javax.servlet.http.HttpServletResponse;
 
 import org.junit.jupiter.api.Test;
 
 import com.dthvinh.libs.kafka.publisher.KafkaPublisher;
+import com.dthvinh.libs.kafka.publisher.SharedPublisher;
 
 class EndpointLifecycleTest {
 
     static class TestEndpoint extends Endpoint {
         @Override
-        protected void handleGet() {
+        protected void handleGet(RequestContext ctx) {
             // no-op
         }
     }
 
     @Test
-    void getOrCreatePublisher_returnsExistingInstance() {
-        TestEndpoint endpoint = new TestEndpoint();
+    void getPublisher_isSharedAcrossEndpoints() {
         KafkaPublisher publisher = mock(KafkaPublisher.class);
-        endpoint.publisher = publisher;
+        SharedPublisher shared = mock(SharedPublisher.class);
+        when(shared.get()).thenReturn(publisher);
 
-        assertSame(publisher, endpoint.getOrCreatePublisher());
-        assertSame(publisher, endpoint.getOrCreatePublisher());
+        TestEndpoint first = new TestEndpoint();
+        TestEndpoint second = new TestEndpoint();
+        first.sharedPublisher = shared;
+        second.sharedPublisher = shared;
+
+        assertSame(publisher, first.getPublisher());
+        assertSame(publisher, second.getPublisher());
     }
 
     @Test
-    void deactivate_closesPublisher_andNullsField() {
-        TestEndpoint endpoint = new TestEndpoint();
-        KafkaPublisher publisher = mock(KafkaPublisher.class);
-        endpoint.publisher = publisher;
-
-        endpoint.deactivate();
-
-        assertNull(endpoint.publisher);
-        verify(publisher).close();
+    void getPublisher_withoutSharedPublisher_isNull() {
+        assertNull(new TestEndpoint().getPublisher());
     }
 
     @Test
     void sendMethodNotAllowed_sets405() {
-        TestEndpoint endpoint = new TestEndpoint();
         HttpServletResponse resp = mock(HttpServletResponse.class);
-        endpoint.resp = resp;
+        RequestContext ctx = new RequestContext(null, resp, JsonCodec.DEFAULT);
 
-        endpoint.sendMethodNotAllowed();
+        ctx.sendMethodNotAllowed();
 
         verify(resp).setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
     }
@@ -0,0 +1,171 @@
+package com.dthvinh.libs.servlet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class IdempotencyCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void duplicate_getsOwnersResponse() {
+        IdempotencyCache cache = cache(10, 1 << 20, 1000);
+
+        IdempotencyCache.Entry owner = cache.claim("k");
+        IdempotencyCache.Entry waiting = cache.claim("k");
+        assertTrue(owner.owner);
+        assertFalse(waiting.owner);
+        assertFalse(waiting.response.isDone());
+
+        IdempotencyCache.StoredResponse stored = response(201, "{\"status\":\"created\"}");
+        cache.complete(owner, stored, true);
+
+        assertSame(stored, waiting.response.join());
+        assertSame(stored, cache.claim("k").response.join());
+        IdempotencyCache.Stats stats = cache.stats();
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.waits());
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.entries());
+        assertTrue(stats.bytes() > 0);
+    }
+
+    @Test
+    void entries_expireAfterTtl() {
+        IdempotencyCache cache = cache(10, 1 << 20, 1000);
+        cache.complete(cache.claim("k"), response(201, "{}"), true);
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        assertTrue(cache.claim("k").owner);
+        assertEquals(1, cache.stats().expired());
+    }
+
+    @Test
+    void entryCap_evictsOldestFirst() {
+        IdempotencyCache cache = cache(2, 1 << 20, 60_000);
+        for (String key : new String[]{"a", "b", "c"}) {
+            cache.complete(cache.claim(key), response(200, "{}"), true);
+        }
+
+        assertEquals(2, cache.stats().entries());
+        assertEquals(1, cache.stats().evicted());
+        assertTrue(cache.claim("a").owner);
+        assertFalse(cache.claim("c").owner);
+    }
+
+    @Test
+    void failingRetries_keepTheClaimQueueWithinTheEntryCap() {
+        IdempotencyCache cache = cache(100, 1 << 20, 60_000);
+        for (int i = 0; i < 10_000; i++) {
+            IdempotencyCache.Entry owner = cache.claim("k" + i);
+            if (i % 2 == 0) {
+                cache.fail(owner, new IllegalStateException("broker down"));
+            } else {
+                cache.complete(owner, response(503, "{}"), false);
+            }
+        }
+
+        assertEquals(0, cache.stats().entries());
+        assertTrue(cache.queued() <= 100, "claim queue grew to " + cache.queued());
+    }
+
+    @Test
+    void byteCap_evictsUntilUnderLimit() {
+        int bodyBytes = 4096;
+        IdempotencyCache cache = cache(1000, 16L * bodyBytes, 60_000);
+        for (int i = 0; i < 32; i++) {
+            cache.complete(cache.claim("k" + i), response(200, "x".repeat(bodyBytes - 1024)), true);
+        }
+
+        IdempotencyCache.Stats stats = cache.stats();
+        assertTrue(stats.bytes() <= 16L * bodyBytes, "bytes=" + stats.bytes());
+        assertEquals(32, stats.entries() + stats.evicted());
+    }
+
+    @Test
+    void uncacheableResponse_isHandedToWaitersButForgotten() {
+        IdempotencyCache cache = cache(10, 1 << 20, 1000);
+        IdempotencyCache.Entry owner = cache.claim("k");
+        IdempotencyCache.Entry waiting = cache.claim("k");
+
+        cache.complete(owner, response(503, "{\"reason\":\"Kafka send failed\"}"), false);
+
+        assertEquals(503, waiting.response.join().status());
+        assertTrue(cache.claim("k").owner);
+        assertEquals(1, cache.stats().uncached());
+    }
+
+    @Test
+    void failedOwner_releasesKey() {
+        IdempotencyCache cache = cache(10, 1 << 20, 1000);
+        IdempotencyCache.Entry owner = cache.claim("k");
+        IdempotencyCache.Entry waiting = cache.claim("k");
+
+        cache.fail(owner, new IllegalStateException("boom"));
+
+        assertTrue(waiting.response.isCompletedExceptionally());
+        assertTrue(cache.claim("k").owner);
+    }
+
+    @Test
+    void concurrentClaims_haveExactlyOneOwner() throws Exception {
+        IdempotencyCache cache = cache(10_000, 1 << 24, 60_000);
+        int threads = 16;
+        int keys = 2_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                int owned = 0;
+                for (int k = 0; k < keys; k++) {
+                    IdempotencyCache.Entry entry = cache.claim("key-" + k);
+                    if (entry.owner) {
+                        owned++;
+                        cache.complete(entry, response(201, "{}"), true);
+                    } else {
+                        entry.response.get(10, TimeUnit.SECONDS);
+                    }
+                }
+                return owned;
+            }));
+        }
+
+        start.countDown();
+        int owners = 0;
+        for (Future<Integer> result : results) {
+            owners += result.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertEquals(keys, owners);
+        assertEquals(keys, cache.stats().misses());
+    }
+
+    private IdempotencyCache cache(int maxEntries, long maxBytes, long ttlMs) {
+        return new IdempotencyCache(maxEntries, maxBytes, ttlMs, now::get);
+    }
+
+    private static IdempotencyCache.StoredResponse response(int status, String body) {
+        return new IdempotencyCache.StoredResponse(status, JsonCodec.CONTENT_TYPE, Map.of(),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
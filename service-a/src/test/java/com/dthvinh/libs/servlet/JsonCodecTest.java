@@ -0,0 +1,95 @@
+package com.dthvinh.libs.servlet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.dto.CreatePersonDto;
+import com.dthvinh.dto.UpdatePersonDto;
+import com.dthvinh.models.Person;
+import com.google.gson.Gson;
+
+class JsonCodecTest {
+
+    private final JsonCodec codec = JsonCodec.DEFAULT;
+
+    @Test
+    void read_parsesMultiLineBodyFromReader() throws Exception {
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        when(req.getReader()).thenReturn(new BufferedReader(new StringReader("{\n\"name\":\"A\nB\",\n\"age\":7\n}")));
+
+        CreatePersonDto dto = codec.read(req, CreatePersonDto.class);
+
+        assertEquals("A\nB", dto.name());
+        assertEquals(7, dto.age());
+    }
+
+    @Test
+    void gson_readsPersonShapesThroughAdapters() {
+        Gson gson = codec.gson();
+        UUID id = UUID.randomUUID();
+        String body = "{\"id\":\"" + id + "\",\"name\":\"Alice\",\"age\":31,\"team\":{\"id\":1}}";
+
+        assertEquals(new CreatePersonDto("Alice", 31), gson.fromJson(body, CreatePersonDto.class));
+        assertEquals(new UpdatePersonDto(id, "Alice", 31), gson.fromJson(body, UpdatePersonDto.class));
+        assertEquals(new Person(id, "Alice", 31), gson.fromJson(body, Person.class));
+        assertEquals("{\"name\":\"Alice\",\"age\":31}", gson.toJson(new CreatePersonDto("Alice", 31)));
+        assertSame(Person.JSON, gson.getAdapter(Person.class));
+    }
+
+    @Test
+    void write_smallBody_setsContentLength() throws Exception {
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+
+        codec.write(resp, Map.of("name", "Zo\u00eb"));
+
+        String expected = "{\"name\":\"Zo\u00eb\"}";
+        assertEquals(expected, out.toString());
+        verify(resp).setContentLength(expected.getBytes(StandardCharsets.UTF_8).length);
+        verify(resp).setContentType(JsonCodec.CONTENT_TYPE);
+    }
+
+    @Test
+    void write_largeBody_streamsWithoutContentLength() throws Exception {
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+        String big = "x".repeat(JsonCodec.MAX_BUFFERED_BYTES * 2);
+
+        codec.write(resp, Map.of("v", big));
+
+        assertEquals("{\"v\":\"" + big + "\"}", out.toString());
+        verify(resp, never()).setContentLength(anyInt());
+    }
+
+    @Test
+    void write_reusesBufferAcrossResponses() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            HttpServletResponse resp = mock(HttpServletResponse.class);
+            CapturingOutputStream out = new CapturingOutputStream();
+            when(resp.getOutputStream()).thenReturn(out);
+
+            codec.write(resp, Map.of("i", i));
+
+            assertTrue(out.toString().equals("{\"i\":" + i + "}"), out.toString());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.dthvinh.libs.servlet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.libs.servlet.RouteTable.Method;
+
+class RouteTableTest {
+
+    private static final RouteTable.Handler NOOP = ctx -> {
+    };
+
+    @Test
+    void match_rootAndMissingPathInfoAreTheSame() {
+        RouteTable table = new RouteTable.Builder().get("/", NOOP).build();
+
+        assertEquals("/", table.match(Method.GET, null).pattern());
+        assertEquals("/", table.match(Method.GET, "/").pattern());
+        assertEquals("/", table.match(Method.GET, "").pattern());
+        assertNull(table.match(Method.POST, "/"));
+    }
+
+    @Test
+    void match_literalWinsOverVariable() {
+        RouteTable table = new RouteTable.Builder()
+                .post("/batch", NOOP)
+                .post("/{id}", NOOP)
+                .build();
+
+        assertEquals("/batch", table.match(Method.POST, "/batch").pattern());
+        assertEquals("/{id}", table.match(Method.POST, "/batches").pattern());
+        assertEquals("/{id}", table.match(Method.POST, "/b").pattern());
+    }
+
+    @Test
+    void match_fallsBackToVariableWhenLiteralBranchDeadEnds() {
+        RouteTable table = new RouteTable.Builder()
+                .get("/batch/status", NOOP)
+                .get("/{id}/friends", NOOP)
+                .build();
+
+        assertEquals("/{id}/friends", table.match(Method.GET, "/batch/friends").pattern());
+        assertEquals("/batch/status", table.match(Method.GET, "/batch/status").pattern());
+        assertNull(table.match(Method.GET, "/batch"));
+    }
+
+    @Test
+    void variable_isCutFromMatchedPath() {
+        RouteTable table = new RouteTable.Builder().get("/{group}/members/{id}", NOOP).build();
+        String path = "//admins/members/42/";
+
+        RouteTable.Route route = table.match(Method.GET, path);
+
+        assertEquals("admins", route.variable(path, "group"));
+        assertEquals("42", route.variable(path, "id"));
+        assertNull(route.variable(path, "other"));
+    }
+
+    @Test
+    void hasPath_distinguishesWrongMethodFromUnknownPath() {
+        RouteTable table = new RouteTable.Builder().delete("/{id}", NOOP).build();
+
+        assertTrue(table.hasPath("/abc"));
+        assertFalse(table.hasPath("/abc/def"));
+        assertFalse(table.hasPath("/"));
+    }
+
+    @Test
+    void builder_rejectsDuplicatesAndPartialVariables() {
+        RouteTable.Builder builder = new RouteTable.Builder().get("/{id}", NOOP);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.get("/{other}", NOOP));
+        assertThrows(IllegalArgumentException.class, () -> builder.get("/x{id}", NOOP));
+        assertThrows(IllegalArgumentException.class, () -> builder.get("/{a}/{a}", NOOP));
+        assertThrows(IllegalArgumentException.class, () -> builder.get("batch", NOOP));
+    }
+
+    @Test
+    void manyLiteralSiblings_allResolve() {
+        RouteTable.Builder builder = new RouteTable.Builder();
+        RouteTable.Handler[] handlers = new RouteTable.Handler[1_000];
+        for (int i = 0; i < handlers.length; i++) {
+            handlers[i] = ctx -> {
+            };
+            builder.get("/r" + i + "/items/{id}", handlers[i]);
+        }
+        RouteTable table = builder.build();
+
+        for (int i = 0; i < handlers.length; i++) {
+            assertSame(handlers[i], table.match(Method.GET, "/r" + i + "/items/7").handler());
+        }
+        assertNull(table.match(Method.GET, "/r1000/items/7"));
+    }
+
+    @Test
+    void label_prefixesMountPoint() {
+        RouteTable table = new RouteTable.Builder().get("/", NOOP).get("/{id}", NOOP).build();
+
+        assertEquals("/api/person", table.match(Method.GET, null).label("/api/person"));
+        RouteTable.Route byId = table.match(Method.GET, "/x");
+        assertSame(byId.label("/api/person"), byId.label("/api/person"));
+        assertEquals("/api/person/{id}", byId.label("/api/person"));
+    }
+}
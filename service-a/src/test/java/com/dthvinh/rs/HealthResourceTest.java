@@ -5,28 +5,96 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.io.IOException;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.junit.jupiter.api.Test;
 
+import com.dthvinh.libs.kafka.publisher.SharedPublisher;
+import com.dthvinh.libs.outbox.SharedOutbox;
+import com.dthvinh.libs.servlet.CapturingOutputStream;
+import com.dthvinh.libs.servlet.JsonCodec;
+import com.dthvinh.libs.servlet.RequestContext;
+
 class HealthResourceTest {
 
+    static class TestableHealthResource extends HealthResource {
+        SharedOutbox outboxToReturn;
+
+        TestableHealthResource(SharedPublisher publisher) {
+            sharedPublisher = publisher;
+        }
+
+        @Override
+        protected SharedOutbox getOutbox() {
+            return outboxToReturn;
+        }
+
+        // Re-declared so this package can dispatch through the route table directly.
+        @Override
+        protected void handleGet(RequestContext ctx) throws IOException {
+            super.handleGet(ctx);
+        }
+    }
+
     @Test
     void get_returnsOkJson() throws Exception {
-        HealthResource resource = new HealthResource();
+        TestableHealthResource resource = new TestableHealthResource(null);
+        CapturingOutputStream out = new CapturingOutputStream();
+        HttpServletResponse resp = get(resource, null, out);
 
-        HttpServletResponse resp = mock(HttpServletResponse.class);
-        StringWriter out = new StringWriter();
-        when(resp.getWriter()).thenReturn(new PrintWriter(out));
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        assertTrue(out.toString().contains("\"ok\""));
+    }
+
+    @Test
+    void liveness_staysOkWhileKafkaWarmsUp() throws Exception {
+        TestableHealthResource resource = new TestableHealthResource(warmingUp());
+        CapturingOutputStream out = new CapturingOutputStream();
+        HttpServletResponse resp = get(resource, null, out);
+
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        assertTrue(out.toString().contains("\"kafka\":\"warming-up\""));
+    }
 
-        resource.resp = resp;
+    @Test
+    void readiness_isUnavailableWhileKafkaWarmsUp() throws Exception {
+        TestableHealthResource resource = new TestableHealthResource(warmingUp());
+        CapturingOutputStream out = new CapturingOutputStream();
+        HttpServletResponse resp = get(resource, HealthResource.READY_PATH, out);
 
-        resource.handleGet();
+        verify(resp).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertTrue(out.toString().contains("\"starting\""));
+    }
+
+    @Test
+    void readiness_withOutbox_doesNotWaitForKafka() throws Exception {
+        TestableHealthResource resource = new TestableHealthResource(warmingUp());
+        resource.outboxToReturn = mock(SharedOutbox.class);
+        CapturingOutputStream out = new CapturingOutputStream();
+        HttpServletResponse resp = get(resource, HealthResource.READY_PATH, out);
 
         verify(resp).setStatus(HttpServletResponse.SC_OK);
-        assertTrue(out.toString().contains("\"ok\""));
+        assertTrue(out.toString().contains("\"ready\""));
+    }
+
+    private static SharedPublisher warmingUp() {
+        SharedPublisher publisher = mock(SharedPublisher.class);
+        when(publisher.isConfigured()).thenReturn(true);
+        when(publisher.isReady()).thenReturn(false);
+        return publisher;
+    }
+
+    private static HttpServletResponse get(TestableHealthResource resource, String path, CapturingOutputStream out)
+            throws IOException {
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        when(req.getPathInfo()).thenReturn(path);
+        when(resp.getOutputStream()).thenReturn(out);
+
+        resource.handleGet(new RequestContext(req, resp, JsonCodec.DEFAULT));
+        return resp;
     }
 }
@@ -0,0 +1,161 @@
+package com.dthvinh.rs;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.contracts.Topics;
+import com.dthvinh.libs.kafka.publisher.AdmissionController;
+import com.dthvinh.libs.kafka.publisher.KafkaPublisher;
+import com.dthvinh.libs.kafka.publisher.StallingProducer;
+import com.dthvinh.libs.servlet.CapturingOutputStream;
+
+/**
+ * Simulated broker stall: the producer stops acknowledging, its buffer fills and {@code send} starts blocking for
+ * {@code max.block.ms}. Measures how long {@code POST /api/person} holds a request thread with and without
+ * admission control.
+ */
+class PersonAdmissionLoadTest {
+
+    private static final int THREADS = 32;
+    private static final long STALL_MS = 2_000;
+    private static final long WARMUP_MS = 1_000;
+    private static final long MAX_BLOCK_MS = 500;
+    private static final long BUFFER_BYTES = 8 * 1024;
+    private static final long PACE_MS = 5;
+
+    static class TestablePersonResource extends PersonResource {
+        KafkaPublisher publisherToReturn;
+
+        @Override
+        protected KafkaPublisher getPublisher() {
+            return publisherToReturn;
+        }
+    }
+
+    record Result(int requests, long p50Us, long p99Us, long maxUs, Map<Integer, AtomicInteger> statuses) {
+        @Override
+        public String toString() {
+            return String.format("%d requests, p50=%dus p99=%dus max=%dus, statuses=%s",
+                    requests, p50Us, p99Us, maxUs, statuses);
+        }
+    }
+
+    @Test
+    void brokerStall_admissionControlBoundsTailLatency() throws Exception {
+        // Creating the first mocks is slow enough to hold back the request rate and the buffer never fills.
+        run(new AdmissionController(Integer.MAX_VALUE, 0, 1), false, WARMUP_MS);
+        Result unprotected = run(new AdmissionController(Integer.MAX_VALUE, 0, 1), true, STALL_MS);
+        Result guarded = run(new AdmissionController(256, 0.1, 1), true, STALL_MS);
+
+        System.out.println("no admission control: " + unprotected);
+        System.out.println("admission control:    " + guarded);
+
+        long maxBlockUs = TimeUnit.MILLISECONDS.toMicros(MAX_BLOCK_MS);
+        assertTrue(unprotected.p99Us() >= maxBlockUs / 2, "stall did not block the producer: " + unprotected);
+        assertTrue(guarded.p99Us() < maxBlockUs / 2, "tail latency not bounded: " + guarded);
+        assertTrue(guarded.statuses().containsKey(429) || guarded.statuses().containsKey(503));
+    }
+
+    private Result run(AdmissionController admission, boolean stall, long durationMs) throws Exception {
+        StallingProducer producer = new StallingProducer(BUFFER_BYTES, MAX_BLOCK_MS);
+        TestablePersonResource resource = new TestablePersonResource();
+        resource.publisherToReturn = new KafkaPublisher(producer, Topics.PERSONS);
+        resource.admission = admission;
+        if (stall) {
+            producer.stall();
+        }
+
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> workers = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMs);
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(pool.submit(() -> {
+                start.await();
+                long[] latencies = new long[(int) (durationMs / PACE_MS) + 1];
+                int n = 0;
+                while (System.nanoTime() < deadline && n < latencies.length) {
+                    HttpServletRequest req = request("p-" + thread + "-" + n);
+                    HttpServletResponse resp = response(statuses);
+
+                    long begin = System.nanoTime();
+                    resource.service(req, resp);
+                    latencies[n++] = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin);
+                    Thread.sleep(PACE_MS);
+                }
+                return Arrays.copyOf(latencies, n);
+            }));
+        }
+
+        start.countDown();
+        List<Long> all = new ArrayList<>();
+        for (Future<long[]> worker : workers) {
+            for (long latency : worker.get(1, TimeUnit.MINUTES)) {
+                all.add(latency);
+            }
+        }
+        producer.resume();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        all.sort(null);
+        return new Result(all.size(), percentile(all, 0.50), percentile(all, 0.99), all.get(all.size() - 1), statuses);
+    }
+
+    private static HttpServletRequest request(String name) throws Exception {
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        AsyncContext async = mock(AsyncContext.class);
+        when(req.getMethod()).thenReturn("POST");
+        when(req.getRequestURI()).thenReturn("/api/person");
+        when(req.getReader()).thenReturn(new BufferedReader(
+                new StringReader("{\"name\":\"" + name + "\",\"age\":30}")));
+        when(req.isAsyncSupported()).thenReturn(true);
+        when(req.startAsync()).thenReturn(async);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(async).start(any());
+        return req;
+    }
+
+    private static HttpServletResponse response(Map<Integer, AtomicInteger> statuses) throws Exception {
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        when(resp.getOutputStream()).thenReturn(new CapturingOutputStream());
+        doAnswer(invocation -> {
+            statuses.computeIfAbsent(invocation.getArgument(0), s -> new AtomicInteger()).incrementAndGet();
+            return null;
+        }).when(resp).setStatus(anyInt());
+        return resp;
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(p * sorted.size()) - 1));
+    }
+}
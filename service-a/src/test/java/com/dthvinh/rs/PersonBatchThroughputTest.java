@@ -0,0 +1,143 @@
+package com.dthvinh.rs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+import java.io.Reader;
+import java.io.StringReader;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.PersonEventSerializer;
+import com.dthvinh.contracts.Topics;
+import com.dthvinh.libs.kafka.publisher.KafkaPublisher;
+import com.dthvinh.libs.servlet.CapturingOutputStream;
+import com.dthvinh.libs.servlet.JsonCodec;
+import com.dthvinh.libs.servlet.RequestContext;
+
+/**
+ * Compares items/sec of {@code POST /api/person/batch} against one {@code POST /api/person} per item, both publishing
+ * through a {@link MockProducer}. The batch body is generated on the fly, so the payload never exists as a whole.
+ */
+class PersonBatchThroughputTest {
+
+    private static final int ITEMS = 20_000;
+
+    static class TestablePersonResource extends PersonResource {
+        KafkaPublisher publisherToReturn;
+
+        @Override
+        protected KafkaPublisher getPublisher() {
+            return publisherToReturn;
+        }
+
+        // Re-declared so this package can dispatch through the route table directly.
+        @Override
+        protected void handlePost(RequestContext ctx) throws IOException {
+            super.handlePost(ctx);
+        }
+    }
+
+    @Test
+    void batchPath_versusSingleItemPath() throws Exception {
+        MockProducer<String, PersonEvent> producer =
+                new MockProducer<>(true, null, new StringSerializer(), new PersonEventSerializer());
+        TestablePersonResource resource = new TestablePersonResource();
+        resource.publisherToReturn = new KafkaPublisher(producer, Topics.PERSONS);
+
+        long singleNs = runSingle(resource);
+        assertEquals(ITEMS, producer.history().size());
+        producer.clear();
+
+        long batchNs = runBatch(resource);
+        assertEquals(ITEMS, producer.history().size());
+
+        double singleRate = ITEMS / (singleNs / 1e9);
+        double batchRate = ITEMS / (batchNs / 1e9);
+        System.out.printf("single-item: %d items in %d ms (%.0f items/s)%n",
+                ITEMS, TimeUnit.NANOSECONDS.toMillis(singleNs), singleRate);
+        System.out.printf("batch:       %d items in %d ms (%.0f items/s)%n",
+                ITEMS, TimeUnit.NANOSECONDS.toMillis(batchNs), batchRate);
+    }
+
+    private long runSingle(TestablePersonResource resource) throws Exception {
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        AtomicInteger next = new AtomicInteger();
+        when(req.getReader()).thenAnswer(invocation -> new BufferedReader(new StringReader(person(next.getAndIncrement()))));
+        when(resp.getOutputStream()).thenAnswer(invocation -> new CapturingOutputStream());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITEMS; i++) {
+            resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long runBatch(TestablePersonResource resource) throws Exception {
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(req.getPathInfo()).thenReturn(PersonResource.BATCH_PATH);
+        when(req.getReader()).thenReturn(new BufferedReader(new NdjsonSource(ITEMS)));
+        when(resp.getOutputStream()).thenReturn(out);
+
+        long start = System.nanoTime();
+        resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue(out.toString().contains("\"accepted\":" + ITEMS));
+        return elapsed;
+    }
+
+    private static String person(int i) {
+        return "{\"name\":\"person-" + i + "\",\"age\":" + (i % 100) + "}";
+    }
+
+    /**
+     * Produces {@code count} NDJSON lines lazily.
+     */
+    static final class NdjsonSource extends Reader {
+        private final int count;
+        private int emitted;
+        private String line = "";
+        private int pos;
+
+        NdjsonSource(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public int read(char[] buf, int off, int len) {
+            if (pos == line.length()) {
+                if (emitted == count) {
+                    return -1;
+                }
+                line = person(emitted++) + "\n";
+                pos = 0;
+            }
+            int n = Math.min(len, line.length() - pos);
+            line.getChars(pos, pos + n, buf, off);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
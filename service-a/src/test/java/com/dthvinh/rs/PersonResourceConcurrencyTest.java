@@ -0,0 +1,117 @@
+package com.dthvinh.rs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+
+import java.io.StringReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.contracts.Topics;
+import com.dthvinh.libs.kafka.publisher.AdmissionController;
+import com.dthvinh.libs.kafka.publisher.KafkaPublisher;
+import com.dthvinh.libs.servlet.CapturingOutputStream;
+
+/**
+ * Load test for a single shared {@link PersonResource} instance: many threads post concurrently and every
+ * response must echo the name sent by its own request.
+ */
+class PersonResourceConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int REQUESTS_PER_THREAD = 200;
+
+    static class TestablePersonResource extends PersonResource {
+        KafkaPublisher publisherToReturn;
+
+        TestablePersonResource() {
+            // The mocked publisher reports no buffer headroom; this test is not about shedding.
+            admission = new AdmissionController(AdmissionController.DEFAULT_MAX_IN_FLIGHT, 0,
+                    AdmissionController.DEFAULT_RETRY_AFTER_SECONDS);
+        }
+
+        @Override
+        protected KafkaPublisher getPublisher() {
+            return publisherToReturn;
+        }
+    }
+
+    @Test
+    void concurrentPosts_eachResponseBelongsToItsRequest() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.send(any())).thenReturn(CompletableFuture.completedFuture(
+                new RecordMetadata(new TopicPartition(Topics.PERSONS, 0), 0, 0, 0L, 0, 0)));
+        resource.publisherToReturn = publisher;
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger mismatches = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                    String name = "p-" + thread + "-" + i;
+                    CapturingOutputStream out = new CapturingOutputStream();
+
+                    HttpServletRequest req = mock(HttpServletRequest.class);
+                    HttpServletResponse resp = mock(HttpServletResponse.class);
+                    when(req.getMethod()).thenReturn("POST");
+                    when(req.getRequestURI()).thenReturn("/api/person");
+                    when(req.getReader()).thenReturn(new BufferedReader(
+                            new StringReader("{\"name\":\"" + name + "\",\"age\":" + i + "}")));
+                    when(resp.getOutputStream()).thenReturn(out);
+
+                    resource.service(req, resp);
+
+                    verify(resp).setStatus(201);
+                    if (!out.toString().contains("\"" + name + "\"")) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startNs = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        long elapsedNs = System.nanoTime() - startNs;
+        pool.shutdown();
+
+        int total = THREADS * REQUESTS_PER_THREAD;
+        System.out.printf("PersonResource POST: %d requests on %d threads in %d ms (%.0f req/s)%n",
+                total, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNs), total / (elapsedNs / 1e9));
+
+        assertEquals(0, mismatches.get(), "responses delivered to the wrong request");
+        verify(publisher, times(total)).send(any());
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+}
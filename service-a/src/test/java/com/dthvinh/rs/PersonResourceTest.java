@@ -1,41 +1,104 @@
 package com.dthvinh.rs;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.PrintWriter;
+
 import java.io.StringReader;
-import java.io.StringWriter;
+
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import com.dthvinh.contracts.CreatePerson;
+import com.dthvinh.contracts.DeletePerson;
+import com.dthvinh.contracts.Topics;
+import com.dthvinh.contracts.UpdatePerson;
 import com.dthvinh.libs.common.ER;
-import com.dthvinh.libs.kafka.event.CreatePersonEventArgs;
-import com.dthvinh.libs.kafka.event.DeletePersonEventArgs;
-import com.dthvinh.libs.kafka.event.UpdatePersonEventArgs;
+import com.dthvinh.libs.kafka.publisher.AdmissionController;
 import com.dthvinh.libs.kafka.publisher.KafkaPublisher;
+import com.dthvinh.libs.outbox.SharedOutbox;
+import com.dthvinh.libs.readmodel.PersonPage;
+import com.dthvinh.libs.readmodel.PersonQuery;
+import com.dthvinh.libs.readmodel.PersonStore;
+import com.dthvinh.libs.redis.PersonLookup;
+import com.dthvinh.libs.servlet.CapturingOutputStream;
+import com.dthvinh.libs.servlet.Endpoint;
+import com.dthvinh.libs.servlet.IdempotencyCache;
+import com.dthvinh.libs.servlet.JsonCodec;
+import com.dthvinh.libs.servlet.RequestContext;
+import com.dthvinh.models.Person;
 
 class PersonResourceTest {
 
     static class TestablePersonResource extends PersonResource {
         KafkaPublisher publisherToReturn;
+        SharedOutbox outboxToReturn;
+        IdempotencyCache cache = new IdempotencyCache(100, 1 << 20, 60_000, System::nanoTime);
+
+        TestablePersonResource() {
+            // A mocked publisher reports no buffer headroom, so only tests about shedding check it.
+            admission = new AdmissionController(AdmissionController.DEFAULT_MAX_IN_FLIGHT, 0,
+                    AdmissionController.DEFAULT_RETRY_AFTER_SECONDS);
+        }
 
         @Override
-        protected KafkaPublisher getOrCreatePublisher() {
+        protected KafkaPublisher getPublisher() {
             return publisherToReturn;
         }
+
+        @Override
+        protected SharedOutbox getOutbox() {
+            return outboxToReturn;
+        }
+
+        @Override
+        protected IdempotencyCache idempotencyCache() {
+            return cache;
+        }
+
+        // Re-declared so this package can dispatch through the route table directly.
+        @Override
+        protected void handleGet(RequestContext ctx) throws IOException {
+            super.handleGet(ctx);
+        }
+
+        @Override
+        protected void handlePost(RequestContext ctx) throws IOException {
+            super.handlePost(ctx);
+        }
+
+        @Override
+        protected void handlePut(RequestContext ctx) throws IOException {
+            super.handlePut(ctx);
+        }
+
+        @Override
+        protected void handleDelete(RequestContext ctx) throws IOException {
+            super.handleDelete(ctx);
+        }
     }
 
     @Test
@@ -45,15 +108,12 @@ class PersonResourceTest {
         HttpServletRequest req = mock(HttpServletRequest.class);
         HttpServletResponse resp = mock(HttpServletResponse.class);
 
-        StringWriter out = new StringWriter();
-        when(resp.getWriter()).thenReturn(new PrintWriter(out));
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
 
         when(req.getReader()).thenThrow(new IOException("boom"));
 
-        resource.req = req;
-        resource.resp = resp;
-
-        resource.handlePost();
+        resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
 
         verify(resp).setStatus(HttpServletResponse.SC_BAD_REQUEST);
         String body = out.toString();
@@ -68,15 +128,12 @@ class PersonResourceTest {
         HttpServletRequest req = mock(HttpServletRequest.class);
         HttpServletResponse resp = mock(HttpServletResponse.class);
 
-        StringWriter out = new StringWriter();
-        when(resp.getWriter()).thenReturn(new PrintWriter(out));
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
 
         when(req.getReader()).thenReturn(new BufferedReader(new StringReader("{\"name\":\"A\",\"age\":10}")));
 
-        resource.req = req;
-        resource.resp = resp;
-
-        resource.handlePost();
+        resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
 
         verify(resp).setStatus(HttpServletResponse.SC_BAD_REQUEST);
         assertTrue(out.toString().contains(ER.KAFKA_SERVER_ENV_NOT_SET));
@@ -86,31 +143,85 @@ class PersonResourceTest {
     void post_success_sendsKafkaEvent_andReturns201() throws Exception {
         TestablePersonResource resource = new TestablePersonResource();
         KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.send(any())).thenReturn(CompletableFuture.completedFuture(metadata(3, 42)));
         resource.publisherToReturn = publisher;
 
         HttpServletRequest req = mock(HttpServletRequest.class);
         HttpServletResponse resp = mock(HttpServletResponse.class);
 
-        StringWriter out = new StringWriter();
-        when(resp.getWriter()).thenReturn(new PrintWriter(out));
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
 
         when(req.getReader()).thenReturn(new BufferedReader(new StringReader("{\"name\":\"John\",\"age\":31}")));
 
-        resource.req = req;
-        resource.resp = resp;
-
-        resource.handlePost();
+        resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
 
         verify(resp).setStatus(201);
 
-        ArgumentCaptor<CreatePersonEventArgs> captor = ArgumentCaptor.forClass(CreatePersonEventArgs.class);
+        ArgumentCaptor<CreatePerson> captor = ArgumentCaptor.forClass(CreatePerson.class);
         verify(publisher).send(captor.capture());
-        assertEquals("CreatePersonEvent", captor.getValue().event);
-        assertEquals("John", captor.getValue().data.getName());
+        assertEquals("CreatePersonEvent", captor.getValue().type());
+        assertEquals("John", captor.getValue().name());
+        assertNotNull(captor.getValue().id());
 
         String body = out.toString();
-        assertTrue(body.contains("request queued"));
+        assertTrue(body.contains("created"));
+        assertTrue(body.contains("\"id\":\"" + captor.getValue().id() + "\""));
         assertTrue(body.contains("John"));
+        assertTrue(body.contains("\"partition\":3"));
+        assertTrue(body.contains("\"offset\":42"));
+    }
+
+    @Test
+    void post_withOutbox_appendsInsteadOfSending_andReturns202() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        resource.publisherToReturn = publisher;
+        SharedOutbox outbox = mock(SharedOutbox.class);
+        when(outbox.hasRoom()).thenReturn(true);
+        when(outbox.append(any())).thenReturn(CompletableFuture.completedFuture(128L));
+        resource.outboxToReturn = outbox;
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+
+        when(req.getReader()).thenReturn(new BufferedReader(new StringReader("{\"name\":\"John\",\"age\":31}")));
+
+        resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(resp).setStatus(HttpServletResponse.SC_ACCEPTED);
+        ArgumentCaptor<CreatePerson> captor = ArgumentCaptor.forClass(CreatePerson.class);
+        verify(outbox).append(captor.capture());
+        assertEquals("John", captor.getValue().name());
+        verify(publisher, never()).send(any());
+        assertTrue(out.toString().contains("\"id\":\"" + captor.getValue().id() + "\""));
+    }
+
+    @Test
+    void post_withFullOutbox_returns503() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        resource.publisherToReturn = mock(KafkaPublisher.class);
+        SharedOutbox outbox = mock(SharedOutbox.class);
+        when(outbox.hasRoom()).thenReturn(false);
+        resource.outboxToReturn = outbox;
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+
+        when(req.getReader()).thenReturn(new BufferedReader(new StringReader("{\"name\":\"John\",\"age\":31}")));
+
+        resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(resp).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        verify(resp).setHeader("Retry-After", "1");
+        verify(outbox, never()).append(any());
+        assertTrue(out.toString().contains(ER.OUTBOX_FULL));
     }
 
     @Test
@@ -120,15 +231,12 @@ class PersonResourceTest {
         HttpServletRequest req = mock(HttpServletRequest.class);
         HttpServletResponse resp = mock(HttpServletResponse.class);
 
-        StringWriter out = new StringWriter();
-        when(resp.getWriter()).thenReturn(new PrintWriter(out));
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
 
         when(req.getReader()).thenThrow(new IOException("boom"));
 
-        resource.req = req;
-        resource.resp = resp;
-
-        resource.handlePut();
+        resource.handlePut(new RequestContext(req, resp, JsonCodec.DEFAULT));
 
         verify(resp).setStatus(HttpServletResponse.SC_BAD_REQUEST);
         assertTrue(out.toString().contains("Invalid"));
@@ -138,6 +246,7 @@ class PersonResourceTest {
     void put_success_sendsKafkaEvent_andReturns200() throws Exception {
         TestablePersonResource resource = new TestablePersonResource();
         KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.send(any())).thenReturn(CompletableFuture.completedFuture(metadata(3, 42)));
         resource.publisherToReturn = publisher;
 
         UUID id = UUID.randomUUID();
@@ -146,22 +255,18 @@ class PersonResourceTest {
         HttpServletRequest req = mock(HttpServletRequest.class);
         HttpServletResponse resp = mock(HttpServletResponse.class);
 
-        StringWriter out = new StringWriter();
-        when(resp.getWriter()).thenReturn(new PrintWriter(out));
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
 
         when(req.getReader()).thenReturn(new BufferedReader(new StringReader(json)));
 
-        resource.req = req;
-        resource.resp = resp;
-
-        resource.handlePut();
+        resource.handlePut(new RequestContext(req, resp, JsonCodec.DEFAULT));
 
         verify(resp).setStatus(HttpServletResponse.SC_OK);
 
-        ArgumentCaptor<UpdatePersonEventArgs> captor = ArgumentCaptor.forClass(UpdatePersonEventArgs.class);
+        ArgumentCaptor<UpdatePerson> captor = ArgumentCaptor.forClass(UpdatePerson.class);
         verify(publisher).send(captor.capture());
-        assertEquals("UpdatePersonEvent", captor.getValue().event);
-        assertEquals(id, captor.getValue().data.getId());
+        assertEquals(new UpdatePerson(id, "Jane", 22), captor.getValue());
         assertTrue(out.toString().contains(id.toString()));
     }
 
@@ -173,15 +278,12 @@ class PersonResourceTest {
         HttpServletRequest req = mock(HttpServletRequest.class);
         HttpServletResponse resp = mock(HttpServletResponse.class);
 
-        StringWriter out = new StringWriter();
-        when(resp.getWriter()).thenReturn(new PrintWriter(out));
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
 
         when(req.getParameter("id")).thenReturn(" ");
 
-        resource.req = req;
-        resource.resp = resp;
-
-        resource.handleDelete();
+        resource.handleDelete(new RequestContext(req, resp, JsonCodec.DEFAULT));
 
         verify(resp).setStatus(HttpServletResponse.SC_BAD_REQUEST);
         assertTrue(out.toString().contains("Missing person ID"));
@@ -192,29 +294,474 @@ class PersonResourceTest {
     void delete_success_sendsKafkaEvent_andReturns200() throws Exception {
         TestablePersonResource resource = new TestablePersonResource();
         KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.send(any())).thenReturn(CompletableFuture.completedFuture(metadata(3, 42)));
         resource.publisherToReturn = publisher;
 
         HttpServletRequest req = mock(HttpServletRequest.class);
         HttpServletResponse resp = mock(HttpServletResponse.class);
 
-        StringWriter out = new StringWriter();
-        when(resp.getWriter()).thenReturn(new PrintWriter(out));
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+
+        UUID id = UUID.randomUUID();
+        when(req.getParameter("id")).thenReturn(id.toString());
+
+        resource.handleDelete(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+
+        ArgumentCaptor<DeletePerson> captor = ArgumentCaptor.forClass(DeletePerson.class);
+        verify(publisher).send(captor.capture());
+        assertEquals(new DeletePerson(id), captor.getValue());
+
+        assertTrue(out.toString().contains("deleted"));
+        assertTrue(out.toString().contains(id.toString()));
+    }
+
+    @Test
+    void delete_invalidId_returns400() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        resource.publisherToReturn = mock(KafkaPublisher.class);
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
 
         when(req.getParameter("id")).thenReturn("abc");
 
-        resource.req = req;
-        resource.resp = resp;
+        resource.handleDelete(new RequestContext(req, resp, JsonCodec.DEFAULT));
 
-        resource.handleDelete();
+        verify(resp).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        assertTrue(out.toString().contains(ER.PERSON_ID_INVALID));
+        verify(resource.publisherToReturn, never()).send(any());
+    }
 
-        verify(resp).setStatus(HttpServletResponse.SC_OK);
+    @Test
+    void delete_idInPath_takesPrecedenceOverQuery() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.send(any())).thenReturn(CompletableFuture.completedFuture(metadata(3, 42)));
+        resource.publisherToReturn = publisher;
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        when(resp.getOutputStream()).thenReturn(new CapturingOutputStream());
+        UUID fromPath = UUID.randomUUID();
+        when(req.getPathInfo()).thenReturn("/" + fromPath);
+        when(req.getParameter("id")).thenReturn(UUID.randomUUID().toString());
+
+        resource.handleDelete(new RequestContext(req, resp, JsonCodec.DEFAULT));
 
-        ArgumentCaptor<DeletePersonEventArgs> captor = ArgumentCaptor.forClass(DeletePersonEventArgs.class);
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        ArgumentCaptor<DeletePerson> captor = ArgumentCaptor.forClass(DeletePerson.class);
         verify(publisher).send(captor.capture());
-        assertEquals("DeletePersonEvent", captor.getValue().event);
-        assertEquals("abc", captor.getValue().data);
+        assertEquals(fromPath, captor.getValue().id());
+    }
+
+    @Test
+    void unknownSubPath_returns404_andWrongMethod_returns405() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        resource.publisherToReturn = mock(KafkaPublisher.class);
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        when(resp.getOutputStream()).thenReturn(new CapturingOutputStream());
+        when(req.getPathInfo()).thenReturn("/a/b");
+        resource.handleGet(new RequestContext(req, resp, JsonCodec.DEFAULT));
+        verify(resp).setStatus(HttpServletResponse.SC_NOT_FOUND);
+
+        HttpServletRequest putById = mock(HttpServletRequest.class);
+        HttpServletResponse putResp = mock(HttpServletResponse.class);
+        when(putById.getPathInfo()).thenReturn("/" + UUID.randomUUID());
+        resource.handlePut(new RequestContext(putById, putResp, JsonCodec.DEFAULT));
+        verify(putResp).setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+        verify(resource.publisherToReturn, never()).send(any());
+    }
+
+    @Test
+    void post_sendFails_returns503() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.send(any())).thenReturn(CompletableFuture.failedFuture(new TimeoutException("broker down")));
+        resource.publisherToReturn = publisher;
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+
+        when(req.getReader()).thenReturn(new BufferedReader(new StringReader("{\"name\":\"John\",\"age\":31}")));
+
+        resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(resp).setStatus(503);
+        assertTrue(out.toString().contains(ER.KAFKA_SEND_FAILED));
+    }
+
+    @Test
+    void post_producerBufferNearlyFull_returns503WithoutSending() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        resource.admission = new AdmissionController(AdmissionController.DEFAULT_MAX_IN_FLIGHT, 0.1, 2);
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.bufferHeadroom()).thenReturn(0.05);
+        resource.publisherToReturn = publisher;
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+
+        when(req.getReader()).thenReturn(new BufferedReader(new StringReader("{\"name\":\"John\",\"age\":31}")));
+
+        resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(resp).setStatus(503);
+        verify(resp).setHeader("Retry-After", "2");
+        verify(publisher, never()).send(any());
+        assertTrue(out.toString().contains(ER.PRODUCER_SATURATED));
+        assertEquals(0, resource.admission.stats().get(PersonResource.CREATE_LANE).inFlight());
+    }
+
+    @Test
+    void post_asyncSupported_respondsOnlyAfterAck() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        CompletableFuture<RecordMetadata> ack = new CompletableFuture<>();
+        when(publisher.send(any())).thenReturn(ack);
+        resource.publisherToReturn = publisher;
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        AsyncContext async = mock(AsyncContext.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+        when(req.getReader()).thenReturn(new BufferedReader(new StringReader("{\"name\":\"John\",\"age\":31}")));
+        when(req.isAsyncSupported()).thenReturn(true);
+        when(req.startAsync()).thenReturn(async);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(async).start(any());
+
+        resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(req).startAsync();
+        verify(resp, never()).setStatus(anyInt());
+        verify(async, never()).complete();
+
+        ack.complete(metadata(1, 7));
+
+        verify(resp).setStatus(201);
+        verify(async).complete();
+        assertTrue(out.toString().contains("\"offset\":7"));
+    }
+
+    @Test
+    void postBatch_jsonArray_publishesValidItems_andReportsRejections() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.send(any())).thenReturn(CompletableFuture.completedFuture(metadata(0, 1)));
+        resource.publisherToReturn = publisher;
+
+        String json = "[{\"name\":\"A\",\"age\":1},{\"name\":\"\",\"age\":2},"
+                + "{\"name\":\"C\",\"age\":\"x\"},{\"name\":\"D\",\"age\":4}]";
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+        when(req.getPathInfo()).thenReturn(PersonResource.BATCH_PATH);
+        when(req.getReader()).thenReturn(new BufferedReader(new StringReader(json)));
+
+        resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        verify(publisher, times(2)).send(any());
+        String body = out.toString();
+        assertTrue(body.contains("\"accepted\":2"));
+        assertTrue(body.contains("\"rejected\":2"));
+        assertTrue(body.contains("{\"index\":1,\"reason\":\"Missing name\"}"));
+        assertTrue(body.contains("{\"index\":2,\"reason\":\"Invalid person\"}"));
+    }
+
+    @Test
+    void postBatch_ndjson_publishesEveryLine() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.send(any())).thenReturn(CompletableFuture.completedFuture(metadata(0, 1)));
+        resource.publisherToReturn = publisher;
+
+        String ndjson = "{\"name\":\"A\",\"age\":1}\n{\"name\":\"B\",\"age\":2}\n{\"name\":\"C\",\"age\":3}\n";
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+        when(req.getPathInfo()).thenReturn(PersonResource.BATCH_PATH);
+        when(req.getReader()).thenReturn(new BufferedReader(new StringReader(ndjson)));
+
+        resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        verify(publisher, times(3)).send(any());
+        assertTrue(out.toString().contains("\"accepted\":3"));
+    }
+
+    @Test
+    void postBatch_failedSend_isReportedAsRejection() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.send(any())).thenReturn(
+                CompletableFuture.completedFuture(metadata(0, 1)),
+                CompletableFuture.failedFuture(new TimeoutException("broker down")));
+        resource.publisherToReturn = publisher;
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+        when(req.getPathInfo()).thenReturn(PersonResource.BATCH_PATH);
+        when(req.getReader()).thenReturn(new BufferedReader(
+                new StringReader("[{\"name\":\"A\",\"age\":1},{\"name\":\"B\",\"age\":2}]")));
+
+        resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        String body = out.toString();
+        assertTrue(body.contains("\"accepted\":1"));
+        assertTrue(body.contains("{\"index\":1,\"reason\":\"Kafka send failed\"}"));
+    }
+
+    @Test
+    void postBatch_malformedBody_returns400WithPartialSummary() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.send(any())).thenReturn(CompletableFuture.completedFuture(metadata(0, 1)));
+        resource.publisherToReturn = publisher;
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+        when(req.getPathInfo()).thenReturn(PersonResource.BATCH_PATH);
+        when(req.getReader()).thenReturn(new BufferedReader(
+                new StringReader("[{\"name\":\"A\",\"age\":1},{\"name\":")));
+
+        resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(resp).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        verify(publisher, times(1)).send(any());
+        assertTrue(out.toString().contains(ER.BATCH_BODY_MALFORMED));
+    }
+
+    @Test
+    void postBatch_missingComma_returns400AndGivesTheLaneSlotBack() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.send(any())).thenReturn(CompletableFuture.completedFuture(metadata(0, 1)));
+        resource.publisherToReturn = publisher;
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+        when(req.getPathInfo()).thenReturn(PersonResource.BATCH_PATH);
+        when(req.getReader()).thenReturn(new BufferedReader(
+                new StringReader("[{\"name\":\"a\"} {\"name\":\"b\"}]")));
+
+        resource.handlePost(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(resp).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        assertTrue(out.toString().contains(ER.BATCH_BODY_MALFORMED));
+        assertEquals(0, resource.admission.stats().get(PersonResource.BATCH_LANE).inFlight());
+    }
+
+    @Test
+    void get_beforeReadModelIsReady_returns503WithRetryAfter() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        resource.personStore = mock(PersonStore.class);
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+
+        resource.handleGet(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(resp).setStatus(503);
+        verify(resp).setHeader("Retry-After", PersonResource.NOT_READY_RETRY_AFTER_SECONDS);
+        assertTrue(out.toString().contains(ER.READ_MODEL_NOT_READY));
+    }
+
+    @Test
+    void get_list_passesQueryParametersToStore() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        PersonStore store = mock(PersonStore.class);
+        when(store.isReady()).thenReturn(true);
+        UUID id = UUID.randomUUID();
+        when(store.query(any())).thenReturn(new PersonPage(List.of(new Person(id, "Alice", 30)), "next"));
+        resource.personStore = store;
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+        when(req.getParameter("name")).thenReturn("al");
+        when(req.getParameter("sort")).thenReturn("age");
+        when(req.getParameter("limit")).thenReturn("10");
+
+        resource.handleGet(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        ArgumentCaptor<PersonQuery> query = ArgumentCaptor.forClass(PersonQuery.class);
+        verify(store).query(query.capture());
+        assertEquals("al", query.getValue().namePrefix());
+        assertEquals(PersonQuery.Sort.AGE, query.getValue().sort());
+        assertEquals(10, query.getValue().limit());
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        assertTrue(out.toString().contains("\"id\":\"" + id + "\""));
+        assertTrue(out.toString().contains("\"nextCursor\":\"next\""));
+    }
+
+    @Test
+    void get_invalidQuery_returns400() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        resource.personStore = mock(PersonStore.class);
+        when(resource.personStore.isReady()).thenReturn(true);
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+        when(req.getParameter("minAge")).thenReturn("ten");
+
+        resource.handleGet(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(resp).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        verify(resource.personStore, never()).query(any());
+    }
+
+    @Test
+    void get_byId_unknownPerson_returns404() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        resource.personStore = mock(PersonStore.class);
+        when(resource.personStore.isReady()).thenReturn(true);
+        when(resource.personStore.get(any())).thenReturn(Optional.empty());
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        when(resp.getOutputStream()).thenReturn(new CapturingOutputStream());
+        when(req.getPathInfo()).thenReturn("/" + UUID.randomUUID());
+
+        resource.handleGet(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(resp).setStatus(HttpServletResponse.SC_NOT_FOUND);
+    }
+
+    @Test
+    void get_byId_beforeReadModelIsReady_isServedFromRedis() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        UUID id = UUID.randomUUID();
+        resource.personStore = mock(PersonStore.class);
+        resource.personLookup = mock(PersonLookup.class);
+        when(resource.personLookup.get(id)).thenReturn(Optional.of(new Person(id, "Dana", 28)));
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+        when(req.getPathInfo()).thenReturn("/" + id);
+
+        resource.handleGet(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        assertTrue(out.toString().contains("Dana"));
+    }
+
+    @Test
+    void get_byId_redisUnavailable_fallsBackToReadModelAnswer() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        resource.personStore = mock(PersonStore.class);
+        when(resource.personStore.isReady()).thenReturn(true);
+        when(resource.personStore.get(any())).thenReturn(Optional.empty());
+        resource.personLookup = mock(PersonLookup.class);
+        when(resource.personLookup.get(any())).thenThrow(new IllegalStateException("connection refused"));
+
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        when(resp.getOutputStream()).thenReturn(new CapturingOutputStream());
+        when(req.getPathInfo()).thenReturn("/" + UUID.randomUUID());
+
+        resource.handleGet(new RequestContext(req, resp, JsonCodec.DEFAULT));
+
+        verify(resp).setStatus(HttpServletResponse.SC_NOT_FOUND);
+    }
+
+    @Test
+    void post_repeatedIdempotencyKey_replaysWithoutPublishing() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.send(any())).thenReturn(CompletableFuture.completedFuture(metadata(2, 7)));
+        resource.publisherToReturn = publisher;
+
+        String first = postWithKey(resource, "retry-1", 201);
+        String second = postWithKey(resource, "retry-1", 201);
+        postWithKey(resource, "retry-2", 201);
+
+        assertEquals(first, second);
+        assertTrue(second.contains("\"offset\":7"));
+        verify(publisher, times(2)).send(any());
+        assertEquals(1, resource.cache.stats().hits());
+    }
+
+    @Test
+    void post_failedPublishWithIdempotencyKey_isNotReplayed() throws Exception {
+        TestablePersonResource resource = new TestablePersonResource();
+        KafkaPublisher publisher = mock(KafkaPublisher.class);
+        when(publisher.send(any()))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(metadata(0, 1)));
+        resource.publisherToReturn = publisher;
+
+        postWithKey(resource, "retry-3", 503);
+        postWithKey(resource, "retry-3", 201);
+
+        verify(publisher, times(2)).send(any());
+    }
+
+    private static String postWithKey(PersonResource resource, String key, int status) throws Exception {
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(resp.getOutputStream()).thenReturn(out);
+        when(resp.getStatus()).thenReturn(status);
+        when(req.getMethod()).thenReturn("POST");
+        when(req.getRequestURI()).thenReturn("/api/person");
+        when(req.getHeader(Endpoint.IDEMPOTENCY_KEY_HEADER)).thenReturn(key);
+        when(req.getReader()).thenReturn(new BufferedReader(new StringReader("{\"name\":\"Alice\",\"age\":30}")));
+
+        resource.service(req, resp);
+
+        verify(resp).setStatus(status);
+        return out.toString();
+    }
 
-        assertTrue(out.toString().contains("delete request queued"));
-        assertTrue(out.toString().contains("abc"));
+    private static RecordMetadata metadata(int partition, long offset) {
+        return new RecordMetadata(new TopicPartition(Topics.PERSONS, partition), offset, 0, 0L, 0, 0);
     }
 }
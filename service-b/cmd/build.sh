@@ -10,7 +10,9 @@ fi
 
 SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
 SERVICE_DIR="$(cd "${SCRIPT_DIR}/.." && pwd)"
+# The build context is the repository root so the image can build the shared contracts module.
+ROOT_DIR="$(cd "${SERVICE_DIR}/.." && pwd)"
 
 echo "Start building image for Service B"
-docker build --no-cache -t "microservice-service-b:${VERSION}" -f "${SERVICE_DIR}/Dockerfile" "${SERVICE_DIR}"
+docker build --no-cache -t "microservice-service-b:${VERSION}" -f "${SERVICE_DIR}/Dockerfile" "${ROOT_DIR}"
 echo "Finished building image for Service B"
@@ -0,0 +1,128 @@
+package com.dthvinh.libs.filter;
+
+import com.dthvinh.contracts.filter.CuckooFilter;
+import com.dthvinh.libs.kafka.common.Env;
+import com.dthvinh.libs.redis.CachingService;
+import com.dthvinh.libs.redis.KeyService;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cuckoo filter of the person ids cached in Redis, kept up to date by the person handlers and written to Redis
+ * ({@link KeyService#PERSON_FILTER_KEY}) every few seconds and on shutdown. Service A reads that snapshot to skip
+ * Redis for ids that were never created, so the filter must never lose an id whose key exists.
+ *
+ * <p>The handlers therefore report what Redis did, not what the events asked for: an id goes in once for each time
+ * its key is created and comes out once for each time it is deleted. Every id then holds its own fingerprint copy,
+ * and removing one never takes away the copy of another id with the same fingerprint. Replayed creates, deletes of
+ * ids that never existed and deletes that overtake their create change nothing.
+ *
+ * <p>On start the filter is rebuilt by scanning the Redis keys in the background. Until that scan has finished, no
+ * snapshot is written and deletes are not applied, since the scan may not have added the id yet; the ids deleted
+ * meanwhile stay in the filter as false positives until the next start.
+ */
+@Component(service = KnownPersons.class, immediate = true)
+public class KnownPersons {
+    static final int DEFAULT_CAPACITY = 1_000_000;
+    static final long DEFAULT_SNAPSHOT_INTERVAL_MS = 10_000;
+
+    private final Logger log = LoggerFactory.getLogger(KnownPersons.class);
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    @Reference
+    private CachingService cachingService;
+
+    private final CuckooFilter filter;
+    private volatile boolean reconciled;
+    private ScheduledExecutorService scheduler;
+
+    public KnownPersons() {
+        this.filter = CuckooFilter.withCapacity((int) Env.longOr(Env.PERSON_FILTER_CAPACITY, DEFAULT_CAPACITY));
+    }
+
+    // Package-private constructor for unit tests (no Redis needed)
+    KnownPersons(CachingService cachingService, int capacity) {
+        this.cachingService = cachingService;
+        this.filter = CuckooFilter.withCapacity(capacity);
+    }
+
+    @Activate
+    public void start() {
+        long intervalMs = Env.longOr(Env.PERSON_FILTER_SNAPSHOT_INTERVAL_MS, DEFAULT_SNAPSHOT_INTERVAL_MS);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Person-Filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::reconcile);
+        scheduler.scheduleWithFixedDelay(this::snapshot, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Deactivate
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        snapshot();
+    }
+
+    /**
+     * Records that the Redis key of {@code id} was just created.
+     */
+    public void added(UUID id) {
+        filter.add(id);
+        dirty.set(true);
+    }
+
+    /**
+     * Records that the Redis key of {@code id} was just deleted, so the id was {@link #added} before.
+     */
+    public void removed(UUID id) {
+        if (reconciled && filter.remove(id)) {
+            dirty.set(true);
+        }
+    }
+
+    public CuckooFilter filter() {
+        return filter;
+    }
+
+    void reconcile() {
+        try {
+            cachingService.forEachKey(KeyService.PERSON_PATTERN, key -> {
+                UUID id = KeyService.idOf(key);
+                if (id != null) {
+                    added(id);
+                }
+            });
+            reconciled = true;
+            log.info("Person filter holds {} ids ({} bytes{})", filter.size(), filter.bytes(),
+                    filter.isOverflowed() ? ", overflowed" : "");
+        } catch (RuntimeException ex) {
+            log.warn("Could not scan person keys; person filter snapshots stay disabled", ex);
+        }
+    }
+
+    void snapshot() {
+        if (!reconciled || !dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            cachingService.cacheBytes(KeyService.PERSON_FILTER_KEY, filter.toBytes(System.currentTimeMillis()));
+        } catch (RuntimeException ex) {
+            dirty.set(true);
+            log.warn("Could not write person filter snapshot", ex);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.dthvinh.libs.kafka;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+
+/**
+ * Commits what the {@link OffsetTracker} says has finished, in place of auto-commit, which also commits records a
+ * handler is still working on. Commits are asynchronous and batched: one goes out once {@code batchRecords} records
+ * have finished or {@code intervalMs} has passed with something finished, whichever is first. A failed commit is
+ * sent again with the next one unless a later commit of the partition has already succeeded. Revocation and
+ * shutdown commit synchronously.
+ *
+ * <p>Only for the polling thread, like the consumer itself; commit callbacks run on it too, inside {@code poll} and
+ * the commit calls.
+ */
+public final class CommitManager {
+    public static final int DEFAULT_BATCH_RECORDS = 500;
+    public static final long DEFAULT_INTERVAL_MS = 1_000;
+
+    private final Consumer<?, ?> consumer;
+    private final OffsetTracker offsets;
+    private final int batchRecords;
+    private final long intervalNs;
+    private final LongSupplier nanoClock;
+    private final Logger log;
+    // Partition -> highest offset the broker has acknowledged.
+    private final Map<TopicPartition, Long> acknowledged = new HashMap<>();
+    // Partition -> a failed commit not yet superseded.
+    private final Map<TopicPartition, OffsetAndMetadata> retry = new HashMap<>();
+    private long finishedAtLastCommit;
+    private long lastCommitNs;
+
+    public CommitManager(Consumer<?, ?> consumer, OffsetTracker offsets, int batchRecords, long intervalMs,
+            LongSupplier nanoClock, Logger log) {
+        this.consumer = consumer;
+        this.offsets = offsets;
+        this.batchRecords = Math.max(1, batchRecords);
+        this.intervalNs = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        this.nanoClock = nanoClock;
+        this.log = log;
+        this.lastCommitNs = nanoClock.getAsLong();
+    }
+
+    /**
+     * Sends an asynchronous commit if a batch is due.
+     */
+    public void maybeCommit() {
+        long finished = offsets.finished() - finishedAtLastCommit;
+        long now = nanoClock.getAsLong();
+        boolean due = finished >= batchRecords
+                || now - lastCommitNs >= intervalNs && (finished > 0 || !retry.isEmpty());
+        if (!due) {
+            return;
+        }
+        Map<TopicPartition, OffsetAndMetadata> commit = withRetries(offsets.committable());
+        finishedAtLastCommit += finished;
+        lastCommitNs = now;
+        if (commit.isEmpty()) {
+            return;
+        }
+        consumer.commitAsync(commit, (committed, e) -> {
+            if (e == null) {
+                committed.forEach(this::acknowledge);
+                return;
+            }
+            log.warn("Offset commit failed, retrying with the next one: {}", e.toString());
+            committed.forEach((partition, offset) -> {
+                if (offset.offset() > acknowledged.getOrDefault(partition, -1L)) {
+                    retry.merge(partition, offset, (a, b) -> a.offset() >= b.offset() ? a : b);
+                }
+            });
+        });
+    }
+
+    /**
+     * Commits what has finished in {@code partitions} and waits for the broker, before they are given up.
+     *
+     * @throws org.apache.kafka.common.KafkaException if the commit fails
+     */
+    public void commitSync(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> commit = offsets.committable(partitions);
+        for (TopicPartition partition : partitions) {
+            OffsetAndMetadata failed = retry.remove(partition);
+            if (failed != null) {
+                commit.putIfAbsent(partition, failed);
+            }
+        }
+        if (!commit.isEmpty()) {
+            consumer.commitSync(commit);
+            commit.forEach(this::acknowledge);
+        }
+    }
+
+    /**
+     * Drops what is kept for partitions no longer assigned.
+     */
+    public void forget(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            acknowledged.remove(partition);
+            retry.remove(partition);
+        }
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> withRetries(Map<TopicPartition, OffsetAndMetadata> committable) {
+        // A newer offset of the same partition makes the retry pointless.
+        retry.forEach(committable::putIfAbsent);
+        retry.clear();
+        return committable;
+    }
+
+    private void acknowledge(TopicPartition partition, OffsetAndMetadata offset) {
+        acknowledged.merge(partition, offset.offset(), Math::max);
+        OffsetAndMetadata failed = retry.get(partition);
+        if (failed != null && failed.offset() <= offset.offset()) {
+            retry.remove(partition);
+        }
+    }
+}
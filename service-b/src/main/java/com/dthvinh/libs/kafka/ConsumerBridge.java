@@ -1,119 +1,139 @@
 package com.dthvinh.libs.kafka;
 
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.dthvinh.libs.kafka.annotation.EventHandler;
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.PersonEventDeserializer;
 import com.dthvinh.libs.kafka.base.EventConsumer;
-import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
-import com.google.gson.JsonSyntaxException;
-
+import com.dthvinh.libs.kafka.common.Env;
+
+/**
+ * One {@link KafkaConsumer} polling on its own thread and handing each event to an {@link EventDispatcher}. Several
+ * bridges in one consumer group share a dispatcher, and with it the registered handlers.
+ *
+ * <p>Offsets are committed by a {@link CommitManager}, never past a record whose handlers have not finished, in
+ * batches and once more, synchronously, when partitions are revoked and on shutdown. A record whose handler throws
+ * is not finished: on the polling thread its partition is sought back to it and paused for a backoff of
+ * {@value #RETRY_INITIAL_MS}ms, doubling up to {@value #RETRY_MAX_MS}ms while it keeps failing, so it is polled and
+ * handled again while the other partitions go on. A worker retries it in place with the same backoff, which keeps
+ * the records of its key in order, until it succeeds, the partition is revoked or the bridge stops.
+ *
+ * <p>With workers, records are handed to a {@link KeyedWorkerPool} by key instead of being handled on the polling
+ * thread, so one slow record no longer holds up its whole partition and a partition is handled by more than one
+ * thread. Records with the same key are still handled in order, and polling pauses while
+ * {@value #IN_FLIGHT_PER_WORKER} records per worker are waiting.
+ */
 public class ConsumerBridge implements Runnable, AutoCloseable {
 
+    static final int IN_FLIGHT_PER_WORKER = 64;
+    static final long DRAIN_TIMEOUT_MS = 30_000;
+    static final long RETRY_INITIAL_MS = 100;
+    static final long RETRY_MAX_MS = 5_000;
+
     private final Logger logger = LoggerFactory.getLogger(ConsumerBridge.class);
-    private final Map<String, List<EventConsumer<?>>> eventHandlers = new ConcurrentHashMap<>();
-    private final Gson mapper = new Gson();
-    private KafkaConsumer<String, String> consumer;
+    private final EventDispatcher dispatcher;
+    // Null: records are handled on the polling thread.
+    private final KeyedWorkerPool workers;
+    private final OffsetTracker offsets = new OffsetTracker();
+    private final CommitManager commits;
+    private Consumer<String, PersonEvent> consumer;
     private volatile boolean running = true;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private boolean paused;
+    // Partition -> when it is resumed after a failed record; polling thread only.
+    private final Map<TopicPartition, Long> retryAtNs = new HashMap<>();
+    // Partition -> the backoff of its last failure, until a record of it succeeds; polling thread only.
+    private final Map<TopicPartition, Long> backoffMs = new HashMap<>();
+
+    public ConsumerBridge(String bootstrapServer, String groupId, String[] topics, EventDispatcher dispatcher) {
+        this(bootstrapServer, groupId, topics, dispatcher, 0);
+    }
 
-    public ConsumerBridge(String bootstrapServer, String groupId, String[] topics,
-            Collection<EventConsumer<?>> initialHandlers) {
+    /**
+     * @param workers threads records are handled on, by key; 0 handles them on the polling thread
+     */
+    public ConsumerBridge(String bootstrapServer, String groupId, String[] topics, EventDispatcher dispatcher,
+            int workers) {
+        this.dispatcher = dispatcher;
+        this.workers = workers > 0 ? new KeyedWorkerPool(workers, "Kafka-Worker-" + String.join(",", topics)) : null;
         Properties props = new Properties();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServer);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, PersonEventDeserializer.class.getName());
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "true");
-        props.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, "1000");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
 
         setConsumer(props);
-        this.consumer.subscribe(Arrays.asList(topics));
+        this.commits = newCommitManager();
+        this.consumer.subscribe(Arrays.asList(topics), new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                drain(partitions);
+            }
 
-        registerEventHandlers(initialHandlers);
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            }
+
+            @Override
+            public void onPartitionsLost(Collection<TopicPartition> partitions) {
+                // Already someone else's: committing would fail, and they replay what was running here.
+                offsets.forget(partitions);
+                commits.forget(partitions);
+                forgetRetries(partitions);
+            }
+        });
     }
 
     // Package-private constructor for unit tests (avoids requiring a real Kafka
     // broker)
-    ConsumerBridge(KafkaConsumer<String, String> consumer, Collection<EventConsumer<?>> initialHandlers) {
-        this.consumer = consumer;
-        registerEventHandlers(initialHandlers);
+    ConsumerBridge(Consumer<String, PersonEvent> consumer, Collection<EventConsumer<?>> initialHandlers) {
+        this(consumer, initialHandlers, 0);
     }
 
-    private void registerEventHandlers(Collection<EventConsumer<?>> initialHandlers) {
-        int available = initialHandlers == null ? 0 : initialHandlers.size();
-        logger.info("Registering EventConsumer service(s) (count={})", available);
-
-        int registeredCount = 0;
-
-        if (initialHandlers != null) {
-            for (EventConsumer<?> handler : initialHandlers) {
-                if (registerConsumerFromAnnotation(handler)) {
-                    registeredCount++;
-                }
-            }
-        }
+    ConsumerBridge(Consumer<String, PersonEvent> consumer, Collection<EventConsumer<?>> initialHandlers, int workers) {
+        this.consumer = consumer;
+        this.dispatcher = new EventDispatcher(logger);
+        this.workers = workers > 0 ? new KeyedWorkerPool(workers, "Kafka-Worker") : null;
+        this.commits = newCommitManager();
+        dispatcher.registerEventHandlers(initialHandlers);
+    }
 
-        if (registeredCount == 0) {
-            logger.warn(
-                    "No event handlers were registered. In OSGi, make sure handlers are DS services of type EventConsumer.");
-        } else {
-            logger.info("Successfully registered {} event handler(s)", registeredCount);
-        }
+    private CommitManager newCommitManager() {
+        return new CommitManager(consumer, offsets,
+                (int) Env.longOr(Env.CONSUMER_COMMIT_BATCH_RECORDS, CommitManager.DEFAULT_BATCH_RECORDS),
+                Env.longOr(Env.CONSUMER_COMMIT_INTERVAL_MS, CommitManager.DEFAULT_INTERVAL_MS),
+                System::nanoTime, logger);
     }
 
     public boolean registerConsumerFromAnnotation(EventConsumer<?> handler) {
-        if (handler == null) {
-            return false;
-        }
-
-        Class<?> clazz = handler.getClass();
-        EventHandler annotation = clazz.getAnnotation(EventHandler.class);
-        if (annotation == null) {
-            logger.warn("EventConsumer {} is missing @EventHandler annotation", clazz.getName());
-            return false;
-        }
-
-        String eventKey = annotation.eventKey();
-        if (eventKey == null || eventKey.trim().isEmpty()) {
-            logger.warn("Invalid/missing eventKey in @EventHandler on {}", clazz.getName());
-            return false;
-        }
-
-        registerConsumer(eventKey, handler);
-        logger.info("Registered handler {} for eventKey '{}'", clazz.getSimpleName(), eventKey);
-        return true;
+        return dispatcher.registerConsumerFromAnnotation(handler);
     }
 
     public void unregisterConsumerInstance(EventConsumer<?> handler) {
-        if (handler == null) {
-            return;
-        }
-
-        for (Map.Entry<String, List<EventConsumer<?>>> entry : eventHandlers.entrySet()) {
-            List<EventConsumer<?>> handlers = entry.getValue();
-            if (handlers != null) {
-                handlers.removeIf(existing -> existing == handler);
-            }
-        }
+        dispatcher.unregisterConsumerInstance(handler);
     }
 
     private void setConsumer(Properties props) {
@@ -132,14 +152,19 @@ public class ConsumerBridge implements Runnable, AutoCloseable {
     public void run() {
         try {
             while (running) {
-                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(1000));
-                for (ConsumerRecord<String, String> record : records) {
-                    processRecord(record);
-                }
+                pollOnce();
             }
         } catch (Exception e) {
             logger.error("Error in Kafka consumer loop: {}", e, e);
         } finally {
+            try {
+                drain(consumer.assignment());
+            } catch (Exception e) {
+                logger.warn("Error committing on shutdown", e);
+            }
+            if (workers != null) {
+                workers.close();
+            }
             if (consumer != null) {
                 try {
                     consumer.close();
@@ -151,75 +176,161 @@ public class ConsumerBridge implements Runnable, AutoCloseable {
         }
     }
 
-    void processRecord(ConsumerRecord<String, String> record) {
-        String key = record.key();
-        String value = record.value();
+    void pollOnce() {
+        resumeRetries();
+        long pollMs = paused ? 10 : retryAtNs.isEmpty() ? 1000 : RETRY_INITIAL_MS;
+        ConsumerRecords<String, PersonEvent> records = consumer.poll(Duration.ofMillis(pollMs));
+        if (workers == null) {
+            for (ConsumerRecord<String, PersonEvent> record : records) {
+                handle(record);
+                commits.maybeCommit();
+            }
+        } else {
+            for (ConsumerRecord<String, PersonEvent> record : records) {
+                submit(record);
+            }
+            throttle();
+        }
+        commits.maybeCommit();
+        dispatcher.maybeReport();
+    }
 
-        if (value == null || value.trim().isEmpty()) {
-            logger.debug("Received empty/null value from topic → skipping");
+    private void handle(ConsumerRecord<String, PersonEvent> record) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        if (retryAtNs.containsKey(partition)) {
+            // Sought back to an earlier failure; this one is polled again after it.
             return;
         }
-
-        JsonElement payloadJson;
+        OffsetTracker.Handle handle = offsets.started(partition, record.offset());
         try {
-            payloadJson = JsonParser.parseString(value);
-        } catch (JsonSyntaxException e) {
-            logger.warn("Failed to parse JSON from record (key={}, topic={}, partition={}, offset={}): {}",
-                    key, record.topic(), record.partition(), record.offset(), e.toString());
+            processRecord(record);
+        } catch (RuntimeException e) {
+            handle.failed();
+            retryLater(partition, record.offset(), e);
             return;
         }
+        handle.run();
+        backoffMs.remove(partition);
+    }
 
-        List<EventConsumer<?>> handlers = eventHandlers.get(key);
+    private void retryLater(TopicPartition partition, long offset, RuntimeException failure) {
+        long delayMs = backoffMs.merge(partition, RETRY_INITIAL_MS,
+                (last, initial) -> Math.min(last * 2, RETRY_MAX_MS));
+        logger.warn("Record (topic={}, partition={}, offset={}) failed, retrying in {}ms: {}",
+                partition.topic(), partition.partition(), offset, delayMs, failure.toString());
+        consumer.seek(partition, offset);
+        consumer.pause(List.of(partition));
+        retryAtNs.put(partition, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs));
+    }
 
-        if (handlers == null || handlers.isEmpty()) {
-            logger.debug("No handler registered for eventKey: {}", key);
-            return;
+    private void resumeRetries() {
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<TopicPartition, Long>> it = retryAtNs.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<TopicPartition, Long> retry = it.next();
+            if (now - retry.getValue() >= 0) {
+                it.remove();
+                consumer.resume(List.of(retry.getKey()));
+            }
         }
+    }
 
-        for (EventConsumer<?> rawHandler : handlers) {
-            try {
-                Type payloadType = resolveConsumerPayloadType(rawHandler);
-                Object data = mapper.fromJson(payloadJson, payloadType);
-                @SuppressWarnings("unchecked")
-                EventConsumer<Object> handler = (EventConsumer<Object>) rawHandler;
-                handler.handleData(data);
-                logger.debug("Processed event {} with handler {}", key, rawHandler.getClass().getSimpleName());
-            } catch (Exception e) {
-                logger.error("Handler {} failed for event {}: {}",
-                        rawHandler.getClass().getSimpleName(), key, e, e);
-            }
+    private void forgetRetries(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            retryAtNs.remove(partition);
+            backoffMs.remove(partition);
         }
     }
 
-    Type resolveConsumerPayloadType(EventConsumer<?> consumer) {
-        if (consumer == null) {
-            return Object.class;
+    void processRecord(ConsumerRecord<String, PersonEvent> record) {
+        PersonEvent event = record.value();
+
+        if (event == null) {
+            logger.debug("Unreadable or empty record (topic={}, partition={}, offset={}) → skipping",
+                    record.topic(), record.partition(), record.offset());
+            return;
         }
 
-        Class<?> clazz = consumer.getClass();
-        while (clazz != null && clazz != Object.class) {
-            Type genericSuperclass = clazz.getGenericSuperclass();
-            if (genericSuperclass instanceof ParameterizedType parameterized) {
-                Type rawType = parameterized.getRawType();
-                if (rawType instanceof Class<?> rawClass && rawClass == EventConsumer.class) {
-                    Type[] args = parameterized.getActualTypeArguments();
-                    if (args != null && args.length == 1 && args[0] != null) {
-                        return args[0];
-                    }
+        dispatcher.accept(event);
+    }
+
+    private void submit(ConsumerRecord<String, PersonEvent> record) {
+        OffsetTracker.Handle handle = offsets.started(
+                new TopicPartition(record.topic(), record.partition()), record.offset());
+        // Keyless records stay in partition order.
+        Object key = record.key() != null ? record.key() : record.partition();
+        workers.submit(key, () -> {
+            for (long delayMs = RETRY_INITIAL_MS; ; delayMs = Math.min(delayMs * 2, RETRY_MAX_MS)) {
+                try {
+                    processRecord(record);
+                    handle.run();
+                    return;
+                } catch (RuntimeException e) {
+                    logger.warn("Record (topic={}, partition={}, offset={}) failed, retrying in {}ms: {}",
+                            record.topic(), record.partition(), record.offset(), delayMs, e.toString());
+                }
+                if (handle.isAbandoned() || !awaitRetry(delayMs)) {
+                    // Nothing from here on is committed, so the partition's next owner handles it again.
+                    handle.failed();
+                    return;
                 }
             }
-            clazz = clazz.getSuperclass();
+        });
+    }
+
+    /**
+     * @return false if the bridge is stopping
+     */
+    private boolean awaitRetry(long delayMs) {
+        try {
+            return !stopped.await(delayMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Pausing keeps the consumer polling, and so in the group, while the workers catch up.
+    private void throttle() {
+        boolean full = offsets.inFlight() >= IN_FLIGHT_PER_WORKER * workers.size();
+        if (full) {
+            // Again on every poll: partitions assigned meanwhile start out unpaused.
+            consumer.pause(consumer.assignment());
+            paused = true;
+        } else if (paused) {
+            consumer.resume(consumer.paused());
+            paused = false;
         }
+    }
 
-        return Object.class;
+    // Runs on the polling thread, from the rebalance listener or on shutdown.
+    private void drain(Collection<TopicPartition> partitions) {
+        try {
+            // On the polling thread nothing else is running.
+            if (!offsets.awaitIdle(partitions, workers == null ? 0 : DRAIN_TIMEOUT_MS)) {
+                logger.warn("Records of {} left unfinished; the next owner handles them again", partitions);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            commits.commitSync(partitions);
+        } catch (KafkaException e) {
+            // The next owner starts from the last commit that made it and handles the rest again.
+            logger.warn("Offset commit for {} failed: {}", partitions, e.toString());
+        } finally {
+            offsets.forget(partitions);
+            commits.forget(partitions);
+            forgetRetries(partitions);
+        }
     }
 
     void registerConsumer(String key, EventConsumer<?> consumer) {
-        eventHandlers.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(consumer);
+        dispatcher.registerConsumer(key, consumer);
     }
 
     public void shutdown() {
         running = false;
+        stopped.countDown();
     }
 
     @Override
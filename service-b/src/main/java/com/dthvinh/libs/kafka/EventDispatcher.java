@@ -0,0 +1,142 @@
+package com.dthvinh.libs.kafka;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.transport.EventSink;
+import com.dthvinh.libs.kafka.annotation.EventHandler;
+import com.dthvinh.libs.kafka.base.EventConsumer;
+import com.dthvinh.libs.kafka.common.Env;
+
+/**
+ * The {@link EventConsumer}s by the {@link EventHandler#eventKey()} they handle, and the dispatch of an event to
+ * them, whichever transport the event came by. A failing handler is logged and counted; it does not stop the others,
+ * but its failure is thrown once they have run, so the transport can deliver the event again.
+ */
+public class EventDispatcher implements EventSink {
+
+    private final Logger logger;
+    private final Map<String, List<EventConsumer<?>>> eventHandlers = new ConcurrentHashMap<>();
+    private final EventStats stats;
+
+    public EventDispatcher(Logger logger) {
+        this.logger = logger;
+        this.stats = new EventStats(logger,
+                Env.longOr(Env.EVENT_SUMMARY_INTERVAL_MS, EventStats.DEFAULT_INTERVAL_MS), System::nanoTime);
+    }
+
+    void registerEventHandlers(Collection<EventConsumer<?>> initialHandlers) {
+        int available = initialHandlers == null ? 0 : initialHandlers.size();
+        logger.info("Registering EventConsumer service(s) (count={})", available);
+
+        int registeredCount = 0;
+
+        if (initialHandlers != null) {
+            for (EventConsumer<?> handler : initialHandlers) {
+                if (registerConsumerFromAnnotation(handler)) {
+                    registeredCount++;
+                }
+            }
+        }
+
+        if (registeredCount == 0) {
+            logger.warn(
+                    "No event handlers were registered. In OSGi, make sure handlers are DS services of type EventConsumer.");
+        } else {
+            logger.info("Successfully registered {} event handler(s)", registeredCount);
+        }
+    }
+
+    public boolean registerConsumerFromAnnotation(EventConsumer<?> handler) {
+        if (handler == null) {
+            return false;
+        }
+
+        Class<?> clazz = handler.getClass();
+        EventHandler annotation = clazz.getAnnotation(EventHandler.class);
+        if (annotation == null) {
+            logger.warn("EventConsumer {} is missing @EventHandler annotation", clazz.getName());
+            return false;
+        }
+
+        String eventKey = annotation.eventKey();
+        if (eventKey == null || eventKey.trim().isEmpty()) {
+            logger.warn("Invalid/missing eventKey in @EventHandler on {}", clazz.getName());
+            return false;
+        }
+
+        registerConsumer(eventKey, handler);
+        logger.info("Registered handler {} for eventKey '{}'", clazz.getSimpleName(), eventKey);
+        return true;
+    }
+
+    public void unregisterConsumerInstance(EventConsumer<?> handler) {
+        if (handler == null) {
+            return;
+        }
+
+        for (Map.Entry<String, List<EventConsumer<?>>> entry : eventHandlers.entrySet()) {
+            List<EventConsumer<?>> handlers = entry.getValue();
+            if (handlers != null) {
+                handlers.removeIf(existing -> existing == handler);
+            }
+        }
+    }
+
+    void registerConsumer(String key, EventConsumer<?> consumer) {
+        eventHandlers.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(consumer);
+    }
+
+    /**
+     * @throws RuntimeException the first handler failure, with any later ones suppressed
+     */
+    @Override
+    public void accept(PersonEvent event) {
+        String key = event.type();
+        List<EventConsumer<?>> handlers = eventHandlers.get(key);
+
+        if (handlers == null || handlers.isEmpty()) {
+            logger.debug("No handler registered for eventKey: {}", key);
+            return;
+        }
+
+        RuntimeException failure = null;
+        for (EventConsumer<?> rawHandler : handlers) {
+            long startNs = System.nanoTime();
+            try {
+                @SuppressWarnings("unchecked")
+                EventConsumer<PersonEvent> handler = (EventConsumer<PersonEvent>) rawHandler;
+                handler.handleData(event);
+                stats.record(key, true, System.nanoTime() - startNs);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Processed event {} with handler {}", key, rawHandler.getClass().getSimpleName());
+                }
+            } catch (RuntimeException e) {
+                stats.record(key, false, System.nanoTime() - startNs);
+                logger.error("Handler {} failed for event {}: {}",
+                        rawHandler.getClass().getSimpleName(), key, e, e);
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * See {@link EventStats#maybeReport()}.
+     */
+    public void maybeReport() {
+        stats.maybeReport();
+    }
+}
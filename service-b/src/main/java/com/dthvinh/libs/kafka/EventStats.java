@@ -0,0 +1,80 @@
+package com.dthvinh.libs.kafka;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+
+/**
+ * Per-event counters that replace a log line per record: handlers are counted and timed, and one INFO line
+ * summarising the last interval is written at most every {@code intervalMs}.
+ */
+public final class EventStats {
+    public static final long DEFAULT_INTERVAL_MS = 10_000;
+
+    private final Logger log;
+    private final long intervalNs;
+    private final LongSupplier nanoClock;
+    private final Map<String, Counters> byEvent = new ConcurrentHashMap<>();
+    private final AtomicLong windowStartNs;
+
+    public EventStats(Logger log, long intervalMs, LongSupplier nanoClock) {
+        this.log = log;
+        this.intervalNs = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        this.nanoClock = nanoClock;
+        this.windowStartNs = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    public void record(String event, boolean succeeded, long elapsedNs) {
+        Counters counters = byEvent.get(event);
+        if (counters == null) {
+            counters = byEvent.computeIfAbsent(event, e -> new Counters());
+        }
+        (succeeded ? counters.processed : counters.failed).increment();
+        counters.elapsedNs.add(elapsedNs);
+    }
+
+    /**
+     * Writes the summary if the interval has passed. Called from the poll loops, so no extra thread is needed; when
+     * several call it at once, one of them writes the summary.
+     */
+    public void maybeReport() {
+        long now = nanoClock.getAsLong();
+        long start = windowStartNs.get();
+        if (now - start < intervalNs || !windowStartNs.compareAndSet(start, now)) {
+            return;
+        }
+        long windowMs = TimeUnit.NANOSECONDS.toMillis(now - start);
+
+        StringBuilder line = null;
+        for (Map.Entry<String, Counters> entry : new TreeMap<>(byEvent).entrySet()) {
+            Counters counters = entry.getValue();
+            long processed = counters.processed.sumThenReset();
+            long failed = counters.failed.sumThenReset();
+            long elapsedNs = counters.elapsedNs.sumThenReset();
+            if (processed + failed == 0) {
+                continue;
+            }
+            line = line == null ? new StringBuilder() : line.append(", ");
+            line.append(entry.getKey())
+                    .append(" processed=").append(processed)
+                    .append(" failed=").append(failed)
+                    .append(" avg=").append(TimeUnit.NANOSECONDS.toMicros(elapsedNs / (processed + failed)))
+                    .append("us");
+        }
+        if (line != null && log.isInfoEnabled()) {
+            log.info("Events in the last {}ms: {}", windowMs, line);
+        }
+    }
+
+    private static final class Counters {
+        final LongAdder processed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder elapsedNs = new LongAdder();
+    }
+}
@@ -0,0 +1,61 @@
+package com.dthvinh.libs.kafka;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker threads that tasks are spread over by key: tasks with equal keys run one after another in the order they
+ * were submitted, tasks with different keys run in parallel as far as the keys spread over the workers. Queues are
+ * unbounded; the caller limits how much it submits.
+ */
+public final class KeyedWorkerPool implements AutoCloseable {
+    static final long CLOSE_TIMEOUT_MS = 30_000;
+
+    private final ExecutorService[] workers;
+
+    /**
+     * @throws IllegalArgumentException if {@code workers} is below 1
+     */
+    public KeyedWorkerPool(int workers, String name) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Worker count must be at least 1, got " + workers);
+        }
+        this.workers = new ExecutorService[workers];
+        for (int i = 0; i < workers; i++) {
+            String threadName = name + "-" + i;
+            this.workers[i] = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void submit(Object key, Runnable task) {
+        int hash = key.hashCode();
+        workers[Math.floorMod(hash ^ (hash >>> 16), workers.length)].execute(task);
+    }
+
+    public int size() {
+        return workers.length;
+    }
+
+    /**
+     * Runs what was already submitted, waiting at most {@value #CLOSE_TIMEOUT_MS}ms for it.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MS);
+            for (ExecutorService worker : workers) {
+                worker.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.dthvinh.libs.kafka;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.transport.EventSink;
+import com.dthvinh.contracts.transport.EventSource;
+import com.dthvinh.contracts.transport.EventTransport;
+import com.dthvinh.contracts.transport.LoopbackTransport;
+import com.dthvinh.libs.kafka.base.EventConsumer;
+
+/**
+ * The in-VM way in for events, next to the {@link ConsumerBridge}s: a {@link LoopbackTransport} registered as an
+ * {@link EventTransport} for a service A in the same container to publish through, whose events go straight to the
+ * {@link EventConsumer} handlers. It only exists while the {@value #PID} configuration does; the handlers are
+ * subscribed before the service is handed to anyone, so they see every event sent through it.
+ */
+@Component(
+        service = {EventTransport.class, EventSource.class},
+        configurationPid = LoopbackBridge.PID,
+        configurationPolicy = ConfigurationPolicy.REQUIRE,
+        property = EventTransport.TRANSPORT_PROPERTY + "=" + LoopbackTransport.NAME
+)
+public class LoopbackBridge implements EventTransport, EventSource {
+    public static final String PID = "com.dthvinh.transport.loopback";
+    static final String LANES_PROPERTY = "lanes";
+    static final String CAPACITY_PROPERTY = "capacity";
+    static final String MAX_BLOCK_MS_PROPERTY = "max.block.ms";
+
+    private final Logger logger = LoggerFactory.getLogger(LoopbackBridge.class);
+    private final EventDispatcher dispatcher = new EventDispatcher(logger);
+    private LoopbackTransport transport;
+
+    @Reference(
+            service = EventConsumer.class,
+            cardinality = ReferenceCardinality.MULTIPLE,
+            policy = ReferencePolicy.DYNAMIC
+    )
+    protected void bindConsumer(EventConsumer<?> consumer) {
+        dispatcher.registerConsumerFromAnnotation(consumer);
+    }
+
+    protected void unbindConsumer(EventConsumer<?> consumer) {
+        dispatcher.unregisterConsumerInstance(consumer);
+    }
+
+    @Activate
+    public void start(Map<String, Object> config) {
+        int lanes = intProperty(config, LANES_PROPERTY, LoopbackTransport.DEFAULT_LANES, 1);
+        int capacity = intProperty(config, CAPACITY_PROPERTY, LoopbackTransport.DEFAULT_CAPACITY, 1);
+        int maxBlockMs = intProperty(config, MAX_BLOCK_MS_PROPERTY, (int) LoopbackTransport.DEFAULT_MAX_BLOCK_MS, 0);
+        transport = new LoopbackTransport(lanes, capacity, maxBlockMs);
+        transport.subscribe(event -> {
+            try {
+                dispatcher.accept(event);
+            } finally {
+                dispatcher.maybeReport();
+            }
+        });
+        logger.info("Loopback transport started ({} lanes of {} events)", lanes, capacity);
+    }
+
+    private int intProperty(Map<String, Object> config, String name, int fallback, int min) {
+        Object value = config == null ? null : config.get(name);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            int parsed = Integer.parseInt(value.toString().trim());
+            if (parsed >= min) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+            // Falls through to the warning below.
+        }
+        logger.warn("Invalid loopback {} '{}'; using {}", name, value, fallback);
+        return fallback;
+    }
+
+    @Deactivate
+    public void stop() {
+        if (transport != null) {
+            transport.close();
+            transport = null;
+        }
+        logger.info("Loopback transport stopped");
+    }
+
+    @Override
+    public CompletableFuture<Delivery> send(PersonEvent event) {
+        return transport.send(event);
+    }
+
+    @Override
+    public double headroom() {
+        return transport.headroom();
+    }
+
+    @Override
+    public Subscription subscribe(EventSink sink) {
+        return transport.subscribe(sink);
+    }
+}
@@ -0,0 +1,217 @@
+package com.dthvinh.libs.kafka;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * The records a consumer has handed to workers and not yet seen finished, per partition, and from them what is safe
+ * to commit: for each partition the offset after the last one below which everything has finished. Records of a
+ * partition finish out of order when they are processed in parallel, and committing past an unfinished one would
+ * lose it on a restart. A record whose handling failed holds the commit back the same way until it is started again.
+ *
+ * <p>{@link #started} and {@link #committable} are called from the polling thread; the {@link Handle} returned by
+ * {@code started} is used by whichever worker handles the record.
+ */
+public final class OffsetTracker {
+    private final Map<TopicPartition, Partition> partitions = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong finished = new AtomicLong();
+
+    /**
+     * A record handed out by {@link #started}. Only the first of {@link #run} and {@link #failed} counts, and neither
+     * does once the partition has been {@link #forget forgotten}.
+     */
+    public interface Handle extends Runnable {
+        /**
+         * Marks the record finished.
+         */
+        @Override
+        void run();
+
+        /**
+         * Takes the record out of the in-flight count without finishing it: nothing from its offset on is committed
+         * until the record is started again.
+         */
+        void failed();
+
+        /**
+         * Whether the partition has been forgotten since, so the record is no longer this consumer's to handle.
+         */
+        boolean isAbandoned();
+    }
+
+    public Handle started(TopicPartition partition, long offset) {
+        Partition tracked = partitions.computeIfAbsent(partition, p -> new Partition());
+        tracked.started(offset);
+        inFlight.incrementAndGet();
+        return new Handle() {
+            @Override
+            public void run() {
+                if (tracked.finished(offset)) {
+                    inFlight.decrementAndGet();
+                    finished.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void failed() {
+                if (tracked.failed(offset)) {
+                    inFlight.decrementAndGet();
+                }
+            }
+
+            @Override
+            public boolean isAbandoned() {
+                return tracked.isAbandoned();
+            }
+        };
+    }
+
+    /**
+     * Records handed out and not finished yet, over all partitions.
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Records finished so far, over all partitions and not counting those of forgotten partitions.
+     */
+    public long finished() {
+        return finished.get();
+    }
+
+    /**
+     * The offsets to commit for the partitions that have moved on since the last call.
+     */
+    public Map<TopicPartition, OffsetAndMetadata> committable() {
+        return committable(partitions.keySet());
+    }
+
+    public Map<TopicPartition, OffsetAndMetadata> committable(Collection<TopicPartition> of) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : of) {
+            Partition tracked = partitions.get(partition);
+            long offset = tracked == null ? -1 : tracked.advance();
+            if (offset >= 0) {
+                offsets.put(partition, new OffsetAndMetadata(offset));
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Waits until every record handed out for {@code of} has finished.
+     *
+     * @return false if some were still running after {@code timeoutMs}
+     */
+    public boolean awaitIdle(Collection<TopicPartition> of, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (TopicPartition partition : of) {
+            Partition tracked = partitions.get(partition);
+            if (tracked != null && !tracked.awaitIdle(deadline)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops partitions no longer assigned; records of theirs that finish later are not counted against whoever gets
+     * the partition next.
+     */
+    public void forget(Collection<TopicPartition> of) {
+        for (TopicPartition partition : of) {
+            Partition tracked = partitions.remove(partition);
+            if (tracked != null) {
+                inFlight.addAndGet(-tracked.abandon());
+            }
+        }
+    }
+
+    private static final class Partition {
+        // Guarded by this.
+        private final TreeSet<Long> running = new TreeSet<>();
+        private long next = -1;
+        private long committed = -1;
+        // Lowest offset whose handling failed and that has not been started again.
+        private long failed = Long.MAX_VALUE;
+        private boolean abandoned;
+
+        synchronized void started(long offset) {
+            running.add(offset);
+            next = Math.max(next, offset + 1);
+            if (offset <= failed) {
+                failed = Long.MAX_VALUE;
+            }
+        }
+
+        /**
+         * @return false if the record was already out of the count, by an earlier call or an abandoned partition
+         */
+        synchronized boolean finished(long offset) {
+            if (abandoned || !running.remove(offset)) {
+                return false;
+            }
+            if (running.isEmpty()) {
+                notifyAll();
+            }
+            return true;
+        }
+
+        synchronized boolean failed(long offset) {
+            if (!finished(offset)) {
+                return false;
+            }
+            failed = Math.min(failed, offset);
+            return true;
+        }
+
+        synchronized boolean isAbandoned() {
+            return abandoned;
+        }
+
+        /**
+         * @return the new offset to commit, or -1 if it has not moved
+         */
+        synchronized long advance() {
+            long safe = Math.min(running.isEmpty() ? next : running.first(), failed);
+            if (safe <= committed) {
+                return -1;
+            }
+            committed = safe;
+            return safe;
+        }
+
+        synchronized boolean awaitIdle(long deadlineNs) throws InterruptedException {
+            while (!running.isEmpty()) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineNs - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                wait(remainingMs);
+            }
+            return true;
+        }
+
+        /**
+         * @return how many records were still running
+         */
+        synchronized int abandon() {
+            abandoned = true;
+            int left = running.size();
+            running.clear();
+            notifyAll();
+            return left;
+        }
+    }
+}
@@ -1,21 +1,42 @@
 package com.dthvinh.libs.kafka;
 
 import com.dthvinh.libs.kafka.base.EventConsumer;
-import com.dthvinh.libs.kafka.common.ApplicationConstants;
+import com.dthvinh.contracts.TopicRoutes;
 import com.dthvinh.libs.kafka.common.Env;
 import org.osgi.service.component.annotations.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
 
-@Component(immediate = true)
+/**
+ * Starts the consumers: for every topic of the {@code EVENT_TOPICS} routes (the legacy topic included, so records
+ * published before a type was routed are still drained) a pool of {@link ConsumerBridge}s, each with its own
+ * {@code KafkaConsumer} on its own thread, all in one group so the topic's partitions are split between them. A
+ * backlog on one topic therefore never delays events on another. The bridges share one {@link EventDispatcher}, so a
+ * handler bound or unbound is seen by all of them at once.
+ *
+ * <p>The pool sizes come from the {@value #CONCURRENCY_PROPERTY} property of the {@value #PID} configuration, else
+ * from {@code CONSUMER_CONCURRENCY}, and follow changes to the configuration without a restart. So does
+ * {@value #WORKERS_PROPERTY} (else {@code CONSUMER_WORKERS}): the threads each bridge hands its records to by key, 0
+ * to handle them on the polling thread; changing it restarts the bridges.
+ */
+@Component(immediate = true, configurationPid = Starter.PID)
 public class Starter {
+    public static final String PID = "com.dthvinh.kafka.consumer";
+    static final String CONCURRENCY_PROPERTY = "concurrency";
+    static final String WORKERS_PROPERTY = "workers";
+    static final int MAX_WORKERS = 1_024;
+    static final String GROUP_ID = "person-service-group";
 
     private final Logger logger = LoggerFactory.getLogger(Starter.class);
-    private final List<EventConsumer<?>> consumers = new CopyOnWriteArrayList<>();
-    private ConsumerBridge bridge;
+    private final EventDispatcher dispatcher = new EventDispatcher(LoggerFactory.getLogger(ConsumerBridge.class));
+    // Topic -> its running bridges; guarded by this.
+    private final Map<String, List<ConsumerBridge>> pools = new LinkedHashMap<>();
+    private int workers;
 
     @Reference(
             service = EventConsumer.class,
@@ -23,35 +44,106 @@ public class Starter {
             policy = ReferencePolicy.DYNAMIC
     )
     protected void bindConsumer(EventConsumer<?> consumer) {
-        consumers.add(consumer);
-        if (bridge != null) {
-            bridge.registerConsumerFromAnnotation(consumer);
-        }
+        dispatcher.registerConsumerFromAnnotation(consumer);
     }
 
     protected void unbindConsumer(EventConsumer<?> consumer) {
-        consumers.remove(consumer);
-        if (bridge != null) {
-            bridge.unregisterConsumerInstance(consumer);
-        }
+        dispatcher.unregisterConsumerInstance(consumer);
     }
 
     @Activate
-    public void start() {
+    public synchronized void start(Map<String, Object> config) {
         logger.info("Start service-b server");
-        bridge = new ConsumerBridge(
-                Env.KAFKA_BOOTSTRAP_SERVER,
-                "person-service-group",
-                new String[]{ApplicationConstants.AppGlobalTopic},
-                consumers
-        );
-        new Thread(bridge, "Kafka-Consumer-Thread").start();
+        TopicRoutes routes;
+        try {
+            routes = TopicRoutes.parse(Env.EVENT_TOPICS);
+        } catch (IllegalArgumentException ex) {
+            logger.warn("{}; consuming the default topic only", ex.getMessage());
+            routes = TopicRoutes.LEGACY;
+        }
+        TopicConcurrency concurrency;
+        try {
+            concurrency = concurrency(config);
+        } catch (IllegalArgumentException ex) {
+            logger.warn("{}; one consumer per topic", ex.getMessage());
+            concurrency = TopicConcurrency.DEFAULT;
+        }
+
+        for (String topic : routes.topics()) {
+            pools.put(topic, new ArrayList<>());
+        }
+        workers = workers(config);
+        resize(concurrency);
     }
 
-    @Deactivate
-    public void stop() {
-        if (bridge != null) {
-            bridge.close();
+    @Modified
+    public synchronized void modified(Map<String, Object> config) {
+        TopicConcurrency concurrency;
+        try {
+            concurrency = concurrency(config);
+        } catch (IllegalArgumentException ex) {
+            logger.warn("{}; keeping the current consumers", ex.getMessage());
+            return;
+        }
+        int configured = workers(config);
+        if (configured != workers) {
+            logger.info("Restarting the consumers with {} worker(s) each", configured);
+            workers = configured;
+            closeAll();
         }
+        resize(concurrency);
+    }
+
+    private TopicConcurrency concurrency(Map<String, Object> config) {
+        Object value = config == null ? null : config.get(CONCURRENCY_PROPERTY);
+        return TopicConcurrency.parse(value == null ? Env.CONSUMER_CONCURRENCY : value.toString());
+    }
+
+    private int workers(Map<String, Object> config) {
+        Object value = config == null ? null : config.get(WORKERS_PROPERTY);
+        long configured = Env.longOr(value == null ? Env.CONSUMER_WORKERS : value.toString(), 0);
+        return (int) Math.max(0, Math.min(configured, MAX_WORKERS));
+    }
+
+    private void resize(TopicConcurrency concurrency) {
+        for (Map.Entry<String, List<ConsumerBridge>> entry : pools.entrySet()) {
+            String topic = entry.getKey();
+            List<ConsumerBridge> pool = entry.getValue();
+            int count = concurrency.consumersFor(topic);
+            if (count == pool.size()) {
+                continue;
+            }
+            logger.info("Consuming {} with {} consumer(s)", topic, count);
+            while (pool.size() < count) {
+                ConsumerBridge bridge = new ConsumerBridge(
+                        Env.KAFKA_BOOTSTRAP_SERVER,
+                        GROUP_ID,
+                        new String[]{topic},
+                        dispatcher,
+                        workers
+                );
+                new Thread(bridge, "Kafka-Consumer-" + topic + "-" + pool.size()).start();
+                pool.add(bridge);
+            }
+            while (pool.size() > count) {
+                // The group hands the partitions of the closed consumer to the ones left.
+                pool.remove(pool.size() - 1).close();
+            }
+        }
+    }
+
+    private void closeAll() {
+        for (List<ConsumerBridge> pool : pools.values()) {
+            for (ConsumerBridge bridge : pool) {
+                bridge.close();
+            }
+            pool.clear();
+        }
+    }
+
+    @Deactivate
+    public synchronized void stop() {
+        closeAll();
+        pools.clear();
     }
-}
\ No newline at end of file
+}
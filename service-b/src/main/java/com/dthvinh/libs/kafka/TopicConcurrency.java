@@ -0,0 +1,69 @@
+package com.dthvinh.libs.kafka;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How many consumers read each topic, written as {@code topic=count} pairs separated by commas, e.g.
+ * {@code person-updates=4,person-deletes=1}. A count on its own applies to the topics not listed, e.g.
+ * {@code 4,person-deletes=1}; without one they get one consumer.
+ */
+public final class TopicConcurrency {
+    public static final TopicConcurrency DEFAULT = new TopicConcurrency(Map.of(), 1);
+
+    private final Map<String, Integer> consumers;
+    private final int otherTopics;
+
+    private TopicConcurrency(Map<String, Integer> consumers, int otherTopics) {
+        this.consumers = Map.copyOf(consumers);
+        this.otherTopics = otherTopics;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a pair is malformed or a count is below 1
+     */
+    public static TopicConcurrency parse(String spec) {
+        Map<String, Integer> consumers = new HashMap<>();
+        int otherTopics = 1;
+        if (spec != null) {
+            for (String pair : spec.split(",")) {
+                if (pair.isBlank()) {
+                    continue;
+                }
+                int eq = pair.indexOf('=');
+                if (eq < 0) {
+                    otherTopics = count(pair, pair);
+                    continue;
+                }
+                String topic = pair.substring(0, eq).trim();
+                if (topic.isEmpty()) {
+                    throw new IllegalArgumentException("Invalid consumer concurrency '" + pair.trim() + "'");
+                }
+                consumers.put(topic, count(pair.substring(eq + 1), pair));
+            }
+        }
+        return new TopicConcurrency(consumers, otherTopics);
+    }
+
+    private static int count(String value, String pair) {
+        int count;
+        try {
+            count = Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            count = 0;
+        }
+        if (count < 1) {
+            throw new IllegalArgumentException("Invalid consumer concurrency '" + pair.trim() + "'");
+        }
+        return count;
+    }
+
+    public int consumersFor(String topic) {
+        return consumers.getOrDefault(topic, otherTopics);
+    }
+
+    @Override
+    public String toString() {
+        return consumers.isEmpty() ? Integer.toString(otherTopics) : consumers + ", others " + otherTopics;
+    }
+}
@@ -4,4 +4,23 @@ public final class Env {
     public static final String KAFKA_BOOTSTRAP_SERVER = System.getenv("KAFKA_BOOTSTRAP_SERVER");
     public static final String REDIS_PORT = System.getenv("REDIS_PORT");
     public static final String REDIS_HOST = System.getenv("REDIS_HOST");
+    public static final String EVENT_TOPICS = System.getenv("EVENT_TOPICS");
+    public static final String CONSUMER_CONCURRENCY = System.getenv("CONSUMER_CONCURRENCY");
+    public static final String CONSUMER_WORKERS = System.getenv("CONSUMER_WORKERS");
+    public static final String CONSUMER_COMMIT_BATCH_RECORDS = System.getenv("CONSUMER_COMMIT_BATCH_RECORDS");
+    public static final String CONSUMER_COMMIT_INTERVAL_MS = System.getenv("CONSUMER_COMMIT_INTERVAL_MS");
+    public static final String EVENT_SUMMARY_INTERVAL_MS = System.getenv("EVENT_SUMMARY_INTERVAL_MS");
+    public static final String PERSON_FILTER_CAPACITY = System.getenv("PERSON_FILTER_CAPACITY");
+    public static final String PERSON_FILTER_SNAPSHOT_INTERVAL_MS = System.getenv("PERSON_FILTER_SNAPSHOT_INTERVAL_MS");
+
+    public static long longOr(String value, long fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            return fallback;
+        }
+    }
 }
@@ -1,9 +1,10 @@
 package com.dthvinh.libs.kafka.consumer;
 
-import com.dthvinh.constants.Events;
+import com.dthvinh.contracts.CreatePerson;
+import com.dthvinh.contracts.Events;
+import com.dthvinh.libs.filter.KnownPersons;
 import com.dthvinh.libs.kafka.annotation.EventHandler;
 import com.dthvinh.libs.kafka.base.EventConsumer;
-import com.dthvinh.libs.kafka.dto.CreatePersonData;
 import com.dthvinh.libs.redis.CachingService;
 import com.dthvinh.libs.redis.KeyService;
 import org.osgi.service.component.annotations.Component;
@@ -15,7 +16,7 @@ import java.util.UUID;
 
 @Component(immediate = true, service = EventConsumer.class)
 @EventHandler(eventKey = Events.CreatePersonEvent)
-public class CreatePersonHandler extends EventConsumer<CreatePersonData> {
+public class CreatePersonHandler extends EventConsumer<CreatePerson> {
     @Reference(
             service = CachingService.class,
             cardinality = ReferenceCardinality.MANDATORY,
@@ -23,10 +24,18 @@ public class CreatePersonHandler extends EventConsumer<CreatePersonData> {
     )
     private CachingService cachingService;
 
+    @Reference
+    private KnownPersons knownPersons;
+
     @Override
-    public void handleData(CreatePersonData e) {
-        log.info("Received create person request {}", e);
+    public void handleData(CreatePerson e) {
+        log.debug("Received create person request {}", e);
 
-        cachingService.cache(KeyService.createKey(UUID.randomUUID()), e);
+        // Events published before service A assigned ids carry none.
+        UUID id = e.id() != null ? e.id() : UUID.randomUUID();
+        boolean created = cachingService.cache(KeyService.createKey(id), e);
+        if (created && e.id() != null) {
+            knownPersons.added(id);
+        }
     }
 }
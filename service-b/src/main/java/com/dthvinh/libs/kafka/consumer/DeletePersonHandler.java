@@ -1,6 +1,8 @@
 package com.dthvinh.libs.kafka.consumer;
 
-import com.dthvinh.constants.Events;
+import com.dthvinh.contracts.DeletePerson;
+import com.dthvinh.contracts.Events;
+import com.dthvinh.libs.filter.KnownPersons;
 import com.dthvinh.libs.kafka.annotation.EventHandler;
 import com.dthvinh.libs.kafka.base.EventConsumer;
 import com.dthvinh.libs.redis.CachingService;
@@ -10,11 +12,9 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 
-import java.util.UUID;
-
 @Component(immediate = true, service = EventConsumer.class)
 @EventHandler(eventKey = Events.DeletePersonEvent)
-public class DeletePersonHandler extends EventConsumer<UUID> {
+public class DeletePersonHandler extends EventConsumer<DeletePerson> {
     @Reference(
             service = CachingService.class,
             cardinality = ReferenceCardinality.MANDATORY,
@@ -22,10 +22,25 @@ public class DeletePersonHandler extends EventConsumer<UUID> {
     )
     private CachingService cachingService;
 
+    @Reference
+    private KnownPersons knownPersons;
+
+    public DeletePersonHandler() {
+    }
+
+    // For unit tests, outside OSGi
+    public DeletePersonHandler(CachingService cachingService, KnownPersons knownPersons) {
+        this.cachingService = cachingService;
+        this.knownPersons = knownPersons;
+    }
+
     @Override
-    public void handleData(UUID e) {
-        log.info("Received delete person request {}", e);
+    public void handleData(DeletePerson e) {
+        log.debug("Received delete person request {}", e);
 
-        cachingService.invalidate(KeyService.createKey(e));
+        // Only a delete that removed the key takes the id out: the filter holds no copy for any other.
+        if (cachingService.invalidate(KeyService.createKey(e.id()))) {
+            knownPersons.removed(e.id());
+        }
     }
 }
\ No newline at end of file
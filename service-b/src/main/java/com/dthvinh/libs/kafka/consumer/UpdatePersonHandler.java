@@ -1,9 +1,10 @@
 package com.dthvinh.libs.kafka.consumer;
 
-import com.dthvinh.constants.Events;
+import com.dthvinh.contracts.Events;
+import com.dthvinh.contracts.UpdatePerson;
+import com.dthvinh.libs.filter.KnownPersons;
 import com.dthvinh.libs.kafka.annotation.EventHandler;
 import com.dthvinh.libs.kafka.base.EventConsumer;
-import com.dthvinh.libs.kafka.dto.UpdatePersonData;
 import com.dthvinh.libs.redis.CachingService;
 import com.dthvinh.libs.redis.KeyService;
 import org.osgi.service.component.annotations.Component;
@@ -13,7 +14,7 @@ import org.osgi.service.component.annotations.ReferencePolicy;
 
 @Component(immediate = true, service = EventConsumer.class)
 @EventHandler(eventKey = Events.UpdatePersonEvent)
-public class UpdatePersonHandler extends EventConsumer<UpdatePersonData> {
+public class UpdatePersonHandler extends EventConsumer<UpdatePerson> {
     @Reference(
             service = CachingService.class,
             cardinality = ReferenceCardinality.MANDATORY,
@@ -21,10 +22,15 @@ public class UpdatePersonHandler extends EventConsumer<UpdatePersonData> {
     )
     private CachingService cachingService;
 
+    @Reference
+    private KnownPersons knownPersons;
+
     @Override
-    public void handleData(UpdatePersonData e) {
-        log.info("Received update person request {}", e);
+    public void handleData(UpdatePerson e) {
+        log.debug("Received update person request {}", e);
 
-        cachingService.cache(KeyService.createKey(e.id()), e);
+        if (cachingService.cache(KeyService.createKey(e.id()), e)) {
+            knownPersons.added(e.id());
+        }
     }
 }
\ No newline at end of file
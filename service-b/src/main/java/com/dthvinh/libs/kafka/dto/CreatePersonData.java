@@ -1,4 +0,0 @@
-package com.dthvinh.libs.kafka.dto;
-
-public record CreatePersonData(String name, int age) {
-}
@@ -1,20 +1,28 @@
 package com.dthvinh.libs.redis;
 
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.osgi.service.component.annotations.Component;
 
+import com.dthvinh.contracts.json.PersonJson;
 import com.dthvinh.libs.kafka.common.Env;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.reflect.TypeToken;
 
 import redis.clients.jedis.RedisClient;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
 
 @Component(immediate = true, service = CachingService.class)
 public class CachingService {
 
+    static final int SCAN_BATCH = 1_000;
+
     private final RedisClient jedis;
     private final Gson gson;
 
@@ -23,7 +31,7 @@ public class CachingService {
                 RedisClient.builder()
                         .hostAndPort(Env.REDIS_HOST, Integer.parseInt(Env.REDIS_PORT))
                         .build(),
-                new Gson());
+                PersonJson.register(new GsonBuilder()).create());
     }
 
     CachingService(RedisClient jedis, Gson gson) {
@@ -31,12 +39,16 @@ public class CachingService {
         this.gson = gson;
     }
 
-    public void cache(String key, Object value) {
+    /**
+     * @return whether {@code key} was created rather than overwritten ({@code SET ... GET}, so concurrent writers
+     *         agree on which of them created it)
+     */
+    public boolean cache(String key, Object value) {
         if (key == null || key.trim().isEmpty()) {
             throw new IllegalArgumentException("Cache key cannot be null or empty");
         }
         String json = gson.toJson(value);
-        jedis.set(key, json);
+        return jedis.setGet(key, json) == null;
     }
 
     public <T> T get(String key, Class<T> classOfT) {
@@ -78,10 +90,41 @@ public class CachingService {
         }
     }
 
-    public void invalidate(String key) {
-        if (key != null && !key.trim().isEmpty()) {
-            jedis.del(key);
+    public void cacheBytes(String key, byte[] value) {
+        if (key == null || key.trim().isEmpty()) {
+            throw new IllegalArgumentException("Cache key cannot be null or empty");
+        }
+        jedis.set(key.getBytes(StandardCharsets.UTF_8), value);
+    }
+
+    public byte[] getBytes(String key) {
+        if (key == null || key.trim().isEmpty()) {
+            throw new IllegalArgumentException("Cache key cannot be null or empty");
+        }
+        return jedis.get(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Visits every key matching {@code pattern}, a batch at a time ({@code SCAN}, so Redis is never blocked).
+     */
+    public void forEachKey(String pattern, Consumer<String> action) {
+        ScanParams params = new ScanParams().match(pattern).count(SCAN_BATCH);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            ScanResult<String> page = jedis.scan(cursor, params);
+            page.getResult().forEach(action);
+            cursor = page.getCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+    }
+
+    /**
+     * @return whether {@code key} existed and was deleted
+     */
+    public boolean invalidate(String key) {
+        if (key == null || key.trim().isEmpty()) {
+            return false;
         }
+        return jedis.del(key) > 0;
     }
 
     public void clearAll() {
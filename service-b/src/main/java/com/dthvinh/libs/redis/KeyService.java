@@ -3,6 +3,10 @@ package com.dthvinh.libs.redis;
 import java.util.UUID;
 
 public class KeyService {
+    public static final String PERSON_PATTERN = "persons:#*";
+    // Outside PERSON_PATTERN, so a key scan never picks it up.
+    public static final String PERSON_FILTER_KEY = "persons-filter";
+
     public static String createKey(String id) {
         return "persons:#%s".formatted(id);
     }
@@ -14,4 +18,19 @@ public class KeyService {
     public static String createKey(UUID id) {
         return "persons:#%s".formatted(id);
     }
+
+    /**
+     * The person id in a key made by {@link #createKey(UUID)}, or {@code null} for any other key.
+     */
+    public static UUID idOf(String key) {
+        int hash = key.indexOf('#');
+        if (hash < 0) {
+            return null;
+        }
+        try {
+            return UUID.fromString(key.substring(hash + 1));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,163 @@
+package com.dthvinh.bench;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.PersonEventDeserializer;
+import com.dthvinh.contracts.PersonEventSerializer;
+import com.dthvinh.contracts.UpdatePerson;
+import com.dthvinh.libs.kafka.CommitManager;
+import com.dthvinh.libs.kafka.OffsetTracker;
+import com.dthvinh.libs.kafka.common.Env;
+
+/**
+ * Records per second one consumer drains from a topic of {@value #PARTITIONS} partitions, committing with
+ * auto-commit ({@code auto}, the old setting), through a {@link CommitManager} with its default batching
+ * ({@code batched}, what {@code ConsumerBridge} does now) and through one committing after every record
+ * ({@code perRecord}, for scale). Records are tracked and handed to a no-op handler, so the score is the cost of
+ * consuming plus committing. Each invocation reads the whole topic with a fresh group. Needs a broker:
+ *
+ * <pre>
+ * KAFKA_BOOTSTRAP_SERVER=localhost:9092 \
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dthvinh.bench.CommitBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class CommitBenchmark {
+    static final int PARTITIONS = 8;
+    static final int RECORDS = 50_000;
+
+    @Param({"auto", "batched", "perRecord"})
+    public String commits;
+
+    private String topic;
+    private KafkaConsumer<String, PersonEvent> consumer;
+    private OffsetTracker offsets;
+    private CommitManager manager;
+
+    @Setup(Level.Trial)
+    public void fillTopic() throws Exception {
+        topic = "bench-commit-" + UUID.randomUUID();
+        Properties adminProps = new Properties();
+        adminProps.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, Env.KAFKA_BOOTSTRAP_SERVER);
+        try (Admin admin = Admin.create(adminProps)) {
+            admin.createTopics(List.of(new NewTopic(topic, PARTITIONS, (short) 1))).all().get(30, TimeUnit.SECONDS);
+        }
+
+        Properties props = new Properties();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, Env.KAFKA_BOOTSTRAP_SERVER);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, PersonEventSerializer.class.getName());
+        try (KafkaProducer<String, PersonEvent> producer = new KafkaProducer<>(props)) {
+            for (int i = 0; i < RECORDS; i++) {
+                UUID id = UUID.randomUUID();
+                producer.send(new ProducerRecord<>(topic, id.toString(), new UpdatePerson(id, "Benchmark Person", 30)));
+            }
+            producer.flush();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void newConsumer() {
+        boolean auto = "auto".equals(commits);
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, Env.KAFKA_BOOTSTRAP_SERVER);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "bench-commit-" + UUID.randomUUID());
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, PersonEventDeserializer.class.getName());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, Boolean.toString(auto));
+        props.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, "1000");
+        consumer = new KafkaConsumer<>(props);
+        // Assigned rather than subscribed, so no group join is timed.
+        consumer.assign(consumer.partitionsFor(topic).stream()
+                .map(info -> new TopicPartition(topic, info.partition()))
+                .toList());
+        offsets = new OffsetTracker();
+        manager = auto ? null : new CommitManager(consumer, offsets,
+                "perRecord".equals(commits) ? 1 : CommitManager.DEFAULT_BATCH_RECORDS,
+                CommitManager.DEFAULT_INTERVAL_MS, System::nanoTime, LoggerFactory.getLogger(CommitBenchmark.class));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void drain(Blackhole blackhole) {
+        int read = 0;
+        while (read < RECORDS) {
+            for (ConsumerRecord<String, PersonEvent> record : consumer.poll(Duration.ofMillis(100))) {
+                Runnable finished = offsets.started(new TopicPartition(record.topic(), record.partition()),
+                        record.offset());
+                blackhole.consume(record.value());
+                finished.run();
+                if (manager != null) {
+                    manager.maybeCommit();
+                }
+                read++;
+            }
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeConsumer() {
+        if (manager != null) {
+            manager.commitSync(consumer.assignment());
+        }
+        consumer.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTopic() throws Exception {
+        Properties adminProps = new Properties();
+        adminProps.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, Env.KAFKA_BOOTSTRAP_SERVER);
+        try (Admin admin = Admin.create(adminProps)) {
+            admin.deleteTopics(List.of(topic)).all().get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CommitBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
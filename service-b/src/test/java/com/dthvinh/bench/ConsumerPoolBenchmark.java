@@ -0,0 +1,176 @@
+package com.dthvinh.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import com.dthvinh.contracts.Events;
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.PersonEventSerializer;
+import com.dthvinh.contracts.UpdatePerson;
+import com.dthvinh.libs.kafka.ConsumerBridge;
+import com.dthvinh.libs.kafka.EventDispatcher;
+import com.dthvinh.libs.kafka.annotation.EventHandler;
+import com.dthvinh.libs.kafka.base.EventConsumer;
+import com.dthvinh.libs.kafka.common.Env;
+
+/**
+ * Records per second drained from one topic by 1, 2, 4 and 8 {@link ConsumerBridge}s in one group, sharing a
+ * dispatcher as the {@code Starter} pool does. The handler parks for {@value #HANDLER_LATENCY_US}us per record in
+ * place of the Redis round trip, so the score shows how far the pool hides handler latency. Each trial fills a
+ * topic of its own with {@value #PARTITIONS} partitions; each invocation drains it with a fresh group, timed from
+ * the moment every consumer holds its first record, so the group join is not counted. Needs a broker:
+ *
+ * <pre>
+ * KAFKA_BOOTSTRAP_SERVER=localhost:9092 \
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dthvinh.bench.ConsumerPoolBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ConsumerPoolBenchmark {
+    static final int PARTITIONS = 8;
+    static final int RECORDS = 20_000;
+    static final long HANDLER_LATENCY_US = 200;
+
+    @Param({"1", "2", "4", "8"})
+    public int consumers;
+
+    private final EventDispatcher dispatcher = new EventDispatcher(LoggerFactory.getLogger(ConsumerBridge.class));
+    private final List<ConsumerBridge> bridges = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private String topic;
+    private volatile CountDownLatch gate;
+    private volatile CountDownLatch drained;
+    private final Set<Thread> holding = ConcurrentHashMap.newKeySet();
+
+    @EventHandler(eventKey = Events.UpdatePersonEvent)
+    public final class SlowHandler extends EventConsumer<PersonEvent> {
+        @Override
+        public void handleData(PersonEvent e) {
+            CountDownLatch start = gate;
+            if (start.getCount() > 0) {
+                holding.add(Thread.currentThread());
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(HANDLER_LATENCY_US));
+            drained.countDown();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void fillTopic() throws Exception {
+        topic = "bench-consumer-pool-" + UUID.randomUUID();
+        Properties adminProps = new Properties();
+        adminProps.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, Env.KAFKA_BOOTSTRAP_SERVER);
+        try (Admin admin = Admin.create(adminProps)) {
+            admin.createTopics(List.of(new NewTopic(topic, PARTITIONS, (short) 1))).all().get(30, TimeUnit.SECONDS);
+        }
+
+        Properties props = new Properties();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, Env.KAFKA_BOOTSTRAP_SERVER);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, PersonEventSerializer.class.getName());
+        try (KafkaProducer<String, PersonEvent> producer = new KafkaProducer<>(props)) {
+            for (int i = 0; i < RECORDS; i++) {
+                UUID id = UUID.randomUUID();
+                producer.send(new ProducerRecord<>(topic, id.toString(), new UpdatePerson(id, "Benchmark Person", 30)));
+            }
+            producer.flush();
+        }
+        dispatcher.registerConsumerFromAnnotation(new SlowHandler());
+    }
+
+    @Setup(Level.Invocation)
+    public void joinGroup() throws InterruptedException {
+        gate = new CountDownLatch(1);
+        drained = new CountDownLatch(RECORDS);
+        holding.clear();
+        String group = "bench-consumer-pool-" + UUID.randomUUID();
+        for (int i = 0; i < consumers; i++) {
+            ConsumerBridge bridge = new ConsumerBridge(Env.KAFKA_BOOTSTRAP_SERVER, group, new String[]{topic},
+                    dispatcher);
+            Thread thread = new Thread(bridge, "Bench-Consumer-" + i);
+            bridges.add(bridge);
+            threads.add(thread);
+            thread.start();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (holding.size() < consumers && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void drain() throws InterruptedException {
+        gate.countDown();
+        drained.await();
+    }
+
+    @TearDown(Level.Invocation)
+    public void leaveGroup() throws InterruptedException {
+        gate.countDown();
+        bridges.forEach(ConsumerBridge::close);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        bridges.clear();
+        threads.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTopic() throws Exception {
+        Properties adminProps = new Properties();
+        adminProps.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, Env.KAFKA_BOOTSTRAP_SERVER);
+        try (Admin admin = Admin.create(adminProps)) {
+            admin.deleteTopics(List.of(topic)).all().get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ConsumerPoolBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,91 @@
+package com.dthvinh.libs.filter;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.contracts.DeletePerson;
+import com.dthvinh.contracts.filter.CuckooFilter;
+import com.dthvinh.libs.kafka.consumer.DeletePersonHandler;
+import com.dthvinh.libs.redis.CachingService;
+import com.dthvinh.libs.redis.KeyService;
+
+class KnownPersonsTest {
+    // Two buckets, so ids with the same fingerprint are easy to find.
+    static final int CAPACITY = 4;
+
+    private final CachingService redis = mock(CachingService.class);
+    private final KnownPersons known = new KnownPersons(redis, CAPACITY);
+
+    @Test
+    void deleteOfAnUnknownId_leavesACollidingStoredIdInTheFilter() {
+        UUID stored = UUID.randomUUID();
+        UUID unknown = collidingWith(stored);
+        scanFinds(stored);
+        known.reconcile();
+        // DEL finds no key for an id that was never created, or whose delete is redelivered.
+        when(redis.invalidate(anyString())).thenReturn(false);
+
+        new DeletePersonHandler(redis, known).handleData(new DeletePerson(unknown));
+
+        assertTrue(known.filter().mightContain(stored));
+    }
+
+    @Test
+    void collidingIdsKeepACopyEach() {
+        UUID first = UUID.randomUUID();
+        UUID second = collidingWith(first);
+        scanFinds();
+        known.reconcile();
+        known.added(first);
+        known.added(second);
+        when(redis.invalidate(KeyService.createKey(second))).thenReturn(true);
+
+        new DeletePersonHandler(redis, known).handleData(new DeletePerson(second));
+
+        assertTrue(known.filter().mightContain(first));
+    }
+
+    @Test
+    void deletesBeforeTheScanHasFinished_removeNothing() {
+        UUID stored = UUID.randomUUID();
+        UUID deleted = collidingWith(stored);
+        known.added(stored);
+        when(redis.invalidate(anyString())).thenReturn(true);
+
+        // The scan has not added the deleted id yet, so its removal could only hit the stored one's copy.
+        new DeletePersonHandler(redis, known).handleData(new DeletePerson(deleted));
+
+        assertTrue(known.filter().mightContain(stored));
+    }
+
+    private void scanFinds(UUID... ids) {
+        doAnswer(invocation -> {
+            Consumer<String> action = invocation.getArgument(1);
+            List.of(ids).forEach(id -> action.accept(KeyService.createKey(id)));
+            return null;
+        }).when(redis).forEachKey(eq(KeyService.PERSON_PATTERN), any());
+    }
+
+    // An id the filter cannot tell apart from {@code id}: same fingerprint, same buckets.
+    private static UUID collidingWith(UUID id) {
+        CuckooFilter probe = CuckooFilter.withCapacity(CAPACITY);
+        probe.add(id);
+        while (true) {
+            UUID other = UUID.randomUUID();
+            if (probe.mightContain(other)) {
+                return other;
+            }
+        }
+    }
+}
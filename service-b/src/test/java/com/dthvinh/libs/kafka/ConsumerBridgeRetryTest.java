@@ -0,0 +1,160 @@
+package com.dthvinh.libs.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import com.dthvinh.contracts.Events;
+import com.dthvinh.contracts.PersonEvent;
+import com.dthvinh.contracts.Topics;
+import com.dthvinh.contracts.UpdatePerson;
+import com.dthvinh.libs.kafka.annotation.EventHandler;
+import com.dthvinh.libs.kafka.base.EventConsumer;
+
+class ConsumerBridgeRetryTest {
+    private final TopicPartition p0 = new TopicPartition(Topics.PERSONS, 0);
+    private final UUID a = UUID.randomUUID();
+    private final UUID b = UUID.randomUUID();
+    private final UUID c = UUID.randomUUID();
+    private final RecordingConsumer consumer = new RecordingConsumer();
+    private final FlakyHandler handler = new FlakyHandler();
+
+    @EventHandler(eventKey = Events.UpdatePersonEvent)
+    static class FlakyHandler extends EventConsumer<UpdatePerson> {
+        final Set<UUID> failing = ConcurrentHashMap.newKeySet();
+        final Set<UUID> failOnce = ConcurrentHashMap.newKeySet();
+        final List<UUID> handled = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void handleData(UpdatePerson e) {
+            if (failing.contains(e.id()) || failOnce.remove(e.id())) {
+                throw new IllegalStateException("Redis is down");
+            }
+            handled.add(e.id());
+        }
+    }
+
+    // Keeps what was committed, which a closed MockConsumer no longer tells.
+    static class RecordingConsumer extends MockConsumer<String, PersonEvent> {
+        Map<TopicPartition, OffsetAndMetadata> committedAtClose = Map.of();
+
+        RecordingConsumer() {
+            super("earliest");
+        }
+
+        @Override
+        public synchronized void close() {
+            committedAtClose = committed(assignment());
+            super.close();
+        }
+    }
+
+    @Test
+    void throwingHandler_leavesItsOffsetUncommitted() {
+        handler.failing.add(b);
+        ConsumerBridge bridge = bridge();
+        deliver(0, a, b, c);
+
+        bridge.pollOnce();
+
+        assertEquals(List.of(a), handler.handled);
+        assertEquals(1, consumer.position(p0));
+        assertTrue(consumer.paused().contains(p0));
+
+        bridge.shutdown();
+        bridge.run();
+
+        assertEquals(new OffsetAndMetadata(1), consumer.committedAtClose.get(p0));
+    }
+
+    @Test
+    void failedRecord_isPolledAgainAfterTheBackoff_andThenCommitted() throws Exception {
+        handler.failOnce.add(b);
+        ConsumerBridge bridge = bridge();
+        deliver(0, a, b, c);
+
+        bridge.pollOnce();
+        assertEquals(List.of(a), handler.handled);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        boolean redelivered = false;
+        while (handler.handled.size() < 3 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+            bridge.pollOnce();
+            if (!redelivered && !consumer.paused().contains(p0)) {
+                // What the broker sends once the partition is resumed from the sought position.
+                deliver(1, b, c);
+                redelivered = true;
+            }
+        }
+
+        assertEquals(List.of(a, b, c), handler.handled);
+        bridge.shutdown();
+        bridge.run();
+        assertEquals(new OffsetAndMetadata(3), consumer.committedAtClose.get(p0));
+    }
+
+    @Test
+    void throwingHandlerOnAWorker_isRetriedInPlace_andCommittedOnceItSucceeds() throws Exception {
+        handler.failOnce.add(b);
+        ConsumerBridge bridge = bridge(2);
+        deliver(0, a, b, c);
+
+        bridge.pollOnce();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (handler.handled.size() < 3 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        assertEquals(Set.of(a, b, c), Set.copyOf(handler.handled));
+        bridge.shutdown();
+        bridge.run();
+        assertEquals(new OffsetAndMetadata(3), consumer.committedAtClose.get(p0));
+    }
+
+    @Test
+    void recordStillFailingOnAWorkerAtShutdown_isNotCommitted() throws Exception {
+        handler.failing.add(b);
+        ConsumerBridge bridge = bridge(2);
+        deliver(0, a, b, c);
+
+        bridge.pollOnce();
+        TimeUnit.MILLISECONDS.sleep(3 * ConsumerBridge.RETRY_INITIAL_MS);
+        bridge.shutdown();
+        bridge.run();
+
+        assertEquals(Set.of(a, c), Set.copyOf(handler.handled));
+        assertEquals(new OffsetAndMetadata(1), consumer.committedAtClose.get(p0));
+    }
+
+    private ConsumerBridge bridge() {
+        return bridge(0);
+    }
+
+    private ConsumerBridge bridge(int workers) {
+        consumer.assign(List.of(p0));
+        consumer.updateBeginningOffsets(Map.of(p0, 0L));
+        return new ConsumerBridge(consumer, List.of(handler), workers);
+    }
+
+    private void deliver(long firstOffset, UUID... ids) {
+        long offset = firstOffset;
+        for (UUID id : ids) {
+            consumer.addRecord(new ConsumerRecord<>(p0.topic(), p0.partition(), offset++, id.toString(),
+                    new UpdatePerson(id, "Person", 30)));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package libTests;
+
+import com.dthvinh.libs.kafka.CommitManager;
+import com.dthvinh.libs.kafka.OffsetTracker;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CommitManagerTest {
+    private final TopicPartition p0 = new TopicPartition("person-updates", 0);
+    private final TopicPartition p1 = new TopicPartition("person-updates", 1);
+    private final AtomicLong now = new AtomicLong();
+    private final List<Map<TopicPartition, OffsetAndMetadata>> asyncCommits = new ArrayList<>();
+    private final List<OffsetCommitCallback> callbacks = new ArrayList<>();
+    private final List<Map<TopicPartition, OffsetAndMetadata>> syncCommits = new ArrayList<>();
+    private final OffsetTracker offsets = new OffsetTracker();
+    private final CommitManager commits = new CommitManager(consumer(), offsets, 3, 1_000, now::get, logger());
+
+    @Test
+    void commitsOnceABatchHasFinished() {
+        offsets.started(p0, 0).run();
+        offsets.started(p0, 1).run();
+        Runnable third = offsets.started(p0, 2);
+        commits.maybeCommit();
+        Assertions.assertTrue(asyncCommits.isEmpty());
+
+        third.run();
+        commits.maybeCommit();
+        Assertions.assertEquals(List.of(Map.of(p0, new OffsetAndMetadata(3))), asyncCommits);
+    }
+
+    @Test
+    void commitsWhatHasFinishedOnceTheIntervalHasPassed() {
+        commits.maybeCommit();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        commits.maybeCommit();
+        Assertions.assertTrue(asyncCommits.isEmpty());
+
+        offsets.started(p0, 0).run();
+        commits.maybeCommit();
+        Assertions.assertEquals(List.of(Map.of(p0, new OffsetAndMetadata(1))), asyncCommits);
+    }
+
+    @Test
+    void failedCommitIsRetried_unlessALaterOneSucceeded() {
+        finish(p0, 0, 3);
+        finish(p1, 0, 3);
+        commits.maybeCommit();
+        finish(p0, 3, 6);
+        commits.maybeCommit();
+
+        callbacks.get(0).onComplete(asyncCommits.get(0), new RuntimeException("coordinator moved"));
+        callbacks.get(1).onComplete(asyncCommits.get(1), null);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        commits.maybeCommit();
+
+        // p0 moved on to 6 since; only p1's offset is sent again.
+        Assertions.assertEquals(Map.of(p1, new OffsetAndMetadata(3)), asyncCommits.get(2));
+    }
+
+    @Test
+    void commitSyncCommitsTheGivenPartitionsRightAway() {
+        offsets.started(p0, 0).run();
+        offsets.started(p1, 0).run();
+
+        commits.commitSync(List.of(p0));
+
+        Assertions.assertEquals(List.of(Map.of(p0, new OffsetAndMetadata(1))), syncCommits);
+        Assertions.assertTrue(asyncCommits.isEmpty());
+    }
+
+    private void finish(TopicPartition partition, int from, int to) {
+        for (int offset = from; offset < to; offset++) {
+            offsets.started(partition, offset).run();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String, String> consumer() {
+        return (Consumer<String, String>) Proxy.newProxyInstance(Consumer.class.getClassLoader(),
+                new Class<?>[]{Consumer.class}, (proxy, m, args) -> {
+                    if (m.getName().equals("commitAsync") && args != null && args.length == 2) {
+                        asyncCommits.add(Map.copyOf((Map<TopicPartition, OffsetAndMetadata>) args[0]));
+                        callbacks.add((OffsetCommitCallback) args[1]);
+                    } else if (m.getName().equals("commitSync") && args != null && args.length == 1) {
+                        syncCommits.add(Map.copyOf((Map<TopicPartition, OffsetAndMetadata>) args[0]));
+                    }
+                    return null;
+                });
+    }
+
+    private Logger logger() {
+        return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[]{Logger.class},
+                (proxy, m, args) -> m.getReturnType() == boolean.class ? false : null);
+    }
+}
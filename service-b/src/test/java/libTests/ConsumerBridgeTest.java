@@ -1,6 +1,6 @@
 package libTests;
 
-import com.dthvinh.constants.Events;
+import com.dthvinh.contracts.Events;
 import com.dthvinh.libs.kafka.annotation.EventHandler;
 import com.dthvinh.libs.kafka.base.EventConsumer;
 import com.dthvinh.libs.kafka.consumer.CreatePersonHandler;
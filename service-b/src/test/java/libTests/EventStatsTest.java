@@ -0,0 +1,90 @@
+package libTests;
+
+import com.dthvinh.libs.kafka.EventStats;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EventStatsTest {
+    private final AtomicLong now = new AtomicLong();
+    private final List<String> lines = new CopyOnWriteArrayList<>();
+    private final EventStats stats = new EventStats(logger(), 1_000, now::get);
+
+    @Test
+    void summarisesOncePerInterval() {
+        for (int i = 0; i < 3; i++) {
+            stats.record("CreatePersonEvent", true, TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        stats.record("DeletePersonEvent", false, TimeUnit.MICROSECONDS.toNanos(40));
+
+        stats.maybeReport();
+        Assertions.assertTrue(lines.isEmpty());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        stats.maybeReport();
+
+        Assertions.assertEquals(List.of("Events in the last 1000ms: "
+                + "CreatePersonEvent processed=3 failed=0 avg=100us, "
+                + "DeletePersonEvent processed=0 failed=1 avg=40us"), lines);
+    }
+
+    @Test
+    void quietIntervalsAreNotLogged() {
+        stats.record("CreatePersonEvent", true, 1);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        stats.maybeReport();
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        stats.maybeReport();
+
+        Assertions.assertEquals(1, lines.size());
+    }
+
+    @Test
+    void concurrentPollLoopsReportOnce() throws InterruptedException {
+        stats.record("CreatePersonEvent", true, 1);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                stats.maybeReport();
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assertions.assertEquals(1, lines.size());
+    }
+
+    private Logger logger() {
+        return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[]{Logger.class},
+                (proxy, m, args) -> {
+                    if (m.getName().equals("isInfoEnabled")) {
+                        return true;
+                    }
+                    if (m.getName().equals("info") && args.length == 3) {
+                        lines.add(((String) args[0]).replaceFirst("\\{}", String.valueOf(args[1]))
+                                .replaceFirst("\\{}", String.valueOf(args[2])));
+                    }
+                    return m.getReturnType() == boolean.class ? false : null;
+                });
+    }
+}
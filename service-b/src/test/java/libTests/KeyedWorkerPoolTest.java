@@ -0,0 +1,105 @@
+package libTests;
+
+import com.dthvinh.libs.kafka.KeyedWorkerPool;
+import com.dthvinh.libs.kafka.OffsetTracker;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+public class KeyedWorkerPoolTest {
+    private static final int PARTITIONS = 4;
+    private static final int KEYS = 200;
+    private static final int RECORDS_PER_PARTITION = 20_000;
+
+    @Test
+    void sameKeyInOrder_andCommitsNeverPassAnUnfinishedRecord() throws InterruptedException {
+        OffsetTracker tracker = new OffsetTracker();
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        List<AtomicIntegerArray> finished = new ArrayList<>();
+        List<TopicPartition> partitions = new ArrayList<>();
+        for (int p = 0; p < PARTITIONS; p++) {
+            finished.add(new AtomicIntegerArray(RECORDS_PER_PARTITION));
+            partitions.add(new TopicPartition("person-updates", p));
+        }
+
+        // Stands in for the polling thread's commits, checking each against what has really finished.
+        AtomicBoolean polling = new AtomicBoolean(true);
+        AtomicReference<String> violation = new AtomicReference<>();
+        Thread committer = new Thread(() -> {
+            while (polling.get()) {
+                check(tracker.committable(), partitions, finished, violation);
+            }
+        });
+
+        try (KeyedWorkerPool pool = new KeyedWorkerPool(8, "Test-Worker")) {
+            committer.start();
+            for (int offset = 0; offset < RECORDS_PER_PARTITION; offset++) {
+                for (int p = 0; p < PARTITIONS; p++) {
+                    // Every key lives on one partition, as the producer's partitioner puts it.
+                    String key = "person-" + (p + PARTITIONS * ThreadLocalRandom.current().nextInt(KEYS / PARTITIONS));
+                    int partition = p;
+                    int recordOffset = offset;
+                    Runnable done = tracker.started(partitions.get(p), offset);
+                    pool.submit(key, () -> {
+                        seen.computeIfAbsent(key, k -> new ArrayList<>()).add(recordOffset);
+                        if (ThreadLocalRandom.current().nextInt(100) == 0) {
+                            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                        }
+                        finished.get(partition).set(recordOffset, 1);
+                        done.run();
+                    });
+                }
+            }
+        }
+        polling.set(false);
+        committer.join();
+
+        Assertions.assertNull(violation.get());
+        int total = 0;
+        for (List<Integer> offsets : seen.values()) {
+            for (int i = 1; i < offsets.size(); i++) {
+                Assertions.assertTrue(offsets.get(i - 1) < offsets.get(i), "out of order: " + offsets);
+            }
+            total += offsets.size();
+        }
+        Assertions.assertEquals(PARTITIONS * RECORDS_PER_PARTITION, total);
+        Assertions.assertEquals(0, tracker.inFlight());
+        Map<TopicPartition, OffsetAndMetadata> last = tracker.committable();
+        for (TopicPartition partition : partitions) {
+            OffsetAndMetadata offset = last.get(partition);
+            if (offset != null) {
+                Assertions.assertEquals(RECORDS_PER_PARTITION, offset.offset());
+            }
+        }
+    }
+
+    private static void check(Map<TopicPartition, OffsetAndMetadata> committed, List<TopicPartition> partitions,
+            List<AtomicIntegerArray> finished, AtomicReference<String> violation) {
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : committed.entrySet()) {
+            AtomicIntegerArray done = finished.get(partitions.indexOf(entry.getKey()));
+            for (int offset = 0; offset < entry.getValue().offset(); offset++) {
+                if (done.get(offset) == 0) {
+                    violation.compareAndSet(null, entry.getKey() + " committed to " + entry.getValue().offset()
+                            + " with offset " + offset + " unfinished");
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsNoWorkers() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new KeyedWorkerPool(0, "Test-Worker"));
+    }
+}
@@ -0,0 +1,76 @@
+package libTests;
+
+import com.dthvinh.libs.kafka.OffsetTracker;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class OffsetTrackerTest {
+    private final TopicPartition p0 = new TopicPartition("person-updates", 0);
+    private final TopicPartition p1 = new TopicPartition("person-updates", 1);
+    private final OffsetTracker tracker = new OffsetTracker();
+
+    @Test
+    void commitsOnlyUpToTheFirstUnfinishedRecord() {
+        Runnable r10 = tracker.started(p0, 10);
+        Runnable r11 = tracker.started(p0, 11);
+        Runnable r12 = tracker.started(p0, 12);
+
+        r11.run();
+        r12.run();
+        Assertions.assertEquals(Map.of(p0, new OffsetAndMetadata(10)), tracker.committable());
+
+        r10.run();
+        Assertions.assertEquals(Map.of(p0, new OffsetAndMetadata(13)), tracker.committable());
+        Assertions.assertTrue(tracker.committable().isEmpty());
+        Assertions.assertEquals(0, tracker.inFlight());
+    }
+
+    @Test
+    void failedRecordsHoldTheCommitBackUntilStartedAgain() throws InterruptedException {
+        OffsetTracker.Handle r10 = tracker.started(p0, 10);
+        tracker.started(p0, 11).run();
+
+        r10.failed();
+        r10.run();
+        Assertions.assertEquals(0, tracker.inFlight());
+        Assertions.assertTrue(tracker.awaitIdle(List.of(p0), 0));
+        Assertions.assertEquals(Map.of(p0, new OffsetAndMetadata(10)), tracker.committable());
+
+        tracker.started(p0, 10).run();
+        Assertions.assertEquals(Map.of(p0, new OffsetAndMetadata(12)), tracker.committable());
+    }
+
+    @Test
+    void gapsInOffsetsDoNotHoldTheCommitBack() {
+        tracker.started(p0, 5).run();
+        tracker.started(p0, 9).run();
+
+        Assertions.assertEquals(Map.of(p0, new OffsetAndMetadata(10)), tracker.committable());
+    }
+
+    @Test
+    void forgottenPartitionsAreNotCommitted_andLateFinishesAreIgnored() throws InterruptedException {
+        Runnable late = tracker.started(p0, 1);
+        tracker.started(p1, 1).run();
+
+        Assertions.assertFalse(tracker.awaitIdle(List.of(p0), 10));
+        Assertions.assertTrue(tracker.awaitIdle(List.of(p1), 10));
+
+        tracker.forget(List.of(p0));
+        Assertions.assertEquals(0, tracker.inFlight());
+
+        Runnable again = tracker.started(p0, 1);
+        late.run();
+        Assertions.assertEquals(1, tracker.inFlight());
+        // The late finish of the old offset 1 does not let the commit pass the replayed one.
+        Assertions.assertEquals(Map.of(p0, new OffsetAndMetadata(1), p1, new OffsetAndMetadata(2)),
+                tracker.committable());
+        again.run();
+        Assertions.assertEquals(Map.of(p0, new OffsetAndMetadata(2)), tracker.committable());
+    }
+}
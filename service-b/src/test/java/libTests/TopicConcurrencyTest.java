@@ -0,0 +1,36 @@
+package libTests;
+
+import com.dthvinh.libs.kafka.TopicConcurrency;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TopicConcurrencyTest {
+
+    @Test
+    void listedTopicsGetTheirCount_othersOne() {
+        TopicConcurrency concurrency = TopicConcurrency.parse("person-updates=4, person-deletes = 2");
+
+        Assertions.assertEquals(4, concurrency.consumersFor("person-updates"));
+        Assertions.assertEquals(2, concurrency.consumersFor("person-deletes"));
+        Assertions.assertEquals(1, concurrency.consumersFor("microservice-service-bridge"));
+        Assertions.assertEquals(1, TopicConcurrency.parse(null).consumersFor("person-updates"));
+    }
+
+    @Test
+    void bareCountAppliesToUnlistedTopics() {
+        TopicConcurrency concurrency = TopicConcurrency.parse("4, person-deletes=1");
+
+        Assertions.assertEquals(4, concurrency.consumersFor("person-updates"));
+        Assertions.assertEquals(4, concurrency.consumersFor("microservice-service-bridge"));
+        Assertions.assertEquals(1, concurrency.consumersFor("person-deletes"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TopicConcurrency.parse("0"));
+    }
+
+    @Test
+    void rejectsMalformedPairs() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TopicConcurrency.parse("person-updates"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TopicConcurrency.parse("person-updates=0"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TopicConcurrency.parse("=3"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TopicConcurrency.parse("person-updates=x"));
+    }
+}